@@ -0,0 +1,22 @@
+package com.search.common.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vector math primitives implemented once with SIMD and once with scalar loops.
+ * Byte buffers hold native-order floats; offsets into them are in bytes.
+ */
+interface Kernels {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    float dot(float[] a, int aOffset, ByteBuffer b, int bByteOffset, int length);
+
+    float dot(ByteBuffer a, int aByteOffset, ByteBuffer b, int bByteOffset, int length);
+
+    float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    float squaredNorm(float[] a, int offset, int length);
+
+    void scale(float[] a, int offset, int length, float factor);
+}
@@ -0,0 +1,63 @@
+package com.search.common.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Plain-loop kernels, used when the incubator Vector API is not available.
+ */
+final class ScalarKernels implements Kernels {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, ByteBuffer b, int bByteOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b.getFloat(bByteOffset + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(ByteBuffer a, int aByteOffset, ByteBuffer b, int bByteOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a.getFloat(aByteOffset + i * Float.BYTES) * b.getFloat(bByteOffset + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            float diff = a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredNorm(float[] a, int offset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            float v = a[offset + i];
+            sum += v * v;
+        }
+        return sum;
+    }
+
+    @Override
+    public void scale(float[] a, int offset, int length, float factor) {
+        for (int i = 0; i < length; i++) {
+            a[offset + i] *= factor;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.search.common.vector;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Kernels on the incubator Vector API, at the widest lane count the CPU supports.
+ * The main loops accumulate with fused multiply-add; tails shorter than one
+ * vector fall back to scalar code.
+ */
+final class SimdKernels implements Kernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final ByteOrder ORDER = ByteOrder.nativeOrder();
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, ByteBuffer b, int bByteOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromByteBuffer(SPECIES, b, bByteOffset + i * Float.BYTES, ORDER);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b.getFloat(bByteOffset + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(ByteBuffer a, int aByteOffset, ByteBuffer b, int bByteOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            FloatVector va = FloatVector.fromByteBuffer(SPECIES, a, aByteOffset + i * Float.BYTES, ORDER);
+            FloatVector vb = FloatVector.fromByteBuffer(SPECIES, b, bByteOffset + i * Float.BYTES, ORDER);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a.getFloat(aByteOffset + i * Float.BYTES) * b.getFloat(bByteOffset + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .sub(FloatVector.fromArray(SPECIES, b, bOffset + i));
+            acc = diff.fma(diff, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float diff = a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredNorm(float[] a, int offset, int length) {
+        return dot(a, offset, a, offset, length);
+    }
+
+    @Override
+    public void scale(float[] a, int offset, int length, float factor) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            FloatVector.fromArray(SPECIES, a, offset + i).mul(factor).intoArray(a, offset + i);
+        }
+        for (; i < length; i++) {
+            a[offset + i] *= factor;
+        }
+    }
+}
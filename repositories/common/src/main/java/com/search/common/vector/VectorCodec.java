@@ -0,0 +1,241 @@
+package com.search.common.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compact binary wire format for embedding vectors.
+ *
+ * A frame is a 12-byte little-endian header followed by the vectors back
+ * to back, each {@code dimension} values long:
+ * <pre>
+ *   int32 count | int32 dimension | int32 encoding | values...
+ * </pre>
+ * Values are little-endian float32 or IEEE 754 binary16 (float16). Frames
+ * are sent as {@code application/octet-stream} bodies, or base64 encoded
+ * inside JSON responses.
+ */
+public final class VectorCodec {
+
+    /**
+     * Size of the frame header in bytes.
+     */
+    public static final int HEADER_BYTES = 12;
+
+    private VectorCodec() {
+    }
+
+    /**
+     * Value encodings.
+     */
+    public enum Encoding {
+        FLOAT32(1, 4),
+        FLOAT16(2, 2);
+
+        private final int id;
+        private final int bytesPerValue;
+
+        Encoding(int id, int bytesPerValue) {
+            this.id = id;
+            this.bytesPerValue = bytesPerValue;
+        }
+
+        /**
+         * Bytes used by one vector component.
+         *
+         * @return 4 for float32, 2 for float16
+         */
+        public int bytesPerValue() {
+            return bytesPerValue;
+        }
+
+        /**
+         * Parse an encoding name such as {@code float16}.
+         *
+         * @param name encoding name, case-insensitive
+         * @return the encoding
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        public static Encoding fromName(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        static Encoding fromId(int id) {
+            for (Encoding encoding : values()) {
+                if (encoding.id == id) {
+                    return encoding;
+                }
+            }
+            throw new IllegalArgumentException("Unknown vector encoding id: " + id);
+        }
+    }
+
+    /**
+     * Encode one vector as a frame.
+     *
+     * @param vector the vector
+     * @param encoding value encoding
+     * @return the frame
+     */
+    public static byte[] encode(float[] vector, Encoding encoding) {
+        return encode(List.of(vector), vector.length, encoding);
+    }
+
+    /**
+     * Encode vectors of the same dimension as a frame.
+     *
+     * @param vectors the vectors
+     * @param dimension dimension of every vector
+     * @param encoding value encoding
+     * @return the frame
+     * @throws IllegalArgumentException if a vector has a different dimension
+     */
+    public static byte[] encode(List<float[]> vectors, int dimension, Encoding encoding) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + vectors.size() * dimension * encoding.bytesPerValue)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(vectors.size()).putInt(dimension).putInt(encoding.id);
+
+        for (float[] vector : vectors) {
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException(
+                        "Vector dimension mismatch: " + vector.length + " != " + dimension);
+            }
+            if (encoding == Encoding.FLOAT32) {
+                buffer.asFloatBuffer().put(vector);
+                buffer.position(buffer.position() + dimension * Float.BYTES);
+            } else {
+                for (float value : vector) {
+                    buffer.putShort(toHalf(value));
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decode every vector in a frame.
+     *
+     * @param frame the frame
+     * @return the vectors, in frame order
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    public static List<float[]> decode(byte[] frame) {
+        ByteBuffer buffer = header(frame);
+        int count = buffer.getInt();
+        int dimension = buffer.getInt();
+        Encoding encoding = Encoding.fromId(buffer.getInt());
+
+        long expected = HEADER_BYTES + (long) count * dimension * encoding.bytesPerValue;
+        if (count < 0 || dimension < 0 || expected != frame.length) {
+            throw new IllegalArgumentException("Vector frame of " + frame.length + " bytes does not hold "
+                    + count + " x " + dimension + " " + encoding + " values");
+        }
+
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[dimension];
+            if (encoding == Encoding.FLOAT32) {
+                buffer.asFloatBuffer().get(vector);
+                buffer.position(buffer.position() + dimension * Float.BYTES);
+            } else {
+                for (int j = 0; j < dimension; j++) {
+                    vector[j] = fromHalf(buffer.getShort());
+                }
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    /**
+     * Decode a frame holding exactly one vector.
+     *
+     * @param frame the frame
+     * @return the vector
+     * @throws IllegalArgumentException if the frame is malformed or holds another count
+     */
+    public static float[] decodeSingle(byte[] frame) {
+        List<float[]> vectors = decode(frame);
+        if (vectors.size() != 1) {
+            throw new IllegalArgumentException("Expected one vector, frame holds " + vectors.size());
+        }
+        return vectors.get(0);
+    }
+
+    private static ByteBuffer header(byte[] frame) {
+        if (frame == null || frame.length < HEADER_BYTES) {
+            throw new IllegalArgumentException("Vector frame is shorter than its header");
+        }
+        return ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Convert a float to float16 bits, rounding to nearest even.
+     *
+     * @param value the float
+     * @return binary16 bits
+     */
+    static short toHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+
+        if (exponent == 0xff) {
+            // Infinity stays infinity, NaN stays NaN
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+        }
+
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1f) {
+            return (short) (sign | 0x7c00);
+        }
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) {
+                return (short) sign;
+            }
+            // Subnormal: shift the mantissa, with its implicit bit, into place
+            mantissa |= 0x800000;
+            int shift = 14 - halfExponent;
+            return (short) (sign | roundShift(mantissa, shift));
+        }
+
+        // A rounding carry into the exponent is still correct, up to infinity
+        return (short) (sign | roundShift((halfExponent << 23) | mantissa, 13));
+    }
+
+    private static int roundShift(int value, int shift) {
+        int result = value >> shift;
+        int remainder = value & ((1 << shift) - 1);
+        int halfway = 1 << (shift - 1);
+        if (remainder > halfway || (remainder == halfway && (result & 1) != 0)) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Convert float16 bits to a float.
+     *
+     * @param half binary16 bits
+     * @return the float
+     */
+    static float fromHalf(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        if (exponent == 0) {
+            float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+}
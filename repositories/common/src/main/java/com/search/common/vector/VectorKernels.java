@@ -0,0 +1,246 @@
+package com.search.common.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Shared vector math for embeddings and local scoring.
+ *
+ * Uses SIMD kernels on the incubator Vector API when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, and scalar loops otherwise;
+ * results agree up to float rounding. The choice is made once at class
+ * load and can be forced to scalar with {@code -Dsearch.vector.simd=false}.
+ *
+ * Offsets into float arrays are in elements. Byte buffers must hold
+ * native-order floats and their offsets are in bytes, which lets callers
+ * score against off-heap or memory-mapped storage without copying.
+ */
+public final class VectorKernels {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorKernels.class);
+
+    private static final Kernels KERNELS = select();
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Check whether the SIMD kernels are in use.
+     *
+     * @return true if the Vector API implementation was selected
+     */
+    public static boolean isSimd() {
+        return KERNELS instanceof SimdKernels;
+    }
+
+    /**
+     * Dot product of two vectors of the same length.
+     *
+     * @param a first vector
+     * @param b second vector
+     * @return the dot product
+     */
+    public static float dot(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        return KERNELS.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Dot product of two slices.
+     *
+     * @param a first array
+     * @param aOffset start of the first slice
+     * @param b second array
+     * @param bOffset start of the second slice
+     * @param length slice length
+     * @return the dot product
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return KERNELS.dot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Dot product of a vector with floats stored in a byte buffer.
+     *
+     * @param a the vector
+     * @param b native-order buffer
+     * @param bByteOffset byte offset of the first float in the buffer
+     * @return the dot product over a.length floats
+     */
+    public static float dot(float[] a, ByteBuffer b, int bByteOffset) {
+        return KERNELS.dot(a, 0, b, bByteOffset, a.length);
+    }
+
+    /**
+     * Dot product of two runs of floats stored in byte buffers.
+     *
+     * @param a first native-order buffer
+     * @param aByteOffset byte offset of the first run
+     * @param b second native-order buffer
+     * @param bByteOffset byte offset of the second run
+     * @param length number of floats
+     * @return the dot product
+     */
+    public static float dot(ByteBuffer a, int aByteOffset, ByteBuffer b, int bByteOffset, int length) {
+        return KERNELS.dot(a, aByteOffset, b, bByteOffset, length);
+    }
+
+    /**
+     * Cosine similarity; 0 if either vector is zero.
+     *
+     * @param a first vector
+     * @param b second vector
+     * @return the cosine similarity
+     */
+    public static float cosine(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        float normProduct = KERNELS.squaredNorm(a, 0, a.length) * KERNELS.squaredNorm(b, 0, b.length);
+        if (normProduct == 0) {
+            return 0;
+        }
+        return (float) (KERNELS.dot(a, 0, b, 0, a.length) / Math.sqrt(normProduct));
+    }
+
+    /**
+     * Squared Euclidean distance.
+     *
+     * @param a first vector
+     * @param b second vector
+     * @return the squared distance
+     */
+    public static float squaredL2(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        return KERNELS.squaredL2(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Squared Euclidean distance of two slices.
+     *
+     * @param a first array
+     * @param aOffset start of the first slice
+     * @param b second array
+     * @param bOffset start of the second slice
+     * @param length slice length
+     * @return the squared distance
+     */
+    public static float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return KERNELS.squaredL2(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Euclidean distance.
+     *
+     * @param a first vector
+     * @param b second vector
+     * @return the distance
+     */
+    public static float l2(float[] a, float[] b) {
+        return (float) Math.sqrt(squaredL2(a, b));
+    }
+
+    /**
+     * Euclidean norm.
+     *
+     * @param a the vector
+     * @return the norm
+     */
+    public static float norm(float[] a) {
+        return (float) Math.sqrt(KERNELS.squaredNorm(a, 0, a.length));
+    }
+
+    /**
+     * L2-normalize a vector in place; zero vectors are left unchanged.
+     *
+     * @param a the vector
+     * @return the same array
+     */
+    public static float[] normalize(float[] a) {
+        normalize(a, 0, a.length);
+        return a;
+    }
+
+    /**
+     * L2-normalize a slice in place; zero slices are left unchanged.
+     *
+     * @param a the array
+     * @param offset start of the slice
+     * @param length slice length
+     * @return true if the slice was non-zero
+     */
+    public static boolean normalize(float[] a, int offset, int length) {
+        float squaredNorm = KERNELS.squaredNorm(a, offset, length);
+        if (squaredNorm <= 0) {
+            return false;
+        }
+        KERNELS.scale(a, offset, length, (float) (1.0 / Math.sqrt(squaredNorm)));
+        return true;
+    }
+
+    /**
+     * Dot products of a query against each row of a row-major matrix.
+     *
+     * @param query the query vector
+     * @param matrix rows of query.length floats, back to back
+     * @param rows number of rows
+     * @param scores receives one score per row
+     */
+    public static void dotBatch(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimension = query.length;
+        for (int row = 0; row < rows; row++) {
+            scores[row] = KERNELS.dot(query, 0, matrix, row * dimension, dimension);
+        }
+    }
+
+    /**
+     * Dot products of a query against a list of vectors.
+     *
+     * @param query the query vector
+     * @param vectors the vectors, each of query.length
+     * @param scores receives one score per vector
+     */
+    public static void dotBatch(float[] query, float[][] vectors, float[] scores) {
+        for (int i = 0; i < vectors.length; i++) {
+            checkLength(query.length, vectors[i].length);
+            scores[i] = KERNELS.dot(query, 0, vectors[i], 0, query.length);
+        }
+    }
+
+    private static void checkLength(int a, int b) {
+        if (a != b) {
+            throw new IllegalArgumentException("Vector length mismatch: " + a + " vs " + b);
+        }
+    }
+
+    private static Kernels select() {
+        if (!Boolean.parseBoolean(System.getProperty("search.vector.simd", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            logger.info("Using scalar vector kernels");
+            return new ScalarKernels();
+        }
+
+        try {
+            Kernels simd = new SimdKernels();
+            // Exercise every entry point once: the incubator API changes between JDK releases
+            float[] probe = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17};
+            ByteBuffer buffer = ByteBuffer.allocate(probe.length * Float.BYTES).order(ByteOrder.nativeOrder());
+            buffer.asFloatBuffer().put(probe);
+            float expected = new ScalarKernels().dot(probe, 0, probe, 0, probe.length);
+            if (simd.dot(probe, 0, probe, 0, probe.length) != expected
+                    || simd.dot(probe, 0, buffer, 0, probe.length) != expected
+                    || simd.dot(buffer, 0, buffer, 0, probe.length) != expected
+                    || simd.squaredL2(probe, 0, probe, 0, probe.length) != 0
+                    || simd.squaredNorm(probe, 0, probe.length) != expected) {
+                throw new IllegalStateException("SIMD kernel self-check failed");
+            }
+            simd.scale(probe.clone(), 0, probe.length, 0.5f);
+            logger.info("Using SIMD vector kernels");
+            return simd;
+        } catch (LinkageError | RuntimeException e) {
+            logger.warn("SIMD vector kernels unavailable, using scalar fallback: {}", e.toString());
+            return new ScalarKernels();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.search.common.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorCodecTest {
+
+    private final Random random = new Random(42);
+
+    private float[] randomVector(int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return VectorKernels.normalize(vector);
+    }
+
+    @Test
+    void testFloat32RoundTripIsExact() {
+        List<float[]> vectors = List.of(randomVector(768), randomVector(768), randomVector(768));
+
+        byte[] frame = VectorCodec.encode(vectors, 768, VectorCodec.Encoding.FLOAT32);
+        assertEquals(VectorCodec.HEADER_BYTES + 3 * 768 * 4, frame.length);
+
+        List<float[]> decoded = VectorCodec.decode(frame);
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < vectors.size(); i++) {
+            assertArrayEquals(vectors.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void testFloat16RoundTripIsClose() {
+        float[] vector = randomVector(384);
+
+        byte[] frame = VectorCodec.encode(vector, VectorCodec.Encoding.FLOAT16);
+        assertEquals(VectorCodec.HEADER_BYTES + 384 * 2, frame.length);
+
+        float[] decoded = VectorCodec.decodeSingle(frame);
+        for (int i = 0; i < vector.length; i++) {
+            assertEquals(vector[i], decoded[i], Math.abs(vector[i]) / 1024 + 1e-7f);
+        }
+        assertEquals(1f, VectorKernels.cosine(vector, decoded), 1e-5);
+    }
+
+    @Test
+    void testHalfConversion() {
+        assertEquals(0x3c00, VectorCodec.toHalf(1f) & 0xffff);
+        assertEquals(0xc000, VectorCodec.toHalf(-2f) & 0xffff);
+        assertEquals(0x7bff, VectorCodec.toHalf(65504f) & 0xffff);
+        assertEquals(0x7c00, VectorCodec.toHalf(1e6f) & 0xffff);
+        assertEquals(0x0001, VectorCodec.toHalf(0x1p-24f) & 0xffff);
+        assertEquals(0x0000, VectorCodec.toHalf(1e-9f) & 0xffff);
+        assertEquals(0x3c00, VectorCodec.toHalf(1f + 0x1p-11f) & 0xffff); // ties to even
+        assertEquals(0x3c01, VectorCodec.toHalf(1f + 0x1p-11f + 0x1p-20f) & 0xffff);
+
+        for (int bits = 0; bits < 0x7c00; bits++) {
+            float value = VectorCodec.fromHalf((short) bits);
+            assertEquals(bits, VectorCodec.toHalf(value) & 0xffff);
+            assertEquals(bits | 0x8000, VectorCodec.toHalf(-value) & 0xffff);
+        }
+        assertTrue(Float.isNaN(VectorCodec.fromHalf(VectorCodec.toHalf(Float.NaN))));
+        assertEquals(Float.POSITIVE_INFINITY, VectorCodec.fromHalf(VectorCodec.toHalf(Float.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    void testRejectsMalformedFrames() {
+        byte[] frame = VectorCodec.encode(new float[]{1, 2, 3}, VectorCodec.Encoding.FLOAT32);
+
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode(new byte[4]));
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode(Arrays.copyOf(frame, frame.length - 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> VectorCodec.decodeSingle(VectorCodec.encode(List.of(), 3, VectorCodec.Encoding.FLOAT32)));
+        assertThrows(IllegalArgumentException.class,
+                () -> VectorCodec.encode(List.of(new float[2]), 3, VectorCodec.Encoding.FLOAT16));
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.Encoding.fromName("int8"));
+        assertEquals(VectorCodec.Encoding.FLOAT16, VectorCodec.Encoding.fromName(" Float16 "));
+    }
+}
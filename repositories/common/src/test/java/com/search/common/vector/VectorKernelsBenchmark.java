@@ -0,0 +1,104 @@
+package com.search.common.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the SIMD and scalar kernels across common embedding sizes.
+ *
+ * Run with: mvn -P jmh test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class VectorKernelsBenchmark {
+
+    private static final int BATCH = 256;
+
+    @Param({"384", "512", "768", "1024"})
+    private int dimension;
+
+    @Param({"simd", "scalar"})
+    private String implementation;
+
+    private Kernels kernels;
+    private float[] a;
+    private float[] b;
+    private float[] matrix;
+    private ByteBuffer offHeap;
+
+    @Setup
+    public void setUp() {
+        kernels = "simd".equals(implementation) ? new SimdKernels() : new ScalarKernels();
+        Random random = new Random(42);
+        a = randomVector(random, dimension);
+        b = randomVector(random, dimension);
+        matrix = randomVector(random, dimension * BATCH);
+        offHeap = ByteBuffer.allocateDirect(dimension * Float.BYTES).order(ByteOrder.nativeOrder());
+        offHeap.asFloatBuffer().put(b);
+    }
+
+    @Benchmark
+    public float dot() {
+        return kernels.dot(a, 0, b, 0, dimension);
+    }
+
+    @Benchmark
+    public float dotOffHeap() {
+        return kernels.dot(a, 0, offHeap, 0, dimension);
+    }
+
+    @Benchmark
+    public float cosine() {
+        float normProduct = kernels.squaredNorm(a, 0, dimension) * kernels.squaredNorm(b, 0, dimension);
+        return (float) (kernels.dot(a, 0, b, 0, dimension) / Math.sqrt(normProduct));
+    }
+
+    @Benchmark
+    public float squaredL2() {
+        return kernels.squaredL2(a, 0, b, 0, dimension);
+    }
+
+    @Benchmark
+    public float[] normalize() {
+        float[] copy = a.clone();
+        float squaredNorm = kernels.squaredNorm(copy, 0, dimension);
+        kernels.scale(copy, 0, dimension, (float) (1.0 / Math.sqrt(squaredNorm)));
+        return copy;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void dotBatch(Blackhole blackhole) {
+        for (int row = 0; row < BATCH; row++) {
+            blackhole.consume(kernels.dot(a, 0, matrix, row * dimension, dimension));
+        }
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,123 @@
+package com.search.common.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorKernelsTest {
+
+    private static final int[] LENGTHS = {1, 3, 7, 8, 16, 17, 33, 384, 385, 768, 1024};
+
+    private final Random random = new Random(42);
+
+    private float[] randomVector(int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static ByteBuffer toBuffer(float[] vector, int padFloats) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((vector.length + padFloats) * Float.BYTES)
+                .order(ByteOrder.nativeOrder());
+        for (int i = 0; i < vector.length; i++) {
+            buffer.putFloat((padFloats + i) * Float.BYTES, vector[i]);
+        }
+        return buffer;
+    }
+
+    @Test
+    void testSimdMatchesScalar() {
+        Kernels scalar = new ScalarKernels();
+        Kernels simd = new SimdKernels();
+
+        for (int length : LENGTHS) {
+            float[] a = randomVector(length + 2);
+            float[] b = randomVector(length + 5);
+            float tolerance = 1e-4f * length;
+
+            assertEquals(scalar.dot(a, 2, b, 5, length), simd.dot(a, 2, b, 5, length), tolerance);
+            assertEquals(scalar.squaredL2(a, 2, b, 5, length), simd.squaredL2(a, 2, b, 5, length), tolerance);
+            assertEquals(scalar.squaredNorm(a, 2, length), simd.squaredNorm(a, 2, length), tolerance);
+
+            float[] bSlice = new float[length];
+            System.arraycopy(b, 5, bSlice, 0, length);
+            ByteBuffer buffer = toBuffer(bSlice, 3);
+            assertEquals(scalar.dot(a, 2, buffer, 3 * Float.BYTES, length),
+                    simd.dot(a, 2, buffer, 3 * Float.BYTES, length), tolerance);
+            assertEquals(scalar.dot(buffer, 3 * Float.BYTES, buffer, 3 * Float.BYTES, length),
+                    simd.dot(buffer, 3 * Float.BYTES, buffer, 3 * Float.BYTES, length), tolerance);
+
+            float[] scaledScalar = a.clone();
+            float[] scaledSimd = a.clone();
+            scalar.scale(scaledScalar, 2, length, 0.5f);
+            simd.scale(scaledSimd, 2, length, 0.5f);
+            assertArrayEquals(scaledScalar, scaledSimd);
+        }
+    }
+
+    @Test
+    void testCosineAndNormalize() {
+        float[] a = {3, 4};
+        float[] b = {4, 3};
+
+        assertEquals(24f / 25f, VectorKernels.cosine(a, b), 1e-6);
+        assertEquals(5f, VectorKernels.norm(a), 1e-6);
+        assertEquals(0f, VectorKernels.cosine(a, new float[2]));
+
+        float[] normalized = VectorKernels.normalize(a.clone());
+        assertEquals(1f, VectorKernels.norm(normalized), 1e-6);
+        assertEquals(0.6f, normalized[0], 1e-6);
+
+        float[] zero = new float[4];
+        assertFalse(VectorKernels.normalize(zero, 0, 4));
+        assertArrayEquals(new float[4], zero);
+    }
+
+    @Test
+    void testDistances() {
+        float[] a = {1, 2, 3};
+        float[] b = {4, 6, 3};
+
+        assertEquals(25f, VectorKernels.squaredL2(a, b), 1e-6);
+        assertEquals(5f, VectorKernels.l2(a, b), 1e-6);
+        assertEquals(25f, VectorKernels.dot(a, b), 1e-6);
+    }
+
+    @Test
+    void testDotBatch() {
+        float[] query = randomVector(64);
+        float[][] vectors = new float[10][];
+        float[] matrix = new float[10 * 64];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(64);
+            System.arraycopy(vectors[i], 0, matrix, i * 64, 64);
+        }
+
+        float[] fromList = new float[10];
+        float[] fromMatrix = new float[10];
+        VectorKernels.dotBatch(query, vectors, fromList);
+        VectorKernels.dotBatch(query, matrix, 10, fromMatrix);
+
+        for (int i = 0; i < vectors.length; i++) {
+            assertEquals(VectorKernels.dot(query, vectors[i]), fromList[i], 1e-5);
+            assertEquals(fromList[i], fromMatrix[i], 1e-5);
+        }
+    }
+
+    @Test
+    void testLengthMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> VectorKernels.dot(new float[2], new float[3]));
+    }
+
+    @Test
+    void testSimdSelectedWhenModulePresent() {
+        boolean modulePresent = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(modulePresent, VectorKernels.isSimd());
+    }
+}
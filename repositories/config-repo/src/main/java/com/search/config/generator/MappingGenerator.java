@@ -78,13 +78,16 @@ public class MappingGenerator {
             }
         }
 
-        // Handle vector field configurations
+        // Handle vector field configurations: an OpenSearch k-NN field with an
+        // HNSW graph, searched by cosine similarity; needs index.knn enabled
         if (field.getType() == FieldType.DENSE_VECTOR) {
             if (field.getVectorDim() > 0) {
-                mapping.put("dims", field.getVectorDim());
+                mapping.put("dimension", field.getVectorDim());
             }
-            mapping.put("index", true);
-            mapping.put("similarity", "cosine");
+            Map<String, Object> method = new LinkedHashMap<>();
+            method.put("name", "hnsw");
+            method.put("space_type", "cosinesimil");
+            mapping.put("method", method);
         }
 
         // Add boost if configured
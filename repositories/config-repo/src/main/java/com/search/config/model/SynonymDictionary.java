@@ -0,0 +1,74 @@
+package com.search.config.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Versioned snapshot of the synonym rules of one app
+ *
+ * The version increases on every change to the app's rules, so consumers
+ * only rebuild their dictionaries when it moves.
+ */
+public class SynonymDictionary {
+
+    /**
+     * Application key
+     */
+    @JsonProperty("appKey")
+    private String appKey;
+
+    /**
+     * Dictionary version
+     */
+    @JsonProperty("version")
+    private long version;
+
+    /**
+     * Enabled rules of the app
+     */
+    @JsonProperty("rules")
+    private List<SynonymRule> rules;
+
+    public SynonymDictionary() {
+    }
+
+    public SynonymDictionary(String appKey, long version, List<SynonymRule> rules) {
+        this.appKey = appKey;
+        this.version = version;
+        this.rules = rules;
+    }
+
+    public String getAppKey() {
+        return appKey;
+    }
+
+    public void setAppKey(String appKey) {
+        this.appKey = appKey;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public List<SynonymRule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<SynonymRule> rules) {
+        this.rules = rules;
+    }
+
+    @Override
+    public String toString() {
+        return "SynonymDictionary{" +
+                "appKey='" + appKey + '\'' +
+                ", version=" + version +
+                ", rules=" + (rules != null ? rules.size() : 0) +
+                '}';
+    }
+}
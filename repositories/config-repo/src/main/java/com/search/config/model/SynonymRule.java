@@ -0,0 +1,130 @@
+package com.search.config.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Synonym rule configuration
+ */
+public class SynonymRule {
+
+    /**
+     * Unique identifier for the rule
+     */
+    @JsonProperty("ruleId")
+    private String ruleId;
+
+    /**
+     * Application key this rule belongs to
+     */
+    @JsonProperty("appKey")
+    private String appKey;
+
+    /**
+     * Rule type
+     */
+    @JsonProperty("type")
+    private SynonymType type = SynonymType.EQUIVALENT;
+
+    /**
+     * Equivalent terms, or the input terms of a one-way rule
+     */
+    @JsonProperty("terms")
+    private List<String> terms;
+
+    /**
+     * Expansion targets of a one-way rule (unused for equivalent rules)
+     */
+    @JsonProperty("synonyms")
+    private List<String> synonyms;
+
+    /**
+     * Whether the rule is enabled
+     */
+    @JsonProperty("enabled")
+    private boolean enabled = true;
+
+    public SynonymRule() {
+    }
+
+    public SynonymRule(String ruleId, String appKey, SynonymType type, List<String> terms) {
+        this.ruleId = ruleId;
+        this.appKey = appKey;
+        this.type = type;
+        this.terms = terms;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public String getAppKey() {
+        return appKey;
+    }
+
+    public void setAppKey(String appKey) {
+        this.appKey = appKey;
+    }
+
+    public SynonymType getType() {
+        return type;
+    }
+
+    public void setType(SynonymType type) {
+        this.type = type;
+    }
+
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public void setTerms(List<String> terms) {
+        this.terms = terms;
+    }
+
+    public List<String> getSynonyms() {
+        return synonyms;
+    }
+
+    public void setSynonyms(List<String> synonyms) {
+        this.synonyms = synonyms;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SynonymRule that = (SynonymRule) o;
+        return Objects.equals(ruleId, that.ruleId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ruleId);
+    }
+
+    @Override
+    public String toString() {
+        return "SynonymRule{" +
+                "ruleId='" + ruleId + '\'' +
+                ", appKey='" + appKey + '\'' +
+                ", type=" + type +
+                ", terms=" + terms +
+                ", synonyms=" + synonyms +
+                '}';
+    }
+}
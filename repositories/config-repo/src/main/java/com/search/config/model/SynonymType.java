@@ -0,0 +1,17 @@
+package com.search.config.model;
+
+/**
+ * Synonym rule type enumeration
+ */
+public enum SynonymType {
+    /**
+     * All terms are interchangeable (e.g., phone, mobile, cellphone)
+     */
+    EQUIVALENT,
+
+    /**
+     * Input terms expand to the synonyms, but not the other way round
+     * (e.g., iphone => smartphone)
+     */
+    ONE_WAY
+}
@@ -86,9 +86,9 @@ class MappingGeneratorTest {
 
         assertNotNull(mapping);
         assertTrue(mapping.contains("\"type\" : \"knn_vector\""));
-        assertTrue(mapping.contains("\"dims\" : 768"));
-        assertTrue(mapping.contains("\"similarity\" : \"cosine\""));
-        assertTrue(mapping.contains("\"index\" : true"));
+        assertTrue(mapping.contains("\"dimension\" : 768"));
+        assertTrue(mapping.contains("\"name\" : \"hnsw\""));
+        assertTrue(mapping.contains("\"space_type\" : \"cosinesimil\""));
     }
 
     @Test
@@ -116,7 +116,7 @@ class MappingGeneratorTest {
         assertTrue(mapping.contains("\"analyzer\" : \"ik_max_word\""));
         assertTrue(mapping.contains("\"type\" : \"double\""));
         assertTrue(mapping.contains("\"type\" : \"knn_vector\""));
-        assertTrue(mapping.contains("\"dims\" : 768"));
+        assertTrue(mapping.contains("\"dimension\" : 768"));
         assertTrue(mapping.contains("\"properties\""));
     }
 
@@ -29,7 +29,7 @@ public class GatewayConfig {
 
                 // Config Admin routes
                 .route("config-admin", r -> r
-                        .path("/api/v1/sources/**", "/api/v1/objects/**")
+                        .path("/api/v1/sources/**", "/api/v1/objects/**", "/api/v1/synonyms/**")
                         .filters(f -> f
                                 .stripPrefix(0)
                                 .filter(new AuthFilter())
@@ -40,7 +40,7 @@ public class GatewayConfig {
 
                 // Query Service routes
                 .route("query-service", r -> r
-                        .path("/api/v1/search/**")
+                        .path("/api/v1/search/**", "/api/v1/suggest/**")
                         .filters(f -> f
                                 .stripPrefix(0)
                                 .filter(new AuthFilter())
@@ -51,7 +51,7 @@ public class GatewayConfig {
 
                 // Vector Service routes
                 .route("vector-service", r -> r
-                        .path("/api/v1/embedding/**")
+                        .path("/api/v1/embedding/**", "/api/v1/rerank/**")
                         .filters(f -> f
                                 .stripPrefix(0)
                                 .filter(new AuthFilter())
@@ -0,0 +1,126 @@
+package com.search.admin.controller;
+
+import com.search.admin.service.SynonymService;
+import com.search.config.model.SynonymDictionary;
+import com.search.config.model.SynonymRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * REST Controller for managing synonym dictionaries
+ */
+@RestController
+@RequestMapping("/api/v1/synonyms")
+public class SynonymController {
+
+    private static final Logger log = LoggerFactory.getLogger(SynonymController.class);
+
+    private final SynonymService synonymService;
+
+    public SynonymController(SynonymService synonymService) {
+        this.synonymService = synonymService;
+    }
+
+    /**
+     * Create a new synonym rule
+     *
+     * POST /api/v1/synonyms
+     */
+    @PostMapping
+    public ResponseEntity<SynonymRule> createRule(@RequestBody SynonymRule rule) {
+        try {
+            SynonymRule created = synonymService.createRule(rule);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to create synonym rule: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Export the synonym dictionaries of all apps
+     *
+     * GET /api/v1/synonyms/export
+     *
+     * The ETag is the global dictionary version; a matching If-None-Match
+     * returns 304 so pollers skip unchanged dictionaries.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<List<SynonymDictionary>> exportDictionaries(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = "\"" + synonymService.getVersion() + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(synonymService.exportDictionaries());
+    }
+
+    /**
+     * Get a synonym rule by ID
+     *
+     * GET /api/v1/synonyms/{ruleId}
+     */
+    @GetMapping("/{ruleId}")
+    public ResponseEntity<SynonymRule> getRule(@PathVariable String ruleId) {
+        SynonymRule rule = synonymService.getRule(ruleId);
+        if (rule == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(rule);
+    }
+
+    /**
+     * List synonym rules, optionally filtered by app key
+     *
+     * GET /api/v1/synonyms
+     */
+    @GetMapping
+    public ResponseEntity<Collection<SynonymRule>> listRules(
+            @RequestParam(required = false) String appKey) {
+        if (appKey != null && !appKey.isEmpty()) {
+            return ResponseEntity.ok(synonymService.getRulesByAppKey(appKey));
+        }
+        return ResponseEntity.ok(synonymService.getAllRules());
+    }
+
+    /**
+     * Update a synonym rule
+     *
+     * PUT /api/v1/synonyms/{ruleId}
+     */
+    @PutMapping("/{ruleId}")
+    public ResponseEntity<SynonymRule> updateRule(
+            @PathVariable String ruleId,
+            @RequestBody SynonymRule rule) {
+        try {
+            SynonymRule updated = synonymService.updateRule(ruleId, rule);
+            return ResponseEntity.ok(updated);
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to update synonym rule: {}", e.getMessage());
+            if (synonymService.getRule(ruleId) == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Delete a synonym rule
+     *
+     * DELETE /api/v1/synonyms/{ruleId}
+     */
+    @DeleteMapping("/{ruleId}")
+    public ResponseEntity<Void> deleteRule(@PathVariable String ruleId) {
+        boolean deleted = synonymService.deleteRule(ruleId);
+        if (!deleted) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.search.admin.service;
+
+import com.search.config.model.SynonymDictionary;
+import com.search.config.model.SynonymRule;
+import com.search.config.model.SynonymType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synonym service for managing synonym dictionaries
+ *
+ * Every change bumps a global version and the version of the affected app,
+ * so consumers can poll the export cheaply and rebuild only what changed.
+ * Uses in-memory storage for simplicity. In production, this would
+ * be backed by a persistent database.
+ */
+@Service
+public class SynonymService {
+
+    private static final Logger log = LoggerFactory.getLogger(SynonymService.class);
+
+    private final Map<String, SynonymRule> rules = new ConcurrentHashMap<>();
+    private final Map<String, Long> appVersions = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Create a new synonym rule
+     *
+     * @param rule the synonym rule
+     * @return the created rule
+     * @throws IllegalArgumentException if the rule is invalid or its ID already exists
+     */
+    public SynonymRule createRule(SynonymRule rule) {
+        validate(rule);
+        if (rules.putIfAbsent(rule.getRuleId(), rule) != null) {
+            throw new IllegalArgumentException("Synonym rule with ID " + rule.getRuleId() + " already exists");
+        }
+        bumpVersion(rule.getAppKey());
+        log.info("Created synonym rule: {}", rule.getRuleId());
+        return rule;
+    }
+
+    /**
+     * Get a synonym rule by ID
+     *
+     * @param ruleId the rule ID
+     * @return the rule, or null if not found
+     */
+    public SynonymRule getRule(String ruleId) {
+        return rules.get(ruleId);
+    }
+
+    /**
+     * Get all synonym rules
+     *
+     * @return collection of all rules
+     */
+    public Collection<SynonymRule> getAllRules() {
+        return Collections.unmodifiableCollection(rules.values());
+    }
+
+    /**
+     * Get all synonym rules for a specific app key
+     *
+     * @param appKey the application key
+     * @return collection of rules for the app
+     */
+    public Collection<SynonymRule> getRulesByAppKey(String appKey) {
+        return rules.values().stream()
+                .filter(rule -> appKey.equals(rule.getAppKey()))
+                .toList();
+    }
+
+    /**
+     * Update an existing synonym rule
+     *
+     * @param ruleId the rule ID
+     * @param rule the updated rule
+     * @return the updated rule
+     * @throws IllegalArgumentException if the rule is invalid or not found
+     */
+    public SynonymRule updateRule(String ruleId, SynonymRule rule) {
+        SynonymRule existing = rules.get(ruleId);
+        if (existing == null) {
+            throw new IllegalArgumentException("Synonym rule not found: " + ruleId);
+        }
+        rule.setRuleId(ruleId);
+        validate(rule);
+        rules.put(ruleId, rule);
+
+        // Moving a rule between apps changes both dictionaries
+        bumpVersion(existing.getAppKey());
+        if (!existing.getAppKey().equals(rule.getAppKey())) {
+            bumpVersion(rule.getAppKey());
+        }
+        log.info("Updated synonym rule: {}", ruleId);
+        return rule;
+    }
+
+    /**
+     * Delete a synonym rule
+     *
+     * @param ruleId the rule ID
+     * @return true if deleted, false if not found
+     */
+    public boolean deleteRule(String ruleId) {
+        SynonymRule removed = rules.remove(ruleId);
+        if (removed != null) {
+            bumpVersion(removed.getAppKey());
+            log.info("Deleted synonym rule: {}", ruleId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the global dictionary version
+     *
+     * @return version, increased on every change to any app
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Export the enabled rules of every app that has ever had rules
+     *
+     * Apps whose rules were all deleted are exported with an empty list so
+     * consumers drop their dictionaries.
+     *
+     * @return one dictionary per app
+     */
+    public List<SynonymDictionary> exportDictionaries() {
+        List<SynonymDictionary> dictionaries = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : appVersions.entrySet()) {
+            String appKey = entry.getKey();
+            List<SynonymRule> appRules = rules.values().stream()
+                    .filter(rule -> appKey.equals(rule.getAppKey()) && rule.isEnabled())
+                    .toList();
+            dictionaries.add(new SynonymDictionary(appKey, entry.getValue(), appRules));
+        }
+        return dictionaries;
+    }
+
+    private void bumpVersion(String appKey) {
+        long next = version.incrementAndGet();
+        appVersions.merge(appKey, next, Math::max);
+    }
+
+    private void validate(SynonymRule rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("Synonym rule cannot be null");
+        }
+        if (rule.getRuleId() == null || rule.getRuleId().isEmpty()) {
+            throw new IllegalArgumentException("Rule ID cannot be null or empty");
+        }
+        if (rule.getAppKey() == null || rule.getAppKey().isEmpty()) {
+            throw new IllegalArgumentException("App key cannot be null or empty");
+        }
+        if (rule.getType() == null) {
+            throw new IllegalArgumentException("Rule type cannot be null");
+        }
+        if (rule.getTerms() == null || rule.getTerms().isEmpty()) {
+            throw new IllegalArgumentException("Rule terms cannot be empty");
+        }
+        if (rule.getType() == SynonymType.EQUIVALENT && rule.getTerms().size() < 2) {
+            throw new IllegalArgumentException("Equivalent rule needs at least two terms");
+        }
+        if (rule.getType() == SynonymType.ONE_WAY
+                && (rule.getSynonyms() == null || rule.getSynonyms().isEmpty())) {
+            throw new IllegalArgumentException("One-way rule needs at least one synonym");
+        }
+    }
+}
@@ -34,6 +34,15 @@ public class DataSyncConfig {
     @Value("${kafka.consumer.group.id:data-sync-group}")
     private String consumerGroupId;
 
+    @Value("${kafka.consumer.parallel.lanes:1}")
+    private int consumerLanes;
+
+    @Value("${kafka.consumer.parallel.max-pending:5000}")
+    private int consumerMaxPending;
+
+    @Value("${kafka.consumer.batch.enabled:false}")
+    private boolean consumerBatch;
+
     /**
      * Create Kafka producer for CDC events
      *
@@ -55,17 +64,22 @@ public class DataSyncConfig {
     /**
      * Create data change consumer
      *
+     * Stopped on shutdown so in-flight records are finished and committed.
+     *
      * @param processor the data processor
      * @return DataChangeConsumer
      */
-    @Bean
+    @Bean(destroyMethod = "stop")
     public DataChangeConsumer dataChangeConsumer(DataProcessor processor) {
         String topic = "data-change-events";
         DataChangeConsumer consumer = new DataChangeConsumer(
                 bootstrapServers,
                 topic,
                 consumerGroupId,
-                processor
+                processor,
+                consumerLanes,
+                consumerMaxPending,
+                consumerBatch
         );
 
         // Auto-start the consumer
@@ -41,10 +41,52 @@ public class OpenSearchConfig {
     @Value("${opensearch.index.prefix:search}")
     private String indexPrefix;
 
+    @Value("${opensearch.bulk.max-actions:1000}")
+    private int bulkMaxActions;
+
+    @Value("${opensearch.bulk.max-bytes:5242880}")
+    private long bulkMaxBytes;
+
+    @Value("${opensearch.bulk.flush-interval-ms:1000}")
+    private long bulkFlushIntervalMs;
+
+    @Value("${opensearch.bulk.concurrent-requests:1}")
+    private int bulkConcurrentRequests;
+
+    @Value("${opensearch.bulk.max-retries:3}")
+    private int bulkMaxRetries;
+
+    @Value("${opensearch.bulk.retry-backoff-ms:200}")
+    private long bulkRetryBackoffMs;
+
     public String getIndexPrefix() {
         return indexPrefix;
     }
 
+    public int getBulkMaxActions() {
+        return bulkMaxActions;
+    }
+
+    public long getBulkMaxBytes() {
+        return bulkMaxBytes;
+    }
+
+    public long getBulkFlushIntervalMs() {
+        return bulkFlushIntervalMs;
+    }
+
+    public int getBulkConcurrentRequests() {
+        return bulkConcurrentRequests;
+    }
+
+    public int getBulkMaxRetries() {
+        return bulkMaxRetries;
+    }
+
+    public long getBulkRetryBackoffMs() {
+        return bulkRetryBackoffMs;
+    }
+
     /**
      * Create OpenSearch low-level REST client
      *
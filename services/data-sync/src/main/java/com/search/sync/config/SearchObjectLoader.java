@@ -0,0 +1,121 @@
+package com.search.sync.config;
+
+import com.search.config.model.SearchObject;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loader for search object configurations
+ *
+ * Polls config-admin for the configured search objects so writers can
+ * look up the object a synced table belongs to, e.g. to create its index
+ * with the generated mapping. Objects are matched by source table, then
+ * by object ID.
+ */
+@Component
+public class SearchObjectLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchObjectLoader.class);
+
+    @Value("${objects.enabled:true}")
+    private boolean enabled;
+
+    @Value("${objects.config-admin-url:http://localhost:8080}")
+    private String configAdminUrl;
+
+    @Value("${objects.timeout-ms:2000}")
+    private int timeoutMs;
+
+    private RestTemplate restTemplate;
+    private volatile Map<String, SearchObject> objects = Map.of();
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(timeoutMs);
+        factory.setReadTimeout(timeoutMs);
+        this.restTemplate = new RestTemplate(factory);
+
+        // Load before the first writes so new indices get their mapping
+        refresh();
+    }
+
+    /**
+     * Poll config-admin for the current search objects
+     */
+    @Scheduled(fixedDelayString = "${objects.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            SearchObject[] response = restTemplate.getForObject(
+                    configAdminUrl + "/api/v1/objects", SearchObject[].class);
+            if (response != null) {
+                update(List.of(response));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh search objects: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the known search objects
+     *
+     * @param searchObjects the current search objects
+     */
+    public void update(Collection<SearchObject> searchObjects) {
+        Map<String, SearchObject> byName = new HashMap<>();
+        for (SearchObject object : searchObjects) {
+            if (object.getObjectId() != null) {
+                byName.put(object.getObjectId().toLowerCase(), object);
+            }
+        }
+        // Tables take precedence over object IDs
+        for (SearchObject object : searchObjects) {
+            if (object.getTable() != null) {
+                byName.put(object.getTable().toLowerCase(), object);
+            }
+        }
+        if (byName.size() != objects.size()) {
+            log.info("Loaded {} search objects", searchObjects.size());
+        }
+        objects = byName;
+        loaded = true;
+    }
+
+    /**
+     * Check whether the search objects are known
+     *
+     * Until the first successful load, a missing object may just not be
+     * loaded yet rather than not configured.
+     *
+     * @return true once loaded, or if loading is disabled
+     */
+    public boolean isLoaded() {
+        return !enabled || loaded;
+    }
+
+    /**
+     * Find the search object for a synced object type
+     *
+     * @param objectType source table or object ID
+     * @return the search object, or null if none is configured
+     */
+    public SearchObject find(String objectType) {
+        return objectType != null ? objects.get(objectType.toLowerCase()) : null;
+    }
+}
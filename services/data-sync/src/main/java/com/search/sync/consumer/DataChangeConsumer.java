@@ -1,18 +1,29 @@
 package com.search.sync.consumer;
 
 import com.search.sync.processor.DataProcessor;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -20,19 +31,45 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *
  * Consumes CDC events from Kafka and forwards them to the data processor
  * for synchronization to OpenSearch.
+ *
+ * With more than one lane, records are fanned out to worker lanes by hash
+ * of their key, so changes to one document stay in order while different
+ * documents are processed in parallel. A record counts as processed once
+ * its write has been applied, and offsets are committed manually only up
+ * to the first record that is not; once maxPending records are in flight,
+ * fetching is paused until the lanes catch up. If a write fails, the
+ * lanes stop taking records, and once the writes in flight have settled
+ * the consumer is rewound to the first unprocessed record and backs off
+ * before consuming again. With one lane, records are processed on the
+ * poll thread and offsets are auto-committed.
+ *
+ * In batch mode each poll is processed as one micro-batch: updates to the
+ * same document are collapsed, the batch is written with one bulk request
+ * and its offsets are committed only once every write succeeded. A failed
+ * batch is rewound and consumed again, so delivery is at least once.
  */
 @Component
 public class DataChangeConsumer implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(DataChangeConsumer.class);
 
+    private static final long RETRY_BACKOFF_MS = 1000;
+    private static final long RETRY_BACKOFF_MAX_MS = 30_000;
+
     private final String bootstrapServers;
     private final String topic;
     private final String groupId;
     private final DataProcessor processor;
+    private final int maxPending;
+    private final boolean batch;
+
+    private final KeyedLanes lanes;
+    private final OffsetTracker offsets = new OffsetTracker();
 
-    private KafkaConsumer<String, String> consumer;
+    private Consumer<String, String> consumer;
+    private Thread thread;
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private long retryBackoffMs = RETRY_BACKOFF_MS;
 
     /**
      * Create a new data change consumer
@@ -44,10 +81,38 @@ public class DataChangeConsumer implements Runnable {
      */
     public DataChangeConsumer(String bootstrapServers, String topic,
                                String groupId, DataProcessor processor) {
+        this(bootstrapServers, topic, groupId, processor, 1, 0, false);
+    }
+
+    /**
+     * Create a new data change consumer
+     *
+     * @param bootstrapServers Kafka bootstrap servers
+     * @param topic topic to consume from
+     * @param groupId consumer group ID
+     * @param processor data processor for handling messages
+     * @param laneCount worker lanes; 1 processes records on the poll thread
+     * @param maxPending records in flight before fetching is paused
+     * @param batch process each poll as a micro-batch; lanes are not used then
+     */
+    public DataChangeConsumer(String bootstrapServers, String topic, String groupId,
+                               DataProcessor processor, int laneCount, int maxPending, boolean batch) {
         this.bootstrapServers = bootstrapServers;
         this.topic = topic;
         this.groupId = groupId;
         this.processor = processor;
+        this.maxPending = maxPending;
+        this.batch = batch;
+        this.lanes = !batch && laneCount > 1 ? new KeyedLanes(laneCount, "data-change-lane") : null;
+    }
+
+    /**
+     * Create a consumer on an existing Kafka consumer, for tests
+     */
+    DataChangeConsumer(Consumer<String, String> consumer, String topic,
+                       DataProcessor processor, int laneCount, int maxPending, boolean batch) {
+        this(null, topic, null, processor, laneCount, maxPending, batch);
+        this.consumer = consumer;
     }
 
     /**
@@ -59,18 +124,23 @@ public class DataChangeConsumer implements Runnable {
             return;
         }
 
-        Properties props = createConsumerProperties();
-        this.consumer = new KafkaConsumer<>(props);
+        if (consumer == null) {
+            Properties props = createConsumerProperties();
+            this.consumer = new KafkaConsumer<>(props);
+        }
 
-        Thread thread = new Thread(this, "data-change-consumer");
+        thread = new Thread(this, "data-change-consumer");
         thread.setDaemon(false);
         thread.start();
 
-        log.info("Data change consumer started: topic={}, group={}", topic, groupId);
+        log.info("Data change consumer started: topic={}, group={}, batch={}, lanes={}",
+                topic, groupId, batch, lanes != null ? lanes.size() : 1);
     }
 
     /**
      * Stop the consumer
+     *
+     * Waits for records already handed to lanes to be processed and committed.
      */
     public void stop() {
         if (!running.getAndSet(false)) {
@@ -80,13 +150,24 @@ public class DataChangeConsumer implements Runnable {
         if (consumer != null) {
             consumer.wakeup();
         }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         log.info("Data change consumer stopped");
     }
 
     @Override
     public void run() {
         try {
-            consumer.subscribe(Collections.singletonList(topic));
+            if (lanes != null) {
+                consumer.subscribe(Collections.singletonList(topic), new CommitOnRevoke());
+            } else {
+                consumer.subscribe(Collections.singletonList(topic));
+            }
 
             log.info("Consumer subscribed to topic: {}", topic);
 
@@ -94,26 +175,27 @@ public class DataChangeConsumer implements Runnable {
                 try {
                     ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
 
-                    int count = 0;
-                    for (ConsumerRecord<String, String> record : records) {
-                        try {
-                            processor.process(record.value());
-                            count++;
-                        } catch (Exception e) {
-                            log.error("Failed to process record: offset={}, key={}",
-                                    record.offset(), record.key(), e);
-                            // Continue processing other records
+                    if (batch) {
+                        processBatch(records);
+                    } else if (lanes != null) {
+                        if (offsets.hasFailures()) {
+                            rewindToFailure(records);
+                        } else {
+                            dispatch(records);
+                            commitProcessed();
+                            applyBackpressure();
                         }
-                    }
-
-                    if (count > 0) {
-                        log.debug("Processed {} records from topic {}", count, topic);
+                    } else {
+                        processInline(records);
                     }
 
                 } catch (org.apache.kafka.common.errors.WakeupException e) {
                     // Expected when stopping
                     log.info("Consumer wakeup received");
                     break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 } catch (Exception e) {
                     log.error("Error polling/consuming records", e);
                     // Back off before retrying
@@ -126,6 +208,15 @@ public class DataChangeConsumer implements Runnable {
                 }
             }
         } finally {
+            if (lanes != null) {
+                // Finish what was dispatched and commit it before leaving the group
+                lanes.close();
+                try {
+                    commit(offsets.committable(), true);
+                } catch (Exception e) {
+                    log.error("Failed to commit offsets on shutdown", e);
+                }
+            }
             try {
                 if (consumer != null) {
                     consumer.close();
@@ -137,6 +228,228 @@ public class DataChangeConsumer implements Runnable {
         }
     }
 
+    /**
+     * Process one record, logging failures
+     *
+     * A record that throws is not retried, so it does not hold back the
+     * offsets.
+     *
+     * @return future of the record's write, or null if processing threw
+     */
+    private CompletableFuture<Void> process(ConsumerRecord<String, String> record) {
+        try {
+            CompletableFuture<Void> write = processor.process(record.value());
+            return write != null ? write : CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            log.error("Failed to process record: offset={}, key={}",
+                    record.offset(), record.key(), e);
+            // Continue processing other records
+            return null;
+        }
+    }
+
+    /**
+     * Process records one by one on the poll thread
+     */
+    private void processInline(ConsumerRecords<String, String> records) {
+        int count = 0;
+        for (ConsumerRecord<String, String> record : records) {
+            if (process(record) != null) {
+                count++;
+            }
+        }
+
+        if (count > 0) {
+            log.debug("Processed {} records from topic {}", count, topic);
+        }
+    }
+
+    /**
+     * Write polled records as one micro-batch, then commit them
+     *
+     * If the batch fails, the consumer is rewound to its first record and
+     * backs off before polling it again.
+     */
+    private void processBatch(ConsumerRecords<String, String> records) throws InterruptedException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        List<String> messages = new ArrayList<>(records.count());
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<String, String>> partitionRecords = records.records(partition);
+            for (ConsumerRecord<String, String> record : partitionRecords) {
+                messages.add(record.value());
+            }
+            long last = partitionRecords.get(partitionRecords.size() - 1).offset();
+            commits.put(partition, new OffsetAndMetadata(last + 1));
+        }
+
+        try {
+            processor.processBatch(messages).get();
+        } catch (ExecutionException e) {
+            log.warn("Batch of {} records failed, retrying in {} ms: {}",
+                    messages.size(), retryBackoffMs, e.getCause().getMessage());
+            rewind(records);
+            backOff();
+            return;
+        } catch (InterruptedException e) {
+            rewind(records);
+            throw e;
+        }
+
+        consumer.commitSync(commits);
+        retryBackoffMs = RETRY_BACKOFF_MS;
+        log.debug("Processed batch of {} records from topic {}", messages.size(), topic);
+    }
+
+    /**
+     * Sleep before consuming failed records again, longer after each failure
+     */
+    private void backOff() throws InterruptedException {
+        Thread.sleep(retryBackoffMs);
+        retryBackoffMs = Math.min(retryBackoffMs * 2, RETRY_BACKOFF_MAX_MS);
+    }
+
+    /**
+     * Seek back to the first record of each partition in a batch
+     */
+    private void rewind(ConsumerRecords<String, String> records) {
+        for (TopicPartition partition : records.partitions()) {
+            consumer.seek(partition, records.records(partition).get(0).offset());
+        }
+    }
+
+    /**
+     * Hand records to the lanes of their keys
+     *
+     * Records without a key are ordered by partition instead.
+     */
+    private void dispatch(ConsumerRecords<String, String> records) {
+        for (ConsumerRecord<String, String> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            offsets.dispatched(partition, record.offset());
+            lanes.submit(record.key() != null ? record.key() : partition, () -> {
+                if (offsets.hasFailures()) {
+                    // Consumed again after the rewind; processing it now could overtake the failed record
+                    offsets.failed(partition, record.offset());
+                    return;
+                }
+                CompletableFuture<Void> write = process(record);
+                if (write == null) {
+                    offsets.completed(partition, record.offset());
+                    return;
+                }
+                write.whenComplete((done, error) -> {
+                    if (error == null) {
+                        offsets.completed(partition, record.offset());
+                    } else {
+                        log.warn("Write failed, rewinding: partition={}, offset={}, key={}: {}",
+                                partition, record.offset(), record.key(), error.getMessage());
+                        offsets.failed(partition, record.offset());
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * Rewind every partition to its first unprocessed record after a write failed
+     *
+     * Waits until the writes in flight have settled, commits what was
+     * processed before the failure and seeks back, so the failed record
+     * and everything after it are consumed again in order. Records polled
+     * meanwhile are dropped and consumed again too.
+     */
+    private void rewindToFailure(ConsumerRecords<String, String> records) throws InterruptedException {
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            positions.put(partition, records.records(partition).get(0).offset());
+        }
+        Collection<TopicPartition> tracked = offsets.resumePoints().keySet();
+        while (!offsets.awaitCompletion(tracked, 1000)) {
+            if (!running.get()) {
+                return;
+            }
+        }
+
+        // Tracked partitions resume before anything polled since
+        positions.putAll(offsets.resumePoints());
+        commit(offsets.committable(), true);
+        offsets.remove(positions.keySet());
+        positions.forEach(consumer::seek);
+
+        log.warn("Rewound after a failed write, retrying in {} ms: {}", retryBackoffMs, positions);
+        backOff();
+    }
+
+    /**
+     * Commit offsets that moved past fully processed records
+     */
+    private void commitProcessed() {
+        Map<TopicPartition, OffsetAndMetadata> commits = offsets.committable();
+        if (!commits.isEmpty()) {
+            retryBackoffMs = RETRY_BACKOFF_MS;
+        }
+        commit(commits, false);
+    }
+
+    private void commit(Map<TopicPartition, OffsetAndMetadata> commits, boolean sync) {
+        if (commits.isEmpty()) {
+            return;
+        }
+        if (sync) {
+            consumer.commitSync(commits);
+        } else {
+            consumer.commitAsync(commits, (committed, e) -> {
+                if (e != null) {
+                    // A later commit covers these offsets
+                    log.warn("Failed to commit offsets {}: {}", committed, e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Pause fetching while too many records are in flight, resume at half
+     */
+    private void applyBackpressure() {
+        int pending = offsets.getPending();
+        if (pending >= maxPending && maxPending > 0) {
+            if (consumer.paused().isEmpty()) {
+                log.debug("Pausing consumption with {} records in flight", pending);
+                consumer.pause(consumer.assignment());
+            }
+        } else if (pending <= maxPending / 2 && !consumer.paused().isEmpty()) {
+            consumer.resume(consumer.paused());
+        }
+    }
+
+    /**
+     * Finishes and commits the records of revoked partitions before they move
+     */
+    private class CommitOnRevoke implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            if (!offsets.awaitCompletion(partitions, 10_000)) {
+                log.warn("Records of revoked partitions still in flight, they may be processed again");
+            }
+            try {
+                commit(offsets.committable(partitions), true);
+            } catch (Exception e) {
+                log.error("Failed to commit offsets of revoked partitions", e);
+            }
+            offsets.remove(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            // Nothing in flight yet
+        }
+    }
+
     /**
      * Create consumer properties
      *
@@ -149,8 +462,13 @@ public class DataChangeConsumer implements Runnable {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
-        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
+        if (batch || lanes != null) {
+            // Committed by the consumer once records are processed
+            props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        } else {
+            props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
+            props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
+        }
 
         // Deserializers
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
@@ -159,7 +477,7 @@ public class DataChangeConsumer implements Runnable {
         // Performance tuning
         props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, "1024");
         props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "500");
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "100");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batch || lanes != null ? "500" : "100");
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000");
 
         return props;
@@ -0,0 +1,88 @@
+package com.search.sync.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of single-threaded worker lanes selected by key
+ *
+ * Tasks with equal keys always run on the same lane, one after another in
+ * submission order; tasks with different keys run in parallel across
+ * lanes. Lane queues are unbounded, callers bound the work they submit.
+ */
+public class KeyedLanes implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyedLanes.class);
+
+    private final ExecutorService[] lanes;
+
+    /**
+     * @param count number of lanes
+     * @param name thread name prefix
+     */
+    public KeyedLanes(int count, String name) {
+        this.lanes = new ExecutorService[Math.max(1, count)];
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = name + "-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Run a task on the lane of its key
+     *
+     * @param key ordering key; tasks with equal keys run in order
+     * @param task the task
+     */
+    public void submit(Object key, Runnable task) {
+        lanes[laneOf(key)].execute(task);
+    }
+
+    /**
+     * Get the lane a key maps to
+     *
+     * @param key ordering key
+     * @return lane index
+     */
+    public int laneOf(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    /**
+     * Get the number of lanes
+     *
+     * @return lane count
+     */
+    public int size() {
+        return lanes.length;
+    }
+
+    /**
+     * Finish queued tasks and stop the lanes
+     */
+    @Override
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : lanes) {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Timed out waiting for lane to drain");
+                    lane.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
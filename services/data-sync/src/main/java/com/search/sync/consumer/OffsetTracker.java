@@ -0,0 +1,205 @@
+package com.search.sync.consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks which offsets have been fully processed, per partition
+ *
+ * Records of one partition finish out of order when they run on different
+ * lanes. The offset that can be committed for a partition is the lowest
+ * one still in flight, or one past the highest dispatched offset once
+ * nothing is in flight, so a commit never skips an unprocessed record.
+ *
+ * A record whose processing failed stays in flight, holding back the
+ * commit point, until its partition is removed and consumed again from
+ * the resume point.
+ */
+public class OffsetTracker {
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new HashMap<>();
+    private int pending;
+    private int failedCount;
+
+    /**
+     * Record that an offset was handed to a lane
+     *
+     * @param partition the record's partition
+     * @param offset the record's offset
+     */
+    public synchronized void dispatched(TopicPartition partition, long offset) {
+        // The first offset seen is where the consumer was positioned, nothing before it needs committing
+        PartitionOffsets offsets = partitions.computeIfAbsent(partition, p -> new PartitionOffsets(offset));
+        offsets.inFlight.add(offset);
+        offsets.next = Math.max(offsets.next, offset + 1);
+        pending++;
+    }
+
+    /**
+     * Record that an offset has been processed
+     *
+     * @param partition the record's partition
+     * @param offset the record's offset
+     */
+    public synchronized void completed(TopicPartition partition, long offset) {
+        PartitionOffsets offsets = partitions.get(partition);
+        // The partition may have been revoked and forgotten in between
+        if (offsets != null && offsets.inFlight.remove(offset)) {
+            pending--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Record that processing an offset failed
+     *
+     * @param partition the record's partition
+     * @param offset the record's offset
+     */
+    public synchronized void failed(TopicPartition partition, long offset) {
+        PartitionOffsets offsets = partitions.get(partition);
+        if (offsets != null && offsets.inFlight.contains(offset) && offsets.failed.add(offset)) {
+            failedCount++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Check whether any tracked record failed
+     *
+     * @return true if a failed record holds back a commit point
+     */
+    public synchronized boolean hasFailures() {
+        return failedCount > 0;
+    }
+
+    /**
+     * Get the offset each partition should be consumed from again
+     *
+     * @return partition to its lowest unprocessed offset, or the next one
+     * if everything dispatched was processed
+     */
+    public synchronized Map<TopicPartition, Long> resumePoints() {
+        Map<TopicPartition, Long> resume = new HashMap<>();
+        for (Map.Entry<TopicPartition, PartitionOffsets> entry : partitions.entrySet()) {
+            PartitionOffsets offsets = entry.getValue();
+            resume.put(entry.getKey(), offsets.inFlight.isEmpty() ? offsets.next : offsets.inFlight.first());
+        }
+        return resume;
+    }
+
+    /**
+     * Get the offsets to commit for all partitions whose commit point moved
+     *
+     * The returned offsets count as committed from then on.
+     *
+     * @return partition to next offset to consume
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> committable() {
+        return committable(partitions.keySet());
+    }
+
+    /**
+     * Get the offsets to commit for some partitions
+     *
+     * @param selected the partitions
+     * @return partition to next offset to consume, for those whose commit point moved
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> selected) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : selected) {
+            PartitionOffsets offsets = partitions.get(partition);
+            if (offsets == null) {
+                continue;
+            }
+            long commitPoint = offsets.inFlight.isEmpty() ? offsets.next : offsets.inFlight.first();
+            if (commitPoint > offsets.committed) {
+                offsets.committed = commitPoint;
+                commits.put(partition, new OffsetAndMetadata(commitPoint));
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Wait until every record of the given partitions was processed or failed
+     *
+     * @param selected the partitions
+     * @param timeoutMs longest time to wait
+     * @return true if they were drained in time
+     */
+    public synchronized boolean awaitCompletion(Collection<TopicPartition> selected, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            while (inFlight(selected) > 0) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                wait(remainingMs);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Forget partitions, e.g. after they were revoked
+     *
+     * @param selected the partitions
+     */
+    public synchronized void remove(Collection<TopicPartition> selected) {
+        for (TopicPartition partition : selected) {
+            PartitionOffsets offsets = partitions.remove(partition);
+            if (offsets != null) {
+                pending -= offsets.inFlight.size();
+                failedCount -= offsets.failed.size();
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Get the number of records dispatched but not yet processed
+     *
+     * @return in-flight record count
+     */
+    public synchronized int getPending() {
+        return pending;
+    }
+
+    private int inFlight(Collection<TopicPartition> selected) {
+        int count = 0;
+        for (TopicPartition partition : selected) {
+            PartitionOffsets offsets = partitions.get(partition);
+            if (offsets != null) {
+                count += offsets.inFlight.size() - offsets.failed.size();
+            }
+        }
+        return count;
+    }
+
+    private static class PartitionOffsets {
+
+        final TreeSet<Long> inFlight = new TreeSet<>();
+        /** Offsets in flight whose processing failed */
+        final Set<Long> failed = new HashSet<>();
+        long next;
+        long committed;
+
+        PartitionOffsets(long start) {
+            this.next = start;
+            this.committed = start;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.search.sync.processor;
+
+import com.search.sync.writer.ESWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps only the latest state of each document within a time window
+ *
+ * Hot rows can change hundreds of times per second; writing every change
+ * to OpenSearch is wasted work when only the last one is visible. Changes
+ * are buffered per (table, id) and a later change replaces an earlier
+ * one, a delete included. The buffer is written through ESWriter at the
+ * end of each window, or earlier once it holds too many documents or
+ * bytes. Every change's future completes with the write that superseded
+ * it, so callers still learn when their change reached the index.
+ *
+ * Windows are closed on the compactor's own thread, which hands the
+ * writes to the bulk indexer without waiting for their bulk requests.
+ */
+@Component
+@ConditionalOnProperty(name = "compaction.enabled", havingValue = "true")
+public class ChangeCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeCompactor.class);
+
+    /**
+     * Buffered documents before the buffer is flushed early
+     */
+    @Value("${compaction.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Approximate buffered document bytes before the buffer is flushed early
+     */
+    @Value("${compaction.max-bytes:33554432}")
+    private long maxBytes;
+
+    /**
+     * Longest a change waits in the buffer
+     */
+    @Value("${compaction.window-ms:200}")
+    private long windowMs;
+
+    private final ESWriter esWriter;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Serializes flushes so writes for one document reach ESWriter in order
+     */
+    private final Object flushLock = new Object();
+
+    private Map<String, Entry> buffer = new LinkedHashMap<>();
+    private long bufferedBytes;
+    private long bufferedChanges;
+
+    private final Counter changes;
+    private final Counter writes;
+    private final DistributionSummary ratio;
+    private final MeterRegistry registry;
+
+    public ChangeCompactor(ESWriter esWriter, MeterRegistry registry) {
+        this.esWriter = esWriter;
+        this.registry = registry;
+        this.changes = Counter.builder("sync.compaction.changes")
+                .description("Changes entering the compaction buffer")
+                .register(registry);
+        this.writes = Counter.builder("sync.compaction.writes")
+                .description("Writes leaving the compaction buffer")
+                .register(registry);
+        this.ratio = DistributionSummary.builder("sync.compaction.ratio")
+                .description("Changes per write, per flush")
+                .register(registry);
+        Gauge.builder("sync.compaction.buffered", this, ChangeCompactor::getBufferedCount)
+                .description("Documents waiting in the compaction buffer")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flushWindow();
+            } catch (Exception e) {
+                log.error("Failed to flush compaction window", e);
+            }
+        }, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        log.info("Change compactor started: windowMs={}, maxEntries={}, maxBytes={}",
+                windowMs, maxEntries, maxBytes);
+    }
+
+    /**
+     * Buffer the latest state of a document
+     *
+     * @param table source table name
+     * @param id document ID
+     * @param document JSON document
+     * @return future completed once this or a later state of the document is written
+     */
+    public CompletableFuture<Void> upsert(String table, String id, String document) {
+        return add(table, id, document);
+    }
+
+    /**
+     * Buffer the deletion of a document
+     *
+     * @param table source table name
+     * @param id document ID
+     * @return future completed once the document, or a later state of it, is written
+     */
+    public CompletableFuture<Void> delete(String table, String id) {
+        return add(table, id, null);
+    }
+
+    private CompletableFuture<Void> add(String table, String id, String document) {
+        CompletableFuture<Void> future;
+        boolean full;
+        synchronized (this) {
+            String key = table + "/" + id;
+            Entry entry = buffer.get(key);
+            if (entry == null) {
+                entry = new Entry(table, id);
+                buffer.put(key, entry);
+            } else if (entry.document != null) {
+                bufferedBytes -= entry.document.length();
+            }
+            // An upsert replacing a delete must not be merged into the deleted document
+            entry.deleteFirst = document != null && (entry.deleteFirst || entry.deleted);
+            entry.deleted = document == null;
+            entry.document = document;
+            if (document != null) {
+                bufferedBytes += document.length();
+            }
+            bufferedChanges++;
+            future = entry.future;
+            full = buffer.size() >= maxEntries || bufferedBytes >= maxBytes;
+        }
+        changes.increment();
+
+        if (full) {
+            flush("memory", false);
+        }
+        return future;
+    }
+
+    /**
+     * Flush the buffer at the end of each window, bounding how long a change waits
+     */
+    public void flushWindow() {
+        flush("window", false);
+    }
+
+    /**
+     * Write all buffered documents, send them to the cluster and wait for them
+     */
+    public void flush() {
+        flush("explicit", true);
+    }
+
+    /**
+     * Stop closing windows and write what is buffered
+     */
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("Timed out waiting for the compaction window flush");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush("shutdown", true);
+    }
+
+    /**
+     * @param wait wait for the bulk requests, not just send them
+     */
+    private void flush(String reason, boolean wait) {
+        synchronized (flushLock) {
+            Map<String, Entry> entries;
+            long changeCount;
+            synchronized (this) {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                entries = buffer;
+                changeCount = bufferedChanges;
+                buffer = new LinkedHashMap<>();
+                bufferedBytes = 0;
+                bufferedChanges = 0;
+            }
+
+            int writeCount = 0;
+            for (Entry entry : entries.values()) {
+                writeCount += write(entry);
+            }
+            if (wait) {
+                esWriter.flush();
+            } else {
+                esWriter.send();
+            }
+
+            writes.increment(writeCount);
+            if (writeCount > 0) {
+                ratio.record((double) changeCount / writeCount);
+            }
+            registry.counter("sync.compaction.flush", "reason", reason).increment();
+            log.debug("Flushed compaction buffer: reason={}, changes={}, writes={}",
+                    reason, changeCount, writeCount);
+        }
+    }
+
+    /**
+     * Issue the writes of one buffered document
+     *
+     * @return number of writes issued
+     */
+    private int write(Entry entry) {
+        try {
+            List<CompletableFuture<Void>> issued = new ArrayList<>(2);
+            if (entry.deleted || entry.deleteFirst) {
+                issued.add(esWriter.delete(entry.table, entry.id));
+            }
+            if (!entry.deleted) {
+                issued.add(esWriter.upsert(entry.table, entry.id, entry.document));
+            }
+            CompletableFuture.allOf(issued.toArray(new CompletableFuture[0]))
+                    .whenComplete((done, error) -> {
+                        if (error != null) {
+                            entry.future.completeExceptionally(error);
+                        } else {
+                            entry.future.complete(null);
+                        }
+                    });
+            return issued.size();
+        } catch (Exception e) {
+            log.error("Failed to write compacted document: table={}, id={}", entry.table, entry.id, e);
+            entry.future.completeExceptionally(e);
+            return 0;
+        }
+    }
+
+    /**
+     * Get the number of buffered documents
+     *
+     * @return documents waiting for the next flush
+     */
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Latest state of one document within the window
+     */
+    private static class Entry {
+
+        final String table;
+        final String id;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        String document;
+        boolean deleted;
+        boolean deleteFirst;
+
+        Entry(String table, String id) {
+            this.table = table;
+            this.id = id;
+        }
+    }
+}
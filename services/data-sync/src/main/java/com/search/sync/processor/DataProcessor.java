@@ -2,8 +2,11 @@ package com.search.sync.processor;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.search.sync.vectorization.SourceFingerprints;
+import com.search.sync.vectorization.VectorUpdatePublisher;
 import com.search.sync.vectorization.VectorizationQueue;
 import com.search.sync.vectorization.VectorizationTask;
+import com.search.sync.writer.BulkIndexer;
 import com.search.sync.writer.ESWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,8 +17,13 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Processor for data change events
@@ -34,9 +42,23 @@ public class DataProcessor {
     @Autowired(required = false)
     private VectorizationQueue vectorizationQueue;
 
+    @Autowired(required = false)
+    private VectorUpdatePublisher vectorUpdatePublisher;
+
+    @Autowired(required = false)
+    private SourceFingerprints sourceFingerprints;
+
+    @Autowired(required = false)
+    private ChangeCompactor changeCompactor;
+
     @Value("${vectorization.async.enabled:true}")
     private boolean vectorizationEnabled;
 
+    /**
+     * Latest task per vector field whose document write is still pending
+     */
+    private final Map<String, VectorizationTask> pendingTasks = new ConcurrentHashMap<>();
+
     public DataProcessor(ESWriter esWriter) {
         this.mapper = new ObjectMapper();
         this.esWriter = esWriter;
@@ -45,12 +67,93 @@ public class DataProcessor {
     /**
      * Process a CDC event message
      *
+     * The write is only queued when this returns. Messages that cannot be
+     * parsed and writes the cluster rejects as invalid are logged and
+     * skipped, as retrying them cannot succeed.
+     *
      * @param message JSON string of the CDC event
+     * @return future completed once the change is written, or right away if
+     * it is skipped; fails if the write failed in a way that may succeed on retry
      */
-    public void process(String message) {
+    public CompletableFuture<Void> process(String message) {
+        Change change = parse(message);
+        CompletableFuture<Void> write = change != null ? apply(change) : null;
+        return write != null
+                ? write.exceptionally(e -> skipIfPermanent(change, e))
+                : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Process a batch of CDC event messages
+     *
+     * Events for the same document are collapsed into one change that
+     * writes the document's last state, so each document is written once
+     * per batch; a document deleted and created again is deleted before
+     * its new state is written. The writes are then sent together as one
+     * bulk request.
+     * Messages that cannot be parsed and writes the cluster rejects as
+     * invalid are logged and skipped, as retrying them cannot succeed.
+     *
+     * @param messages JSON strings of CDC events, in consumption order
+     * @return future completed once every write of the batch succeeded;
+     * fails if a write failed in a way that may succeed on retry
+     */
+    public CompletableFuture<Void> processBatch(List<String> messages) {
+        Map<String, Change> changes = new LinkedHashMap<>();
+        for (String message : messages) {
+            Change change = parse(message);
+            if (change == null) {
+                continue;
+            }
+            String key = change.table() + "/" + change.id();
+            Change earlier = changes.remove(key);
+            changes.put(key, earlier == null ? change : collapse(earlier, change));
+        }
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>(changes.size());
+        for (Change change : changes.values()) {
+            CompletableFuture<Void> write = apply(change);
+            if (write != null) {
+                writes.add(write.exceptionally(e -> skipIfPermanent(change, e)));
+            }
+        }
+        // The batch is already compacted, so do not hold it for the rest of the window
+        if (changeCompactor != null) {
+            changeCompactor.flush();
+        } else {
+            esWriter.flush();
+        }
+
+        log.debug("Processed batch: messages={}, writes={}", messages.size(), writes.size());
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Collapse two consecutive changes to one document
+     *
+     * @param earlier the earlier change
+     * @param later the later change
+     * @return one change with the same effect
+     */
+    private Change collapse(Change earlier, Change later) {
+        if ("u".equals(later.op()) && ("d".equals(earlier.op()) || earlier.deleteFirst())) {
+            // Created again after a delete: replace the deleted document rather than merge into it
+            return new Change("u", later.table(), later.id(), null, later.after(), true);
+        }
+        // Keep the row as it was before the batch so vectorization sees every source change
+        return new Change(later.op(), later.table(), later.id(), earlier.before(), later.after(), false);
+    }
+
+    /**
+     * Parse a CDC event into the change it makes to a document
+     *
+     * @param message JSON string of the CDC event
+     * @return the change, or null if the event is invalid or unsupported
+     */
+    private Change parse(String message) {
         if (message == null || message.isEmpty()) {
             log.warn("Received empty message");
-            return;
+            return null;
         }
 
         try {
@@ -60,111 +163,159 @@ public class DataProcessor {
             String op = event.has("op") ? event.get("op").asText() : null;
             if (op == null) {
                 log.warn("Event missing operation type: {}", message);
-                return;
+                return null;
             }
 
             // Extract source information
             JsonNode source = event.get("source");
             if (source == null) {
                 log.warn("Event missing source node: {}", message);
-                return;
+                return null;
             }
 
             String table = source.has("table") ? source.get("table").asText() : null;
             if (table == null) {
                 log.warn("Event missing table name: {}", message);
-                return;
+                return null;
+            }
+
+            JsonNode before = event.get("before");
+            if (before != null && before.isNull()) {
+                before = null;
             }
 
             // Process based on operation type
             switch (op) {
                 case "c": // Create
                 case "u": // Update
-                    handleUpsert(event, table);
-                    break;
+                case "r": // Read (snapshot), treated like inserts
+                    JsonNode after = event.get("after");
+                    if (after == null || after.isNull()) {
+                        log.warn("Upsert event missing 'after' node for table: {}", table);
+                        return null;
+                    }
+                    return new Change("u", table, extractId(after), before, after, false);
 
                 case "d": // Delete
-                    handleDelete(event, table);
-                    break;
-
-                case "r": // Read (snapshot)
-                    handleRead(event, table);
-                    break;
+                    if (before == null) {
+                        log.warn("Delete event missing 'before' node for table: {}", table);
+                        return null;
+                    }
+                    return new Change("d", table, extractId(before), before, null, false);
 
                 default:
                     log.warn("Unknown operation type: {}", op);
+                    return null;
             }
 
         } catch (Exception e) {
             log.error("Failed to process message: {}", message, e);
+            return null;
         }
     }
 
+    /**
+     * Apply a change to the index
+     *
+     * @param change the change
+     * @return future of the write, or null if it could not be issued
+     */
+    private CompletableFuture<Void> apply(Change change) {
+        return "d".equals(change.op()) ? handleDelete(change) : handleUpsert(change);
+    }
+
     /**
      * Handle insert or update operation
      *
-     * @param event the CDC event
-     * @param table source table name
+     * @param change the upsert
+     * @return future of the write, or null if it could not be issued
      */
-    private void handleUpsert(JsonNode event, String table) {
+    private CompletableFuture<Void> handleUpsert(Change change) {
+        String table = change.table();
+        String id = change.id();
         try {
-            JsonNode after = event.get("after");
-            if (after == null || after.isNull()) {
-                log.warn("Upsert event missing 'after' node for table: {}", table);
-                return;
-            }
-
-            String document = after.toString();
-            String id = extractId(after);
+            String document = change.after().toString();
 
             // Convert to Map for field extraction
-            Map<String, Object> docData = convertNodeToMap(after);
+            Map<String, Object> docData = convertNodeToMap(change.after());
 
-            esWriter.upsert(table, id, document);
+            CompletableFuture<Void> delete = null;
+            if (change.deleteFirst()) {
+                delete = handleDelete(change);
+                if (delete == null) {
+                    return null;
+                }
+            }
+            CompletableFuture<Void> write = changeCompactor != null
+                    ? changeCompactor.upsert(table, id, document)
+                    : esWriter.upsert(table, id, document);
+            if (delete != null) {
+                write = CompletableFuture.allOf(delete, write);
+            }
             log.debug("Upserted document: table={}, id={}", table, id);
 
             // Check for vectorization needs (bypass mode)
             if (vectorizationEnabled && vectorizationQueue != null) {
-                enqueueVectorizationTasks(table, id, docData);
+                // Vector writes and local ANN updates address the index, not the source table
+                enqueueVectorizationTasks(esWriter.getIndexName(table), id, docData,
+                        change.before(), change.after(), write);
             }
+            return write;
 
         } catch (Exception e) {
             log.error("Failed to handle upsert for table: {}", table, e);
+            return null;
         }
     }
 
     /**
      * Handle delete operation
      *
-     * @param event the CDC event
-     * @param table source table name
+     * @param change the delete
+     * @return future of the write, or null if it could not be issued
      */
-    private void handleDelete(JsonNode event, String table) {
+    private CompletableFuture<Void> handleDelete(Change change) {
+        String table = change.table();
+        String id = change.id();
         try {
-            JsonNode before = event.get("before");
-            if (before == null || before.isNull()) {
-                log.warn("Delete event missing 'before' node for table: {}", table);
-                return;
+            CompletableFuture<Void> write = changeCompactor != null
+                    ? changeCompactor.delete(table, id)
+                    : esWriter.delete(table, id);
+            String indexName = esWriter.getIndexName(table);
+            if (sourceFingerprints != null) {
+                sourceFingerprints.invalidate(indexName, id);
+            }
+            if (vectorUpdatePublisher != null) {
+                vectorUpdatePublisher.publishDelete(indexName, id);
             }
-
-            String id = extractId(before);
-            esWriter.delete(table, id);
             log.debug("Deleted document: table={}, id={}", table, id);
+            return write;
 
         } catch (Exception e) {
             log.error("Failed to handle delete for table: {}", table, e);
+            return null;
         }
     }
 
     /**
-     * Handle read operation (initial snapshot)
+     * Swallow a write failure the cluster will keep rejecting, rethrow others
      *
-     * @param event the CDC event
-     * @param table source table name
+     * @param change the failed change
+     * @param error the failure
+     * @return null if the failure is permanent
      */
-    private void handleRead(JsonNode event, String table) {
-        // Read events from snapshot are treated like inserts
-        handleUpsert(event, table);
+    private Void skipIfPermanent(Change change, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        if (cause instanceof BulkIndexer.BulkItemException) {
+            int status = ((BulkIndexer.BulkItemException) cause).getStatus();
+            if (status >= 400 && status < 500 && status != 429) {
+                log.error("Dropping rejected write: table={}, id={}, {}",
+                        change.table(), change.id(), cause.getMessage());
+                return null;
+            }
+        }
+        throw cause instanceof CompletionException ? (CompletionException) cause : new CompletionException(cause);
     }
 
     /**
@@ -226,19 +377,38 @@ public class DataProcessor {
      * This method checks document fields for vectorization configuration.
      * In production, this would load field configuration from the config service.
      *
+     * Most updates only touch fields like price or stock, so a task is only
+     * enqueued when its source fields changed: by comparing the before and
+     * after images, or, when the event has no before image, the source text
+     * against its last recorded fingerprint.
+     *
+     * The vector is written with a partial update of the document, so the
+     * tasks are only enqueued once the document write has been applied; a
+     * new document would otherwise still be missing when its vector arrives.
+     *
      * @param indexName the index name
      * @param documentId the document ID
      * @param docData the document data
+     * @param before the row before the change, or null if not available
+     * @param after the row after the change
+     * @param write future of the document write
      */
-    private void enqueueVectorizationTasks(String indexName, String documentId,
-                                          Map<String, Object> docData) {
+    private void enqueueVectorizationTasks(String indexName, String documentId, Map<String, Object> docData,
+                                          JsonNode before, JsonNode after, CompletableFuture<Void> write) {
         try {
             // TODO: Load actual field configuration from config service
             // For now, use a simple heuristic: check for common text fields
 
             List<VectorizationConfig> vectorConfigs = detectVectorizableFields(docData);
 
+            List<VectorizationTask> tasks = new ArrayList<>(vectorConfigs.size());
             for (VectorizationConfig config : vectorConfigs) {
+                if (before != null && !sourceFieldsChanged(before, after, config.sourceFields)) {
+                    log.debug("Source fields unchanged, skipping vectorization: id={}, field={}",
+                            documentId, config.targetField);
+                    continue;
+                }
+
                 VectorizationTask task = new VectorizationTask(
                         indexName,
                         documentId,
@@ -246,8 +416,18 @@ public class DataProcessor {
                         config.targetField,
                         docData
                 );
-                vectorizationQueue.enqueue(task);
-                log.debug("Enqueued vectorization task for field: {}", config.targetField);
+                if (sourceFingerprints != null
+                        && !sourceFingerprints.update(indexName, documentId, config.targetField, task.combineText())) {
+                    log.debug("Source text unchanged, skipping vectorization: id={}, field={}",
+                            documentId, config.targetField);
+                    continue;
+                }
+                pendingTasks.put(pendingKey(task), task);
+                tasks.add(task);
+            }
+
+            if (!tasks.isEmpty()) {
+                write.whenComplete((done, error) -> enqueueAfterWrite(tasks, error));
             }
 
         } catch (Exception e) {
@@ -255,6 +435,58 @@ public class DataProcessor {
         }
     }
 
+    /**
+     * Enqueue the tasks of a document whose write completed
+     *
+     * A task superseded by a later change to the same field is dropped:
+     * writes merged by the compactor share one future, whose callbacks do
+     * not run in change order, and the later task carries the newer text.
+     *
+     * @param tasks the document's vectorization tasks
+     * @param error the write failure, or null if the document was written
+     */
+    private void enqueueAfterWrite(List<VectorizationTask> tasks, Throwable error) {
+        for (VectorizationTask task : tasks) {
+            if (!pendingTasks.remove(pendingKey(task), task)) {
+                log.debug("Vectorization task superseded: id={}, field={}",
+                        task.getDocumentId(), task.getTargetField());
+                continue;
+            }
+            try {
+                if (error == null && vectorizationQueue.enqueue(task)) {
+                    log.debug("Enqueued vectorization task for field: {}", task.getTargetField());
+                } else if (sourceFingerprints != null) {
+                    // Not vectorized, so the next event for this text must not be skipped
+                    sourceFingerprints.invalidate(task.getIndexName(), task.getDocumentId(), task.getTargetField());
+                }
+            } catch (Exception e) {
+                log.error("Failed to enqueue vectorization task: id={}, field={}",
+                        task.getDocumentId(), task.getTargetField(), e);
+            }
+        }
+    }
+
+    private static String pendingKey(VectorizationTask task) {
+        return task.getIndexName() + "/" + task.getDocumentId() + "/" + task.getTargetField();
+    }
+
+    /**
+     * Check if any source field differs between the before and after images
+     *
+     * @param before the row before the change
+     * @param after the row after the change
+     * @param sourceFields the vector's source fields
+     * @return true if at least one source field changed
+     */
+    private boolean sourceFieldsChanged(JsonNode before, JsonNode after, List<String> sourceFields) {
+        for (String field : sourceFields) {
+            if (!Objects.equals(before.get(field), after.get(field))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Detect fields that need vectorization
      *
@@ -287,6 +519,21 @@ public class DataProcessor {
         return configs;
     }
 
+    /**
+     * Change to one document, parsed from a CDC event
+     *
+     * @param op "u" for insert or update, "d" for delete
+     * @param table source table name
+     * @param id document ID
+     * @param before the row before the change, or null if not available
+     * @param after the row after the change, null for deletes
+     * @param deleteFirst delete the document before writing it, as it was
+     * deleted and created again
+     */
+    private record Change(String op, String table, String id, JsonNode before, JsonNode after,
+                          boolean deleteFirst) {
+    }
+
     /**
      * Internal class for vectorization configuration
      */
@@ -3,6 +3,7 @@ package com.search.sync.vectorization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -10,6 +11,10 @@ import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PreDestroy;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Asynchronous processor for vectorization tasks
  *
@@ -25,6 +30,21 @@ public class AsyncVectorizationProcessor {
     private final VectorizationQueue queue;
     private final VectorizationService vectorizationService;
 
+    @Autowired(required = false)
+    private SourceFingerprints sourceFingerprints;
+
+    /**
+     * Texts per streamed embedding batch
+     */
+    @Value("${vector.service.grpc.batch-size:32}")
+    private int streamBatchSize;
+
+    /**
+     * Upper bound on tasks taken from the queue per streamed round
+     */
+    @Value("${vector.service.grpc.max-tasks-per-round:4096}")
+    private int streamMaxTasksPerRound;
+
     private volatile boolean running = true;
 
     @Autowired
@@ -51,6 +71,11 @@ public class AsyncVectorizationProcessor {
                 return;
             }
 
+            if (vectorizationService.isStreamingEnabled()) {
+                processStreamed();
+                return;
+            }
+
             // Process available tasks (batch up to 10 at a time)
             int batchSize = 10;
             int processed = 0;
@@ -61,20 +86,8 @@ public class AsyncVectorizationProcessor {
                     break;
                 }
 
-                boolean success = vectorizationService.processTask(task);
-                if (success) {
-                    queue.markProcessed();
+                if (complete(task, vectorizationService.processTask(task))) {
                     processed++;
-                } else {
-                    // Retry logic
-                    task.incrementRetry();
-                    if (task.shouldRetry()) {
-                        log.warn("Retrying vectorization task (attempt {}): {}",
-                                task.getRetryCount(), task);
-                        queue.enqueue(task);
-                    } else {
-                        log.error("Max retries exceeded for task: {}", task);
-                    }
                 }
             }
 
@@ -90,6 +103,77 @@ public class AsyncVectorizationProcessor {
         }
     }
 
+    /**
+     * Drain the queue in streamed batches
+     *
+     * Submitting blocks only while the streaming client's window is full, so
+     * several batches are embedded while earlier ones are being written.
+     */
+    private void processStreamed() throws InterruptedException {
+        List<List<VectorizationTask>> batches = new ArrayList<>();
+        List<CompletableFuture<List<Boolean>>> futures = new ArrayList<>();
+        int taken = 0;
+
+        while (taken < streamMaxTasksPerRound && !queue.isEmpty()) {
+            List<VectorizationTask> batch = new ArrayList<>(streamBatchSize);
+            while (batch.size() < streamBatchSize && taken < streamMaxTasksPerRound) {
+                VectorizationTask task = queue.poll(0);
+                if (task == null) {
+                    break;
+                }
+                batch.add(task);
+                taken++;
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            batches.add(batch);
+            futures.add(vectorizationService.processBatch(batch));
+        }
+
+        int processed = 0;
+        for (int i = 0; i < batches.size(); i++) {
+            List<VectorizationTask> batch = batches.get(i);
+            List<Boolean> results = futures.get(i).join();
+            for (int j = 0; j < batch.size(); j++) {
+                if (complete(batch.get(j), results.get(j))) {
+                    processed++;
+                }
+            }
+        }
+
+        if (processed > 0) {
+            log.debug("Processed {} vectorization tasks in {} streamed batches", processed, batches.size());
+        }
+    }
+
+    /**
+     * Mark a task processed, or requeue it for retry
+     *
+     * @return true if the task succeeded
+     */
+    private boolean complete(VectorizationTask task, boolean success) {
+        if (success) {
+            queue.markProcessed();
+            return true;
+        }
+
+        // Retry logic
+        task.incrementRetry();
+        if (task.shouldRetry()) {
+            log.warn("Retrying vectorization task (attempt {}): {}",
+                    task.getRetryCount(), task);
+            queue.enqueue(task);
+        } else {
+            log.error("Max retries exceeded for task: {}", task);
+            if (sourceFingerprints != null) {
+                // The vector was never written, so the same text must be vectorized again
+                sourceFingerprints.invalidate(task.getIndexName(), task.getDocumentId(), task.getTargetField());
+            }
+        }
+        return false;
+    }
+
     /**
      * Log queue statistics every 30 seconds
      */
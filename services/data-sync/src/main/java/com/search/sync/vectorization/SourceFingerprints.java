@@ -0,0 +1,101 @@
+package com.search.sync.vectorization;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fingerprints of the text each vector field was last computed from
+ *
+ * Used to skip re-vectorization when an update event carries no before
+ * image: if the combined source text hashes to the recorded fingerprint, the
+ * stored vector is still valid. Only recently updated documents are kept,
+ * so an evicted document is simply vectorized again.
+ */
+@Component
+public class SourceFingerprints {
+
+    /**
+     * Documents tracked before the least recently updated are evicted
+     */
+    private static final int MAX_DOCUMENTS = 200_000;
+
+    private final Map<String, Map<String, Long>> fingerprints =
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, Long>> eldest) {
+                    return size() > MAX_DOCUMENTS;
+                }
+            };
+
+    /**
+     * Record the source text of a vector field
+     *
+     * @param indexName the index name
+     * @param documentId the document ID
+     * @param targetField the vector field
+     * @param text the combined source text
+     * @return true if the text differs from the recorded one or none was recorded
+     */
+    public synchronized boolean update(String indexName, String documentId, String targetField, String text) {
+        Long fingerprint = fingerprint(text);
+        Long previous = fingerprints.computeIfAbsent(key(indexName, documentId), k -> new HashMap<>(4))
+                .put(targetField, fingerprint);
+        return !fingerprint.equals(previous);
+    }
+
+    /**
+     * Forget one vector field, e.g. when its task was dropped or failed
+     *
+     * @param indexName the index name
+     * @param documentId the document ID
+     * @param targetField the vector field
+     */
+    public synchronized void invalidate(String indexName, String documentId, String targetField) {
+        Map<String, Long> fields = fingerprints.get(key(indexName, documentId));
+        if (fields != null) {
+            fields.remove(targetField);
+        }
+    }
+
+    /**
+     * Forget every vector field of a document, e.g. when it is deleted
+     *
+     * @param indexName the index name
+     * @param documentId the document ID
+     */
+    public synchronized void invalidate(String indexName, String documentId) {
+        fingerprints.remove(key(indexName, documentId));
+    }
+
+    /**
+     * Get the number of tracked documents
+     *
+     * @return tracked document count
+     */
+    public synchronized int size() {
+        return fingerprints.size();
+    }
+
+    private static String key(String indexName, String documentId) {
+        return indexName + '/' + documentId;
+    }
+
+    /**
+     * First 64 bits of the SHA-256 of the text
+     */
+    private static Long fingerprint(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
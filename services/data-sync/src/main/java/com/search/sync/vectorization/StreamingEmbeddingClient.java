@@ -0,0 +1,240 @@
+package com.search.sync.vectorization;
+
+import com.search.vector.grpc.EmbedRequest;
+import com.search.vector.grpc.EmbedResponse;
+import com.search.vector.grpc.EmbeddingStreamGrpc;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming client for the vector-service gRPC embedding API
+ *
+ * Sends batches of texts over one long-lived bidirectional stream and keeps
+ * up to window batches in flight, so backfills are bound by model
+ * throughput instead of one HTTP round trip per document. Responses are
+ * matched to their batches by id. If the stream breaks, its pending batches
+ * fail and the next call opens a new stream.
+ */
+@Component
+public class StreamingEmbeddingClient {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingEmbeddingClient.class);
+
+    @Value("${vector.service.grpc.enabled:false}")
+    private boolean enabled;
+
+    @Value("${vector.service.grpc.target:localhost:9083}")
+    private String target;
+
+    @Value("${vector.service.grpc.window:8}")
+    private int window;
+
+    @Value("${vector.service.grpc.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private ManagedChannel channel;
+    private Semaphore permits;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextBatchId = new AtomicLong();
+    private final AtomicLong nextStreamId = new AtomicLong();
+
+    // Guarded by this
+    private StreamObserver<EmbedRequest> stream;
+    private long streamId;
+
+    public StreamingEmbeddingClient() {
+    }
+
+    /**
+     * Create a client on an existing channel
+     */
+    StreamingEmbeddingClient(ManagedChannel channel, int window, long timeoutMs) {
+        this.enabled = true;
+        this.channel = channel;
+        this.window = window;
+        this.timeoutMs = timeoutMs;
+        this.permits = new Semaphore(window);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled && channel == null) {
+            channel = Grpc.newChannelBuilder(target, InsecureChannelCredentials.create()).build();
+            permits = new Semaphore(window);
+            log.info("Streaming embedding client created: target={}, window={}", target, window);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        synchronized (this) {
+            if (stream != null) {
+                stream.onCompleted();
+                stream = null;
+            }
+        }
+        if (channel != null) {
+            channel.shutdown();
+            if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
+                channel.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Check if streaming is enabled
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Embed one batch of texts over the stream
+     *
+     * Blocks while the window is full. The future fails with
+     * RejectedExecutionException when vector-service was saturated and the
+     * batch can be retried, and with TimeoutException when no response
+     * arrived within the timeout.
+     *
+     * @param texts the texts; none may be empty
+     * @return future completed with the embeddings in text order
+     * @throws InterruptedException if interrupted while waiting for the window
+     */
+    public CompletableFuture<List<float[]>> embed(List<String> texts) throws InterruptedException {
+        if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            return CompletableFuture.failedFuture(
+                    new TimeoutException("No free slot in the embedding window after " + timeoutMs + "ms"));
+        }
+
+        long batchId = nextBatchId.incrementAndGet();
+        CompletableFuture<List<float[]>> future = new CompletableFuture<>();
+        future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((vectors, error) -> {
+                    pending.remove(batchId);
+                    permits.release();
+                });
+
+        EmbedRequest request = EmbedRequest.newBuilder()
+                .setBatchId(batchId)
+                .addAllTexts(texts)
+                .build();
+        synchronized (this) {
+            if (stream == null) {
+                openStream();
+            }
+            pending.put(batchId, new Pending(streamId, texts.size(), future));
+            try {
+                stream.onNext(request);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Number of batches sent and not yet answered
+     *
+     * @return in-flight batch count
+     */
+    public int getInFlight() {
+        return pending.size();
+    }
+
+    private void openStream() {
+        long id = nextStreamId.incrementAndGet();
+        streamId = id;
+        stream = EmbeddingStreamGrpc.newStub(channel).embed(new StreamObserver<>() {
+            @Override
+            public void onNext(EmbedResponse response) {
+                complete(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                streamClosed(id, t);
+            }
+
+            @Override
+            public void onCompleted() {
+                streamClosed(id, new IllegalStateException("Embedding stream closed by vector-service"));
+            }
+        });
+    }
+
+    private void complete(EmbedResponse response) {
+        Pending batch = pending.get(response.getBatchId());
+        if (batch == null) {
+            return; // Timed out already
+        }
+
+        if (!response.getError().isEmpty()) {
+            batch.future.completeExceptionally(response.getRetryable()
+                    ? new RejectedExecutionException(response.getError())
+                    : new IllegalStateException(response.getError()));
+            return;
+        }
+
+        int dimension = response.getDimension();
+        if (dimension <= 0 || response.getValuesCount() != batch.size * dimension) {
+            batch.future.completeExceptionally(new IllegalStateException("Batch " + response.getBatchId()
+                    + " returned " + response.getValuesCount() + " values for " + batch.size + " texts"));
+            return;
+        }
+
+        List<float[]> vectors = new ArrayList<>(batch.size);
+        for (int i = 0; i < batch.size; i++) {
+            float[] vector = new float[dimension];
+            for (int j = 0; j < dimension; j++) {
+                vector[j] = response.getValues(i * dimension + j);
+            }
+            vectors.add(vector);
+        }
+        batch.future.complete(vectors);
+    }
+
+    /**
+     * Fail the batches of a closed stream; the next call opens a new one
+     */
+    private void streamClosed(long id, Throwable cause) {
+        synchronized (this) {
+            if (streamId == id) {
+                stream = null;
+            }
+        }
+        log.warn("Embedding stream to {} closed: {}", target, cause.getMessage());
+        for (Pending batch : pending.values()) {
+            if (batch.streamId == id) {
+                batch.future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * Batch waiting for its response
+     */
+    private record Pending(long streamId, int size, CompletableFuture<List<float[]>> future) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.search.sync.vectorization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Publisher of vector updates for in-process ANN indexes
+ *
+ * After a vector is written to OpenSearch, the same vector is published
+ * so query-service instances can update their local indexes without
+ * re-reading the document. Messages are keyed by index and document ID,
+ * which keeps the updates of one document in order.
+ */
+@Component
+public class VectorUpdatePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorUpdatePublisher.class);
+
+    @Value("${vectorization.updates.enabled:true}")
+    private boolean enabled;
+
+    @Value("${vectorization.updates.topic:vector-updates}")
+    private String topic;
+
+    private final KafkaProducer<String, String> producer;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public VectorUpdatePublisher(KafkaProducer<String, String> producer) {
+        this.producer = producer;
+    }
+
+    /**
+     * Publish a new vector for a document field
+     *
+     * @param indexName the index name
+     * @param documentId the document ID
+     * @param vectorField the vector field name
+     * @param vector the embedding vector
+     */
+    public void publishUpsert(String indexName, String documentId, String vectorField, float[] vector) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("op", "upsert");
+        event.put("index", indexName);
+        event.put("id", documentId);
+        event.put("field", vectorField);
+        event.put("vector", vector);
+        publish(indexName, documentId, event);
+    }
+
+    /**
+     * Publish the deletion of a document
+     *
+     * @param indexName the index name
+     * @param documentId the document ID
+     */
+    public void publishDelete(String indexName, String documentId) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("op", "delete");
+        event.put("index", indexName);
+        event.put("id", documentId);
+        publish(indexName, documentId, event);
+    }
+
+    private void publish(String indexName, String documentId, Map<String, Object> event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            String key = indexName + "/" + documentId;
+            producer.send(new ProducerRecord<>(topic, key, mapper.writeValueAsString(event)), (metadata, e) -> {
+                if (e != null) {
+                    log.warn("Failed to publish vector update: key={}, error={}", key, e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            // Local indexes catch up on their next snapshot rebuild
+            log.warn("Failed to publish vector update: index={}, id={}", indexName, documentId, e);
+        }
+    }
+}
@@ -2,20 +2,28 @@ package com.search.sync.vectorization;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.search.common.vector.VectorCodec;
 import org.opensearch.client.opensearch.core.UpdateRequest;
 import org.opensearch.client.opensearch.core.UpdateResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for asynchronous vectorization of document fields
@@ -33,11 +41,23 @@ public class VectorizationService {
     @Value("${vector.service.url:http://localhost:8083}")
     private String vectorServiceUrl;
 
+    /**
+     * Wire encoding of returned vectors: float32, or float16 for half the bytes
+     */
+    @Value("${vector.service.encoding:float32}")
+    private String vectorEncoding;
+
     @Value("${opensearch.url:http://localhost:9200}")
     private String openSearchUrl;
 
     private final RestTemplate restTemplate;
 
+    @Autowired(required = false)
+    private VectorUpdatePublisher updatePublisher;
+
+    @Autowired(required = false)
+    private StreamingEmbeddingClient streamingClient;
+
     public VectorizationService() {
         this.restTemplate = new RestTemplate();
     }
@@ -64,12 +84,8 @@ public class VectorizationService {
                 return false;
             }
 
-            // 3. Update OpenSearch document with vector
-            updateDocumentVector(task.getIndexName(), task.getDocumentId(),
-                    task.getTargetField(), embedding);
-
-            log.debug("Successfully vectorized document: index={}, id={}, field={}",
-                    task.getIndexName(), task.getDocumentId(), task.getTargetField());
+            // 3. Write and publish the vector
+            writeVector(task, embedding);
             return true;
 
         } catch (Exception e) {
@@ -78,28 +94,112 @@ public class VectorizationService {
         }
     }
 
+    /**
+     * Check if tasks should go through the streaming gRPC client
+     *
+     * @return true if streaming is enabled
+     */
+    public boolean isStreamingEnabled() {
+        return streamingClient != null && streamingClient.isEnabled();
+    }
+
+    /**
+     * Process tasks with one streamed embedding batch
+     *
+     * Blocks only while the client's window is full; the returned future
+     * completes once the batch is embedded and its vectors are written.
+     *
+     * @param tasks the vectorization tasks
+     * @return future of per-task results, in task order
+     * @throws InterruptedException if interrupted while waiting for the window
+     */
+    public CompletableFuture<List<Boolean>> processBatch(List<VectorizationTask> tasks) throws InterruptedException {
+        // Position of each task's text in the batch, -1 when it has none
+        int[] slots = new int[tasks.size()];
+        List<String> texts = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            String combinedText = tasks.get(i).combineText();
+            if (combinedText.isEmpty()) {
+                log.warn("No text to vectorize for task: {}", tasks.get(i));
+                slots[i] = -1;
+            } else {
+                slots[i] = texts.size();
+                texts.add(combinedText);
+            }
+        }
+
+        if (texts.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.nCopies(tasks.size(), true));
+        }
+
+        return streamingClient.embed(texts).handle((embeddings, error) -> {
+            if (error != null) {
+                log.warn("Streamed embedding batch of {} tasks failed: {}", texts.size(), error.getMessage());
+            }
+
+            List<Boolean> results = new ArrayList<>(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                if (slots[i] < 0) {
+                    results.add(true); // Not an error, just nothing to do
+                } else if (error != null) {
+                    results.add(false);
+                } else {
+                    results.add(writeVectorSafely(tasks.get(i), embeddings.get(slots[i])));
+                }
+            }
+            return results;
+        });
+    }
+
+    private boolean writeVectorSafely(VectorizationTask task, float[] embedding) {
+        try {
+            writeVector(task, embedding);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to process vectorization task: {}", task, e);
+            return false;
+        }
+    }
+
+    /**
+     * Update the OpenSearch document and publish the new vector
+     */
+    private void writeVector(VectorizationTask task, float[] embedding) {
+        updateDocumentVector(task.getIndexName(), task.getDocumentId(),
+                task.getTargetField(), embedding);
+
+        // Let local ANN indexes pick up the new vector
+        if (updatePublisher != null) {
+            updatePublisher.publishUpsert(task.getIndexName(), task.getDocumentId(),
+                    task.getTargetField(), embedding);
+        }
+
+        log.debug("Successfully vectorized document: index={}, id={}, field={}",
+                task.getIndexName(), task.getDocumentId(), task.getTargetField());
+    }
+
     /**
      * Get embedding from vector service
      *
+     * Asks for a binary VectorCodec frame, which decodes straight into a
+     * float[] instead of going through JSON numbers.
+     *
      * @param text the input text
      * @return embedding vector
      */
     private float[] getEmbedding(String text) {
         try {
-            String url = vectorServiceUrl + "/api/v1/embed";
+            String url = vectorServiceUrl + "/api/v1/embedding?encoding=" + vectorEncoding;
             Map<String, String> request = new HashMap<>();
             request.put("text", text);
 
-            Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setAccept(List.of(MediaType.APPLICATION_OCTET_STREAM));
 
-            if (response != null && response.containsKey("vector")) {
-                @SuppressWarnings("unchecked")
-                List<Number> vectorList = (List<Number>) response.get("vector");
-                float[] vector = new float[vectorList.size()];
-                for (int i = 0; i < vectorList.size(); i++) {
-                    vector[i] = vectorList.get(i).floatValue();
-                }
-                return vector;
+            byte[] frame = restTemplate.postForObject(url, new HttpEntity<>(request, headers), byte[].class);
+            if (frame != null) {
+                return VectorCodec.decodeSingle(frame);
             }
 
         } catch (Exception e) {
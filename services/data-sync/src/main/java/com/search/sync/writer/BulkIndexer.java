@@ -0,0 +1,544 @@
+package com.search.sync.writer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.BulkOperationBase;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accumulates write operations and sends them through the _bulk API
+ *
+ * Operations are buffered until maxActions operations or maxBytes of
+ * source are pending, or the oldest has waited flushIntervalMs, and then
+ * sent as one bulk request. At most concurrentRequests bulk requests are
+ * in flight; once they are, the thread that fills the next batch waits,
+ * which pushes back on the producer instead of buffering without bound.
+ *
+ * Each item's result is handled on its own: items rejected with a
+ * retryable status (429 and 5xx) are sent again after a backoff, up to
+ * maxRetries times, together with the later items of their document in
+ * the same request; other failures complete only that item's future
+ * exceptionally. No refresh is requested; visibility follows the index's
+ * refresh_interval.
+ *
+ * Writes to one document apply in the order they were added: while a
+ * document has an operation in a request or waiting for its retry, later
+ * operations on it are held back and join the buffer only once that one
+ * is resolved, so neither a retry nor a concurrent request can put an
+ * older state over a newer one.
+ *
+ * Exports sync.bulk.flush (request latency), sync.bulk.batch.size
+ * (operations per request) and sync.bulk.items (item results by outcome).
+ */
+public class BulkIndexer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkIndexer.class);
+
+    /**
+     * Approximate per-operation overhead of the action line
+     */
+    private static final int ACTION_BYTES = 64;
+
+    private final OpenSearchClient client;
+    private final int maxActions;
+    private final long maxBytes;
+    private final long flushIntervalNanos;
+    private final int concurrentRequests;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    private final Semaphore permits;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSize;
+    private final Counter succeeded;
+    private final Counter retried;
+    private final Counter failed;
+
+    private List<Pending> buffer = new ArrayList<>();
+    /** Operations sent or waiting for a retry, per document key */
+    private final Map<String, Integer> unresolved = new HashMap<>();
+    /** Operations added while their document had unresolved ones, per document key */
+    private final Map<String, List<Pending>> held = new HashMap<>();
+    private long bufferedBytes;
+    private long oldestNanos;
+    private volatile boolean closed;
+
+    /**
+     * @param client OpenSearch client
+     * @param maxActions operations per bulk request
+     * @param maxBytes approximate source bytes per bulk request
+     * @param flushIntervalMs longest an operation waits in the buffer
+     * @param concurrentRequests bulk requests in flight at once
+     * @param maxRetries retries of an item rejected with a retryable status
+     * @param retryBackoffMs delay before the first retry, doubled for each further one
+     * @param registry registry for bulk metrics
+     */
+    public BulkIndexer(OpenSearchClient client, int maxActions, long maxBytes, long flushIntervalMs,
+                       int concurrentRequests, int maxRetries, long retryBackoffMs, MeterRegistry registry) {
+        this.client = client;
+        this.maxActions = Math.max(1, maxActions);
+        this.maxBytes = maxBytes;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.concurrentRequests = Math.max(1, concurrentRequests);
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.permits = new Semaphore(this.concurrentRequests);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.requestExecutor = Executors.newFixedThreadPool(this.concurrentRequests, runnable -> {
+            Thread thread = new Thread(runnable, "es-bulk-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "es-bulk-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMs = Math.max(10, flushIntervalMs / 4);
+        scheduler.scheduleWithFixedDelay(this::flushIfExpired, tickMs, tickMs, TimeUnit.MILLISECONDS);
+
+        this.flushTimer = Timer.builder("sync.bulk.flush")
+                .description("Latency of one bulk request")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("sync.bulk.batch.size")
+                .description("Operations per bulk request")
+                .register(registry);
+        this.succeeded = itemCounter(registry, "success");
+        this.retried = itemCounter(registry, "retried");
+        this.failed = itemCounter(registry, "failed");
+
+        log.info("Bulk indexer started: maxActions={}, maxBytes={}, flushIntervalMs={}, concurrentRequests={}",
+                this.maxActions, maxBytes, flushIntervalMs, this.concurrentRequests);
+    }
+
+    /**
+     * Queue an operation
+     *
+     * May block while concurrentRequests bulk requests are in flight and
+     * this operation fills the next one.
+     *
+     * @param operation the bulk operation
+     * @param sizeBytes approximate size of its source
+     * @return future completed once the cluster has applied the operation;
+     * fails with BulkItemException when it was rejected
+     */
+    public CompletableFuture<Void> add(BulkOperation operation, long sizeBytes) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Bulk indexer is closed"));
+        }
+        Pending pending = new Pending(operation, sizeBytes + ACTION_BYTES, new CompletableFuture<>());
+        enqueue(pending);
+        return pending.future;
+    }
+
+    /**
+     * Send everything buffered and wait for all bulk requests in flight
+     *
+     * Operations held behind an earlier write to the same document are
+     * sent in a second pass once that write has been applied. Retries
+     * still waiting for their backoff are not waited for.
+     */
+    public void flush() {
+        for (int pass = 0; pass < 2; pass++) {
+            dispatch(drain());
+            try {
+                permits.acquire(concurrentRequests);
+                permits.release(concurrentRequests);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send everything buffered without waiting for the result
+     *
+     * Only waits for a free request slot, like a batch filled by add.
+     */
+    public void send() {
+        dispatch(drain());
+    }
+
+    /**
+     * Get the number of buffered operations
+     *
+     * @return operations waiting for a bulk request
+     */
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Let retries already waiting for their backoff run, flush and stop
+     *
+     * Items that fail after this are not retried again.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for bulk retries");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        requestExecutor.shutdown();
+
+        // Operations added while closing, or still held behind a failed retry
+        List<Pending> abandoned;
+        synchronized (this) {
+            abandoned = buffer;
+            buffer = new ArrayList<>();
+            bufferedBytes = 0;
+            held.values().forEach(abandoned::addAll);
+            held.clear();
+        }
+        if (!abandoned.isEmpty()) {
+            log.warn("Bulk indexer closed with {} operations unsent", abandoned.size());
+            for (Pending pending : abandoned) {
+                pending.future.completeExceptionally(new IllegalStateException("Bulk indexer is closed"));
+            }
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        List<Pending> batch = null;
+        synchronized (this) {
+            if (unresolved.containsKey(pending.key)) {
+                held.computeIfAbsent(pending.key, k -> new ArrayList<>()).add(pending);
+                return;
+            }
+            if (buffer.isEmpty()) {
+                oldestNanos = System.nanoTime();
+            }
+            buffer.add(pending);
+            bufferedBytes += pending.sizeBytes;
+            if (buffer.size() >= maxActions || bufferedBytes >= maxBytes) {
+                batch = takeBuffer();
+            }
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * Send retried items right away, together with whatever is buffered
+     */
+    private void resend(List<Pending> retries) {
+        List<Pending> batch;
+        synchronized (this) {
+            buffer.addAll(retries);
+            batch = takeBuffer();
+        }
+        dispatch(batch);
+    }
+
+    private void flushIfExpired() {
+        List<Pending> batch = null;
+        synchronized (this) {
+            if (!buffer.isEmpty() && System.nanoTime() - oldestNanos >= flushIntervalNanos) {
+                batch = takeBuffer();
+            }
+        }
+        dispatch(batch);
+    }
+
+    private synchronized List<Pending> drain() {
+        return buffer.isEmpty() ? null : takeBuffer();
+    }
+
+    /**
+     * Swap out the buffer and mark its documents unresolved; caller holds the lock
+     */
+    private List<Pending> takeBuffer() {
+        List<Pending> batch = buffer;
+        buffer = new ArrayList<>(Math.min(maxActions, 1024));
+        bufferedBytes = 0;
+        for (Pending pending : batch) {
+            // A retry is still counted from its first attempt
+            if (pending.attempt == 0) {
+                unresolved.merge(pending.key, 1, Integer::sum);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Complete an operation and release what was held behind its document
+     *
+     * Released operations join the buffer and go out with the next batch;
+     * they are not dispatched here because this runs on a request thread
+     * that still holds its permit.
+     */
+    private void resolve(Pending pending, Throwable error) {
+        synchronized (this) {
+            Integer remaining = unresolved.merge(pending.key, -1, Integer::sum);
+            if (remaining != null && remaining <= 0) {
+                unresolved.remove(pending.key);
+                List<Pending> released = held.remove(pending.key);
+                if (released != null) {
+                    if (buffer.isEmpty()) {
+                        oldestNanos = System.nanoTime();
+                    }
+                    for (Pending next : released) {
+                        buffer.add(next);
+                        bufferedBytes += next.sizeBytes;
+                    }
+                }
+            }
+        }
+        if (error != null) {
+            pending.future.completeExceptionally(error);
+        } else {
+            pending.future.complete(null);
+        }
+    }
+
+    /**
+     * Send a batch once a request slot is free
+     */
+    private void dispatch(List<Pending> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Pending pending : batch) {
+                resolve(pending, e);
+            }
+            return;
+        }
+        try {
+            requestExecutor.execute(() -> {
+                try {
+                    execute(batch);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            for (Pending pending : batch) {
+                resolve(pending, e);
+            }
+        }
+    }
+
+    private void execute(List<Pending> batch) {
+        List<BulkOperation> operations = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            operations.add(pending.operation);
+        }
+        batchSize.record(batch.size());
+
+        // Item outcomes: status -1 means the whole request failed
+        boolean[] applied = new boolean[batch.size()];
+        int[] statuses = new int[batch.size()];
+        String[] reasons = new String[batch.size()];
+        long start = System.nanoTime();
+        try {
+            BulkResponse response = client.bulk(BulkRequest.of(b -> b.operations(operations)));
+            List<BulkResponseItem> items = response.items();
+            for (int i = 0; i < batch.size(); i++) {
+                BulkResponseItem item = i < items.size() ? items.get(i) : null;
+                if (item == null) {
+                    statuses[i] = -1;
+                    reasons[i] = "missing from bulk response";
+                } else if (item.error() == null || isMissingOnDelete(batch.get(i), item)) {
+                    applied[i] = true;
+                } else {
+                    statuses[i] = item.status();
+                    reasons[i] = item.error().type() + ": " + item.error().reason();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Bulk request of {} operations failed", batch.size(), e);
+            Arrays.fill(applied, false);
+            Arrays.fill(statuses, -1);
+            Arrays.fill(reasons, e.getMessage());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        settle(batch, applied, statuses, reasons);
+    }
+
+    /**
+     * Complete, fail or retry each item of a sent batch
+     *
+     * Once an item of a document is retried, the later items of that
+     * document in the batch are retried with it as a unit, in order, even
+     * if they were applied; otherwise the retry would land after them and
+     * put the older state back. Should handling the response fail, every
+     * item not yet settled is failed so no future is left hanging.
+     */
+    private void settle(List<Pending> batch, boolean[] applied, int[] statuses, String[] reasons) {
+        boolean[] settled = new boolean[batch.size()];
+        try {
+            Map<String, List<Integer>> retries = new LinkedHashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                List<Integer> unit = retries.get(pending.key);
+                if (unit != null) {
+                    unit.add(i);
+                } else if (applied[i]) {
+                    succeeded.increment();
+                    settled[i] = true;
+                    resolve(pending, null);
+                } else if (isRetryable(statuses[i]) && pending.attempt < maxRetries && !closed) {
+                    retries.put(pending.key, new ArrayList<>(List.of(i)));
+                } else {
+                    settled[i] = true;
+                    fail(pending, statuses[i], reasons[i]);
+                }
+            }
+
+            for (List<Integer> unit : retries.values()) {
+                int first = unit.get(0);
+                int attempt = batch.get(first).attempt;
+                List<Pending> retry = new ArrayList<>(unit.size());
+                for (int i : unit) {
+                    Pending pending = batch.get(i);
+                    retry.add(new Pending(pending.operation, pending.sizeBytes, pending.future, attempt + 1));
+                }
+                scheduleRetry(retry, attempt, statuses[first], reasons[first]);
+                for (int i : unit) {
+                    settled[i] = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to handle bulk response of {} operations", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                if (!settled[i]) {
+                    failed.increment();
+                    resolve(batch.get(i), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deleting a document that is already gone counts as done
+     */
+    private static boolean isMissingOnDelete(Pending pending, BulkResponseItem item) {
+        return pending.operation.isDelete() && item.status() == 404;
+    }
+
+    /**
+     * @param status item status, or -1 if the whole request failed
+     */
+    private static boolean isRetryable(int status) {
+        return status == -1 || status == 429 || status >= 500;
+    }
+
+    /**
+     * Re-queue the items of one document after backoff
+     *
+     * Later operations on the same document stay held until the retry is
+     * resolved.
+     *
+     * @param retry the document's items from the failed one on, in order
+     * @param attempt attempts made of the failed item before this one
+     * @param status status of the failed item
+     */
+    private void scheduleRetry(List<Pending> retry, int attempt, int status, String reason) {
+        long delayMs = retryBackoffMs << attempt;
+        try {
+            scheduler.schedule(() -> resend(retry), delayMs, TimeUnit.MILLISECONDS);
+            retried.increment(retry.size());
+        } catch (RuntimeException e) {
+            // Scheduler shut down while closing
+            for (Pending pending : retry) {
+                fail(pending, status, reason);
+            }
+        }
+    }
+
+    private void fail(Pending pending, int status, String reason) {
+        failed.increment();
+        log.error("Bulk item failed: status={}, attempts={}, reason={}", status, pending.attempt + 1, reason);
+        resolve(pending, new BulkItemException(status, reason));
+    }
+
+    private static Counter itemCounter(MeterRegistry registry, String result) {
+        return Counter.builder("sync.bulk.items")
+                .description("Bulk items by outcome; retried counts each retry")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Failure of a single bulk item
+     */
+    public static class BulkItemException extends RuntimeException {
+
+        private final int status;
+
+        public BulkItemException(int status, String reason) {
+            super("Bulk item failed with status " + status + ": " + reason);
+            this.status = status;
+        }
+
+        /**
+         * @return item status, or -1 if the bulk request itself failed
+         */
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private static class Pending {
+
+        final BulkOperation operation;
+        /** Target index and document ID */
+        final String key;
+        final long sizeBytes;
+        final CompletableFuture<Void> future;
+        final int attempt;
+
+        Pending(BulkOperation operation, long sizeBytes, CompletableFuture<Void> future) {
+            this(operation, sizeBytes, future, 0);
+        }
+
+        Pending(BulkOperation operation, long sizeBytes, CompletableFuture<Void> future, int attempt) {
+            this.operation = operation;
+            BulkOperationBase target = (BulkOperationBase) operation._get();
+            this.key = target.index() + "/" + target.id();
+            this.sizeBytes = sizeBytes;
+            this.future = future;
+            this.attempt = attempt;
+        }
+    }
+}
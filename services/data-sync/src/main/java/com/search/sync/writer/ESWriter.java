@@ -1,27 +1,50 @@
 package com.search.sync.writer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.search.config.generator.MappingGenerator;
+import com.search.config.model.FieldConfig;
+import com.search.config.model.FieldType;
+import com.search.config.model.SearchObject;
 import com.search.sync.config.OpenSearchConfig;
+import com.search.sync.config.SearchObjectLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.json.stream.JsonParser;
+import org.opensearch.client.json.JsonpMapper;
+import org.opensearch.client.json.jackson.JacksonJsonpMapper;
 import org.opensearch.client.opensearch.OpenSearchClient;
-import org.opensearch.client.opensearch.core.IndexRequest;
-import org.opensearch.client.opensearch.core.UpdateRequest;
-import org.opensearch.client.opensearch.core.DeleteRequest;
-import org.opensearch.client.opensearch.core.IndexResponse;
-import org.opensearch.client.opensearch.core.UpdateResponse;
-import org.opensearch.client.opensearch.core.DeleteResponse;
+import org.opensearch.client.opensearch._types.OpenSearchException;
+import org.opensearch.client.opensearch._types.mapping.TypeMapping;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
 import org.opensearch.client.opensearch.indices.CreateIndexRequest;
+import org.opensearch.client.opensearch.indices.ExistsRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Writer for synchronizing data to OpenSearch
  *
  * Handles upsert (create/update) and delete operations on OpenSearch indices.
- * Automatically creates indices if they don't exist.
+ * Writes are batched into _bulk requests by a {@link BulkIndexer} and
+ * complete asynchronously; no refresh is forced, so documents become
+ * searchable on the index's refresh_interval.
+ *
+ * Automatically creates indices if they don't exist, with the mapping
+ * generated for the matching search object. Indices known to exist are
+ * cached, so only the first write to an index checks for it, and
+ * concurrent first writes share a single check. While the check cannot
+ * be made, or the search objects are not loaded yet, writes to the index
+ * fail rather than let the cluster create it with dynamic mapping.
  */
 @Component
 public class ESWriter {
@@ -31,110 +54,131 @@ public class ESWriter {
     private final OpenSearchClient client;
     private final String indexPrefix;
     private final ObjectMapper mapper;
+    private final BulkIndexer bulkIndexer;
+    private final MappingGenerator mappingGenerator = new MappingGenerator();
+    private final JsonpMapper jsonpMapper = new JacksonJsonpMapper();
+
+    /**
+     * Indices checked or created so far; a pending future is a check in progress
+     */
+    private final Map<String, CompletableFuture<Void>> knownIndices = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private SearchObjectLoader searchObjectLoader;
 
     /**
      * Create a new ES writer
      *
      * @param client OpenSearch client
      * @param config OpenSearch configuration
+     * @param meterRegistry registry for bulk metrics
      */
-    public ESWriter(OpenSearchClient client, OpenSearchConfig config) {
+    public ESWriter(OpenSearchClient client, OpenSearchConfig config, MeterRegistry meterRegistry) {
         this.client = client;
         this.indexPrefix = config.getIndexPrefix() != null ? config.getIndexPrefix() : "search";
         this.mapper = new ObjectMapper();
+        this.bulkIndexer = new BulkIndexer(client, config.getBulkMaxActions(), config.getBulkMaxBytes(),
+                config.getBulkFlushIntervalMs(), config.getBulkConcurrentRequests(), config.getBulkMaxRetries(),
+                config.getBulkRetryBackoffMs(), meterRegistry);
+    }
+
+    /**
+     * Flush pending writes on shutdown
+     */
+    @PreDestroy
+    public void close() {
+        bulkIndexer.close();
     }
 
     /**
      * Upsert a document (create or update)
      *
+     * The document is merged into any existing one, so fields written
+     * separately (such as vectors) are kept.
+     *
      * @param objectType the object type (used as suffix for index name)
      * @param id document ID
      * @param document JSON document
+     * @return future completed once the document is written; fails if the
+     * cluster rejected it or its index could not be checked or created
      */
-    public void upsert(String objectType, String id, String document) {
+    public CompletableFuture<Void> upsert(String objectType, String id, String document) {
         if (objectType == null || id == null || document == null) {
             throw new IllegalArgumentException("objectType, id, and document must not be null");
         }
 
         String indexName = getIndexName(objectType);
 
+        // Ensure index exists
         try {
-            // Ensure index exists
-            ensureIndexExists(indexName);
+            ensureIndexExists(objectType, indexName);
+        } catch (CompletionException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
 
+        Map<String, Object> docMap;
+        try {
             @SuppressWarnings("unchecked")
-            Map<String, Object> docMap = mapper.readValue(new StringReader(document), Map.class);
-
-            // Try update first, then insert if not found
-            UpdateRequest<String, Map<String, Object>> updateRequest = UpdateRequest.of(
-                    u -> u.index(indexName)
-                            .id(id)
-                            .doc(docMap)
-                            .docAsUpsert(true)
-                            .refresh(true)
-            );
-
-            UpdateResponse<Map<String, Object>> response = client.update(updateRequest, Map.class);
-
-            log.debug("Upserted document: index={}, id={}, result={}",
-                    indexName, id, response.result());
-
+            Map<String, Object> parsed = mapper.readValue(new StringReader(document), Map.class);
+            docMap = parsed;
         } catch (Exception e) {
-            // If update failed, try insert
-            try {
-                IndexRequest<String> indexRequest = IndexRequest.of(
-                        i -> i.index(indexName)
-                                .id(id)
-                                .document(document)
-                                .refresh(true)
-                );
-
-                IndexResponse indexResponse = client.index(indexRequest);
+            throw new IllegalArgumentException("Document is not a JSON object: index=" + indexName + ", id=" + id, e);
+        }
 
-                log.debug("Indexed document: index={}, id={}, result={}",
-                        indexName, id, indexResponse.result());
+        BulkOperation operation = BulkOperation.of(b -> b.update(u -> u
+                .index(indexName)
+                .id(id)
+                .document(docMap)
+                .docAsUpsert(true)));
 
-            } catch (Exception ex) {
-                log.error("Failed to upsert document: index={}, id={}", indexName, id, ex);
-                throw new RuntimeException("Failed to upsert document", ex);
-            }
-        }
+        return bulkIndexer.add(operation, document.length())
+                .whenComplete((done, error) -> {
+                    if (error == null) {
+                        log.debug("Upserted document: index={}, id={}", indexName, id);
+                    }
+                });
     }
 
     /**
      * Delete a document
      *
+     * Deleting a missing document or from a missing index succeeds.
+     *
      * @param objectType the object type (used as suffix for index name)
      * @param id document ID
+     * @return future completed once the document is deleted
      */
-    public void delete(String objectType, String id) {
+    public CompletableFuture<Void> delete(String objectType, String id) {
         if (objectType == null || id == null) {
             throw new IllegalArgumentException("objectType and id must not be null");
         }
 
         String indexName = getIndexName(objectType);
 
-        try {
-            DeleteRequest deleteRequest = DeleteRequest.of(
-                    d -> d.index(indexName)
-                            .id(id)
-                            .refresh(true)
-            );
+        BulkOperation operation = BulkOperation.of(b -> b.delete(d -> d
+                .index(indexName)
+                .id(id)));
 
-            DeleteResponse response = client.delete(deleteRequest);
+        return bulkIndexer.add(operation, 0)
+                .whenComplete((done, error) -> {
+                    if (error == null) {
+                        log.debug("Deleted document: index={}, id={}", indexName, id);
+                    }
+                });
+    }
 
-            log.debug("Deleted document: index={}, id={}, result={}",
-                    indexName, id, response.result());
+    /**
+     * Send all pending writes and wait for them
+     */
+    public void flush() {
+        bulkIndexer.flush();
+    }
 
-        } catch (Exception e) {
-            // Ignore 404 errors (document not found)
-            if (e.getMessage() != null && e.getMessage().contains("index_not_found_exception")) {
-                log.debug("Index not found, ignoring delete: index={}, id={}", indexName, id);
-                return;
-            }
-            log.error("Failed to delete document: index={}, id={}", indexName, id, e);
-            throw new RuntimeException("Failed to delete document", e);
-        }
+    /**
+     * Send all pending writes without waiting for them
+     */
+    public void send() {
+        bulkIndexer.send();
     }
 
     /**
@@ -143,40 +187,93 @@ public class ESWriter {
      * @param objectType the object type
      * @return full index name
      */
-    private String getIndexName(String objectType) {
+    public String getIndexName(String objectType) {
         return indexPrefix + "_" + objectType.toLowerCase();
     }
 
     /**
      * Ensure the index exists, create if not
      *
+     * Only the first write to an index checks for it; concurrent first
+     * writes wait for that check. A failed check is not cached and fails
+     * the writes waiting for it, as writing anyway would let the cluster
+     * create the index with dynamic mapping.
+     *
+     * @param objectType the object type
      * @param indexName the index name
+     * @throws CompletionException if the index could not be checked or created
+     */
+    private void ensureIndexExists(String objectType, String indexName) {
+        CompletableFuture<Void> known = knownIndices.get(indexName);
+        if (known == null) {
+            CompletableFuture<Void> check = new CompletableFuture<>();
+            known = knownIndices.putIfAbsent(indexName, check);
+            if (known == null) {
+                known = check;
+                try {
+                    createIndexIfMissing(objectType, indexName);
+                    check.complete(null);
+                } catch (Exception e) {
+                    log.warn("Failed to check/create index: {}", indexName, e);
+                    knownIndices.remove(indexName, check);
+                    check.completeExceptionally(e);
+                }
+            }
+        }
+        known.join();
+    }
+
+    /**
+     * Create an index with the mapping of its search object unless it exists
+     *
+     * Without a configured search object the index is created with
+     * dynamic mapping, but only once the search objects have loaded.
      */
-    private void ensureIndexExists(String indexName) {
+    private void createIndexIfMissing(String objectType, String indexName) throws Exception {
+        if (client.indices().exists(ExistsRequest.of(e -> e.index(indexName))).value()) {
+            return;
+        }
+        if (searchObjectLoader != null && !searchObjectLoader.isLoaded()) {
+            throw new IllegalStateException("Search objects not loaded yet, not creating index " + indexName);
+        }
+
+        SearchObject object = searchObjectLoader != null ? searchObjectLoader.find(objectType) : null;
+        CreateIndexRequest.Builder createRequest = new CreateIndexRequest.Builder().index(indexName);
+        if (object != null && object.getFields() != null && !object.getFields().isEmpty()) {
+            createRequest.mappings(parseMapping(mappingGenerator.generate(object)));
+            if (hasVectorField(object)) {
+                createRequest.settings(s -> s.knn(true));
+            }
+            log.info("Creating index: {} with mapping of search object {}", indexName, object.getObjectId());
+        } else {
+            log.warn("Creating index: {} with dynamic mapping, no search object configured for {}",
+                    indexName, objectType);
+        }
+
         try {
-            boolean exists = client.indices().exists(e -> e.index(indexName)).value();
-
-            if (!exists) {
-                log.info("Creating index: {}", indexName);
-
-                CreateIndexRequest createRequest = CreateIndexRequest.of(
-                        c -> c.index(indexName)
-                                .mappings(m -> m
-                                        .properties("title", p -> p.text(t -> t))
-                                        .properties("description", p -> p.text(t -> t))
-                                        .properties("created_at", p -> p.date(d -> d))
-                                        .properties("updated_at", p -> p.date(d -> d))
-                                )
-                );
-
-                client.indices().create(createRequest);
-                log.info("Index created: {}", indexName);
+            client.indices().create(createRequest.build());
+            log.info("Index created: {}", indexName);
+        } catch (OpenSearchException e) {
+            // Created by another writer in between
+            if (!"resource_already_exists_exception".equals(e.error().type())) {
+                throw e;
             }
+        }
+    }
 
-        } catch (Exception e) {
-            log.warn("Failed to check/create index: {}", indexName, e);
-            // Continue anyway, as the index might have been created by another thread
+    private TypeMapping parseMapping(String mapping) {
+        try (JsonParser parser = jsonpMapper.jsonProvider().createParser(new StringReader(mapping))) {
+            return TypeMapping._DESERIALIZER.deserialize(parser, jsonpMapper);
+        }
+    }
+
+    private static boolean hasVectorField(SearchObject object) {
+        for (FieldConfig field : object.getFields()) {
+            if (field != null && field.getType() == FieldType.DENSE_VECTOR) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -184,15 +281,24 @@ public class ESWriter {
      *
      * @param objectType the object type
      * @param documents map of document ID to JSON document
+     * @return future completed once every document is written; failed
+     * documents are logged and do not fail it
      */
-    public void bulkUpsert(String objectType, Map<String, String> documents) {
+    public CompletableFuture<Void> bulkUpsert(String objectType, Map<String, String> documents) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(documents.size());
         for (Map.Entry<String, String> entry : documents.entrySet()) {
             try {
-                upsert(objectType, entry.getKey(), entry.getValue());
+                futures.add(upsert(objectType, entry.getKey(), entry.getValue())
+                        .exceptionally(e -> {
+                            log.error("Failed to upsert document in bulk: id={}", entry.getKey(), e);
+                            return null;
+                        }));
             } catch (Exception e) {
                 log.error("Failed to upsert document in bulk: id={}", entry.getKey(), e);
             }
         }
-        log.info("Bulk upsert completed: objectType={}, count={}", objectType, documents.size());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenRun(() -> log.info("Bulk upsert completed: objectType={}, count={}",
+                        objectType, documents.size()));
     }
 }
@@ -0,0 +1,330 @@
+package com.search.sync.consumer;
+
+import com.search.sync.processor.DataProcessor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for DataChangeConsumer in parallel and batch mode
+ */
+class DataChangeConsumerTest {
+
+    private static final String TOPIC = "data-change-events";
+
+    private final TopicPartition p0 = new TopicPartition(TOPIC, 0);
+    private final TopicPartition p1 = new TopicPartition(TOPIC, 1);
+
+    private final MockConsumer<String, String> kafka = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final DataProcessor processor = mock(DataProcessor.class);
+    private DataChangeConsumer consumer;
+
+    /** Processed values per key, in processing order */
+    private final Map<String, List<String>> processed = new ConcurrentHashMap<>();
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    void tearDown() {
+        if (consumer != null) {
+            consumer.stop();
+        }
+    }
+
+    private void assignAndAdd(List<ConsumerRecord<String, String>> records) {
+        kafka.schedulePollTask(() -> {
+            kafka.rebalance(List.of(p0, p1));
+            Map<TopicPartition, Long> beginning = new HashMap<>();
+            beginning.put(p0, 0L);
+            beginning.put(p1, 0L);
+            kafka.updateBeginningOffsets(beginning);
+            kafka.seek(p0, 0);
+            kafka.seek(p1, 0);
+            records.forEach(kafka::addRecord);
+        });
+    }
+
+    private static String key(String value) {
+        return value.substring(0, value.indexOf(':'));
+    }
+
+    private OffsetAndMetadata committed(TopicPartition partition) {
+        return kafka.committed(Set.of(partition)).get(partition);
+    }
+
+    private void awaitCommitted(TopicPartition partition, long offset) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            OffsetAndMetadata committed = committed(partition);
+            if (committed != null && committed.offset() == offset) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Offset " + offset + " not committed for " + partition + ", was " + committed(partition));
+    }
+
+    @Test
+    void testRecordsOfOneKeyStayInOrderAcrossLanes() throws Exception {
+        doAnswer(invocation -> {
+            String value = invocation.getArgument(0);
+            threads.add(Thread.currentThread().getName());
+            processed.computeIfAbsent(key(value), k -> new ArrayList<>()).add(value);
+            Thread.sleep(1);
+            return null;
+        }).when(processor).process(anyString());
+
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        long[] next = new long[2];
+        for (int i = 0; i < 20; i++) {
+            for (int doc = 0; doc < 8; doc++) {
+                int partition = doc % 2;
+                String key = "doc-" + doc;
+                records.add(new ConsumerRecord<>(TOPIC, partition, next[partition]++, key, key + ":" + i));
+            }
+        }
+        assignAndAdd(records);
+
+        consumer = new DataChangeConsumer(kafka, TOPIC, processor, 4, 1000, false);
+        consumer.start();
+
+        awaitCommitted(p0, 80);
+        awaitCommitted(p1, 80);
+
+        assertEquals(8, processed.size());
+        for (Map.Entry<String, List<String>> entry : processed.entrySet()) {
+            List<String> values = entry.getValue();
+            assertEquals(20, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(entry.getKey() + ":" + i, values.get(i));
+            }
+        }
+        assertTrue(threads.size() > 1, "records should run on several lanes");
+    }
+
+    @Test
+    void testCommitWaitsForSlowRecord() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            String value = invocation.getArgument(0);
+            if (value.startsWith("slow:")) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            processed.computeIfAbsent(key(value), k -> new ArrayList<>()).add(value);
+            return null;
+        }).when(processor).process(anyString());
+
+        // Keep the fast records off the slow record's lane so only the slow one is held up
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        records.add(new ConsumerRecord<>(TOPIC, 0, 0, "slow", "slow:0"));
+        KeyedLanes lanes = new KeyedLanes(4, "test");
+        int slowLane = lanes.laneOf("slow");
+        long offset = 1;
+        for (int i = 0; offset < 10; i++) {
+            if (lanes.laneOf("fast-" + i) != slowLane) {
+                records.add(new ConsumerRecord<>(TOPIC, 0, offset++, "fast-" + i, "fast-" + i + ":0"));
+            }
+        }
+        lanes.close();
+        assignAndAdd(records);
+
+        consumer = new DataChangeConsumer(kafka, TOPIC, processor, 4, 1000, false);
+        consumer.start();
+
+        // Everything but the slow record gets processed, yet nothing past it is committed
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processed.size() < 9 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertEquals(9, processed.size());
+        OffsetAndMetadata committed = committed(p0);
+        assertTrue(committed == null || committed.offset() == 0, "committed past the slow record: " + committed);
+
+        release.countDown();
+        awaitCommitted(p0, 10);
+    }
+
+    @Test
+    void testCommitWaitsForLateWrite() throws Exception {
+        CompletableFuture<Void> lateWrite = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            String value = invocation.getArgument(0);
+            processed.computeIfAbsent(key(value), k -> new ArrayList<>()).add(value);
+            return value.startsWith("late:") ? lateWrite : CompletableFuture.completedFuture(null);
+        }).when(processor).process(anyString());
+
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        records.add(new ConsumerRecord<>(TOPIC, 0, 0, "late", "late:0"));
+        for (int i = 1; i < 5; i++) {
+            records.add(new ConsumerRecord<>(TOPIC, 0, i, "doc-" + i, "doc-" + i + ":0"));
+        }
+        assignAndAdd(records);
+
+        consumer = new DataChangeConsumer(kafka, TOPIC, processor, 4, 1000, false);
+        consumer.start();
+
+        // Processing returned for every record, but the first write is still queued
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processed.size() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertEquals(5, processed.size());
+        OffsetAndMetadata committed = committed(p0);
+        assertTrue(committed == null || committed.offset() == 0, "committed past the queued write: " + committed);
+
+        lateWrite.complete(null);
+        awaitCommitted(p0, 5);
+    }
+
+    @Test
+    void testFailedWriteIsConsumedAgainFromThatRecord() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        List<String> attempts = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            String value = invocation.getArgument(0);
+            attempts.add(value);
+            if (value.equals("doc:2") && failures.getAndIncrement() == 0) {
+                return CompletableFuture.failedFuture(new IllegalStateException("cluster unavailable"));
+            }
+            return CompletableFuture.completedFuture(null);
+        }).when(processor).process(anyString());
+
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(new ConsumerRecord<>(TOPIC, 0, i, "doc", "doc:" + i));
+        }
+        assignAndAdd(records);
+
+        consumer = new DataChangeConsumer(kafka, TOPIC, processor, 2, 1000, false);
+        consumer.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (failures.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        OffsetAndMetadata committed = committed(p0);
+        assertTrue(committed == null || committed.offset() <= 2, "committed past the failed write: " + committed);
+        // The records after the failed one were not written ahead of it
+        assertEquals(List.of("doc:0", "doc:1", "doc:2"), attempts);
+
+        // MockConsumer drops records once polled; refetch them as the broker would after the rewind
+        kafka.schedulePollTask(() -> records.forEach(kafka::addRecord));
+
+        awaitCommitted(p0, 5);
+        assertEquals(List.of("doc:0", "doc:1", "doc:2", "doc:2", "doc:3", "doc:4"), attempts);
+    }
+
+    @Test
+    void testStopFinishesAndCommitsInFlightRecords() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(100);
+            String value = invocation.getArgument(0);
+            processed.computeIfAbsent(key(value), k -> new ArrayList<>()).add(value);
+            return null;
+        }).when(processor).process(anyString());
+
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            records.add(new ConsumerRecord<>(TOPIC, 1, i, "doc", "doc:" + i));
+        }
+        assignAndAdd(records);
+
+        consumer = new DataChangeConsumer(kafka, TOPIC, processor, 2, 1000, false);
+        consumer.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        consumer.stop();
+        consumer = null;
+
+        assertEquals(3, processed.get("doc").size());
+        assertTrue(kafka.closed());
+    }
+
+    @Test
+    void testBatchIsCommittedAfterItsWritesSucceed() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        when(processor.processBatch(anyList())).thenAnswer(invocation -> {
+            batches.add(new ArrayList<>(invocation.<List<String>>getArgument(0)));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(new ConsumerRecord<>(TOPIC, 0, i, "doc", "doc:" + i));
+            records.add(new ConsumerRecord<>(TOPIC, 1, i, "other", "other:" + i));
+        }
+        assignAndAdd(records);
+
+        consumer = new DataChangeConsumer(kafka, TOPIC, processor, 4, 1000, true);
+        consumer.start();
+
+        awaitCommitted(p0, 5);
+        awaitCommitted(p1, 5);
+        assertEquals(1, batches.size());
+        assertEquals(10, batches.get(0).size());
+        verify(processor, never()).process(anyString());
+    }
+
+    @Test
+    void testFailedBatchIsConsumedAgain() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        when(processor.processBatch(anyList())).thenAnswer(invocation -> {
+            batches.add(new ArrayList<>(invocation.<List<String>>getArgument(0)));
+            if (attempts.getAndIncrement() == 0) {
+                return CompletableFuture.failedFuture(new IllegalStateException("cluster unavailable"));
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            records.add(new ConsumerRecord<>(TOPIC, 0, i, "doc", "doc:" + i));
+        }
+        assignAndAdd(records);
+
+        consumer = new DataChangeConsumer(kafka, TOPIC, processor, 1, 0, true);
+        consumer.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batches.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(committed(p0), "failed batch must not be committed");
+        // MockConsumer drops records once polled; refetch them as the broker would after the rewind
+        kafka.schedulePollTask(() -> records.forEach(kafka::addRecord));
+
+        awaitCommitted(p0, 3);
+        assertEquals(2, batches.size());
+        assertEquals(batches.get(0), batches.get(1));
+    }
+}
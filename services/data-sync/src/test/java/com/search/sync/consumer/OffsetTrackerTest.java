@@ -0,0 +1,101 @@
+package com.search.sync.consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OffsetTracker
+ */
+class OffsetTrackerTest {
+
+    private final TopicPartition p0 = new TopicPartition("events", 0);
+    private final TopicPartition p1 = new TopicPartition("events", 1);
+
+    @Test
+    void testCommitStopsAtFirstUnprocessedOffset() {
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 10; offset < 15; offset++) {
+            tracker.dispatched(p0, offset);
+        }
+
+        tracker.completed(p0, 10);
+        tracker.completed(p0, 12);
+        tracker.completed(p0, 13);
+        assertEquals(Map.of(p0, new OffsetAndMetadata(11)), tracker.committable());
+
+        tracker.completed(p0, 14);
+        assertTrue(tracker.committable().isEmpty(), "offset 11 still holds the commit point");
+
+        tracker.completed(p0, 11);
+        assertEquals(Map.of(p0, new OffsetAndMetadata(15)), tracker.committable());
+        assertEquals(0, tracker.getPending());
+    }
+
+    @Test
+    void testPartitionsAreTrackedSeparately() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.dispatched(p0, 0);
+        tracker.dispatched(p1, 0);
+        tracker.dispatched(p1, 1);
+
+        tracker.completed(p1, 0);
+        tracker.completed(p1, 1);
+
+        assertEquals(Map.of(p1, new OffsetAndMetadata(2)), tracker.committable());
+        assertEquals(1, tracker.getPending());
+        assertTrue(tracker.committable(List.of(p1)).isEmpty());
+    }
+
+    @Test
+    void testAwaitCompletionAndRemove() throws Exception {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.dispatched(p0, 0);
+        tracker.dispatched(p1, 0);
+
+        assertFalse(tracker.awaitCompletion(List.of(p0), 20));
+
+        Thread worker = new Thread(() -> tracker.completed(p0, 0));
+        worker.start();
+        assertTrue(tracker.awaitCompletion(List.of(p0), 5000));
+        worker.join();
+
+        tracker.remove(List.of(p1));
+        assertEquals(0, tracker.getPending());
+        // Completing an offset of a forgotten partition is ignored
+        tracker.completed(p1, 0);
+        assertEquals(Map.of(p0, new OffsetAndMetadata(1)), tracker.committable());
+    }
+
+    @Test
+    void testFailedOffsetHoldsTheCommitPoint() {
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 0; offset < 4; offset++) {
+            tracker.dispatched(p0, offset);
+        }
+        tracker.dispatched(p1, 7);
+
+        tracker.completed(p0, 0);
+        tracker.failed(p0, 1);
+        tracker.completed(p0, 2);
+        tracker.completed(p1, 7);
+
+        assertTrue(tracker.hasFailures());
+        // Offset 3 is neither processed nor failed yet
+        assertFalse(tracker.awaitCompletion(List.of(p0), 20));
+        tracker.failed(p0, 3);
+        assertTrue(tracker.awaitCompletion(List.of(p0, p1), 20));
+
+        assertEquals(Map.of(p0, new OffsetAndMetadata(1), p1, new OffsetAndMetadata(8)), tracker.committable());
+        assertEquals(Map.of(p0, 1L, p1, 8L), tracker.resumePoints());
+
+        tracker.remove(List.of(p0, p1));
+        assertFalse(tracker.hasFailures());
+        assertEquals(0, tracker.getPending());
+    }
+}
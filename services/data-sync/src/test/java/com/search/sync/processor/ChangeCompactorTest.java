@@ -0,0 +1,152 @@
+package com.search.sync.processor;
+
+import com.search.sync.writer.BulkIndexer;
+import com.search.sync.writer.ESWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ChangeCompactor
+ */
+class ChangeCompactorTest {
+
+    private ESWriter esWriter;
+    private SimpleMeterRegistry registry;
+    private ChangeCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        esWriter = mock(ESWriter.class);
+        when(esWriter.upsert(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(esWriter.delete(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        registry = new SimpleMeterRegistry();
+        compactor = new ChangeCompactor(esWriter, registry);
+        ReflectionTestUtils.setField(compactor, "maxEntries", 100);
+        ReflectionTestUtils.setField(compactor, "maxBytes", 1L << 20);
+    }
+
+    @Test
+    void testKeepsLatestStatePerDocument() {
+        CompletableFuture<Void> first = compactor.upsert("products", "1", "{\"stock\":10}");
+        compactor.upsert("products", "1", "{\"stock\":9}");
+        CompletableFuture<Void> last = compactor.upsert("products", "1", "{\"stock\":8}");
+        compactor.upsert("orders", "1", "{\"total\":5}");
+
+        verify(esWriter, never()).upsert(any(), any(), any());
+        assertEquals(2, compactor.getBufferedCount());
+
+        compactor.flushWindow();
+
+        verify(esWriter).upsert("products", "1", "{\"stock\":8}");
+        verify(esWriter).upsert("orders", "1", "{\"total\":5}");
+        verify(esWriter, times(2)).upsert(any(), any(), any());
+        // The window is sent without waiting for the bulk request
+        verify(esWriter).send();
+        verify(esWriter, never()).flush();
+        assertTrue(first.isDone() && last.isDone());
+        assertEquals(0, compactor.getBufferedCount());
+
+        assertEquals(4, registry.get("sync.compaction.changes").counter().count());
+        assertEquals(2, registry.get("sync.compaction.writes").counter().count());
+        assertEquals(2.0, registry.get("sync.compaction.ratio").summary().mean());
+        assertEquals(1, registry.get("sync.compaction.flush").tag("reason", "window").counter().count());
+    }
+
+    @Test
+    void testDeleteSupersedesEarlierUpserts() {
+        CompletableFuture<Void> upsert = compactor.upsert("products", "1", "{\"stock\":10}");
+        compactor.delete("products", "1");
+
+        compactor.flush();
+
+        verify(esWriter).delete("products", "1");
+        verify(esWriter, never()).upsert(any(), any(), any());
+        assertTrue(upsert.isDone());
+    }
+
+    @Test
+    void testUpsertAfterDeleteReplacesTheDocument() {
+        compactor.upsert("products", "1", "{\"stock\":10}");
+        compactor.delete("products", "1");
+        compactor.upsert("products", "1", "{\"stock\":3}");
+
+        compactor.flush();
+
+        InOrder inOrder = inOrder(esWriter);
+        inOrder.verify(esWriter).delete("products", "1");
+        inOrder.verify(esWriter).upsert("products", "1", "{\"stock\":3}");
+        verify(esWriter, times(1)).upsert(any(), any(), any());
+    }
+
+    @Test
+    void testWindowsAreClosedOnTheCompactorThread() {
+        ReflectionTestUtils.setField(compactor, "windowMs", 20L);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return null;
+        }).when(esWriter).send();
+        compactor.start();
+        try {
+            compactor.upsert("products", "1", "{\"stock\":10}");
+
+            verify(esWriter, timeout(2000)).upsert("products", "1", "{\"stock\":10}");
+            verify(esWriter, timeout(2000).atLeastOnce()).send();
+            assertEquals(Set.of("change-compaction"), threads);
+        } finally {
+            compactor.close();
+        }
+    }
+
+    @Test
+    void testFlushesEarlyWhenBufferIsFull() {
+        ReflectionTestUtils.setField(compactor, "maxEntries", 3);
+
+        compactor.upsert("products", "1", "{}");
+        compactor.upsert("products", "2", "{}");
+        verify(esWriter, never()).upsert(any(), any(), any());
+
+        compactor.upsert("products", "3", "{}");
+
+        verify(esWriter, times(3)).upsert(any(), any(), any());
+        assertEquals(1, registry.get("sync.compaction.flush").tag("reason", "memory").counter().count());
+    }
+
+    @Test
+    void testFlushesEarlyWhenBufferHoldsTooManyBytes() {
+        ReflectionTestUtils.setField(compactor, "maxBytes", 20L);
+
+        compactor.upsert("products", "1", "{\"title\":\"short\"}");
+        verify(esWriter, never()).upsert(any(), any(), any());
+
+        compactor.upsert("products", "2", "{\"title\":\"longer\"}");
+
+        verify(esWriter, times(2)).upsert(any(), any(), any());
+    }
+
+    @Test
+    void testWriteFailureFailsEverySupersededChange() {
+        when(esWriter.upsert(eq("products"), eq("1"), any())).thenReturn(
+                CompletableFuture.failedFuture(new BulkIndexer.BulkItemException(503, "unavailable")));
+
+        CompletableFuture<Void> first = compactor.upsert("products", "1", "{\"stock\":10}");
+        CompletableFuture<Void> second = compactor.upsert("products", "1", "{\"stock\":9}");
+        compactor.flush();
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+}
@@ -1,16 +1,25 @@
 package com.search.sync.processor;
 
+import com.search.sync.vectorization.SourceFingerprints;
+import com.search.sync.vectorization.VectorUpdatePublisher;
 import com.search.sync.vectorization.VectorizationQueue;
 import com.search.sync.vectorization.VectorizationTask;
+import com.search.sync.writer.BulkIndexer;
 import com.search.sync.writer.ESWriter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +43,10 @@ class DataProcessorTest {
         dataProcessor = new DataProcessor(mockEsWriter);
         ReflectionTestUtils.setField(dataProcessor, "vectorizationQueue", mockVectorizationQueue);
         ReflectionTestUtils.setField(dataProcessor, "vectorizationEnabled", true);
+        when(mockEsWriter.getIndexName(anyString()))
+                .thenAnswer(invocation -> "search_" + invocation.getArgument(0));
+        when(mockEsWriter.upsert(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(mockEsWriter.delete(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @AfterEach
@@ -343,7 +356,7 @@ class DataProcessorTest {
         verify(mockVectorizationQueue, times(1)).enqueue(taskCaptor.capture());
 
         VectorizationTask enqueuedTask = taskCaptor.getValue();
-        assertEquals("products", enqueuedTask.getIndexName());
+        assertEquals("search_products", enqueuedTask.getIndexName());
         assertEquals("123", enqueuedTask.getDocumentId());
         assertEquals("combined_vector", enqueuedTask.getTargetField());
         assertEquals(List.of("title", "description"), enqueuedTask.getSourceFields());
@@ -372,7 +385,7 @@ class DataProcessorTest {
         verify(mockVectorizationQueue, times(1)).enqueue(taskCaptor.capture());
 
         VectorizationTask enqueuedTask = taskCaptor.getValue();
-        assertEquals("articles", enqueuedTask.getIndexName());
+        assertEquals("search_articles", enqueuedTask.getIndexName());
         assertEquals("456", enqueuedTask.getDocumentId());
         assertEquals("content_vector", enqueuedTask.getTargetField());
         assertEquals(List.of("content"), enqueuedTask.getSourceFields());
@@ -460,4 +473,314 @@ class DataProcessorTest {
 
         verify(mockEsWriter, never()).upsert(any(), any(), any());
     }
+
+    @Test
+    void testUpdateWithUnchangedSourceFieldsSkipsVectorization() {
+        String cdcEvent = """
+                {
+                    "op": "u",
+                    "source": {
+                        "table": "products"
+                    },
+                    "before": {
+                        "id": "123",
+                        "title": "Test Product",
+                        "description": "A great product",
+                        "price": 99.99
+                    },
+                    "after": {
+                        "id": "123",
+                        "title": "Test Product",
+                        "description": "A great product",
+                        "price": 79.99
+                    }
+                }
+                """;
+
+        dataProcessor.process(cdcEvent);
+
+        verify(mockEsWriter).upsert(eq("products"), eq("123"), contains("79.99"));
+        verify(mockVectorizationQueue, never()).enqueue(any());
+    }
+
+    @Test
+    void testUpdateOnlyEnqueuesAffectedVectorFields() {
+        String cdcEvent = """
+                {
+                    "op": "u",
+                    "source": {
+                        "table": "articles"
+                    },
+                    "before": {
+                        "id": "456",
+                        "title": "Old title",
+                        "description": "Summary",
+                        "content": "Body"
+                    },
+                    "after": {
+                        "id": "456",
+                        "title": "New title",
+                        "description": "Summary",
+                        "content": "Body"
+                    }
+                }
+                """;
+
+        when(mockVectorizationQueue.enqueue(any())).thenReturn(true);
+
+        dataProcessor.process(cdcEvent);
+
+        ArgumentCaptor<VectorizationTask> taskCaptor = ArgumentCaptor.forClass(VectorizationTask.class);
+        verify(mockVectorizationQueue, times(1)).enqueue(taskCaptor.capture());
+        assertEquals("combined_vector", taskCaptor.getValue().getTargetField());
+    }
+
+    @Test
+    void testUpdateWithoutBeforeImageUsesFingerprints() {
+        ReflectionTestUtils.setField(dataProcessor, "sourceFingerprints", new SourceFingerprints());
+        when(mockVectorizationQueue.enqueue(any())).thenReturn(true);
+
+        String priceChange = """
+                {
+                    "op": "u",
+                    "source": {
+                        "table": "articles"
+                    },
+                    "after": {
+                        "id": "456",
+                        "content": "Body",
+                        "price": %s
+                    }
+                }
+                """;
+
+        dataProcessor.process(priceChange.formatted("10"));
+        dataProcessor.process(priceChange.formatted("12"));
+        verify(mockVectorizationQueue, times(1)).enqueue(any());
+
+        dataProcessor.process(priceChange.replace("Body", "New body").formatted("12"));
+        verify(mockVectorizationQueue, times(2)).enqueue(any());
+    }
+
+    @Test
+    void testDeleteForgetsFingerprints() {
+        ReflectionTestUtils.setField(dataProcessor, "sourceFingerprints", new SourceFingerprints());
+        when(mockVectorizationQueue.enqueue(any())).thenReturn(true);
+
+        String create = """
+                {
+                    "op": "c",
+                    "source": {
+                        "table": "articles"
+                    },
+                    "after": {
+                        "id": "456",
+                        "content": "Body"
+                    }
+                }
+                """;
+        String delete = """
+                {
+                    "op": "d",
+                    "source": {
+                        "table": "articles"
+                    },
+                    "before": {
+                        "id": "456",
+                        "content": "Body"
+                    }
+                }
+                """;
+
+        dataProcessor.process(create);
+        dataProcessor.process(delete);
+        dataProcessor.process(create);
+
+        verify(mockVectorizationQueue, times(2)).enqueue(any());
+    }
+
+    @Test
+    void testDroppedTaskIsNotSkippedNextTime() {
+        ReflectionTestUtils.setField(dataProcessor, "sourceFingerprints", new SourceFingerprints());
+        when(mockVectorizationQueue.enqueue(any())).thenReturn(false, true);
+
+        String create = """
+                {
+                    "op": "c",
+                    "source": {
+                        "table": "articles"
+                    },
+                    "after": {
+                        "id": "456",
+                        "content": "Body"
+                    }
+                }
+                """;
+
+        dataProcessor.process(create);
+        dataProcessor.process(create);
+
+        verify(mockVectorizationQueue, times(2)).enqueue(any());
+    }
+
+    @Test
+    void testVectorizationWaitsForTheDocumentWrite() {
+        ReflectionTestUtils.setField(dataProcessor, "sourceFingerprints", new SourceFingerprints());
+        when(mockVectorizationQueue.enqueue(any())).thenReturn(true);
+        CompletableFuture<Void> failedWrite = new CompletableFuture<>();
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        when(mockEsWriter.upsert(eq("articles"), eq("456"), any())).thenReturn(failedWrite, write);
+
+        String create = """
+                {"op": "c", "source": {"table": "articles"}, "after": {"id": "456", "content": "Body"}}
+                """;
+
+        dataProcessor.process(create);
+        failedWrite.completeExceptionally(new BulkIndexer.BulkItemException(503, "unavailable"));
+        // The document never reached the index, so its vector is neither written nor remembered
+        verify(mockVectorizationQueue, never()).enqueue(any());
+
+        dataProcessor.process(create);
+        verify(mockVectorizationQueue, never()).enqueue(any());
+        write.complete(null);
+        verify(mockVectorizationQueue, times(1)).enqueue(any());
+    }
+
+    @Test
+    void testOnlyTheLatestCompactedChangeIsVectorized() {
+        ChangeCompactor compactor = mock(ChangeCompactor.class);
+        ReflectionTestUtils.setField(dataProcessor, "changeCompactor", compactor);
+        when(mockVectorizationQueue.enqueue(any())).thenReturn(true);
+        // Changes merged in one window share the future of the write that superseded them
+        CompletableFuture<Void> window = new CompletableFuture<>();
+        when(compactor.upsert(eq("articles"), eq("456"), any())).thenReturn(window);
+
+        dataProcessor.process("""
+                {"op": "c", "source": {"table": "articles"}, "after": {"id": "456", "content": "Old text"}}
+                """);
+        dataProcessor.process("""
+                {"op": "u", "source": {"table": "articles"}, "after": {"id": "456", "content": "New text"}}
+                """);
+        window.complete(null);
+
+        ArgumentCaptor<VectorizationTask> taskCaptor = ArgumentCaptor.forClass(VectorizationTask.class);
+        verify(mockVectorizationQueue, times(1)).enqueue(taskCaptor.capture());
+        assertEquals("New text", taskCaptor.getValue().combineText());
+    }
+
+    private static String changeEvent(String op, String id, String title) {
+        String row = """
+                {"id": "%s", "title": "%s"}""".formatted(id, title);
+        return """
+                {"op": "%s", "source": {"table": "products"}, "%s": %s}
+                """.formatted(op, "d".equals(op) ? "before" : "after", row);
+    }
+
+    @Test
+    void testProcessBatchCollapsesUpdatesToTheSameDocument() {
+        when(mockEsWriter.upsert(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(mockEsWriter.delete(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletableFuture<Void> result = dataProcessor.processBatch(List.of(
+                changeEvent("c", "1", "First"),
+                changeEvent("u", "2", "Other"),
+                changeEvent("u", "1", "Second"),
+                changeEvent("u", "1", "Third"),
+                changeEvent("u", "3", "Gone"),
+                changeEvent("d", "3", "Gone"),
+                "not json"));
+
+        assertTrue(result.isDone());
+        assertFalse(result.isCompletedExceptionally());
+        verify(mockEsWriter).upsert(eq("products"), eq("1"), contains("Third"));
+        verify(mockEsWriter).upsert(eq("products"), eq("2"), contains("Other"));
+        verify(mockEsWriter, times(2)).upsert(any(), any(), any());
+        verify(mockEsWriter).delete("products", "3");
+        verify(mockEsWriter).flush();
+    }
+
+    @Test
+    void testProcessBatchReplacesDocumentDeletedAndCreatedAgain() {
+        VectorUpdatePublisher publisher = mock(VectorUpdatePublisher.class);
+        ReflectionTestUtils.setField(dataProcessor, "vectorUpdatePublisher", publisher);
+
+        CompletableFuture<Void> result = dataProcessor.processBatch(List.of(
+                changeEvent("u", "1", "Old"),
+                changeEvent("d", "1", "Old"),
+                changeEvent("c", "1", "New"),
+                changeEvent("u", "1", "Newer")));
+
+        assertTrue(result.isDone());
+        assertFalse(result.isCompletedExceptionally());
+        // Not merged into the deleted document, whose other fields would survive
+        InOrder inOrder = inOrder(mockEsWriter);
+        inOrder.verify(mockEsWriter).delete("products", "1");
+        inOrder.verify(mockEsWriter).upsert(eq("products"), eq("1"), contains("Newer"));
+        verify(mockEsWriter, times(1)).upsert(any(), any(), any());
+        verify(publisher).publishDelete("search_products", "1");
+    }
+
+    @Test
+    void testProcessBatchSkipsRejectedDocuments() {
+        when(mockEsWriter.upsert(eq("products"), eq("1"), any())).thenReturn(
+                CompletableFuture.failedFuture(new BulkIndexer.BulkItemException(400, "mapper_parsing_exception")));
+        when(mockEsWriter.upsert(eq("products"), eq("2"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletableFuture<Void> result = dataProcessor.processBatch(List.of(
+                changeEvent("c", "1", "Bad"),
+                changeEvent("c", "2", "Good")));
+
+        assertTrue(result.isDone());
+        assertFalse(result.isCompletedExceptionally());
+    }
+
+    @Test
+    void testProcessBatchFailsOnRetryableErrors() {
+        when(mockEsWriter.upsert(eq("products"), eq("1"), any())).thenReturn(
+                CompletableFuture.failedFuture(new BulkIndexer.BulkItemException(503, "unavailable")));
+        when(mockEsWriter.upsert(eq("products"), eq("2"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletableFuture<Void> result = dataProcessor.processBatch(List.of(
+                changeEvent("c", "1", "Retry"),
+                changeEvent("c", "2", "Good")));
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(BulkIndexer.BulkItemException.class, e.getCause());
+    }
+
+    @Test
+    void testProcessWritesThroughCompactorWhenEnabled() {
+        ChangeCompactor compactor = mock(ChangeCompactor.class);
+        ReflectionTestUtils.setField(dataProcessor, "changeCompactor", compactor);
+
+        dataProcessor.process(changeEvent("u", "1", "Hot"));
+        dataProcessor.process(changeEvent("d", "2", "Gone"));
+
+        verify(compactor).upsert(eq("products"), eq("1"), contains("Hot"));
+        verify(compactor).delete("products", "2");
+        verify(mockEsWriter, never()).upsert(any(), any(), any());
+        verify(mockEsWriter, never()).delete(any(), any());
+    }
+
+    @Test
+    void testVectorUpsertsAndDeletesAddressTheSameIndex() {
+        VectorUpdatePublisher publisher = mock(VectorUpdatePublisher.class);
+        ReflectionTestUtils.setField(dataProcessor, "vectorUpdatePublisher", publisher);
+        when(mockVectorizationQueue.enqueue(any())).thenReturn(true);
+
+        dataProcessor.process("""
+                {"op": "c", "source": {"table": "Products"}, "after": {"id": "7", "content": "Body"}}
+                """);
+        dataProcessor.process("""
+                {"op": "d", "source": {"table": "Products"}, "before": {"id": "7", "content": "Body"}}
+                """);
+
+        ArgumentCaptor<VectorizationTask> taskCaptor = ArgumentCaptor.forClass(VectorizationTask.class);
+        verify(mockVectorizationQueue).enqueue(taskCaptor.capture());
+        ArgumentCaptor<String> deletedIndex = ArgumentCaptor.forClass(String.class);
+        verify(publisher).publishDelete(deletedIndex.capture(), eq("7"));
+
+        assertEquals("search_Products", taskCaptor.getValue().getIndexName());
+        assertEquals(deletedIndex.getValue(), taskCaptor.getValue().getIndexName());
+    }
 }
@@ -0,0 +1,183 @@
+package com.search.sync.vectorization;
+
+import com.search.vector.grpc.EmbedRequest;
+import com.search.vector.grpc.EmbedResponse;
+import com.search.vector.grpc.EmbeddingStreamGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StreamingEmbeddingClient
+ */
+class StreamingEmbeddingClientTest {
+
+    private Server server;
+    private ManagedChannel channel;
+    private FakeEmbeddingStream service;
+
+    @AfterEach
+    void tearDown() {
+        if (channel != null) {
+            channel.shutdownNow();
+        }
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+
+    private StreamingEmbeddingClient start(int window, long timeoutMs) throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        service = new FakeEmbeddingStream();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(service)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return new StreamingEmbeddingClient(channel, window, timeoutMs);
+    }
+
+    @Test
+    void testEmbedDecodesVectorsInOrder() throws Exception {
+        StreamingEmbeddingClient client = start(4, 5000);
+
+        List<float[]> vectors = client.embed(List.of("a", "bbb")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, vectors.size());
+        assertArrayEquals(new float[]{1, 0}, vectors.get(0));
+        assertArrayEquals(new float[]{3, 1}, vectors.get(1));
+        assertEquals(0, client.getInFlight());
+    }
+
+    @Test
+    void testWindowBoundsBatchesInFlight() throws Exception {
+        StreamingEmbeddingClient client = start(2, 5000);
+        service.hold = true;
+
+        CompletableFuture<List<float[]>> first = client.embed(List.of("a"));
+        CompletableFuture<List<float[]>> second = client.embed(List.of("b"));
+        assertEquals(2, client.getInFlight());
+
+        // The window is full, so a third batch waits for a free slot
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try {
+                client.embed(List.of("c"));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(third.isDone());
+        assertEquals(2, service.held.size());
+
+        service.held.take().run();
+        assertArrayEquals(new float[]{1, 0}, first.get(5, TimeUnit.SECONDS).get(0));
+        third.get(5, TimeUnit.SECONDS);
+        assertFalse(second.isDone());
+        assertEquals(2, client.getInFlight());
+    }
+
+    @Test
+    void testFullWindowTimesOut() throws Exception {
+        StreamingEmbeddingClient client = start(1, 50);
+        service.hold = true;
+
+        client.embed(List.of("a"));
+        CompletableFuture<List<float[]>> blocked = client.embed(List.of("b"));
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, blocked::get);
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
+    }
+
+    @Test
+    void testRetryableErrorIsRejection() throws Exception {
+        StreamingEmbeddingClient client = start(4, 5000);
+        service.reject = true;
+
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> client.embed(List.of("a")).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+        assertEquals(0, client.getInFlight());
+    }
+
+    @Test
+    void testBrokenStreamFailsPendingAndReconnects() throws Exception {
+        StreamingEmbeddingClient client = start(4, 5000);
+        service.hold = true;
+
+        CompletableFuture<List<float[]>> pending = client.embed(List.of("a"));
+        service.responses.onError(Status.UNAVAILABLE.asRuntimeException());
+
+        assertThrows(ExecutionException.class, () -> pending.get(5, TimeUnit.SECONDS));
+        assertEquals(0, client.getInFlight());
+
+        service.hold = false;
+        List<float[]> vectors = client.embed(List.of("bb")).get(5, TimeUnit.SECONDS);
+        assertArrayEquals(new float[]{2, 0}, vectors.get(0));
+    }
+
+    /**
+     * Embeds each text as [length, position in batch]
+     */
+    private static class FakeEmbeddingStream extends EmbeddingStreamGrpc.EmbeddingStreamImplBase {
+        volatile boolean hold;
+        volatile boolean reject;
+        volatile StreamObserver<EmbedResponse> responses;
+        final BlockingQueue<Runnable> held = new LinkedBlockingQueue<>();
+
+        @Override
+        public StreamObserver<EmbedRequest> embed(StreamObserver<EmbedResponse> responseObserver) {
+            responses = responseObserver;
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(EmbedRequest request) {
+                    Runnable respond = () -> responseObserver.onNext(respond(request));
+                    if (hold) {
+                        held.add(respond);
+                    } else {
+                        respond.run();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+
+        private EmbedResponse respond(EmbedRequest request) {
+            EmbedResponse.Builder builder = EmbedResponse.newBuilder().setBatchId(request.getBatchId());
+            if (reject) {
+                return builder.setError("saturated").setRetryable(true).build();
+            }
+            builder.setDimension(2);
+            for (int i = 0; i < request.getTextsCount(); i++) {
+                builder.addValues(request.getTexts(i).length()).addValues(i);
+            }
+            return builder.build();
+        }
+    }
+}
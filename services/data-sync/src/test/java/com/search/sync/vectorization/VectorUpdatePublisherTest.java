@@ -0,0 +1,69 @@
+package com.search.sync.vectorization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VectorUpdatePublisher
+ */
+class VectorUpdatePublisherTest {
+
+    private KafkaProducer<String, String> producer;
+    private VectorUpdatePublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        producer = mock(KafkaProducer.class);
+        publisher = new VectorUpdatePublisher(producer);
+        ReflectionTestUtils.setField(publisher, "enabled", true);
+        ReflectionTestUtils.setField(publisher, "topic", "vector-updates");
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, String> sent() {
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(producer).send(captor.capture(), any());
+        return captor.getValue();
+    }
+
+    @Test
+    void testUpsertCarriesTheIndexName() throws Exception {
+        // The task's index name, as DataProcessor builds it from ESWriter
+        VectorizationTask task = new VectorizationTask("search_products", "7", List.of("content"),
+                "content_vector", Map.of("content", "Body"));
+
+        publisher.publishUpsert(task.getIndexName(), task.getDocumentId(), task.getTargetField(),
+                new float[]{0.5f, -1f});
+
+        ProducerRecord<String, String> record = sent();
+        assertEquals("vector-updates", record.topic());
+        assertEquals("search_products/7", record.key());
+        JsonNode event = new ObjectMapper().readTree(record.value());
+        assertEquals("upsert", event.get("op").asText());
+        assertEquals("search_products", event.get("index").asText());
+        assertEquals("7", event.get("id").asText());
+        assertEquals("content_vector", event.get("field").asText());
+        assertEquals(-1.0, event.get("vector").get(1).asDouble());
+    }
+
+    @Test
+    void testDeleteIsKeyedLikeUpserts() {
+        publisher.publishDelete("search_products", "7");
+
+        assertEquals("search_products/7", sent().key());
+    }
+}
@@ -1,9 +1,11 @@
 package com.search.sync.vectorization;
 
+import com.search.common.vector.VectorCodec;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestClientException;
@@ -34,6 +36,7 @@ class VectorizationServiceTest {
         // Inject the mocked RestTemplate using reflection
         ReflectionTestUtils.setField(vectorizationService, "restTemplate", mockRestTemplate);
         ReflectionTestUtils.setField(vectorizationService, "vectorServiceUrl", "http://localhost:8083");
+        ReflectionTestUtils.setField(vectorizationService, "vectorEncoding", "float32");
         ReflectionTestUtils.setField(vectorizationService, "openSearchUrl", "http://localhost:9200");
     }
 
@@ -59,9 +62,8 @@ class VectorizationServiceTest {
     @Test
     void testProcessTaskSuccess() {
         // Mock vector service response
-        Map<String, Object> vectorResponse = new HashMap<>();
-        vectorResponse.put("vector", List.of(0.1f, 0.2f, 0.3f, 0.4f, 0.5f));
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        byte[] vectorResponse = VectorCodec.encode(new float[]{0.1f, 0.2f, 0.3f, 0.4f, 0.5f}, VectorCodec.Encoding.FLOAT32);
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(vectorResponse);
 
         // Mock OpenSearch update response
@@ -73,9 +75,9 @@ class VectorizationServiceTest {
 
         assertTrue(result);
         verify(mockRestTemplate, times(1)).postForObject(
-                eq("http://localhost:8083/api/v1/embed"),
+                eq("http://localhost:8083/api/v1/embedding?encoding=float32"),
                 any(),
-                eq(Map.class)
+                eq(byte[].class)
         );
         verify(mockRestTemplate, times(1)).postForObject(
                 contains("test_index"),
@@ -104,7 +106,7 @@ class VectorizationServiceTest {
         assertTrue(result);
         // Should NOT call the vector service
         verify(mockRestTemplate, never()).postForObject(
-                eq("http://localhost:8083/api/v1/embed"),
+                eq("http://localhost:8083/api/v1/embedding?encoding=float32"),
                 any(),
                 any()
         );
@@ -112,7 +114,7 @@ class VectorizationServiceTest {
 
     @Test
     void testProcessTaskVectorServiceFailure() {
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenThrow(new RestClientException("Connection refused"));
 
         VectorizationTask task = createTestTask();
@@ -123,7 +125,7 @@ class VectorizationServiceTest {
 
     @Test
     void testProcessTaskWithNullVectorResponse() {
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(null);
 
         VectorizationTask task = createTestTask();
@@ -134,9 +136,9 @@ class VectorizationServiceTest {
 
     @Test
     void testProcessTaskWithEmptyVectorResponse() {
-        Map<String, Object> vectorResponse = new HashMap<>();
-        // Missing "vector" key
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        // Truncated frame
+        byte[] vectorResponse = new byte[4];
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(vectorResponse);
 
         VectorizationTask task = createTestTask();
@@ -148,10 +150,9 @@ class VectorizationServiceTest {
     @Test
     void testProcessTaskOpenSearchFailure() {
         // Mock successful vector response
-        Map<String, Object> vectorResponse = new HashMap<>();
-        vectorResponse.put("vector", List.of(0.1f, 0.2f, 0.3f));
+        byte[] vectorResponse = VectorCodec.encode(new float[]{0.1f, 0.2f, 0.3f}, VectorCodec.Encoding.FLOAT32);
 
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class))
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(vectorResponse);
 
         // Mock OpenSearch failure
@@ -216,10 +217,9 @@ class VectorizationServiceTest {
 
     @Test
     void testProcessTaskWithSingleField() {
-        Map<String, Object> vectorResponse = new HashMap<>();
-        vectorResponse.put("vector", List.of(0.1f, 0.2f, 0.3f));
+        byte[] vectorResponse = VectorCodec.encode(new float[]{0.1f, 0.2f, 0.3f}, VectorCodec.Encoding.FLOAT32);
 
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(vectorResponse);
         when(mockRestTemplate.postForObject(anyString(), anyString(), eq(String.class)))
                 .thenReturn("{\"result\": \"updated\"}");
@@ -242,10 +242,9 @@ class VectorizationServiceTest {
 
     @Test
     void testProcessTaskWithNumericFieldValue() {
-        Map<String, Object> vectorResponse = new HashMap<>();
-        vectorResponse.put("vector", List.of(0.1f, 0.2f));
+        byte[] vectorResponse = VectorCodec.encode(new float[]{0.1f, 0.2f}, VectorCodec.Encoding.FLOAT32);
 
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(vectorResponse);
         when(mockRestTemplate.postForObject(anyString(), anyString(), eq(String.class)))
                 .thenReturn("{\"result\": \"updated\"}");
@@ -268,10 +267,9 @@ class VectorizationServiceTest {
 
     @Test
     void testUpdateDocumentVectorUsesCorrectUrl() {
-        Map<String, Object> vectorResponse = new HashMap<>();
-        vectorResponse.put("vector", List.of(0.1f));
+        byte[] vectorResponse = VectorCodec.encode(new float[]{0.1f}, VectorCodec.Encoding.FLOAT32);
 
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(vectorResponse);
         when(mockRestTemplate.postForObject(anyString(), anyString(), eq(String.class)))
                 .thenReturn("{\"result\": \"updated\"}");
@@ -281,7 +279,7 @@ class VectorizationServiceTest {
                 "doc456",
                 List.of("title"),
                 "my_vector",
-                new HashMap<>()
+                Map.of("title", "Wireless earbuds")
         );
 
         vectorizationService.processTask(task);
@@ -316,10 +314,9 @@ class VectorizationServiceTest {
     void testOpenSearchUrlConfiguration() {
         ReflectionTestUtils.setField(vectorizationService, "openSearchUrl", "http://custom-opensearch:9200");
 
-        Map<String, Object> vectorResponse = new HashMap<>();
-        vectorResponse.put("vector", List.of(0.1f));
+        byte[] vectorResponse = VectorCodec.encode(new float[]{0.1f}, VectorCodec.Encoding.FLOAT32);
 
-        when(mockRestTemplate.postForObject(anyString(), any(), eq(Map.class)))
+        when(mockRestTemplate.postForObject(anyString(), any(), eq(byte[].class)))
                 .thenReturn(vectorResponse);
         when(mockRestTemplate.postForObject(anyString(), anyString(), eq(String.class)))
                 .thenReturn("{\"result\": \"updated\"}");
@@ -329,7 +326,7 @@ class VectorizationServiceTest {
                 "doc123",
                 List.of("title"),
                 "vector",
-                new HashMap<>()
+                Map.of("title", "Mechanical keyboard")
         );
 
         vectorizationService.processTask(task);
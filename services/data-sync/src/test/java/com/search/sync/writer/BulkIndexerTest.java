@@ -0,0 +1,267 @@
+package com.search.sync.writer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.core.bulk.OperationType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for BulkIndexer against a mocked client
+ */
+class BulkIndexerTest {
+
+    private OpenSearchClient client;
+    private SimpleMeterRegistry registry;
+    private BulkIndexer indexer;
+
+    /** Sizes of the bulk requests sent */
+    private final List<Integer> requests = new CopyOnWriteArrayList<>();
+
+    /** Statuses to answer per document ID, consumed one per attempt; 200 when absent */
+    private final Map<String, List<Integer>> statuses = new ConcurrentHashMap<>();
+
+    /** Operations the cluster applied, in order, as id:title or id:deleted */
+    private final List<String> applied = new CopyOnWriteArrayList<>();
+    private final Map<BulkOperation, String> titles = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = mock(OpenSearchClient.class);
+        registry = new SimpleMeterRegistry();
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(invocation -> {
+            BulkRequest request = invocation.getArgument(0);
+            requests.add(request.operations().size());
+
+            List<BulkResponseItem> items = new ArrayList<>();
+            for (BulkOperation operation : request.operations()) {
+                String id = operation.isDelete() ? operation.delete().id() : operation.update().id();
+                List<Integer> answers = statuses.get(id);
+                int status = answers != null && !answers.isEmpty() ? answers.remove(0) : 200;
+                if (status < 300) {
+                    applied.add(id + ":" + (operation.isDelete()
+                            ? "deleted" : titles.get(operation)));
+                }
+                items.add(BulkResponseItem.of(i -> {
+                    i.operationType(operation.isDelete() ? OperationType.Delete : OperationType.Update)
+                            .index("search_product")
+                            .id(id)
+                            .status(status);
+                    if (status >= 300) {
+                        i.error(e -> e.type("error_" + status).reason("status " + status));
+                    }
+                    return i;
+                }));
+            }
+            return BulkResponse.of(b -> b.errors(false).took(1).items(items));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (indexer != null) {
+            indexer.close();
+        }
+    }
+
+    private BulkOperation update(String id) {
+        return update(id, "t" + id);
+    }
+
+    private BulkOperation update(String id, String title) {
+        BulkOperation operation = BulkOperation.of(b -> b.update(u -> u.index("search_product").id(id)
+                .document(Map.of("title", title)).docAsUpsert(true)));
+        titles.put(operation, title);
+        return operation;
+    }
+
+    private static BulkOperation delete(String id) {
+        return BulkOperation.of(b -> b.delete(d -> d.index("search_product").id(id)));
+    }
+
+    @Test
+    void testFlushesWhenMaxActionsReached() throws Exception {
+        indexer = new BulkIndexer(client, 3, 1 << 20, 60_000, 1, 0, 10, registry);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            futures.add(indexer.add(update("doc-" + i), 100));
+        }
+        CompletableFuture.allOf(futures.get(0), futures.get(5)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(3, 3), requests);
+        assertEquals(1, indexer.getBufferedCount());
+        assertFalse(futures.get(6).isDone());
+    }
+
+    @Test
+    void testFlushesWhenMaxBytesReached() throws Exception {
+        indexer = new BulkIndexer(client, 1000, 1000, 60_000, 1, 0, 10, registry);
+
+        indexer.add(update("small"), 100);
+        indexer.add(update("large"), 2000).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2), requests);
+    }
+
+    @Test
+    void testFlushesOldOperations() throws Exception {
+        indexer = new BulkIndexer(client, 1000, 1 << 20, 50, 1, 0, 10, registry);
+
+        indexer.add(update("doc-1"), 100).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1), requests);
+    }
+
+    @Test
+    void testItemFailuresAreHandledIndividually() throws Exception {
+        indexer = new BulkIndexer(client, 1000, 1 << 20, 60_000, 1, 3, 10, registry);
+        statuses.put("bad", new ArrayList<>(List.of(400)));
+        statuses.put("busy", new ArrayList<>(List.of(429, 503)));
+        statuses.put("gone", new ArrayList<>(List.of(404)));
+
+        CompletableFuture<Void> ok = indexer.add(update("ok"), 100);
+        CompletableFuture<Void> bad = indexer.add(update("bad"), 100);
+        CompletableFuture<Void> busy = indexer.add(update("busy"), 100);
+        CompletableFuture<Void> gone = indexer.add(delete("gone"), 0);
+        indexer.flush();
+
+        ok.get(5, TimeUnit.SECONDS);
+        gone.get(5, TimeUnit.SECONDS);
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals(400, ((BulkIndexer.BulkItemException) thrown.getCause()).getStatus());
+
+        // Rejected twice, then written on the third attempt
+        busy.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(4, 1, 1), requests);
+
+        assertEquals(3, registry.get("sync.bulk.items").tag("result", "success").counter().count());
+        assertEquals(2, registry.get("sync.bulk.items").tag("result", "retried").counter().count());
+        assertEquals(1, registry.get("sync.bulk.items").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void testRetriesAreBounded() {
+        indexer = new BulkIndexer(client, 1000, 1 << 20, 60_000, 1, 1, 10, registry);
+        statuses.put("busy", new ArrayList<>(List.of(429, 429, 429)));
+
+        CompletableFuture<Void> busy = indexer.add(update("busy"), 100);
+        indexer.flush();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> busy.get(5, TimeUnit.SECONDS));
+        assertEquals(429, ((BulkIndexer.BulkItemException) thrown.getCause()).getStatus());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    void testRetryIsAppliedBeforeLaterWritesToTheSameDocument() throws Exception {
+        indexer = new BulkIndexer(client, 1000, 1 << 20, 60_000, 1, 3, 100, registry);
+        statuses.put("hot", new ArrayList<>(List.of(503)));
+
+        CompletableFuture<Void> delete = indexer.add(delete("hot"), 0);
+        indexer.flush();
+        // The delete waits for its retry; the upsert that followed it must not overtake it
+        CompletableFuture<Void> upsert = indexer.add(update("hot", "new"), 100);
+        CompletableFuture<Void> other = indexer.add(update("cold"), 100);
+        indexer.flush();
+
+        other.get(5, TimeUnit.SECONDS);
+        assertFalse(upsert.isDone());
+        delete.get(5, TimeUnit.SECONDS);
+        indexer.flush();
+        upsert.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("cold:tcold", "hot:deleted", "hot:new"), applied);
+    }
+
+    @Test
+    void testConcurrentRequestsKeepOneDocumentInOrder() throws Exception {
+        indexer = new BulkIndexer(client, 2, 1 << 20, 60_000, 4, 0, 10, registry);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(indexer.add(update("hot", "v" + i), 100));
+            futures.add(indexer.add(update("doc-" + i), 100));
+        }
+        while (!futures.stream().allMatch(CompletableFuture::isDone)) {
+            indexer.flush();
+        }
+
+        List<String> hot = applied.stream().filter(entry -> entry.startsWith("hot:")).toList();
+        assertEquals(20, hot.size());
+        for (int i = 0; i < hot.size(); i++) {
+            assertEquals("hot:v" + i, hot.get(i));
+        }
+    }
+
+    @Test
+    void testRejectedWriteIsRetriedWithLaterWritesToItsDocument() throws Exception {
+        indexer = new BulkIndexer(client, 1000, 1 << 20, 60_000, 2, 3, 10, registry);
+        // The older state is rejected, the newer one in the same request is applied
+        statuses.put("hot", new ArrayList<>(List.of(429)));
+
+        CompletableFuture<Void> older = indexer.add(update("hot", "v1"), 100);
+        CompletableFuture<Void> newer = indexer.add(update("hot", "v2"), 100);
+        indexer.flush();
+
+        older.get(5, TimeUnit.SECONDS);
+        newer.get(5, TimeUnit.SECONDS);
+        List<String> hot = applied.stream().filter(entry -> entry.startsWith("hot:")).toList();
+        assertEquals("hot:v2", hot.get(hot.size() - 1));
+        assertEquals(List.of("hot:v2", "hot:v1", "hot:v2"), hot);
+    }
+
+    @Test
+    void testUnreadableResponseFailsEveryItem() throws Exception {
+        when(client.bulk(any(BulkRequest.class))).thenReturn(null);
+        indexer = new BulkIndexer(client, 1000, 1 << 20, 60_000, 1, 0, 10, registry);
+
+        CompletableFuture<Void> first = indexer.add(update("doc-1"), 100);
+        CompletableFuture<Void> second = indexer.add(update("doc-2"), 100);
+        indexer.flush();
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        // Nothing is left holding the document
+        when(client.bulk(any(BulkRequest.class))).thenReturn(BulkResponse.of(b -> b.errors(false).took(1)
+                .items(List.of(BulkResponseItem.of(i -> i.operationType(OperationType.Update)
+                        .index("search_product").id("doc-1").status(200))))));
+        CompletableFuture<Void> retried = indexer.add(update("doc-1"), 100);
+        indexer.flush();
+        retried.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testCloseFlushesAndExportsMetrics() throws Exception {
+        indexer = new BulkIndexer(client, 1000, 1 << 20, 60_000, 2, 0, 10, registry);
+
+        CompletableFuture<Void> future = indexer.add(update("doc-1"), 100);
+        indexer.add(update("doc-2"), 100);
+        indexer.close();
+        indexer = null;
+
+        assertTrue(future.isDone());
+        future.get();
+        assertEquals(1, registry.get("sync.bulk.flush").timer().count());
+        assertEquals(2.0, registry.get("sync.bulk.batch.size").summary().totalAmount());
+    }
+}
@@ -0,0 +1,212 @@
+package com.search.sync.writer;
+
+import com.search.config.model.FieldConfig;
+import com.search.config.model.FieldType;
+import com.search.config.model.SearchObject;
+import com.search.sync.config.OpenSearchConfig;
+import com.search.sync.config.SearchObjectLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.ErrorResponse;
+import org.opensearch.client.opensearch._types.OpenSearchException;
+import org.opensearch.client.opensearch._types.mapping.Property;
+import org.opensearch.client.opensearch.indices.CreateIndexRequest;
+import org.opensearch.client.opensearch.indices.ExistsRequest;
+import org.opensearch.client.opensearch.indices.OpenSearchIndicesClient;
+import org.opensearch.client.transport.endpoints.BooleanResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ESWriter index creation
+ */
+class ESWriterTest {
+
+    private static final String DOCUMENT = "{\"id\":1,\"title\":\"Phone\"}";
+
+    private OpenSearchClient client;
+    private OpenSearchIndicesClient indices;
+    private SearchObjectLoader searchObjectLoader;
+    private ESWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(OpenSearchClient.class);
+        indices = mock(OpenSearchIndicesClient.class);
+        when(client.indices()).thenReturn(indices);
+
+        OpenSearchConfig config = mock(OpenSearchConfig.class);
+        when(config.getIndexPrefix()).thenReturn("search");
+        when(config.getBulkMaxActions()).thenReturn(1000);
+        when(config.getBulkMaxBytes()).thenReturn(1L << 20);
+        when(config.getBulkFlushIntervalMs()).thenReturn(60_000L);
+        when(config.getBulkConcurrentRequests()).thenReturn(1);
+
+        FieldConfig title = new FieldConfig("title", FieldType.TEXT);
+        title.setAnalyzer("ik_max_word");
+        FieldConfig embedding = new FieldConfig("title_vector", FieldType.DENSE_VECTOR);
+        embedding.setVectorDim(4);
+        SearchObject product = new SearchObject("product", "mysql-source");
+        product.setTable("products");
+        product.setFields(List.of(title, new FieldConfig("price", FieldType.DOUBLE), embedding));
+
+        searchObjectLoader = new SearchObjectLoader();
+        searchObjectLoader.update(List.of(product));
+
+        writer = new ESWriter(client, config, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "searchObjectLoader", searchObjectLoader);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    private int bufferedCount() {
+        return ((BulkIndexer) ReflectionTestUtils.getField(writer, "bulkIndexer")).getBufferedCount();
+    }
+
+    @Test
+    void testCreatesIndexWithGeneratedMapping() throws Exception {
+        when(indices.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(false));
+
+        writer.upsert("products", "1", DOCUMENT);
+
+        ArgumentCaptor<CreateIndexRequest> captor = ArgumentCaptor.forClass(CreateIndexRequest.class);
+        verify(indices).create(captor.capture());
+        CreateIndexRequest request = captor.getValue();
+
+        assertEquals("search_products", request.index());
+        Property title = request.mappings().properties().get("title");
+        assertTrue(title.isText());
+        assertEquals("ik_max_word", title.text().analyzer());
+        assertTrue(request.mappings().properties().get("price").isDouble());
+        Property vector = request.mappings().properties().get("title_vector");
+        assertTrue(vector.isKnnVector());
+        assertEquals(4, vector.knnVector().dimension());
+        assertEquals("cosinesimil", vector.knnVector().method().spaceType());
+        assertTrue(request.settings().knn());
+    }
+
+    @Test
+    void testUnknownObjectGetsDynamicMapping() throws Exception {
+        when(indices.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(false));
+
+        writer.upsert("orders", "1", DOCUMENT);
+
+        ArgumentCaptor<CreateIndexRequest> captor = ArgumentCaptor.forClass(CreateIndexRequest.class);
+        verify(indices).create(captor.capture());
+        assertEquals("search_orders", captor.getValue().index());
+        assertNull(captor.getValue().mappings());
+    }
+
+    @Test
+    void testExistingIndexIsCheckedOnce() throws Exception {
+        when(indices.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(true));
+
+        for (int i = 0; i < 10; i++) {
+            writer.upsert("products", String.valueOf(i), DOCUMENT);
+        }
+        writer.upsert("orders", "1", DOCUMENT);
+
+        verify(indices, times(2)).exists(any(ExistsRequest.class));
+        verify(indices, never()).create(any(CreateIndexRequest.class));
+    }
+
+    @Test
+    void testConcurrentFirstWritesShareOneCheck() throws Exception {
+        CountDownLatch checking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(indices.exists(any(ExistsRequest.class))).thenAnswer(invocation -> {
+            checking.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new BooleanResponse(false);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String id = String.valueOf(i);
+            writes.add(executor.submit(() -> writer.upsert("products", id, DOCUMENT)));
+        }
+        assertTrue(checking.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        release.countDown();
+        for (Future<?> write : writes) {
+            write.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        verify(indices, times(1)).exists(any(ExistsRequest.class));
+        verify(indices, times(1)).create(any(CreateIndexRequest.class));
+    }
+
+    @Test
+    void testFailedCheckIsRetried() throws Exception {
+        when(indices.exists(any(ExistsRequest.class)))
+                .thenThrow(new IOException("connection refused"))
+                .thenReturn(new BooleanResponse(true));
+
+        CompletableFuture<Void> failed = writer.upsert("products", "1", DOCUMENT);
+        writer.upsert("products", "2", DOCUMENT);
+        writer.upsert("products", "3", DOCUMENT);
+
+        verify(indices, times(2)).exists(any(ExistsRequest.class));
+        // Not written unchecked, the cluster would create the index with dynamic mapping
+        ExecutionException thrown = assertThrows(ExecutionException.class, failed::get);
+        assertInstanceOf(IOException.class, thrown.getCause());
+        assertEquals(2, bufferedCount());
+    }
+
+    @Test
+    void testIndexIsNotCreatedBeforeSearchObjectsLoad() throws Exception {
+        SearchObjectLoader unloaded = new SearchObjectLoader();
+        ReflectionTestUtils.setField(unloaded, "enabled", true);
+        ReflectionTestUtils.setField(writer, "searchObjectLoader", unloaded);
+        when(indices.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(false));
+
+        CompletableFuture<Void> failed = writer.upsert("products", "1", DOCUMENT);
+
+        assertTrue(failed.isCompletedExceptionally());
+        verify(indices, never()).create(any(CreateIndexRequest.class));
+        assertEquals(0, bufferedCount());
+
+        // Retried once loaded, with the object's mapping
+        ReflectionTestUtils.setField(writer, "searchObjectLoader", searchObjectLoader);
+        writer.upsert("products", "1", DOCUMENT);
+
+        ArgumentCaptor<CreateIndexRequest> captor = ArgumentCaptor.forClass(CreateIndexRequest.class);
+        verify(indices).create(captor.capture());
+        assertNotNull(captor.getValue().mappings());
+    }
+
+    @Test
+    void testIndexCreatedElsewhereCountsAsCreated() throws Exception {
+        when(indices.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(false));
+        when(indices.create(any(CreateIndexRequest.class))).thenThrow(new OpenSearchException(ErrorResponse.of(
+                r -> r.status(400).error(e -> e.type("resource_already_exists_exception").reason("exists")))));
+
+        writer.upsert("products", "1", DOCUMENT);
+        writer.upsert("products", "2", DOCUMENT);
+
+        verify(indices, times(1)).exists(any(ExistsRequest.class));
+    }
+}
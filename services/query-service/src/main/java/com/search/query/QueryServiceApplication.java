@@ -2,6 +2,7 @@ package com.search.query;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Query Service Application
@@ -9,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * Provides search API with multi-path recall and reranking capabilities.
  */
 @SpringBootApplication
+@EnableScheduling
 public class QueryServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,117 @@
+package com.search.query.analysis;
+
+import java.util.List;
+
+/**
+ * Result of query analysis
+ *
+ * Immutable, so a single instance is cached and shared by every request
+ * carrying the same raw query.
+ */
+public class AnalyzedQuery {
+
+    /**
+     * Length-based routing hint for downstream stages
+     */
+    public enum Routing {
+        /**
+         * One or two terms, typically a head query: keyword and hot recall work best
+         */
+        SHORT,
+        /**
+         * Regular query
+         */
+        MEDIUM,
+        /**
+         * Natural-language query: vector recall and semantic rerank pay off
+         */
+        LONG
+    }
+
+    private final String raw;
+    private final String normalized;
+    private final List<String> tokens;
+    private final List<String> terms;
+    private final Routing routing;
+    private final boolean containsCjk;
+    private final boolean containsLatin;
+
+    public AnalyzedQuery(String raw, String normalized, List<String> tokens, List<String> terms,
+                         Routing routing, boolean containsCjk, boolean containsLatin) {
+        this.raw = raw;
+        this.normalized = normalized;
+        this.tokens = List.copyOf(tokens);
+        this.terms = List.copyOf(terms);
+        this.routing = routing;
+        this.containsCjk = containsCjk;
+        this.containsLatin = containsLatin;
+    }
+
+    /**
+     * Query as received
+     */
+    public String getRaw() {
+        return raw;
+    }
+
+    /**
+     * NFKC-normalized, width- and case-folded query with collapsed whitespace
+     */
+    public String getNormalized() {
+        return normalized;
+    }
+
+    /**
+     * All tokens in query order
+     */
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Tokens left after stop-term trimming
+     */
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    /**
+     * Text used for keyword matching: the trimmed terms, or the normalized
+     * query if trimming removed everything
+     */
+    public String getText() {
+        return terms.isEmpty() ? normalized : String.join(" ", terms);
+    }
+
+    /**
+     * Key for query-level caches
+     */
+    public String getCacheKey() {
+        return normalized;
+    }
+
+    public Routing getRouting() {
+        return routing;
+    }
+
+    public boolean containsCjk() {
+        return containsCjk;
+    }
+
+    public boolean containsLatin() {
+        return containsLatin;
+    }
+
+    public boolean isEmpty() {
+        return normalized.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "AnalyzedQuery{" +
+                "normalized='" + normalized + '\'' +
+                ", terms=" + terms +
+                ", routing=" + routing +
+                '}';
+    }
+}
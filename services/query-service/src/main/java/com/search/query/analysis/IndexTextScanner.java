@@ -0,0 +1,157 @@
+package com.search.query.analysis;
+
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.core.ScrollResponse;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Scanner for the text fields of an index
+ *
+ * Walks the index with a scroll, fetching only the requested fields, and
+ * hands every text value to a consumer. Used to build in-process
+ * dictionaries (spelling vocabulary, completion entries) and local vector
+ * indexes off the request path.
+ */
+@Component
+public class IndexTextScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexTextScanner.class);
+
+    private static final String SCROLL_KEEP_ALIVE = "1m";
+
+    private final OpenSearchClient client;
+
+    public IndexTextScanner(OpenSearchClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Check whether an index or alias exists
+     *
+     * Scans report a missing index only as zero documents, so callers that
+     * must tell it apart from a failed or empty scan check first.
+     *
+     * @param index the index name
+     * @return true if the index exists
+     * @throws IOException if the cluster cannot be reached
+     */
+    public boolean exists(String index) throws IOException {
+        return client.indices().exists(e -> e.index(index)).value();
+    }
+
+    /**
+     * Scan the text fields of an index
+     *
+     * @param index the index name
+     * @param fields the fields to read
+     * @param maxDocs maximum number of documents to scan
+     * @param batchSize documents per scroll page
+     * @param consumer receives each document source (restricted to the fields)
+     * @return number of documents scanned
+     */
+    public int scan(String index, List<String> fields, int maxDocs, int batchSize,
+                    Consumer<Map<String, Object>> consumer) {
+        return scan(index, fields, maxDocs, batchSize, (id, source) -> consumer.accept(source));
+    }
+
+    /**
+     * Scan the fields of an index along with document IDs
+     *
+     * @param index the index name
+     * @param fields the fields to read
+     * @param maxDocs maximum number of documents to scan
+     * @param batchSize documents per scroll page
+     * @param consumer receives each document ID and source (restricted to the fields)
+     * @return number of documents scanned
+     */
+    public int scan(String index, List<String> fields, int maxDocs, int batchSize,
+                    BiConsumer<String, Map<String, Object>> consumer) {
+        String scrollId = null;
+        int scanned = 0;
+
+        try {
+            SearchResponse<Map> response = client.search(s -> s
+                    .index(index)
+                    .size(Math.min(batchSize, maxDocs))
+                    .scroll(t -> t.time(SCROLL_KEEP_ALIVE))
+                    .source(src -> src.filter(f -> f.includes(fields))),
+                    Map.class
+            );
+            scrollId = response.scrollId();
+            List<Hit<Map>> hits = response.hits().hits();
+
+            while (!hits.isEmpty() && scanned < maxDocs) {
+                for (Hit<Map> hit : hits) {
+                    if (scanned >= maxDocs) {
+                        break;
+                    }
+                    if (hit.source() != null) {
+                        consumer.accept(hit.id(), hit.source());
+                    }
+                    scanned++;
+                }
+                if (scanned >= maxDocs || scrollId == null) {
+                    break;
+                }
+
+                String currentScrollId = scrollId;
+                ScrollResponse<Map> next = client.scroll(r -> r
+                        .scrollId(currentScrollId)
+                        .scroll(t -> t.time(SCROLL_KEEP_ALIVE)),
+                        Map.class
+                );
+                scrollId = next.scrollId();
+                hits = next.hits().hits();
+            }
+
+        } catch (Exception e) {
+            log.warn("Index scan stopped early: index={}, scanned={}, error={}", index, scanned, e.getMessage());
+        } finally {
+            clearScroll(scrollId);
+        }
+
+        log.debug("Scanned {} documents from index {}", scanned, index);
+        return scanned;
+    }
+
+    /**
+     * Collect the string values of a field, flattening multi-valued fields
+     *
+     * @param source the document source
+     * @param field the field name
+     * @param consumer receives each string value
+     */
+    public static void forEachText(Map<String, Object> source, String field, Consumer<String> consumer) {
+        Object value = source.get(field);
+        if (value instanceof String text) {
+            consumer.accept(text);
+        } else if (value instanceof List<?> values) {
+            for (Object element : values) {
+                if (element instanceof String text) {
+                    consumer.accept(text);
+                }
+            }
+        }
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        try {
+            client.clearScroll(c -> c.scrollId(scrollId));
+        } catch (Exception e) {
+            log.debug("Failed to clear scroll: {}", e.getMessage());
+        }
+    }
+}
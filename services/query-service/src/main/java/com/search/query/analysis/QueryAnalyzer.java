@@ -0,0 +1,265 @@
+package com.search.query.analysis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Query analyzer at the head of the search pipeline
+ *
+ * Normalizes the raw query once (NFKC, which also folds full-width forms,
+ * then case folding and whitespace collapsing), splits it into Latin and
+ * CJK tokens, trims stop terms and derives a length-based routing hint.
+ * Results are memoized per distinct raw query in a bounded cache.
+ */
+@Component
+public class QueryAnalyzer {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryAnalyzer.class);
+
+    /**
+     * Queries longer than this are analyzed but not cached
+     */
+    private static final int MAX_CACHED_LENGTH = 512;
+
+    private static final AnalyzedQuery EMPTY =
+            new AnalyzedQuery("", "", List.of(), List.of(), AnalyzedQuery.Routing.SHORT, false, false);
+
+    @Value("${query.analysis.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${query.analysis.cache.expire-minutes:30}")
+    private long cacheExpireMinutes;
+
+    @Value("${query.analysis.stop-terms:a,an,the,of,for,and,or,in,on,with,的,了,和,与,吗,呢,啊}")
+    private List<String> stopTermList;
+
+    @Value("${query.analysis.routing.short-max-terms:2}")
+    private int shortMaxTerms;
+
+    @Value("${query.analysis.routing.short-max-chars:8}")
+    private int shortMaxChars;
+
+    @Value("${query.analysis.routing.long-min-terms:6}")
+    private int longMinTerms;
+
+    @Value("${query.analysis.routing.long-min-chars:24}")
+    private int longMinChars;
+
+    private Set<String> stopTerms;
+    private int maxCjkStopLength;
+    private Cache<String, AnalyzedQuery> cache;
+
+    @PostConstruct
+    public void init() {
+        stopTerms = new HashSet<>();
+        maxCjkStopLength = 0;
+        for (String term : stopTermList) {
+            String folded = normalize(term);
+            if (folded.isEmpty()) {
+                continue;
+            }
+            stopTerms.add(folded);
+            if (isCjk(folded.codePointAt(0))) {
+                maxCjkStopLength = Math.max(maxCjkStopLength, folded.length());
+            }
+        }
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterAccess(Duration.ofMinutes(cacheExpireMinutes))
+                .recordStats()
+                .build();
+
+        log.info("Query analyzer initialized: stopTerms={}, cacheMaxSize={}", stopTerms.size(), cacheMaxSize);
+    }
+
+    /**
+     * Analyze a query, reusing the cached result for a repeated query
+     *
+     * @param raw the query as received
+     * @return the analyzed query (never null)
+     */
+    public AnalyzedQuery analyze(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return EMPTY;
+        }
+        if (raw.length() > MAX_CACHED_LENGTH) {
+            return analyzeUncached(raw);
+        }
+        return cache.get(raw, this::analyzeUncached);
+    }
+
+    /**
+     * Get cache statistics
+     *
+     * @return hit/miss/eviction counts
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Analyze text without the cache, e.g. dictionary terms that should not
+     * evict real queries
+     *
+     * @param raw the text to analyze
+     * @return the analyzed text
+     */
+    public AnalyzedQuery analyzeUncached(String raw) {
+        String normalized = normalize(raw);
+        List<String> tokens = new ArrayList<>();
+        List<String> terms = new ArrayList<>();
+        boolean containsCjk = false;
+        boolean containsLatin = false;
+
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int cp = normalized.codePointAt(i);
+
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < length && isCjk(normalized.codePointAt(i))) {
+                    i += Character.charCount(normalized.codePointAt(i));
+                }
+                containsCjk = true;
+                splitCjkRun(normalized.substring(start, i), tokens, terms);
+
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < length) {
+                    int c = normalized.codePointAt(i);
+                    if (Character.isLetterOrDigit(c) && !isCjk(c)) {
+                        containsLatin |= Character.isLetter(c);
+                        i += Character.charCount(c);
+                    } else if (isJoiner(c) && i > start && i + 1 < length
+                            && Character.isLetterOrDigit(normalized.codePointAt(i + 1))
+                            && !isCjk(normalized.codePointAt(i + 1))) {
+                        // Keep "3.5mm", "wi-fi" and "o'neill" as one token
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                addToken(normalized.substring(start, i), tokens, terms);
+
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+
+        return new AnalyzedQuery(raw, normalized, tokens, terms,
+                route(terms.isEmpty() ? tokens.size() : terms.size(), normalized.codePointCount(0, length)),
+                containsCjk, containsLatin);
+    }
+
+    /**
+     * NFKC normalization, case folding and whitespace collapsing
+     *
+     * NFKC maps full-width ASCII and the ideographic space to their
+     * half-width forms and half-width katakana to full-width.
+     *
+     * @param raw the text to normalize
+     * @return the normalized text
+     */
+    public String normalize(String raw) {
+        String folded = Normalizer.normalize(raw, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        StringBuilder sb = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < folded.length(); ) {
+            int cp = folded.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            int type = Character.getType(cp);
+            if (type == Character.CONTROL || type == Character.FORMAT) {
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.appendCodePoint(cp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Split a CJK run at embedded stop terms, matching the longest stop term first
+     */
+    private void splitCjkRun(String run, List<String> tokens, List<String> terms) {
+        int segmentStart = 0;
+        int i = 0;
+        while (i < run.length()) {
+            int matched = 0;
+            for (int len = Math.min(maxCjkStopLength, run.length() - i); len > 0; len--) {
+                if (stopTerms.contains(run.substring(i, i + len))) {
+                    matched = len;
+                    break;
+                }
+            }
+
+            if (matched > 0) {
+                if (i > segmentStart) {
+                    addToken(run.substring(segmentStart, i), tokens, terms);
+                }
+                tokens.add(run.substring(i, i + matched));
+                i += matched;
+                segmentStart = i;
+            } else {
+                i += Character.charCount(run.codePointAt(i));
+            }
+        }
+
+        if (segmentStart < run.length()) {
+            addToken(run.substring(segmentStart), tokens, terms);
+        }
+    }
+
+    private void addToken(String token, List<String> tokens, List<String> terms) {
+        tokens.add(token);
+        if (!stopTerms.contains(token)) {
+            terms.add(token);
+        }
+    }
+
+    private AnalyzedQuery.Routing route(int termCount, int charCount) {
+        if (termCount >= longMinTerms || charCount >= longMinChars) {
+            return AnalyzedQuery.Routing.LONG;
+        }
+        if (termCount <= shortMaxTerms && charCount <= shortMaxChars) {
+            return AnalyzedQuery.Routing.SHORT;
+        }
+        return AnalyzedQuery.Routing.MEDIUM;
+    }
+
+    private static boolean isJoiner(int cp) {
+        return cp == '.' || cp == '-' || cp == '_' || cp == '\'';
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,648 @@
+package com.search.query.ann;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process HNSW graph over cosine similarity
+ *
+ * Vectors are L2-normalized on the way in, so similarity is a dot
+ * product. Vectors and level-0 adjacency lists (the bulk of the graph)
+ * live off-heap in direct buffers, one buffer per page of nodes; the
+ * sparse upper levels stay on-heap.
+ *
+ * Updates replace a document by tombstoning its old node and inserting a
+ * new one; tombstoned nodes still route searches but are never returned.
+ * Writers take an exclusive lock, searches a shared one, so a single
+ * update stream can feed the graph while requests are served.
+ *
+ * An index can be saved to a {@link VectorSegment} file and loaded back
+ * with its pages mapped from the file instead of rebuilt.
+ */
+public final class HnswIndex {
+
+    /**
+     * Search hit, scored (1 + cosine) / 2 like the OpenSearch cosinesimil space
+     */
+    public record Neighbor(String docId, float score) {
+    }
+
+    private static final int PAGE_SHIFT = OffHeapVectors.PAGE_SHIFT;
+    private static final int PAGE_SIZE = OffHeapVectors.PAGE_SIZE;
+    private static final int PAGE_MASK = OffHeapVectors.PAGE_MASK;
+    private static final int MAX_LEVEL = 16;
+
+    private final int dimension;
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final OffHeapVectors vectors;
+    private ByteBuffer[] linkPages = new ByteBuffer[0];
+    private int[][][] upperLinks = new int[0][][];
+    private String[] docIds = new String[0];
+    private final Map<String, Integer> nodeByDoc = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private int nodeCount;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+
+    /**
+     * @param dimension vector dimension
+     * @param m links per node on upper levels (twice that on level 0)
+     * @param efConstruction candidate list size while inserting
+     * @param seed seed for level assignment
+     */
+    public HnswIndex(int dimension, int m, int efConstruction, long seed) {
+        this(dimension, m, efConstruction, seed, new OffHeapVectors(dimension));
+    }
+
+    private HnswIndex(int dimension, int m, int efConstruction, long seed, OffHeapVectors vectors) {
+        if (dimension <= 0 || m < 2) {
+            throw new IllegalArgumentException("dimension must be positive and m at least 2");
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+        this.vectors = vectors;
+    }
+
+    /**
+     * Adopt the graph of a segment
+     */
+    private HnswIndex(VectorSegment segment, int efConstruction, long seed) {
+        this(segment.dimension, segment.m, efConstruction, seed, segment.vectors);
+        this.linkPages = segment.linkPages;
+        this.upperLinks = segment.upperLinks;
+        this.docIds = segment.docIds;
+        this.nodeCount = segment.nodeCount;
+        this.entryPoint = segment.entryPoint;
+        this.maxLevel = segment.maxLevel;
+        this.deleted.or(segment.deleted);
+        this.deletedCount = deleted.cardinality();
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted.get(node)) {
+                nodeByDoc.put(docIds[node], node);
+            }
+        }
+    }
+
+    /**
+     * Load an index from a segment file
+     *
+     * Segments saved without their graph are rebuilt from the stored vectors,
+     * which skips the OpenSearch scan but not graph construction.
+     *
+     * @param path the segment file
+     * @param efConstruction candidate list size for later inserts
+     * @param seed seed for level assignment
+     * @param verifyChecksum check the whole file against its checksum first
+     * @return the index
+     * @throws IOException if the file cannot be read or is not a valid segment
+     */
+    public static HnswIndex load(Path path, int efConstruction, long seed, boolean verifyChecksum)
+            throws IOException {
+        VectorSegment segment = VectorSegment.read(path, verifyChecksum);
+        if (segment.hasGraph()) {
+            return new HnswIndex(segment, efConstruction, seed);
+        }
+
+        HnswIndex index = new HnswIndex(segment.dimension, segment.m, efConstruction, seed);
+        for (int node = 0; node < segment.nodeCount; node++) {
+            if (!segment.deleted.get(node)) {
+                index.add(segment.docIds[node], segment.vectors.get(node));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Save the index to a segment file, replacing any previous one
+     *
+     * Searches continue while saving; updates wait until it finishes. The
+     * segment records when the save started, so updates published after it
+     * can be replayed on load.
+     *
+     * @param path the segment file
+     * @param includeGraph also store the graph, so loading skips construction
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path, boolean includeGraph) throws IOException {
+        lock.readLock().lock();
+        try (VectorSegment.Writer writer = new VectorSegment.Writer(path, dimension, m, nodeCount,
+                System.currentTimeMillis())) {
+            writer.vectors(vectors);
+            writer.deleted(deleted);
+            writer.ids(docIds);
+            if (includeGraph) {
+                writer.graph(linkPages, upperLinks, entryPoint, maxLevel);
+            }
+            writer.commit();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace the vector of a document
+     *
+     * @param docId the document ID
+     * @param vector the vector
+     */
+    public void add(String docId, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + vector.length);
+        }
+        float[] normalized = OffHeapVectors.normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = nodeByDoc.get(docId);
+            if (previous != null) {
+                markDeleted(previous);
+            }
+            int node = nodeCount;
+            ensureCapacity(node);
+            nodeCount++;
+            docIds[node] = docId;
+            nodeByDoc.put(docId, node);
+            insert(node, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document
+     *
+     * @param docId the document ID
+     * @return true if the document was present
+     */
+    public boolean remove(String docId) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByDoc.remove(docId);
+            if (node == null) {
+                return false;
+            }
+            markDeleted(node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the nearest documents to a query vector
+     *
+     * @param query the query vector
+     * @param k number of results
+     * @param ef candidate list size (raised to k if smaller)
+     * @return neighbors by descending score
+     */
+    public List<Neighbor> search(float[] query, int k, int ef) {
+        if (query.length != dimension || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = OffHeapVectors.normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+
+            int current = greedyDescent(normalized, entryPoint, maxLevel, 0);
+            NodeQueue results = searchLayer(normalized, current, Math.max(ef, k), 0, true);
+            while (results.size() > k) {
+                results.pop();
+            }
+            return toNeighbors(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Score a query against the given documents only, without the graph
+     *
+     * Meant for filters too selective for graph search, where most of the
+     * nodes a traversal visits would be rejected.
+     *
+     * @param query the query vector
+     * @param k number of results
+     * @param candidates document IDs to score; ones not in the index are skipped
+     * @return neighbors by descending score
+     */
+    public List<Neighbor> searchExact(float[] query, int k, Collection<String> candidates) {
+        if (query.length != dimension || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = OffHeapVectors.normalize(query);
+
+        lock.readLock().lock();
+        try {
+            NodeQueue results = new NodeQueue(k + 1, false);
+            for (String docId : candidates) {
+                Integer node = nodeByDoc.get(docId);
+                if (node == null) {
+                    continue;
+                }
+                float sim = similarity(normalized, node);
+                if (results.size() < k || sim > results.topScore()) {
+                    results.push(node, sim);
+                    if (results.size() > k) {
+                        results.pop();
+                    }
+                }
+            }
+            return toNeighbors(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check if a document is indexed
+     *
+     * @param docId the document ID
+     * @return true if present and not removed
+     */
+    public boolean contains(String docId) {
+        lock.readLock().lock();
+        try {
+            return nodeByDoc.containsKey(docId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return number of live documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of graph nodes, including tombstoned ones
+     */
+    public int getNodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDeletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes of direct memory held by vectors and level-0 links
+     */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return vectors.getBytes() + (long) linkPages.length * PAGE_SIZE * (m0 + 1) * Integer.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HnswIndex{dimension=" + dimension + ", nodes=" + nodeCount + ", deleted=" + deletedCount
+                + ", levels=" + (maxLevel + 1) + "}";
+    }
+
+    /**
+     * Drain a min-queue of results into neighbors by descending score
+     */
+    private List<Neighbor> toNeighbors(NodeQueue results) {
+        Neighbor[] neighbors = new Neighbor[results.size()];
+        for (int i = neighbors.length - 1; i >= 0; i--) {
+            float score = (1 + results.topScore()) / 2;
+            neighbors[i] = new Neighbor(docIds[results.pop()], score);
+        }
+        return Arrays.asList(neighbors);
+    }
+
+    // Graph construction
+
+    private void insert(int node, float[] vector) {
+        vectors.add(vector);
+        int level = randomLevel();
+        if (level > 0) {
+            upperLinks[node] = new int[level][m + 1];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = greedyDescent(vector, entryPoint, maxLevel, level + 1);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            NodeQueue candidates = searchLayer(vector, current, efConstruction, l, false);
+
+            // Drain the min-queue into descending order
+            int count = candidates.size();
+            int[] ids = new int[count];
+            float[] sims = new float[count];
+            for (int i = count - 1; i >= 0; i--) {
+                sims[i] = candidates.topScore();
+                ids[i] = candidates.pop();
+            }
+            current = ids[0];
+
+            int[] selected = selectNeighbors(ids, sims, count, m);
+            setLinks(node, l, selected, selected.length);
+            int maxLinks = l == 0 ? m0 : m;
+            for (int neighbor : selected) {
+                addLink(neighbor, node, l, maxLinks);
+            }
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Keep a candidate only if it is closer to the base node than to any
+     * neighbor already kept, which spreads links across directions
+     */
+    private int[] selectNeighbors(int[] ids, float[] sims, int count, int max) {
+        int[] selected = new int[Math.min(count, max)];
+        int size = 0;
+        for (int i = 0; i < count && size < selected.length; i++) {
+            int candidate = ids[i];
+            boolean keep = true;
+            for (int j = 0; j < size; j++) {
+                if (similarity(candidate, selected[j]) > sims[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[size++] = candidate;
+            }
+        }
+        return size == selected.length ? selected : Arrays.copyOf(selected, size);
+    }
+
+    private void addLink(int node, int target, int level, int maxLinks) {
+        int count = linkCount(node, level);
+        if (count < maxLinks) {
+            setLink(node, level, count, target);
+            setLinkCount(node, level, count + 1);
+            return;
+        }
+
+        // Full: re-select among the existing links plus the new one
+        int[] ids = new int[count + 1];
+        float[] sims = new float[count + 1];
+        for (int i = 0; i < count; i++) {
+            ids[i] = link(node, level, i);
+            sims[i] = similarity(node, ids[i]);
+        }
+        ids[count] = target;
+        sims[count] = similarity(node, target);
+        sortDescending(ids, sims);
+
+        int[] selected = selectNeighbors(ids, sims, ids.length, maxLinks);
+        setLinks(node, level, selected, selected.length);
+    }
+
+    // Graph search
+
+    private int greedyDescent(float[] query, int start, int fromLevel, int toLevel) {
+        int current = start;
+        float currentSim = similarity(query, current);
+        for (int l = fromLevel; l >= toLevel; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int expanded = current;
+                int count = linkCount(expanded, l);
+                for (int i = 0; i < count; i++) {
+                    int neighbor = link(expanded, l, i);
+                    float sim = similarity(query, neighbor);
+                    if (sim > currentSim) {
+                        current = neighbor;
+                        currentSim = sim;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one level
+     *
+     * @return min-queue of at most ef results (worst on top)
+     */
+    private NodeQueue searchLayer(float[] query, int entry, int ef, int level, boolean skipDeleted) {
+        VisitedSet seen = visited.get();
+        seen.reset(nodeCount);
+        NodeQueue candidates = new NodeQueue(ef * 2, true);
+        NodeQueue results = new NodeQueue(ef + 1, false);
+
+        float entrySim = similarity(query, entry);
+        seen.add(entry);
+        candidates.push(entry, entrySim);
+        if (!skipDeleted || !deleted.get(entry)) {
+            results.push(entry, entrySim);
+        }
+
+        while (!candidates.isEmpty()) {
+            if (results.size() >= ef && candidates.topScore() < results.topScore()) {
+                break;
+            }
+            int current = candidates.pop();
+            int count = linkCount(current, level);
+            for (int i = 0; i < count; i++) {
+                int neighbor = link(current, level, i);
+                if (!seen.add(neighbor)) {
+                    continue;
+                }
+                float sim = similarity(query, neighbor);
+                if (results.size() < ef || sim > results.topScore()) {
+                    candidates.push(neighbor, sim);
+                    if (!skipDeleted || !deleted.get(neighbor)) {
+                        results.push(neighbor, sim);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    // Storage
+
+    private void ensureCapacity(int node) {
+        int page = node >>> PAGE_SHIFT;
+        if (page >= linkPages.length) {
+            linkPages = Arrays.copyOf(linkPages, page + 1);
+            linkPages[page] = ByteBuffer.allocateDirect(PAGE_SIZE * (m0 + 1) * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder());
+        }
+        if (node >= docIds.length) {
+            int capacity = Math.max(16, docIds.length * 2);
+            docIds = Arrays.copyOf(docIds, capacity);
+            upperLinks = Arrays.copyOf(upperLinks, capacity);
+        }
+    }
+
+    private float similarity(float[] query, int node) {
+        return vectors.dot(query, node);
+    }
+
+    private float similarity(int a, int b) {
+        return vectors.dot(a, b);
+    }
+
+    private int linkCount(int node, int level) {
+        if (level == 0) {
+            return linkPages[node >>> PAGE_SHIFT].getInt(linkOffset(node));
+        }
+        int[][] levels = upperLinks[node];
+        return levels != null && level <= levels.length ? levels[level - 1][0] : 0;
+    }
+
+    private int link(int node, int level, int i) {
+        if (level == 0) {
+            return linkPages[node >>> PAGE_SHIFT].getInt(linkOffset(node) + (1 + i) * Integer.BYTES);
+        }
+        return upperLinks[node][level - 1][1 + i];
+    }
+
+    /**
+     * Byte offset of a node's level-0 slot (count, then m0 links) in its page
+     */
+    private int linkOffset(int node) {
+        return (node & PAGE_MASK) * (m0 + 1) * Integer.BYTES;
+    }
+
+    private void setLinkCount(int node, int level, int count) {
+        if (level == 0) {
+            linkPages[node >>> PAGE_SHIFT].putInt(linkOffset(node), count);
+        } else {
+            upperLinks[node][level - 1][0] = count;
+        }
+    }
+
+    private void setLink(int node, int level, int i, int target) {
+        if (level == 0) {
+            linkPages[node >>> PAGE_SHIFT].putInt(linkOffset(node) + (1 + i) * Integer.BYTES, target);
+        } else {
+            upperLinks[node][level - 1][1 + i] = target;
+        }
+    }
+
+    private void setLinks(int node, int level, int[] targets, int count) {
+        for (int i = 0; i < count; i++) {
+            setLink(node, level, i, targets[i]);
+        }
+        setLinkCount(node, level, count);
+    }
+
+    private void markDeleted(int node) {
+        if (!deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    private int randomLevel() {
+        double level = -Math.log(1 - random.nextDouble()) * levelMultiplier;
+        return (int) Math.min(level, MAX_LEVEL);
+    }
+
+    private static void sortDescending(int[] ids, float[] sims) {
+        // Insertion sort: lists are at most 2M + 1 long
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            float sim = sims[i];
+            int j = i - 1;
+            while (j >= 0 && sims[j] < sim) {
+                ids[j + 1] = ids[j];
+                sims[j + 1] = sims[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            sims[j + 1] = sim;
+        }
+    }
+
+    /**
+     * Visited marks reused across searches on the same thread
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package com.search.query.ann;
+
+import com.search.query.analysis.IndexTextScanner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Registry of local HNSW indexes, one per index and vector field
+ *
+ * An index is built from a snapshot of the OpenSearch index on a
+ * background thread the first time it is queried, then kept current by
+ * vector updates from the vectorization pipeline. Updates that arrive
+ * while a snapshot is being built are queued and replayed on the new
+ * graph before it is swapped in, so none are lost to the race.
+ *
+ * Only app keys listed in ann.local.app-keys use the local backend; all
+ * others, and selected apps whose index is not built yet, go to OpenSearch.
+ *
+ * With ann.local.segment.dir set, each index is also saved as a
+ * {@link VectorSegment} after it is built and periodically while updates
+ * arrive. On startup recent segments are mapped instead of rebuilt from
+ * OpenSearch, so recall is local again within seconds. Each segment
+ * records when it was saved; {@link VectorUpdateConsumer} replays updates
+ * published since the oldest save before the mapped indexes are served,
+ * and they are rebuilt from OpenSearch if that replay fails.
+ */
+@Component
+public class LocalAnnIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalAnnIndexManager.class);
+
+    private static final String SEGMENT_SUFFIX = ".vseg";
+
+    @Value("${ann.local.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ann.local.app-keys:}")
+    private List<String> appKeys;
+
+    @Value("${ann.local.m:16}")
+    private int m;
+
+    @Value("${ann.local.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${ann.local.ef-search:100}")
+    private int efSearch;
+
+    @Value("${ann.local.rebuild-deleted-ratio:0.25}")
+    private double rebuildDeletedRatio;
+
+    @Value("${ann.local.retry-interval-ms:60000}")
+    private long retryIntervalMs;
+
+    @Value("${ann.local.scan.max-docs:1000000}")
+    private int scanMaxDocs;
+
+    @Value("${ann.local.scan.batch-size:500}")
+    private int scanBatchSize;
+
+    @Value("${ann.local.segment.dir:}")
+    private String segmentDir;
+
+    @Value("${ann.local.segment.include-graph:true}")
+    private boolean segmentIncludeGraph;
+
+    @Value("${ann.local.segment.verify-checksum:true}")
+    private boolean segmentVerifyChecksum;
+
+    @Value("${ann.local.segment.max-age-ms:86400000}")
+    private long segmentMaxAgeMs;
+
+    private final IndexTextScanner scanner;
+
+    private final Map<IndexKey, HnswIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<IndexKey, Long> lastAttempts = new ConcurrentHashMap<>();
+    private final Map<IndexKey, List<Consumer<HnswIndex>>> pending = new HashMap<>();
+    private final Set<IndexKey> unsaved = ConcurrentHashMap.newKeySet();
+    private final Set<IndexKey> replaying = ConcurrentHashMap.newKeySet();
+    private volatile long replayFrom = -1;
+    private volatile Replay replay = Replay.NONE;
+    private final Object pendingLock = new Object();
+    private ExecutorService executor;
+
+    private record IndexKey(String index, String field) {
+    }
+
+    /**
+     * Progress of the update replay for indexes mapped from segments
+     */
+    private enum Replay {
+        /** No segment was mapped at startup */
+        NONE,
+        /** Mapped indexes wait for updates since their save */
+        PENDING,
+        DONE,
+        /** Mapped indexes are rebuilt from OpenSearch */
+        FAILED
+    }
+
+    public LocalAnnIndexManager(IndexTextScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ann-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (enabled && isPersistent()) {
+            // Map saved segments now rather than on the first query
+            for (IndexKey key : listSegments()) {
+                long savedAt = savedAt(key);
+                if (savedAt >= 0 && (replayFrom < 0 || savedAt < replayFrom)) {
+                    replayFrom = savedAt;
+                    replay = Replay.PENDING;
+                }
+                scheduleBuild(key);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            // Let an interrupted save clean up before saving on this thread
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (isPersistent()) {
+            for (IndexKey key : List.copyOf(unsaved)) {
+                save(key);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check if an app uses the local backend for vector recall
+     *
+     * @param appKey the application key
+     * @return true if enabled and the app is listed
+     */
+    public boolean isSelected(String appKey) {
+        return enabled && appKey != null && appKeys.contains(appKey);
+    }
+
+    /**
+     * Save time of the oldest segment mapped at startup
+     *
+     * @return epoch millis to replay vector updates from, or -1 if nothing needs replaying
+     */
+    public long getReplayFrom() {
+        return replay == Replay.PENDING ? replayFrom : -1;
+    }
+
+    /**
+     * Serve the indexes mapped from segments, now that updates since their save are applied
+     */
+    public void replayed() {
+        synchronized (pendingLock) {
+            if (replay != Replay.PENDING) {
+                return;
+            }
+            replay = Replay.DONE;
+            replaying.clear();
+        }
+        log.info("Replayed vector updates since segment save, serving mapped ANN indexes");
+    }
+
+    /**
+     * Rebuild the indexes mapped from segments from OpenSearch, as updates since their save cannot be replayed
+     */
+    public void replayFailed() {
+        List<IndexKey> keys;
+        synchronized (pendingLock) {
+            if (replay != Replay.PENDING) {
+                return;
+            }
+            replay = Replay.FAILED;
+            keys = List.copyOf(replaying);
+        }
+        log.warn("Cannot replay vector updates since segment save, rebuilding {} mapped ANN indexes", keys.size());
+        keys.forEach(this::scheduleBuild);
+    }
+
+    /**
+     * Search the local index of a vector field
+     *
+     * @param index the index name
+     * @param field the vector field
+     * @param vector the query vector
+     * @param k number of results
+     * @return neighbors by descending score, or null if the local index is not ready
+     */
+    public List<HnswIndex.Neighbor> search(String index, String field, float[] vector, int k) {
+        IndexKey key = new IndexKey(index, field);
+        HnswIndex hnsw = indexes.get(key);
+        if (hnsw == null) {
+            scheduleBuild(key);
+            return null;
+        }
+        if (replaying.contains(key)) {
+            return null;
+        }
+        if (hnsw.getDimension() != vector.length) {
+            log.warn("Query vector dimension mismatch: index={}, field={}, expected={}, actual={}",
+                    index, field, hnsw.getDimension(), vector.length);
+            return null;
+        }
+        return hnsw.search(vector, k, efSearch);
+    }
+
+    /**
+     * Score a query against a set of documents in the local index of a vector field
+     *
+     * @param index the index name
+     * @param field the vector field
+     * @param vector the query vector
+     * @param k number of results
+     * @param docIds the candidate documents
+     * @return neighbors by descending score, or null if the local index is not ready
+     */
+    public List<HnswIndex.Neighbor> searchExact(String index, String field, float[] vector, int k,
+                                                Collection<String> docIds) {
+        IndexKey key = new IndexKey(index, field);
+        HnswIndex hnsw = indexes.get(key);
+        if (hnsw == null) {
+            scheduleBuild(key);
+            return null;
+        }
+        if (replaying.contains(key) || hnsw.getDimension() != vector.length) {
+            return null;
+        }
+        return hnsw.searchExact(vector, k, docIds);
+    }
+
+    /**
+     * Apply a vector update from the vectorization pipeline
+     *
+     * @param index the index name
+     * @param docId the document ID
+     * @param field the vector field
+     * @param vector the new vector
+     */
+    public void applyUpdate(String index, String docId, String field, float[] vector) {
+        apply(new IndexKey(index, field), hnsw -> hnsw.add(docId, vector));
+    }
+
+    /**
+     * Apply a document deletion to every vector field of an index
+     *
+     * @param index the index name
+     * @param docId the document ID
+     */
+    public void applyDelete(String index, String docId) {
+        List<IndexKey> keys = new ArrayList<>(indexes.keySet());
+        synchronized (pendingLock) {
+            keys.addAll(pending.keySet());
+        }
+        keys.stream()
+                .filter(key -> key.index().equals(index))
+                .distinct()
+                .forEach(key -> apply(key, hnsw -> hnsw.remove(docId)));
+    }
+
+    /**
+     * Rebuild indexes whose graphs are dominated by tombstones
+     */
+    @Scheduled(fixedDelayString = "${ann.local.maintenance-interval-ms:60000}",
+            initialDelayString = "${ann.local.maintenance-interval-ms:60000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        indexes.forEach((key, hnsw) -> {
+            int nodes = hnsw.getNodeCount();
+            if (nodes > 0 && hnsw.getDeletedCount() > nodes * rebuildDeletedRatio) {
+                log.info("Rebuilding local ANN index with many deletions: index={}, field={}, {}",
+                        key.index(), key.field(), hnsw);
+                scheduleBuild(key);
+            }
+        });
+    }
+
+    /**
+     * Save indexes changed since their last save
+     */
+    @Scheduled(fixedDelayString = "${ann.local.segment.save-interval-ms:600000}",
+            initialDelayString = "${ann.local.segment.save-interval-ms:600000}")
+    public void saveSegments() {
+        if (!enabled || !isPersistent()) {
+            return;
+        }
+        for (IndexKey key : List.copyOf(unsaved)) {
+            try {
+                executor.submit(() -> save(key));
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void apply(IndexKey key, Consumer<HnswIndex> update) {
+        // During a rebuild the update goes to both graphs, so the one being served stays current
+        synchronized (pendingLock) {
+            List<Consumer<HnswIndex>> queue = pending.get(key);
+            if (queue != null) {
+                queue.add(update);
+            }
+        }
+        HnswIndex hnsw = indexes.get(key);
+        if (hnsw != null) {
+            update.accept(hnsw);
+            unsaved.add(key);
+        }
+    }
+
+    private void scheduleBuild(IndexKey key) {
+        long now = System.currentTimeMillis();
+        Long lastAttempt = lastAttempts.get(key);
+        if (!indexes.containsKey(key) && lastAttempt != null && now - lastAttempt < retryIntervalMs) {
+            return;
+        }
+
+        // Queue updates from now on; the snapshot read below is at least this recent
+        synchronized (pendingLock) {
+            if (pending.containsKey(key)) {
+                return;
+            }
+            pending.put(key, new ArrayList<>());
+        }
+        lastAttempts.put(key, now);
+
+        try {
+            executor.submit(() -> build(key));
+        } catch (RejectedExecutionException e) {
+            synchronized (pendingLock) {
+                pending.remove(key);
+            }
+        }
+    }
+
+    private void build(IndexKey key) {
+        HnswIndex hnsw = null;
+        boolean fromSegment = false;
+        try {
+            // Segments only stand in for the first build; rebuilds exist to drop tombstones
+            if (!indexes.containsKey(key) && replay != Replay.FAILED) {
+                hnsw = loadSegment(key);
+                fromSegment = hnsw != null;
+            }
+            if (hnsw == null) {
+                hnsw = scan(key);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to build local ANN index: index={}, field={}", key.index(), key.field(), e);
+        } finally {
+            synchronized (pendingLock) {
+                List<Consumer<HnswIndex>> queue = pending.remove(key);
+                if (hnsw != null) {
+                    for (Consumer<HnswIndex> update : queue) {
+                        applyQuietly(hnsw, update);
+                    }
+                    indexes.put(key, hnsw);
+                    if (!queue.isEmpty()) {
+                        unsaved.add(key);
+                    }
+                    // A mapped segment is served once updates since its save are replayed
+                    if (!fromSegment) {
+                        replaying.remove(key);
+                    } else if (replay == Replay.PENDING || replay == Replay.FAILED) {
+                        replaying.add(key);
+                    }
+                }
+            }
+        }
+        if (fromSegment && replay == Replay.FAILED) {
+            scheduleBuild(key);
+        }
+
+        if (hnsw != null && !fromSegment && isPersistent()) {
+            save(key);
+        }
+    }
+
+    private HnswIndex scan(IndexKey key) {
+        long startTime = System.currentTimeMillis();
+        HnswIndex[] building = new HnswIndex[1];
+        scanner.scan(key.index(), List.of(key.field()), scanMaxDocs, scanBatchSize, (docId, source) -> {
+            float[] vector = toVector(source.get(key.field()));
+            if (vector == null) {
+                return;
+            }
+            if (building[0] == null) {
+                building[0] = new HnswIndex(vector.length, m, efConstruction, key.hashCode());
+            }
+            if (vector.length == building[0].getDimension()) {
+                building[0].add(docId, vector);
+            }
+        });
+        HnswIndex hnsw = building[0];
+
+        if (hnsw != null) {
+            log.info("Built local ANN index: index={}, field={}, {}, offHeap={}MB, took={}ms",
+                    key.index(), key.field(), hnsw, hnsw.getOffHeapBytes() >> 20,
+                    System.currentTimeMillis() - startTime);
+        } else {
+            log.warn("No vectors found for local ANN index: index={}, field={}", key.index(), key.field());
+        }
+        return hnsw;
+    }
+
+    // Segments
+
+    private boolean isPersistent() {
+        return segmentDir != null && !segmentDir.isBlank();
+    }
+
+    private Path segmentPath(IndexKey key) {
+        return Paths.get(segmentDir, key.index(), key.field() + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Find saved segments, laid out as dir/index/field.vseg
+     */
+    private List<IndexKey> listSegments() {
+        List<IndexKey> keys = new ArrayList<>();
+        Path root = Paths.get(segmentDir);
+        if (!Files.isDirectory(root)) {
+            return keys;
+        }
+        try (DirectoryStream<Path> indexDirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path indexDir : indexDirs) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(indexDir, "*" + SEGMENT_SUFFIX)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        keys.add(new IndexKey(indexDir.getFileName().toString(),
+                                name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list ANN segments: dir={}", segmentDir, e);
+        }
+        return keys;
+    }
+
+    /**
+     * @return when the segment of an index was saved, or -1 if there is no recent valid one
+     */
+    private long savedAt(IndexKey key) {
+        Path path = segmentPath(key);
+        try {
+            long savedAt = VectorSegment.readSavedAt(path);
+            long age = System.currentTimeMillis() - savedAt;
+            if (age > segmentMaxAgeMs) {
+                log.info("Ignoring stale ANN segment: path={}, ageMs={}", path, age);
+                return -1;
+            }
+            return savedAt;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable ANN segment: path={}, error={}", path, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * @return the index mapped from its segment, or null if there is no recent valid one
+     */
+    private HnswIndex loadSegment(IndexKey key) {
+        if (!isPersistent()) {
+            return null;
+        }
+        Path path = segmentPath(key);
+        try {
+            if (!Files.isRegularFile(path) || savedAt(key) < 0) {
+                return null;
+            }
+
+            long startTime = System.currentTimeMillis();
+            HnswIndex hnsw = HnswIndex.load(path, efConstruction, key.hashCode(), segmentVerifyChecksum);
+            log.info("Loaded local ANN index from segment: index={}, field={}, {}, took={}ms",
+                    key.index(), key.field(), hnsw, System.currentTimeMillis() - startTime);
+            return hnsw;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load ANN segment, rebuilding from OpenSearch: path={}", path, e);
+            return null;
+        }
+    }
+
+    private void save(IndexKey key) {
+        HnswIndex hnsw = indexes.get(key);
+        // Until the replay catches up, a mapped index lacks updates older than a new save time
+        if (hnsw == null || replaying.contains(key)) {
+            return;
+        }
+        unsaved.remove(key);
+        Path path = segmentPath(key);
+        try {
+            long startTime = System.currentTimeMillis();
+            hnsw.save(path, segmentIncludeGraph);
+            log.info("Saved local ANN segment: path={}, {}, took={}ms",
+                    path, hnsw, System.currentTimeMillis() - startTime);
+        } catch (IOException | RuntimeException e) {
+            unsaved.add(key);
+            log.warn("Failed to save ANN segment: path={}", path, e);
+        }
+    }
+
+    private static void applyQuietly(HnswIndex hnsw, Consumer<HnswIndex> update) {
+        try {
+            update.accept(hnsw);
+        } catch (IllegalArgumentException e) {
+            log.debug("Skipped queued vector update: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Convert a vector field value from a document source
+     *
+     * @return the vector, or null if the value is not a numeric list
+     */
+    static float[] toVector(Object value) {
+        if (!(value instanceof List<?> values) || values.isEmpty()) {
+            return null;
+        }
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            if (!(values.get(i) instanceof Number number)) {
+                return null;
+            }
+            vector[i] = number.floatValue();
+        }
+        return vector;
+    }
+}
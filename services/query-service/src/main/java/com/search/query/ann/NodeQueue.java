@@ -0,0 +1,99 @@
+package com.search.query.ann;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (node, score) pairs on primitive arrays
+ *
+ * A max-queue pops the highest score first, a min-queue the lowest. Used
+ * for the candidate and result sets of graph searches, where boxed
+ * priority queues would dominate the cost.
+ */
+final class NodeQueue {
+
+    private final boolean max;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    NodeQueue(int capacity, boolean max) {
+        this.max = max;
+        this.nodes = new int[Math.max(4, capacity)];
+        this.scores = new float[nodes.length];
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * Remove the top element
+     *
+     * @return the removed node
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            int node = nodes[size];
+            float score = scores[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && before(scores[right], scores[child])) {
+                    child = right;
+                }
+                if (!before(scores[child], score)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+        return top;
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private boolean before(float a, float b) {
+        return max ? a > b : a < b;
+    }
+}
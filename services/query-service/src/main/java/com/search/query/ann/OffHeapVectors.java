@@ -0,0 +1,108 @@
+package com.search.query.ann;
+
+import com.search.common.vector.VectorKernels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Append-only float vectors in direct memory
+ *
+ * Vectors are stored back to back in pages of direct buffers, so the
+ * store can grow past the 2 GB limit of a single buffer and none of it
+ * counts against the heap. Buffers are native-order so the SIMD kernels
+ * read them in place. Not thread-safe; owners guard writes.
+ */
+final class OffHeapVectors {
+
+    static final int PAGE_SHIFT = 14;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int dimension;
+    private ByteBuffer[] pages = new ByteBuffer[0];
+    private int size;
+
+    OffHeapVectors(int dimension) {
+        this.dimension = dimension;
+    }
+
+    /**
+     * Wrap existing pages, e.g. mapped from a segment file
+     *
+     * @param pages native-order pages of PAGE_SIZE vectors each
+     * @param size number of vectors already stored
+     */
+    OffHeapVectors(int dimension, ByteBuffer[] pages, int size) {
+        this.dimension = dimension;
+        this.pages = pages;
+        this.size = size;
+    }
+
+    /**
+     * Append a vector
+     *
+     * @return its ordinal
+     */
+    int add(float[] vector) {
+        int ordinal = size;
+        int page = ordinal >>> PAGE_SHIFT;
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, page + 1);
+            pages[page] = ByteBuffer.allocateDirect(PAGE_SIZE * dimension * Float.BYTES)
+                    .order(ByteOrder.nativeOrder());
+        }
+        pages[page].asFloatBuffer().put((ordinal & PAGE_MASK) * dimension, vector, 0, dimension);
+        size++;
+        return ordinal;
+    }
+
+    float[] get(int ordinal) {
+        float[] vector = new float[dimension];
+        pages[ordinal >>> PAGE_SHIFT].asFloatBuffer().get((ordinal & PAGE_MASK) * dimension, vector);
+        return vector;
+    }
+
+    float dot(float[] query, int ordinal) {
+        return VectorKernels.dot(query, pages[ordinal >>> PAGE_SHIFT], byteOffset(ordinal));
+    }
+
+    float dot(int a, int b) {
+        return VectorKernels.dot(pages[a >>> PAGE_SHIFT], byteOffset(a),
+                pages[b >>> PAGE_SHIFT], byteOffset(b), dimension);
+    }
+
+    private int byteOffset(int ordinal) {
+        return (ordinal & PAGE_MASK) * dimension * Float.BYTES;
+    }
+
+    /**
+     * @return the page holding vectors [index * PAGE_SIZE, (index + 1) * PAGE_SIZE)
+     */
+    ByteBuffer page(int index) {
+        return pages[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return bytes of direct memory allocated
+     */
+    long getBytes() {
+        return (long) pages.length * PAGE_SIZE * dimension * Float.BYTES;
+    }
+
+    /**
+     * L2-normalize a copy of a vector; zero vectors stay zero
+     */
+    static float[] normalize(float[] vector) {
+        return VectorKernels.normalize(Arrays.copyOf(vector, vector.length));
+    }
+}
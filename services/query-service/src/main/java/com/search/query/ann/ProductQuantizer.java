@@ -0,0 +1,179 @@
+package com.search.query.ann;
+
+import com.search.common.vector.VectorKernels;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Product quantizer
+ *
+ * The vector is split into equal subspaces, and each sub-vector is
+ * replaced by the index of its nearest centroid in a per-subspace
+ * codebook of up to 256 entries, one byte per subspace. With 768
+ * dimensions and 96 subspaces a vector takes 96 bytes instead of 3 KB.
+ *
+ * A query is scored by precomputing its dot product with every centroid
+ * (asymmetric distance computation); scoring a code is then one table
+ * lookup and add per subspace.
+ */
+public final class ProductQuantizer implements VectorQuantizer {
+
+    private static final int MAX_CENTROIDS = 256;
+
+    private final int dimension;
+    private final int subspaces;
+    private final int subDimension;
+    private final int centroids;
+    private final float[][] codebooks;
+
+    private ProductQuantizer(int dimension, int subspaces, int centroids, float[][] codebooks) {
+        this.dimension = dimension;
+        this.subspaces = subspaces;
+        this.subDimension = dimension / subspaces;
+        this.centroids = centroids;
+        this.codebooks = codebooks;
+    }
+
+    /**
+     * Train the codebooks with k-means on sample vectors
+     *
+     * @param sample training vectors, all of the same dimension
+     * @param subspaces number of subspaces (bytes per code); must divide the dimension
+     * @param iterations k-means iterations
+     * @param seed random seed for centroid initialization
+     * @return the quantizer
+     */
+    public static ProductQuantizer train(List<float[]> sample, int subspaces, int iterations, long seed) {
+        if (sample.isEmpty()) {
+            throw new IllegalArgumentException("Training sample must not be empty");
+        }
+        int dimension = sample.get(0).length;
+        if (subspaces <= 0 || dimension % subspaces != 0) {
+            throw new IllegalArgumentException("subspaces must divide the dimension " + dimension);
+        }
+
+        int subDimension = dimension / subspaces;
+        int centroids = Math.min(MAX_CENTROIDS, sample.size());
+        Random random = new Random(seed);
+        float[][] codebooks = new float[subspaces][];
+        for (int s = 0; s < subspaces; s++) {
+            codebooks[s] = kMeans(sample, s * subDimension, subDimension, centroids, iterations, random);
+        }
+        return new ProductQuantizer(dimension, subspaces, centroids, codebooks);
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public int getCodeSize() {
+        return subspaces;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int s = 0; s < subspaces; s++) {
+            codes[offset + s] = (byte) nearest(codebooks[s], vector, s * subDimension, subDimension, centroids);
+        }
+    }
+
+    @Override
+    public CodeScorer scorer(float[] query) {
+        float[] table = new float[subspaces * MAX_CENTROIDS];
+        for (int s = 0; s < subspaces; s++) {
+            float[] codebook = codebooks[s];
+            int start = s * subDimension;
+            for (int c = 0; c < centroids; c++) {
+                table[s * MAX_CENTROIDS + c] =
+                        VectorKernels.dot(query, start, codebook, c * subDimension, subDimension);
+            }
+        }
+        return (codes, offset) -> {
+            float sum = 0;
+            for (int s = 0; s < subspaces; s++) {
+                sum += table[s * MAX_CENTROIDS + (codes[offset + s] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * Lloyd's k-means over one subspace
+     *
+     * @return flat codebook, centroids x subDimension
+     */
+    private static float[] kMeans(List<float[]> sample, int start, int subDimension, int centroids,
+                                  int iterations, Random random) {
+        int n = sample.size();
+        float[] codebook = new float[centroids * subDimension];
+
+        // Initialize with distinct random samples
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int c = 0; c < centroids; c++) {
+            int pick = c + random.nextInt(n - c);
+            int swap = order[c];
+            order[c] = order[pick];
+            order[pick] = swap;
+            System.arraycopy(sample.get(order[c]), start, codebook, c * subDimension, subDimension);
+        }
+
+        int[] assignment = new int[n];
+        float[] sums = new float[centroids * subDimension];
+        int[] counts = new int[centroids];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            Arrays.fill(sums, 0);
+            Arrays.fill(counts, 0);
+            boolean changed = false;
+            for (int i = 0; i < n; i++) {
+                float[] vector = sample.get(i);
+                int c = nearest(codebook, vector, start, subDimension, centroids);
+                if (c != assignment[i] || iteration == 0) {
+                    changed = true;
+                }
+                assignment[i] = c;
+                counts[c]++;
+                for (int d = 0; d < subDimension; d++) {
+                    sums[c * subDimension + d] += vector[start + d];
+                }
+            }
+
+            for (int c = 0; c < centroids; c++) {
+                if (counts[c] == 0) {
+                    // Re-seed an empty cluster from a random sample
+                    System.arraycopy(sample.get(random.nextInt(n)), start, codebook, c * subDimension, subDimension);
+                    changed = true;
+                    continue;
+                }
+                for (int d = 0; d < subDimension; d++) {
+                    codebook[c * subDimension + d] = sums[c * subDimension + d] / counts[c];
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        return codebook;
+    }
+
+    /**
+     * Nearest centroid by squared L2 distance
+     */
+    private static int nearest(float[] codebook, float[] vector, int start, int subDimension, int centroids) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centroids; c++) {
+            float distance = VectorKernels.squaredL2(vector, start, codebook, c * subDimension, subDimension);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,158 @@
+package com.search.query.ann;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable vector store scanned through quantized codes
+ *
+ * Codes are kept in one compact on-heap array and scored asymmetrically
+ * against the full-precision query to pick a shortlist. Only the
+ * shortlist is re-scored exactly, against the float vectors kept in
+ * direct memory, so the float copy is touched for a few dozen vectors
+ * per query rather than the whole collection.
+ */
+public final class QuantizedVectorStore {
+
+    private final VectorQuantizer quantizer;
+    private final String[] docIds;
+    private final byte[] codes;
+    private final OffHeapVectors vectors;
+
+    private QuantizedVectorStore(VectorQuantizer quantizer, String[] docIds, byte[] codes,
+                                 OffHeapVectors vectors) {
+        this.quantizer = quantizer;
+        this.docIds = docIds;
+        this.codes = codes;
+        this.vectors = vectors;
+    }
+
+    /**
+     * Encode a collection of vectors
+     *
+     * @param quantizer a quantizer trained on normalized vectors of the same dimension
+     * @param docIds document IDs, parallel to the vectors
+     * @param vectors the vectors (normalized on the way in)
+     * @return the store
+     */
+    public static QuantizedVectorStore build(VectorQuantizer quantizer, List<String> docIds, List<float[]> vectors) {
+        if (docIds.size() != vectors.size()) {
+            throw new IllegalArgumentException("docIds and vectors must have the same size");
+        }
+        int codeSize = quantizer.getCodeSize();
+        byte[] codes = new byte[vectors.size() * codeSize];
+        OffHeapVectors full = new OffHeapVectors(quantizer.getDimension());
+        for (int i = 0; i < vectors.size(); i++) {
+            float[] vector = vectors.get(i);
+            if (vector.length != quantizer.getDimension()) {
+                throw new IllegalArgumentException("Expected dimension " + quantizer.getDimension()
+                        + " but got " + vector.length);
+            }
+            float[] normalized = OffHeapVectors.normalize(vector);
+            quantizer.encode(normalized, codes, i * codeSize);
+            full.add(normalized);
+        }
+        return new QuantizedVectorStore(quantizer, docIds.toArray(new String[0]), codes, full);
+    }
+
+    /**
+     * Normalize vectors for training a quantizer
+     *
+     * @param vectors the vectors
+     * @return normalized copies
+     */
+    public static List<float[]> normalizeAll(List<float[]> vectors) {
+        return vectors.stream().map(OffHeapVectors::normalize).toList();
+    }
+
+    /**
+     * Find the nearest documents
+     *
+     * @param query the query vector
+     * @param k number of results
+     * @param shortlist candidates kept from the code scan and re-scored exactly;
+     *                  k or less skips the re-score
+     * @return neighbors by descending score
+     */
+    public List<HnswIndex.Neighbor> search(float[] query, int k, int shortlist) {
+        return search(query, k, shortlist, ordinal -> true);
+    }
+
+    /**
+     * Find the nearest documents among the accepted ordinals
+     *
+     * @param query the query vector
+     * @param k number of results
+     * @param shortlist candidates kept from the code scan and re-scored exactly
+     * @param accept ordinals to consider
+     * @return neighbors by descending score
+     */
+    public List<HnswIndex.Neighbor> search(float[] query, int k, int shortlist, IntPredicate accept) {
+        if (query.length != quantizer.getDimension() || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = OffHeapVectors.normalize(query);
+        boolean rescore = shortlist > k;
+        int keep = rescore ? shortlist : k;
+
+        // Approximate scan over the codes
+        VectorQuantizer.CodeScorer scorer = quantizer.scorer(normalized);
+        int codeSize = quantizer.getCodeSize();
+        NodeQueue candidates = new NodeQueue(keep + 1, false);
+        for (int ordinal = 0; ordinal < docIds.length; ordinal++) {
+            if (!accept.test(ordinal)) {
+                continue;
+            }
+            float score = scorer.score(codes, ordinal * codeSize);
+            if (candidates.size() < keep || score > candidates.topScore()) {
+                candidates.push(ordinal, score);
+                if (candidates.size() > keep) {
+                    candidates.pop();
+                }
+            }
+        }
+
+        // Exact re-score of the shortlist
+        NodeQueue results = candidates;
+        if (rescore) {
+            results = new NodeQueue(k + 1, false);
+            while (!candidates.isEmpty()) {
+                int ordinal = candidates.pop();
+                results.push(ordinal, vectors.dot(normalized, ordinal));
+                if (results.size() > k) {
+                    results.pop();
+                }
+            }
+        }
+
+        HnswIndex.Neighbor[] neighbors = new HnswIndex.Neighbor[results.size()];
+        for (int i = neighbors.length - 1; i >= 0; i--) {
+            float score = (1 + results.topScore()) / 2;
+            neighbors[i] = new HnswIndex.Neighbor(docIds[results.pop()], score);
+        }
+        return Arrays.asList(neighbors);
+    }
+
+    public int size() {
+        return docIds.length;
+    }
+
+    public String getDocId(int ordinal) {
+        return docIds[ordinal];
+    }
+
+    /**
+     * @return bytes of the compact codes scanned per query
+     */
+    public long getCodeBytes() {
+        return codes.length;
+    }
+
+    /**
+     * @return bytes of direct memory held by the full-precision vectors
+     */
+    public long getVectorBytes() {
+        return vectors.getBytes();
+    }
+}
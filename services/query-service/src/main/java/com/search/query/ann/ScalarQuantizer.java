@@ -0,0 +1,91 @@
+package com.search.query.ann;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scalar int8 quantizer
+ *
+ * Each dimension is mapped linearly from its trained [min, max] range to
+ * 256 levels, one byte per dimension (4x smaller than float32). A query
+ * is folded into per-dimension weights once, so scoring a code is a
+ * single multiply-add per byte.
+ */
+public final class ScalarQuantizer implements VectorQuantizer {
+
+    private static final int LEVELS = 255;
+
+    private final float[] min;
+    private final float[] step;
+
+    private ScalarQuantizer(float[] min, float[] step) {
+        this.min = min;
+        this.step = step;
+    }
+
+    /**
+     * Train the per-dimension ranges on sample vectors
+     *
+     * @param sample training vectors, all of the same dimension
+     * @return the quantizer
+     */
+    public static ScalarQuantizer train(List<float[]> sample) {
+        if (sample.isEmpty()) {
+            throw new IllegalArgumentException("Training sample must not be empty");
+        }
+        int dimension = sample.get(0).length;
+        float[] min = new float[dimension];
+        float[] max = new float[dimension];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        for (float[] vector : sample) {
+            for (int i = 0; i < dimension; i++) {
+                min[i] = Math.min(min[i], vector[i]);
+                max[i] = Math.max(max[i], vector[i]);
+            }
+        }
+
+        float[] step = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            step[i] = max[i] > min[i] ? (max[i] - min[i]) / LEVELS : 0;
+        }
+        return new ScalarQuantizer(min, step);
+    }
+
+    @Override
+    public int getDimension() {
+        return min.length;
+    }
+
+    @Override
+    public int getCodeSize() {
+        return min.length;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int i = 0; i < min.length; i++) {
+            int level = step[i] > 0 ? Math.round((vector[i] - min[i]) / step[i]) : 0;
+            codes[offset + i] = (byte) Math.max(0, Math.min(LEVELS, level));
+        }
+    }
+
+    @Override
+    public CodeScorer scorer(float[] query) {
+        // q . x = sum(q_i * min_i) + sum(q_i * step_i * level_i)
+        float[] weights = new float[min.length];
+        float base = 0;
+        for (int i = 0; i < min.length; i++) {
+            weights[i] = query[i] * step[i];
+            base += query[i] * min[i];
+        }
+        float constant = base;
+        return (codes, offset) -> {
+            float sum = constant;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i] * (codes[offset + i] & 0xFF);
+            }
+            return sum;
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.search.query.ann;
+
+/**
+ * Lossy compression of vectors into fixed-size byte codes
+ *
+ * Scoring is asymmetric: the query stays in full precision and is scored
+ * directly against the codes, without decoding them back to floats.
+ * Scores approximate the dot product, which is cosine similarity for the
+ * normalized vectors stored here.
+ */
+public interface VectorQuantizer {
+
+    /**
+     * Scorer of codes against one query
+     */
+    interface CodeScorer {
+
+        /**
+         * @param codes the code buffer
+         * @param offset start of the code in the buffer
+         * @return approximate dot product with the query
+         */
+        float score(byte[] codes, int offset);
+    }
+
+    /**
+     * @return vector dimension
+     */
+    int getDimension();
+
+    /**
+     * @return bytes per encoded vector
+     */
+    int getCodeSize();
+
+    /**
+     * Encode a vector
+     *
+     * @param vector the vector
+     * @param codes the destination buffer
+     * @param offset where the code starts in the buffer
+     */
+    void encode(float[] vector, byte[] codes, int offset);
+
+    /**
+     * Prepare a scorer for a query, precomputing whatever the codes are scored against
+     *
+     * @param query the query vector
+     * @return the scorer
+     */
+    CodeScorer scorer(float[] query);
+}
@@ -0,0 +1,443 @@
+package com.search.query.ann;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk format of a local vector index
+ *
+ * A segment lets a restarted pod serve local vector recall without
+ * re-reading the index from OpenSearch. Every block starts on a 64-byte
+ * boundary:
+ *
+ * <pre>
+ * header   magic, version, flags, dimension, node count, m, entry point,
+ *          max level, block offsets, CRC32C of everything after the header,
+ *          save time
+ * vectors  node vectors back to back, laid out as OffHeapVectors pages
+ * deleted  tombstone bitmap, one bit per node
+ * ids      node count + 1 byte offsets, then the UTF-8 document IDs
+ * graph    optional: level-0 links laid out as HnswIndex pages, then for
+ *          each node its upper level count and links
+ * </pre>
+ *
+ * Header and bookkeeping fields are little-endian; vector and link pages
+ * are raw native-order memory, and a segment is only readable on a host
+ * with the byte order it was written with. Full pages are mapped
+ * copy-on-write straight from the file, so reading costs little beyond
+ * decoding the ID table, and later updates to the index never reach the
+ * file. Writers fill a temporary file and move it into place, so readers
+ * never see a partial segment.
+ */
+final class VectorSegment {
+
+    static final int MAGIC = 0x56534547; // "VSEG"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 128;
+
+    private static final int FLAG_GRAPH = 1;
+    private static final int FLAG_BIG_ENDIAN = 2;
+    private static final int ALIGNMENT = 64;
+    private static final int CHECKSUM_CHUNK = 1 << 30;
+
+    private static final int PAGE_SHIFT = OffHeapVectors.PAGE_SHIFT;
+    private static final int PAGE_SIZE = OffHeapVectors.PAGE_SIZE;
+
+    final int dimension;
+    final int m;
+    final int nodeCount;
+    final int entryPoint;
+    final int maxLevel;
+    /** Epoch millis at which the index was saved; every earlier update is in the segment */
+    final long savedAt;
+    final OffHeapVectors vectors;
+    final BitSet deleted;
+    final String[] docIds;
+    /** Level-0 link pages, or null if the segment has no graph */
+    final ByteBuffer[] linkPages;
+    final int[][][] upperLinks;
+
+    private VectorSegment(int dimension, int m, int nodeCount, int entryPoint, int maxLevel, long savedAt,
+                          OffHeapVectors vectors, BitSet deleted, String[] docIds,
+                          ByteBuffer[] linkPages, int[][][] upperLinks) {
+        this.dimension = dimension;
+        this.m = m;
+        this.nodeCount = nodeCount;
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+        this.savedAt = savedAt;
+        this.vectors = vectors;
+        this.deleted = deleted;
+        this.docIds = docIds;
+        this.linkPages = linkPages;
+        this.upperLinks = upperLinks;
+    }
+
+    boolean hasGraph() {
+        return linkPages != null;
+    }
+
+    /**
+     * Map a segment file
+     *
+     * The returned pages are handed to a single index, which may modify them.
+     *
+     * @param path the segment file
+     * @param verifyChecksum read the whole file once to check it against the header checksum
+     * @return the segment contents
+     * @throws IOException if the file cannot be read or is not a valid segment
+     */
+    static VectorSegment read(Path path, boolean verifyChecksum) throws IOException {
+        // Copy-on-write mappings need a channel open for writing, though nothing is written
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            ByteBuffer header = readHeader(channel, path);
+            int flags = header.getInt(8);
+            boolean bigEndian = (flags & FLAG_BIG_ENDIAN) != 0;
+            if (bigEndian != (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN)) {
+                throw corrupt(path, "written with a different byte order");
+            }
+            int dimension = header.getInt(12);
+            int nodeCount = header.getInt(16);
+            int m = header.getInt(20);
+            int entryPoint = header.getInt(24);
+            int maxLevel = header.getInt(28);
+            long deletedOffset = header.getLong(32);
+            long idsOffset = header.getLong(40);
+            long graphOffset = header.getLong(48);
+            long checksum = header.getLong(56);
+            long savedAt = header.getLong(64);
+
+            boolean hasGraph = (flags & FLAG_GRAPH) != 0;
+            long vectorBytes = (long) nodeCount * dimension * Float.BYTES;
+            if (dimension <= 0 || nodeCount < 0 || m < 2 || entryPoint >= nodeCount
+                    || deletedOffset != align(HEADER_BYTES + vectorBytes)
+                    || idsOffset != align(deletedOffset + bitmapBytes(nodeCount))
+                    || idsOffset > fileSize
+                    || (hasGraph && (graphOffset < idsOffset || graphOffset > fileSize))) {
+                throw corrupt(path, "inconsistent header");
+            }
+            if (verifyChecksum && checksum(channel, HEADER_BYTES, fileSize) != checksum) {
+                throw corrupt(path, "checksum mismatch");
+            }
+
+            ByteBuffer[] vectorPages = mapPages(channel, HEADER_BYTES, nodeCount, dimension * Float.BYTES);
+            BitSet deleted = BitSet.valueOf(channel.map(MapMode.READ_ONLY, deletedOffset, bitmapBytes(nodeCount)));
+            long idsEnd = hasGraph ? graphOffset : fileSize;
+            String[] docIds = readIds(channel, idsOffset, idsEnd - idsOffset, nodeCount, path);
+
+            ByteBuffer[] linkPages = null;
+            int[][][] upperLinks = new int[nodeCount][][];
+            if (hasGraph) {
+                int linkBytes = (2 * m + 1) * Integer.BYTES;
+                linkPages = mapPages(channel, graphOffset, nodeCount, linkBytes);
+                long upperOffset = align(graphOffset + (long) nodeCount * linkBytes);
+                if (upperOffset > fileSize) {
+                    throw corrupt(path, "truncated graph");
+                }
+                readUpperLinks(channel, upperOffset, fileSize - upperOffset, m, upperLinks, path);
+            }
+
+            return new VectorSegment(dimension, m, nodeCount, entryPoint, maxLevel, savedAt,
+                    new OffHeapVectors(dimension, vectorPages, nodeCount), deleted, docIds, linkPages, upperLinks);
+        }
+    }
+
+    /**
+     * Read only the save time of a segment file
+     *
+     * @param path the segment file
+     * @return epoch millis at which the segment was saved
+     * @throws IOException if the file cannot be read or is not a valid segment
+     */
+    static long readSavedAt(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel, path).getLong(64);
+        }
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, Path path) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw corrupt(path, "truncated header");
+        }
+        ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC) {
+            throw corrupt(path, "bad magic");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw corrupt(path, "unsupported version " + header.getInt(4));
+        }
+        return header;
+    }
+
+    /**
+     * Map node pages of a block; full pages are mapped copy-on-write, a
+     * partial last page is copied into a full-size buffer so appends have room
+     */
+    private static ByteBuffer[] mapPages(FileChannel channel, long offset, int count, int bytesPerNode)
+            throws IOException {
+        int pageCount = (count + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+        long pageBytes = (long) PAGE_SIZE * bytesPerNode;
+        ByteBuffer[] pages = new ByteBuffer[pageCount];
+        for (int p = 0; p < pageCount; p++) {
+            int nodes = Math.min(PAGE_SIZE, count - (p << PAGE_SHIFT));
+            long position = offset + p * pageBytes;
+            if (nodes == PAGE_SIZE) {
+                pages[p] = channel.map(MapMode.PRIVATE, position, pageBytes).order(ByteOrder.nativeOrder());
+            } else {
+                ByteBuffer page = ByteBuffer.allocateDirect((int) pageBytes).order(ByteOrder.nativeOrder());
+                page.put(channel.map(MapMode.READ_ONLY, position, (long) nodes * bytesPerNode));
+                page.clear();
+                pages[p] = page;
+            }
+        }
+        return pages;
+    }
+
+    private static String[] readIds(FileChannel channel, long offset, long length, int count, Path path)
+            throws IOException {
+        long tableBytes = (long) (count + 1) * Integer.BYTES;
+        if (length < tableBytes || length > Integer.MAX_VALUE) {
+            throw corrupt(path, "bad id table");
+        }
+        ByteBuffer block = channel.map(MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        int dataStart = (int) tableBytes;
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            int start = block.getInt(i * Integer.BYTES);
+            int end = block.getInt((i + 1) * Integer.BYTES);
+            if (start < 0 || end < start || dataStart + (long) end > length) {
+                throw corrupt(path, "bad id table");
+            }
+            byte[] bytes = new byte[end - start];
+            block.get(dataStart + start, bytes);
+            ids[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return ids;
+    }
+
+    private static void readUpperLinks(FileChannel channel, long offset, long length, int m,
+                                       int[][][] upperLinks, Path path) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw corrupt(path, "bad upper links");
+        }
+        ByteBuffer block = channel.map(MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            for (int node = 0; node < upperLinks.length; node++) {
+                int levels = block.getInt();
+                if (levels == 0) {
+                    continue;
+                }
+                int[][] links = new int[levels][m + 1];
+                for (int[] level : links) {
+                    block.asIntBuffer().get(level);
+                    block.position(block.position() + level.length * Integer.BYTES);
+                }
+                upperLinks[node] = links;
+            }
+        } catch (RuntimeException e) {
+            throw corrupt(path, "bad upper links");
+        }
+    }
+
+    private static long checksum(FileChannel channel, long from, long to) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long position = from; position < to; position += CHECKSUM_CHUNK) {
+            crc.update(channel.map(MapMode.READ_ONLY, position, Math.min(CHECKSUM_CHUNK, to - position)));
+        }
+        return crc.getValue();
+    }
+
+    private static long bitmapBytes(int nodeCount) {
+        return (nodeCount + 7L) / 8;
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static IOException corrupt(Path path, String reason) {
+        return new IOException("Invalid vector segment " + path + ": " + reason);
+    }
+
+    /**
+     * Streams the blocks of one segment to a temporary file; call the block
+     * methods in file order, then commit to move the file into place
+     */
+    static final class Writer implements Closeable {
+
+        private final Path path;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+        private final int dimension;
+        private final int m;
+        private final int nodeCount;
+        private final long savedAt;
+
+        private long position = HEADER_BYTES;
+        private long deletedOffset;
+        private long idsOffset;
+        private long graphOffset;
+        private int entryPoint = -1;
+        private int maxLevel = -1;
+        private boolean committed;
+
+        Writer(Path path, int dimension, int m, int nodeCount, long savedAt) throws IOException {
+            this.path = path;
+            this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+            this.dimension = dimension;
+            this.m = m;
+            this.nodeCount = nodeCount;
+            this.savedAt = savedAt;
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.channel.position(HEADER_BYTES);
+        }
+
+        void vectors(OffHeapVectors vectors) throws IOException {
+            writePages(vectors::page, dimension * Float.BYTES);
+        }
+
+        void deleted(BitSet deleted) throws IOException {
+            deletedOffset = alignBlock();
+            byte[] bits = deleted.get(0, nodeCount).toByteArray();
+            writeBytes(bits);
+            for (long i = bits.length; i < bitmapBytes(nodeCount); i++) {
+                put(1).put((byte) 0);
+            }
+        }
+
+        void ids(String[] docIds) throws IOException {
+            idsOffset = alignBlock();
+            byte[][] encoded = new byte[nodeCount][];
+            int offset = 0;
+            put(Integer.BYTES).putInt(0);
+            for (int i = 0; i < nodeCount; i++) {
+                encoded[i] = docIds[i].getBytes(StandardCharsets.UTF_8);
+                offset += encoded[i].length;
+                put(Integer.BYTES).putInt(offset);
+            }
+            for (byte[] id : encoded) {
+                writeBytes(id);
+            }
+        }
+
+        void graph(ByteBuffer[] linkPages, int[][][] upperLinks, int entryPoint, int maxLevel) throws IOException {
+            this.entryPoint = entryPoint;
+            this.maxLevel = maxLevel;
+            graphOffset = alignBlock();
+            writePages(p -> linkPages[p], (2 * m + 1) * Integer.BYTES);
+            alignBlock();
+            for (int node = 0; node < nodeCount; node++) {
+                int[][] levels = upperLinks[node];
+                put(Integer.BYTES).putInt(levels != null ? levels.length : 0);
+                if (levels != null) {
+                    for (int[] level : levels) {
+                        put(level.length * Integer.BYTES).asIntBuffer().put(level);
+                        buffer.position(buffer.position() + level.length * Integer.BYTES);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Write the header and atomically replace the target file
+         */
+        void commit() throws IOException {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int flags = (graphOffset > 0 ? FLAG_GRAPH : 0)
+                    | (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? FLAG_BIG_ENDIAN : 0);
+            header.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(dimension).putInt(nodeCount).putInt(m)
+                    .putInt(entryPoint).putInt(maxLevel)
+                    .putLong(deletedOffset).putLong(idsOffset).putLong(graphOffset).putLong(crc.getValue())
+                    .putLong(savedAt)
+                    .position(HEADER_BYTES)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void writePages(IntFunction<ByteBuffer> pages, int bytesPerNode)
+                throws IOException {
+            flush();
+            int pageCount = (nodeCount + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+            for (int p = 0; p < pageCount; p++) {
+                int nodes = Math.min(PAGE_SIZE, nodeCount - (p << PAGE_SHIFT));
+                write(pages.apply(p).slice(0, nodes * bytesPerNode));
+            }
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                write(ByteBuffer.wrap(bytes));
+            } else {
+                put(bytes.length).put(bytes);
+            }
+        }
+
+        /**
+         * @return the staging buffer, with room for the given number of bytes
+         */
+        private ByteBuffer put(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        private long alignBlock() throws IOException {
+            long aligned = align(position + buffer.position());
+            int padding = (int) (aligned - position - buffer.position());
+            for (int i = 0; i < padding; i++) {
+                put(1).put((byte) 0);
+            }
+            return aligned;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer data) throws IOException {
+            crc.update(data.duplicate());
+            position += data.remaining();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.search.query.ann;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Kafka consumer for vector updates published by the vectorization pipeline
+ *
+ * Every query-service instance keeps its own local indexes, so each one
+ * consumes the full stream under a unique group and starts from the
+ * latest offset; older state comes from the snapshot build. When indexes
+ * were mapped from saved segments, the first assignment instead seeks to
+ * the oldest save time (less a margin for updates still in flight then),
+ * and the manager serves those indexes once the replay reaches the end
+ * offsets seen at assignment.
+ */
+@Component
+public class VectorUpdateConsumer implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorUpdateConsumer.class);
+
+    @Value("${kafka.bootstrap.servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${ann.local.updates.topic:vector-updates}")
+    private String topic;
+
+    @Value("${ann.local.updates.group-prefix:query-service-ann}")
+    private String groupPrefix;
+
+    @Value("${ann.local.updates.replay-margin-ms:60000}")
+    private long replayMarginMs;
+
+    private final LocalAnnIndexManager indexManager;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Consumer<String, String> consumer;
+    /** End offsets the segment replay has to reach; null when not replaying */
+    private Map<TopicPartition, Long> replayEnd;
+    private boolean replayStarted;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public VectorUpdateConsumer(LocalAnnIndexManager indexManager) {
+        this.indexManager = indexManager;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!indexManager.isEnabled() || running.getAndSet(true)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupPrefix + "-" + UUID.randomUUID());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        this.consumer = new KafkaConsumer<>(props);
+
+        Thread thread = new Thread(this, "vector-update-consumer");
+        thread.setDaemon(true);
+        thread.start();
+
+        log.info("Vector update consumer started: topic={}", topic);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running.getAndSet(false)) {
+            return;
+        }
+        consumer.wakeup();
+        log.info("Vector update consumer stopped");
+    }
+
+    @Override
+    public void run() {
+        try {
+            consumer.subscribe(Collections.singletonList(topic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    seekToReplayStart(partitions);
+                }
+            });
+
+            while (running.get()) {
+                try {
+                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                    for (ConsumerRecord<String, String> record : records) {
+                        try {
+                            apply(record.value());
+                        } catch (Exception e) {
+                            log.warn("Failed to apply vector update: offset={}, key={}, error={}",
+                                    record.offset(), record.key(), e.getMessage());
+                        }
+                    }
+                    checkReplayed();
+                } catch (WakeupException e) {
+                    break;
+                } catch (Exception e) {
+                    log.error("Error polling vector updates", e);
+                    Thread.sleep(1000);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Seek to the save time of the mapped segments on the first assignment
+     */
+    void seekToReplayStart(Collection<TopicPartition> partitions) {
+        long replayFrom = indexManager.getReplayFrom();
+        if (replayStarted || replayFrom < 0 || partitions.isEmpty()) {
+            return;
+        }
+        replayStarted = true;
+
+        long timestamp = Math.max(0, replayFrom - replayMarginMs);
+        try {
+            Map<TopicPartition, Long> query = new HashMap<>();
+            partitions.forEach(partition -> query.put(partition, timestamp));
+            Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(query);
+            Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+
+            for (TopicPartition partition : partitions) {
+                OffsetAndTimestamp offset = offsets.get(partition);
+                long start = offset != null ? offset.offset() : end.get(partition);
+                // Retention may have dropped updates published after the save
+                if (offset != null && start == beginning.get(partition) && start > 0) {
+                    log.warn("Vector updates since segment save are no longer retained: partition={}, offset={}",
+                            partition, start);
+                    indexManager.replayFailed();
+                    return;
+                }
+                consumer.seek(partition, start);
+            }
+            replayEnd = end;
+            log.info("Replaying vector updates since segment save: from={}, partitions={}", timestamp, end);
+        } catch (WakeupException e) {
+            throw e;
+        } catch (KafkaException e) {
+            log.warn("Failed to seek to segment save time: from={}, error={}", timestamp, e.getMessage());
+            indexManager.replayFailed();
+        }
+    }
+
+    /**
+     * Tell the manager once the replay has reached the end offsets seen at assignment
+     */
+    void checkReplayed() {
+        if (replayEnd == null) {
+            return;
+        }
+        for (Map.Entry<TopicPartition, Long> end : replayEnd.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return;
+            }
+        }
+        replayEnd = null;
+        indexManager.replayed();
+    }
+
+    /**
+     * Apply one update message
+     *
+     * Format: {"op": "upsert" | "delete", "index": ..., "id": ..., "field": ..., "vector": [...]}
+     */
+    void apply(String message) throws Exception {
+        JsonNode event = mapper.readTree(message);
+        String op = event.path("op").asText();
+        String index = event.path("index").asText(null);
+        String docId = event.path("id").asText(null);
+        if (index == null || docId == null) {
+            return;
+        }
+
+        if ("delete".equals(op)) {
+            indexManager.applyDelete(index, docId);
+        } else if ("upsert".equals(op)) {
+            JsonNode vectorNode = event.path("vector");
+            String field = event.path("field").asText(null);
+            if (field == null || !vectorNode.isArray() || vectorNode.isEmpty()) {
+                return;
+            }
+            float[] vector = new float[vectorNode.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) vectorNode.get(i).asDouble();
+            }
+            indexManager.applyUpdate(index, docId, field, vector);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.search.query.controller;
+
+import com.search.query.suggest.CompletionTrie;
+import com.search.query.suggest.SuggestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for autocomplete suggestions
+ */
+@RestController
+@RequestMapping("/api/v1/suggest")
+public class SuggestController {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestController.class);
+
+    private final SuggestService suggestService;
+
+    public SuggestController(SuggestService suggestService) {
+        this.suggestService = suggestService;
+    }
+
+    /**
+     * Complete a query prefix
+     *
+     * GET /api/v1/suggest?appKey=...&q=...&size=...
+     *
+     * @param appKey the application key
+     * @param q the prefix as typed
+     * @param size maximum number of suggestions, capped at the precomputed top-k
+     * @return suggestions by descending weight
+     */
+    @GetMapping
+    public ResponseEntity<SuggestResponse> suggest(
+            @RequestParam String appKey,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            if (size <= 0) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            List<CompletionTrie.Completion> suggestions =
+                    suggestService.suggest(appKey, q, Math.min(size, suggestService.getMaxSize()));
+            return ResponseEntity.ok(new SuggestResponse(q, suggestions));
+
+        } catch (Exception e) {
+            log.error("Suggest request failed: appKey={}, q={}", appKey, q, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Response model
+
+    public static class SuggestResponse {
+        private String query;
+        private List<CompletionTrie.Completion> suggestions;
+
+        public SuggestResponse(String query, List<CompletionTrie.Completion> suggestions) {
+            this.query = query;
+            this.suggestions = suggestions;
+        }
+
+        public String getQuery() { return query; }
+        public List<CompletionTrie.Completion> getSuggestions() { return suggestions; }
+    }
+}
@@ -0,0 +1,104 @@
+package com.search.query.model;
+
+import com.search.query.analysis.AnalyzedQuery;
+
+/**
+ * Per-request search context
+ *
+ * Created once at the head of the pipeline and passed to recall and rerank
+ * so every stage reads the same analyzed query instead of re-deriving it
+ * from the raw string.
+ */
+public class SearchContext {
+
+    private final SearchRequest request;
+    private final String index;
+    private final AnalyzedQuery analyzedQuery;
+    private final long startTime;
+    private String keywordQuery;
+    private volatile String didYouMean;
+    private volatile String correctedQuery;
+
+    public SearchContext(SearchRequest request, String index, AnalyzedQuery analyzedQuery) {
+        this.request = request;
+        this.index = index;
+        this.analyzedQuery = analyzedQuery;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    public SearchRequest getRequest() {
+        return request;
+    }
+
+    public String getAppKey() {
+        return request.getAppKey();
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * Analyzed query, or null if the context was built without analysis
+     */
+    public AnalyzedQuery getAnalyzedQuery() {
+        return analyzedQuery;
+    }
+
+    /**
+     * Text for keyword matching: stop-trimmed terms, falling back to the raw query
+     */
+    public String getQueryText() {
+        if (analyzedQuery == null) {
+            return request.getQuery();
+        }
+        return analyzedQuery.isEmpty() ? null : analyzedQuery.getText();
+    }
+
+    /**
+     * Query for keyword matching after synonym expansion, falling back to the query text
+     */
+    public String getKeywordQuery() {
+        return keywordQuery != null ? keywordQuery : getQueryText();
+    }
+
+    public void setKeywordQuery(String keywordQuery) {
+        this.keywordQuery = keywordQuery;
+    }
+
+    /**
+     * Spelling suggestion found during recall, if any
+     */
+    public String getDidYouMean() {
+        return didYouMean;
+    }
+
+    public void setDidYouMean(String didYouMean) {
+        this.didYouMean = didYouMean;
+    }
+
+    /**
+     * Corrected query that replaced the original one, if any
+     */
+    public String getCorrectedQuery() {
+        return correctedQuery;
+    }
+
+    public void setCorrectedQuery(String correctedQuery) {
+        this.correctedQuery = correctedQuery;
+    }
+
+    /**
+     * Full normalized text, for embedding and rerank where stop terms still carry meaning
+     */
+    public String getNormalizedQuery() {
+        if (analyzedQuery == null) {
+            return request.getQuery();
+        }
+        return analyzedQuery.isEmpty() ? null : analyzedQuery.getNormalized();
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+}
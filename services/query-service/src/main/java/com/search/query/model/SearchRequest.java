@@ -2,6 +2,7 @@ package com.search.query.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -122,6 +123,12 @@ public class SearchRequest {
         @JsonProperty("k")
         private int k = 100;
 
+        /**
+         * Vector fields to search and fuse; empty searches title_vector only
+         */
+        @JsonProperty("fields")
+        private List<VectorField> fields;
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -145,6 +152,71 @@ public class SearchRequest {
         public void setK(int k) {
             this.k = k;
         }
+
+        public List<VectorField> getFields() {
+            return fields;
+        }
+
+        public void setFields(List<VectorField> fields) {
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * One vector field of a multi-field vector recall
+     */
+    public static class VectorField {
+
+        /**
+         * Vector field name, e.g. title_vector, content_vector or image_vector
+         */
+        @JsonProperty("field")
+        private String field;
+
+        /**
+         * Number of candidates from this field; 0 uses the k of the vector config
+         */
+        @JsonProperty("k")
+        private int k;
+
+        /**
+         * Weight of this field when fusing
+         */
+        @JsonProperty("weight")
+        private double weight = 1.0;
+
+        public VectorField() {
+        }
+
+        public VectorField(String field, int k, double weight) {
+            this.field = field;
+            this.k = k;
+            this.weight = weight;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public int getK() {
+            return k;
+        }
+
+        public void setK(int k) {
+            this.k = k;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
     }
 
     /**
@@ -40,6 +40,18 @@ public class SearchResponse {
     @JsonProperty("took")
     private long took;
 
+    /**
+     * Spelling suggestion for the query, if one was found
+     */
+    @JsonProperty("didYouMean")
+    private String didYouMean;
+
+    /**
+     * Corrected query the hits were retrieved with, if the original query was replaced
+     */
+    @JsonProperty("correctedQuery")
+    private String correctedQuery;
+
     /**
      * Search result hit
      */
@@ -128,4 +140,20 @@ public class SearchResponse {
     public void setTook(long took) {
         this.took = took;
     }
+
+    public String getDidYouMean() {
+        return didYouMean;
+    }
+
+    public void setDidYouMean(String didYouMean) {
+        this.didYouMean = didYouMean;
+    }
+
+    public String getCorrectedQuery() {
+        return correctedQuery;
+    }
+
+    public void setCorrectedQuery(String correctedQuery) {
+        this.correctedQuery = correctedQuery;
+    }
 }
@@ -1,5 +1,6 @@
 package com.search.query.recall;
 
+import com.search.query.model.SearchContext;
 import com.search.query.model.SearchRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +23,8 @@ public class RecallEngine {
 
     private static final Logger log = LoggerFactory.getLogger(RecallEngine.class);
 
+    private static final String DEFAULT_VECTOR_FIELD = "title_vector";
+
     private final KeywordRecall keywordRecall;
     private final VectorRecall vectorRecall;
     private final HotRecall hotRecall;
@@ -42,31 +45,43 @@ public class RecallEngine {
      * @return fused recall results
      */
     public List<RecallResult> recall(String index, SearchRequest request) {
-        SearchRequest.RecallStrategy strategy = request.getRecallStrategy();
-        if (strategy == null) {
-            // Default to keyword only
-            strategy = new SearchRequest.RecallStrategy();
-        }
+        return recall(new SearchContext(request, index, null));
+    }
+
+    /**
+     * Execute multi-path recall using the analyzed query of the context
+     *
+     * @param context the search context
+     * @return fused recall results
+     */
+    public List<RecallResult> recall(SearchContext context) {
+        SearchRequest request = context.getRequest();
+        String index = context.getIndex();
+        String queryText = context.getKeywordQuery();
+        String normalizedQuery = context.getNormalizedQuery();
+
+        // Default to keyword only
+        SearchRequest.RecallStrategy strategy = request.getRecallStrategy() != null
+                ? request.getRecallStrategy()
+                : new SearchRequest.RecallStrategy();
 
         List<CompletableFuture<List<RecallResult>>> futures = new ArrayList<>();
 
         // Keyword recall
-        if (strategy.isKeyword() && request.getQuery() != null) {
+        if (strategy.isKeyword() && queryText != null) {
             futures.add(CompletableFuture.supplyAsync(() -> {
                 log.debug("Starting keyword recall");
-                if (request.getFilters() != null && !request.getFilters().isEmpty()) {
-                    return keywordRecall.recallWithFilters(index, request.getQuery(), request.getFilters(), 100);
-                }
-                return keywordRecall.recall(index, request.getQuery(), 100);
+                return keywordRecall(index, queryText, request.getFilters(), 100);
             }, executor));
         }
 
         // Vector recall
-        if (strategy.getVector() != null && strategy.getVector().isEnabled() && request.getQuery() != null) {
+        if (strategy.getVector() != null && strategy.getVector().isEnabled() && normalizedQuery != null) {
             futures.add(CompletableFuture.supplyAsync(() -> {
                 log.debug("Starting vector recall");
                 int k = strategy.getVector().getK();
-                return vectorRecall.recall(index, request.getQuery(), "title_vector", k);
+                return vectorRecall.recall(context.getAppKey(), index, normalizedQuery,
+                        vectorFields(strategy.getVector()), request.getFilters(), k);
             }, executor));
         }
 
@@ -100,6 +115,23 @@ public class RecallEngine {
         }
     }
 
+    /**
+     * Vector fields requested for recall, defaulting to title_vector
+     */
+    private static List<VectorRecall.FieldSpec> vectorFields(SearchRequest.VectorConfig config) {
+        if (config.getFields() == null || config.getFields().isEmpty()) {
+            return List.of(new VectorRecall.FieldSpec(DEFAULT_VECTOR_FIELD, config.getK(), 1.0));
+        }
+        List<VectorRecall.FieldSpec> fields = new ArrayList<>();
+        for (SearchRequest.VectorField field : config.getFields()) {
+            if (field.getField() != null && !field.getField().isBlank() && field.getWeight() > 0) {
+                int k = field.getK() > 0 ? field.getK() : config.getK();
+                fields.add(new VectorRecall.FieldSpec(field.getField(), k, field.getWeight()));
+            }
+        }
+        return fields;
+    }
+
     /**
      * Execute single-path keyword recall
      *
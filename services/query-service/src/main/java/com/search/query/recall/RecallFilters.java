@@ -0,0 +1,59 @@
+package com.search.query.recall;
+
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Translates request filters into OpenSearch filter clauses
+ *
+ * Same semantics as keyword recall: every entry must match, as a term
+ * match of its value on its field. Collection values match any of their
+ * elements; null values are ignored.
+ */
+final class RecallFilters {
+
+    private RecallFilters() {
+    }
+
+    /**
+     * @param filters field to value filters from the request
+     * @return a bool filter query, or null if there is nothing to filter on
+     */
+    static Query toQuery(Map<String, Object> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+
+        List<Query> clauses = new ArrayList<>();
+        for (Map.Entry<String, Object> filter : filters.entrySet()) {
+            String field = filter.getKey();
+            Object value = filter.getValue();
+            if (field == null || value == null) {
+                continue;
+            }
+            if (value instanceof Collection<?> values) {
+                List<FieldValue> terms = values.stream()
+                        .filter(v -> v != null)
+                        .map(v -> FieldValue.of(v.toString()))
+                        .toList();
+                clauses.add(Query.of(q -> q.terms(t -> t.field(field).terms(v -> v.value(terms)))));
+            } else {
+                clauses.add(Query.of(q -> q.term(t -> t.field(field).value(FieldValue.of(value.toString())))));
+            }
+        }
+        return clauses.isEmpty() ? null : Query.of(q -> q.bool(b -> b.filter(clauses)));
+    }
+
+    /**
+     * Key identifying the same filters on the same index, independent of entry order
+     */
+    static String cacheKey(String index, Map<String, Object> filters) {
+        return index + '|' + new TreeMap<>(filters);
+    }
+}
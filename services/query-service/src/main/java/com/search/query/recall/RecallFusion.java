@@ -75,6 +75,29 @@ public class RecallFusion {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Fuse any number of result lists, each max-normalized and weighted
+     *
+     * @param results result lists, e.g. one per vector field
+     * @param weights weight of each list
+     * @param topK maximum number of fused results
+     * @param source source label of the fused results
+     * @return fused results by descending score
+     */
+    public List<RecallResult> fuseWeighted(List<List<RecallResult>> results, List<Double> weights,
+                                           int topK, String source) {
+        Map<String, FusedResult> merged = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            mergeResults(merged, results.get(i), weights.get(i), source + "#" + i);
+        }
+
+        return merged.values().stream()
+                .sorted((a, b) -> Float.compare(b.score, a.score))
+                .limit(topK)
+                .map(fr -> new RecallResult(fr.id, fr.score, source))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Fuse results using RRF (Reciprocal Rank Fusion)
      *
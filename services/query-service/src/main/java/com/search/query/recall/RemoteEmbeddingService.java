@@ -0,0 +1,90 @@
+package com.search.query.recall;
+
+import com.search.common.vector.VectorCodec;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query embeddings from vector-service
+ *
+ * Requests a binary VectorCodec frame (Accept: application/octet-stream)
+ * and decodes it straight into a float[], so no JSON numbers are parsed or
+ * boxed per query. When embedding.remote.enabled is false, embeddings come
+ * from the local {@link SimpleEmbeddingService}.
+ */
+@Primary
+@Service
+public class RemoteEmbeddingService implements VectorEmbeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteEmbeddingService.class);
+
+    @Value("${embedding.remote.enabled:false}")
+    private boolean enabled;
+
+    @Value("${embedding.remote.url:http://localhost:8083}")
+    private String vectorServiceUrl;
+
+    @Value("${embedding.remote.encoding:float32}")
+    private String encoding;
+
+    @Value("${embedding.remote.dimension:768}")
+    private int dimension;
+
+    @Value("${embedding.remote.timeout-ms:100}")
+    private int timeoutMs;
+
+    private final SimpleEmbeddingService localEmbeddingService;
+
+    private RestTemplate restTemplate;
+
+    public RemoteEmbeddingService(SimpleEmbeddingService localEmbeddingService) {
+        this.localEmbeddingService = localEmbeddingService;
+    }
+
+    @PostConstruct
+    public void init() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Math.min(timeoutMs, 50));
+        factory.setReadTimeout(timeoutMs);
+        this.restTemplate = new RestTemplate(factory);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (!enabled) {
+            return localEmbeddingService.embed(text);
+        }
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setAccept(List.of(MediaType.APPLICATION_OCTET_STREAM));
+
+            byte[] frame = restTemplate.postForObject(vectorServiceUrl + "/api/v1/embedding?encoding=" + encoding,
+                    new HttpEntity<>(Map.of("text", text == null ? "" : text), headers), byte[].class);
+            return frame != null ? VectorCodec.decodeSingle(frame) : null;
+
+        } catch (Exception e) {
+            // Vector recall is skipped for this query
+            log.warn("Failed to get query embedding from {}: {}", vectorServiceUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public int getDimension() {
+        return enabled ? dimension : localEmbeddingService.getDimension();
+    }
+}
@@ -1,5 +1,6 @@
 package com.search.query.recall;
 
+import com.search.common.vector.VectorKernels;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -36,18 +37,7 @@ public class SimpleEmbeddingService implements VectorEmbeddingService {
             embedding[i] = hash / 100.0f;
         }
 
-        // Normalize
-        float norm = 0;
-        for (float v : embedding) {
-            norm += v * v;
-        }
-        norm = (float) Math.sqrt(norm);
-
-        if (norm > 0) {
-            for (int i = 0; i < DEFAULT_DIMENSION; i++) {
-                embedding[i] /= norm;
-            }
-        }
+        VectorKernels.normalize(embedding);
 
         log.debug("Generated embedding for text: {} (dimension={})", text.substring(0, Math.min(20, text.length())), DEFAULT_DIMENSION);
 
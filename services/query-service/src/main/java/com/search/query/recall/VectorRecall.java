@@ -1,68 +1,175 @@
 package com.search.query.recall;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.search.query.ann.HnswIndex;
+import com.search.query.ann.LocalAnnIndexManager;
+import org.opensearch.client.json.JsonData;
 import org.opensearch.client.opensearch.OpenSearchClient;
-import org.opensearch.client.opensearch.core.SearchRequest;
+import org.opensearch.client.opensearch._types.mapping.Property;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.MsearchResponse;
 import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.msearch.MultiSearchResponseItem;
+import org.opensearch.client.opensearch.core.msearch.RequestItem;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.opensearch.indices.get_mapping.IndexMappingRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * Vector-based recall using semantic search with embeddings
+ *
+ * Apps selected for the local backend are answered from an in-process
+ * HNSW index once it is built; everything else is a kNN query to
+ * OpenSearch.
+ *
+ * Request filters are applied before ranking rather than after, so the
+ * whole k budget goes to matching documents. The number of matching
+ * documents (a count query, cached briefly per filter set) picks the
+ * strategy: up to search.recall.vector.filter.exact-max-docs matches are
+ * scored exactly, locally if the app's local index is ready and with an
+ * OpenSearch exact kNN script otherwise; larger subsets use approximate
+ * kNN with the filter pushed into the kNN query.
+ *
+ * Several vector fields (e.g. title, content and image vectors) can be
+ * recalled together: fields served by the local index are searched in
+ * process, the rest go to OpenSearch as one multi-search request, and
+ * the per-field lists are fused with their weights. The query is embedded
+ * once with the text model, so a field whose mapped dimension differs
+ * (e.g. a 512-d CLIP image_vector next to 768-d text vectors) is skipped
+ * up front instead of failing inside OpenSearch.
  */
 @Component
 public class VectorRecall {
 
     private static final Logger log = LoggerFactory.getLogger(VectorRecall.class);
 
+    private static final Duration CARDINALITY_TTL = Duration.ofMinutes(1);
+    private static final int CARDINALITY_CACHE_SIZE = 10000;
+    private static final Duration MAPPING_TTL = Duration.ofMinutes(10);
+    private static final int MAPPING_CACHE_SIZE = 1000;
+
+    @Value("${search.recall.vector.filter.exact-max-docs:5000}")
+    private int exactMaxDocs;
+
+    @Value("${search.recall.vector.filter.space-type:cosinesimil}")
+    private String spaceType;
+
     private final OpenSearchClient client;
     private final VectorEmbeddingService embeddingService;
+    private final LocalAnnIndexManager localIndex;
+    private final RecallFusion fusion;
+    private final Cache<String, Long> cardinalities = Caffeine.newBuilder()
+            .maximumSize(CARDINALITY_CACHE_SIZE)
+            .expireAfterWrite(CARDINALITY_TTL)
+            .build();
+    private final Cache<String, Map<String, Integer>> dimensions = Caffeine.newBuilder()
+            .maximumSize(MAPPING_CACHE_SIZE)
+            .expireAfterWrite(MAPPING_TTL)
+            .build();
+
+    /**
+     * A vector field to recall from, with its candidate count and fusion weight
+     */
+    public record FieldSpec(String field, int k, double weight) {
+    }
 
-    public VectorRecall(OpenSearchClient client, VectorEmbeddingService embeddingService) {
+    /**
+     * How candidates are found for one request, decided once for all its fields
+     */
+    private enum Strategy {
+        /** Approximate kNN, with the filter (if any) applied during graph search */
+        KNN,
+        /** Exact scoring of every document that matches the filter */
+        EXACT,
+        /** Nothing matches the filter */
+        EMPTY
+    }
+
+    public VectorRecall(OpenSearchClient client, VectorEmbeddingService embeddingService,
+                        LocalAnnIndexManager localIndex, RecallFusion fusion) {
         this.client = client;
         this.embeddingService = embeddingService;
+        this.localIndex = localIndex;
+        this.fusion = fusion;
     }
 
     /**
-     * Recall documents using vector similarity search
+     * Recall documents using the vector backend selected for the app
      *
+     * @param appKey the application key
      * @param index the index name
      * @param query the search query text
      * @param vectorField the name of the vector field
      * @param topK number of results to return
      * @return list of recall results
      */
-    public List<RecallResult> recall(String index, String query, String vectorField, int topK) {
+    public List<RecallResult> recall(String appKey, String index, String query, String vectorField, int topK) {
+        return recall(appKey, index, query, vectorField, null, topK);
+    }
+
+    /**
+     * Recall documents matching the request filters using the vector backend selected for the app
+     *
+     * @param appKey the application key
+     * @param index the index name
+     * @param query the search query text
+     * @param vectorField the name of the vector field
+     * @param filters filter criteria, as for keyword recall; may be null
+     * @param topK number of results to return
+     * @return list of recall results
+     */
+    public List<RecallResult> recall(String appKey, String index, String query, String vectorField,
+                                     Map<String, Object> filters, int topK) {
+        return recall(appKey, index, query, List.of(new FieldSpec(vectorField, topK, 1.0)), filters, topK);
+    }
+
+    /**
+     * Recall documents from several vector fields in one round trip and fuse them
+     *
+     * @param appKey the application key
+     * @param index the index name
+     * @param query the search query text
+     * @param fields the vector fields with their k and weight
+     * @param filters filter criteria, as for keyword recall; may be null
+     * @param topK number of fused results to return
+     * @return fused recall results
+     */
+    public List<RecallResult> recall(String appKey, String index, String query, List<FieldSpec> fields,
+                                     Map<String, Object> filters, int topK) {
+        if (fields.isEmpty()) {
+            return List.of();
+        }
         try {
-            // Generate query embedding
             float[] queryVector = embeddingService.embed(query);
-
             if (queryVector == null || queryVector.length == 0) {
                 log.warn("Failed to generate embedding for query: {}", query);
                 return List.of();
             }
 
-            SearchResponse<Map> response = client.search(s -> s
-                    .index(index)
-                    .size(topK)
-                    .query(q -> q
-                            .knn(k -> k
-                                    .field(vectorField)
-                                    .queryVector(queryVector)
-                                    .k(topK)
-                                    .numCandidates(topK * 10)
-                            )
-                    ),
-                    Map.class
-            );
+            fields = matchingDimension(index, fields, queryVector.length);
+            if (fields.isEmpty()) {
+                return List.of();
+            }
+
+            boolean local = localIndex != null && localIndex.isSelected(appKey);
+            List<List<RecallResult>> perField = searchFields(local, index, queryVector, fields, filters);
+            if (perField.size() == 1) {
+                return perField.get(0);
+            }
 
-            return response.hits().hits().stream()
-                    .map(hit -> new RecallResult(hit.id(), hit.score() != null ? hit.score() : 0.0f, "vector"))
-                    .collect(Collectors.toList());
+            List<Double> weights = fields.stream().map(FieldSpec::weight).collect(Collectors.toList());
+            return fusion.fuseWeighted(perField, weights, topK, "vector");
 
         } catch (Exception e) {
             log.error("Vector recall failed: index={}, query={}", index, query, e);
@@ -70,6 +177,19 @@ public class VectorRecall {
         }
     }
 
+    /**
+     * Recall documents using vector similarity search
+     *
+     * @param index the index name
+     * @param query the search query text
+     * @param vectorField the name of the vector field
+     * @param topK number of results to return
+     * @return list of recall results
+     */
+    public List<RecallResult> recall(String index, String query, String vectorField, int topK) {
+        return recall(null, index, query, vectorField, null, topK);
+    }
+
     /**
      * Recall documents using vector search with pre-computed embedding
      *
@@ -86,28 +206,240 @@ public class VectorRecall {
                 log.warn("Empty query vector provided");
                 return List.of();
             }
+            List<FieldSpec> fields = matchingDimension(index, List.of(new FieldSpec(vectorField, topK, 1.0)),
+                    queryVector.length);
+            if (fields.isEmpty()) {
+                return List.of();
+            }
+            return searchFields(false, index, queryVector, fields, null).get(0);
 
+        } catch (Exception e) {
+            log.error("Vector recall with pre-computed vector failed: index={}", index, e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Fields whose mapped dimension matches the query vector
+     *
+     * Fields that are not mapped as knn_vector, or whose mapping could not
+     * be read, are kept and left to the search itself.
+     */
+    private List<FieldSpec> matchingDimension(String index, List<FieldSpec> fields, int dimension) {
+        Map<String, Integer> mapped = dimensions.get(index, this::loadDimensions);
+        List<FieldSpec> matching = new ArrayList<>(fields.size());
+        for (FieldSpec field : fields) {
+            Integer expected = mapped.get(field.field());
+            if (expected == null || expected == dimension) {
+                matching.add(field);
+            } else {
+                log.warn("Skipping vector field with a different dimension than the query embedding: "
+                        + "index={}, field={}, expected={}, actual={}", index, field.field(), expected, dimension);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * knn_vector dimensions by field path across the indices behind a name or alias
+     */
+    private Map<String, Integer> loadDimensions(String index) {
+        Map<String, Integer> mapped = new HashMap<>();
+        try {
+            for (IndexMappingRecord record : client.indices().getMapping(g -> g.index(index)).result().values()) {
+                if (record.mappings() != null) {
+                    collectDimensions("", record.mappings().properties(), mapped);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read vector field dimensions: index={}, error={}", index, e.getMessage());
+        }
+        return mapped;
+    }
+
+    private static void collectDimensions(String prefix, Map<String, Property> properties, Map<String, Integer> mapped) {
+        properties.forEach((name, property) -> {
+            if (property.isKnnVector()) {
+                mapped.put(prefix + name, property.knnVector().dimension());
+            } else if (property.isObject()) {
+                collectDimensions(prefix + name + ".", property.object().properties(), mapped);
+            } else if (property.isNested()) {
+                collectDimensions(prefix + name + ".", property.nested().properties(), mapped);
+            }
+        });
+    }
+
+    /**
+     * Search each field, locally where possible and otherwise in one OpenSearch round trip
+     *
+     * @return one result list per field, in field order
+     */
+    private List<List<RecallResult>> searchFields(boolean local, String index, float[] queryVector,
+                                                  List<FieldSpec> fields, Map<String, Object> filters)
+            throws Exception {
+        List<List<RecallResult>> results = new ArrayList<>(fields.size());
+        fields.forEach(field -> results.add(List.of()));
+
+        Query filter = RecallFilters.toQuery(filters);
+        long matching = filter != null ? countMatching(index, filters, filter) : -1;
+        Strategy strategy = filter == null || matching < 0 || matching > exactMaxDocs ? Strategy.KNN
+                : matching == 0 ? Strategy.EMPTY
+                : Strategy.EXACT;
+        log.debug("Vector recall: strategy={}, index={}, fields={}, matching={}",
+                strategy, index, fields.size(), matching);
+        if (strategy == Strategy.EMPTY) {
+            return results;
+        }
+
+        // The local graph cannot filter, so it serves unfiltered kNN and exact scoring of the matching IDs
+        List<Integer> remote = new ArrayList<>();
+        List<String> matchingIds = null;
+        for (int i = 0; i < fields.size(); i++) {
+            FieldSpec field = fields.get(i);
+            List<HnswIndex.Neighbor> neighbors = null;
+            if (local && strategy == Strategy.KNN && filter == null) {
+                neighbors = localIndex.search(index, field.field(), queryVector, field.k());
+            } else if (local && strategy == Strategy.EXACT) {
+                if (matchingIds == null) {
+                    matchingIds = matchingIds(index, filter, (int) matching);
+                }
+                neighbors = localIndex.searchExact(index, field.field(), queryVector, field.k(), matchingIds);
+            }
+            if (neighbors != null) {
+                results.set(i, fromNeighbors(neighbors));
+            } else {
+                remote.add(i);
+            }
+        }
+
+        if (remote.size() == 1) {
+            FieldSpec field = fields.get(remote.get(0));
             SearchResponse<Map> response = client.search(s -> s
                     .index(index)
-                    .size(topK)
-                    .query(q -> q
-                            .knn(k -> k
-                                    .field(vectorField)
-                                    .queryVector(queryVector)
-                                    .k(topK)
-                                    .numCandidates(topK * 10)
-                            )
-                    ),
+                    .size(field.k())
+                    .source(src -> src.fetch(false))
+                    .query(fieldQuery(strategy, field, queryVector, filter)),
                     Map.class
             );
+            results.set(remote.get(0), fromHits(response.hits().hits()));
+        } else if (remote.size() > 1) {
+            List<RequestItem> searches = new ArrayList<>(remote.size());
+            for (int i : remote) {
+                FieldSpec field = fields.get(i);
+                Query query = fieldQuery(strategy, field, queryVector, filter);
+                searches.add(RequestItem.of(r -> r
+                        .header(h -> h.index(index))
+                        .body(b -> b
+                                .size(field.k())
+                                .source(src -> src.fetch(false))
+                                .query(query))));
+            }
+
+            MsearchResponse<Map> response = client.msearch(m -> m.searches(searches), Map.class);
+            List<MultiSearchResponseItem<Map>> items = response.responses();
+            for (int j = 0; j < remote.size(); j++) {
+                MultiSearchResponseItem<Map> item = items.get(j);
+                if (item.isResult()) {
+                    results.set(remote.get(j), fromHits(item.result().hits().hits()));
+                } else {
+                    log.warn("Vector recall failed for field: index={}, field={}, error={}",
+                            index, fields.get(remote.get(j)).field(), item.failure().error().reason());
+                }
+            }
+        }
+        return results;
+    }
+
+    private Query fieldQuery(Strategy strategy, FieldSpec field, float[] queryVector, Query filter) {
+        return strategy == Strategy.EXACT
+                ? exactQuery(field.field(), queryVector, filter)
+                : knnQuery(field.field(), queryVector, field.k(), filter);
+    }
 
-            return response.hits().hits().stream()
-                    .map(hit -> new RecallResult(hit.id(), hit.score() != null ? hit.score() : 0.0f, "vector"))
-                    .collect(Collectors.toList());
+    /**
+     * Approximate kNN, with an optional filter applied during the graph search
+     */
+    private static Query knnQuery(String vectorField, float[] queryVector, int k, Query filter) {
+        return Query.of(q -> q
+                .knn(knn -> {
+                    knn.field(vectorField)
+                            .vector(queryVector)
+                            .k(k);
+                    if (filter != null) {
+                        knn.filter(filter);
+                    }
+                    return knn;
+                })
+        );
+    }
+
+    /**
+     * Exact kNN over the filtered documents with the k-NN plugin's scoring script
+     */
+    private Query exactQuery(String vectorField, float[] queryVector, Query filter) {
+        List<Float> queryValue = new ArrayList<>(queryVector.length);
+        for (float v : queryVector) {
+            queryValue.add(v);
+        }
 
+        return Query.of(q -> q
+                .scriptScore(ss -> ss
+                        .query(filter)
+                        .script(sc -> sc
+                                .inline(i -> i
+                                        .lang("knn")
+                                        .source("knn_score")
+                                        .params("field", JsonData.of(vectorField))
+                                        .params("query_value", JsonData.of(queryValue))
+                                        .params("space_type", JsonData.of(spaceType))
+                                )
+                        )
+                )
+        );
+    }
+
+    /**
+     * Number of documents matching a filter, or -1 if it could not be counted
+     */
+    private long countMatching(String index, Map<String, Object> filters, Query filter) {
+        String key = RecallFilters.cacheKey(index, filters);
+        Long cached = cardinalities.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            long count = client.count(c -> c.index(index).query(filter)).count();
+            cardinalities.put(key, count);
+            return count;
         } catch (Exception e) {
-            log.error("Vector recall with pre-computed vector failed: index={}", index, e);
-            return List.of();
+            log.warn("Failed to count filtered documents, using filtered kNN: index={}", index, e);
+            return -1;
         }
     }
+
+    private List<String> matchingIds(String index, Query filter, int size) throws Exception {
+        SearchResponse<Map> response = client.search(s -> s
+                .index(index)
+                .size(size)
+                .source(src -> src.fetch(false))
+                .trackTotalHits(t -> t.enabled(false))
+                .query(filter),
+                Map.class
+        );
+        return response.hits().hits().stream()
+                .map(Hit::id)
+                .collect(Collectors.toList());
+    }
+
+    private static List<RecallResult> fromHits(List<Hit<Map>> hits) {
+        return hits.stream()
+                .map(hit -> new RecallResult(hit.id(), hit.score() != null ? hit.score().floatValue() : 0.0f, "vector"))
+                .collect(Collectors.toList());
+    }
+
+    private static List<RecallResult> fromNeighbors(List<HnswIndex.Neighbor> neighbors) {
+        return neighbors.stream()
+                .map(neighbor -> new RecallResult(neighbor.docId(), neighbor.score(), "vector"))
+                .collect(Collectors.toList());
+    }
 }
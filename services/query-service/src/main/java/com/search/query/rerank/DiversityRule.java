@@ -0,0 +1,113 @@
+package com.search.query.rerank;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Diversity rule configuration for result diversification
+ *
+ * Controls the MMR trade-off between relevance and novelty, and the
+ * per-value caps applied to fields such as category or brand.
+ */
+public class DiversityRule {
+
+    /**
+     * Application key this rule belongs to
+     */
+    @JsonProperty("appKey")
+    private String appKey;
+
+    /**
+     * MMR trade-off: 1.0 is pure relevance, 0.0 is pure novelty
+     */
+    @JsonProperty("lambda")
+    private double lambda = 0.7;
+
+    /**
+     * Vector field used for MMR similarity (e.g., combined_vector); MMR is skipped if null
+     */
+    @JsonProperty("vectorField")
+    private String vectorField;
+
+    /**
+     * Maximum number of results sharing the same value, per field (e.g., category -> 3)
+     */
+    @JsonProperty("caps")
+    private Map<String, Integer> caps;
+
+    /**
+     * Number of leading results to diversify; the rest keep their order
+     */
+    @JsonProperty("window")
+    private int window = 50;
+
+    /**
+     * Whether the rule is enabled
+     */
+    @JsonProperty("enabled")
+    private boolean enabled = true;
+
+    // Getters and Setters
+    public String getAppKey() {
+        return appKey;
+    }
+
+    public void setAppKey(String appKey) {
+        this.appKey = appKey;
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    public void setLambda(double lambda) {
+        this.lambda = lambda;
+    }
+
+    public String getVectorField() {
+        return vectorField;
+    }
+
+    public void setVectorField(String vectorField) {
+        this.vectorField = vectorField;
+    }
+
+    public Map<String, Integer> getCaps() {
+        return caps;
+    }
+
+    public void setCaps(Map<String, Integer> caps) {
+        this.caps = caps;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DiversityRule that = (DiversityRule) o;
+        return Objects.equals(appKey, that.appKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(appKey);
+    }
+}
@@ -0,0 +1,71 @@
+package com.search.query.rerank;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loader for diversity rules
+ *
+ * Loads and caches diversity rules for different apps.
+ * Apps without a rule are not diversified.
+ * In production, this would load from a database or config service.
+ */
+@Component
+public class DiversityRuleLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(DiversityRuleLoader.class);
+
+    private final Map<String, DiversityRule> rules = new ConcurrentHashMap<>();
+
+    public DiversityRuleLoader() {
+        loadDefaultRules();
+    }
+
+    /**
+     * Get diversity rule for an app
+     *
+     * @param appKey the application key
+     * @return the enabled rule, or null if the app is not diversified
+     */
+    public DiversityRule getRule(String appKey) {
+        if (appKey == null) {
+            return null;
+        }
+
+        DiversityRule rule = rules.get(appKey);
+        return rule != null && rule.isEnabled() ? rule : null;
+    }
+
+    /**
+     * Add or update a rule
+     *
+     * @param rule the diversity rule
+     */
+    public void addRule(DiversityRule rule) {
+        if (rule != null && rule.getAppKey() != null) {
+            rules.put(rule.getAppKey(), rule);
+            log.info("Added/updated diversity rule: appKey={}, lambda={}, caps={}",
+                    rule.getAppKey(), rule.getLambda(), rule.getCaps());
+        }
+    }
+
+    /**
+     * Load default rules
+     */
+    private void loadDefaultRules() {
+        // Default rule for ecommerce: at most 3 per category, 2 per brand
+        DiversityRule ecommerceRule = new DiversityRule();
+        ecommerceRule.setAppKey("ecommerce");
+        ecommerceRule.setLambda(0.7);
+        ecommerceRule.setVectorField("combined_vector");
+        ecommerceRule.setCaps(Map.of("category", 3, "brand", 2));
+        ecommerceRule.setWindow(50);
+
+        rules.put("ecommerce", ecommerceRule);
+        log.info("Loaded default diversity rules");
+    }
+}
@@ -1,5 +1,6 @@
 package com.search.query.rerank;
 
+import com.search.query.model.SearchContext;
 import com.search.query.recall.RecallResult;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch.core.GetResponse;
@@ -22,11 +23,16 @@ public class RerankEngine {
 
     private final OpenSearchClient client;
     private final SortRuleLoader ruleLoader;
+    private final SemanticReranker semanticReranker;
+    private final ResultDiversifier diversifier;
     private final String indexPrefix;
 
-    public RerankEngine(OpenSearchClient client, SortRuleLoader ruleLoader) {
+    public RerankEngine(OpenSearchClient client, SortRuleLoader ruleLoader, SemanticReranker semanticReranker,
+                        ResultDiversifier diversifier) {
         this.client = client;
         this.ruleLoader = ruleLoader;
+        this.semanticReranker = semanticReranker;
+        this.diversifier = diversifier;
         this.indexPrefix = "search";
     }
 
@@ -38,12 +44,41 @@ public class RerankEngine {
      * @return reranked results
      */
     public List<RecallResult> rerank(String appKey, List<RecallResult> candidates) {
+        return rerank(appKey, null, candidates);
+    }
+
+    /**
+     * Rerank candidates for a search context, using its normalized query
+     *
+     * @param context the search context
+     * @param candidates the recall results to rerank
+     * @return reranked results
+     */
+    public List<RecallResult> rerank(SearchContext context, List<RecallResult> candidates) {
+        return rerank(context.getAppKey(), context.getNormalizedQuery(), candidates);
+    }
+
+    /**
+     * Rerank candidates using the configured rule for the app, apply the
+     * semantic cross-encoder to the head of the list if enabled, then
+     * diversify the result page if the app has a diversity rule
+     *
+     * @param appKey the application key
+     * @param query the search query (semantic rerank is skipped if null)
+     * @param candidates the recall results to rerank
+     * @return reranked results
+     */
+    public List<RecallResult> rerank(String appKey, String query, List<RecallResult> candidates) {
         if (candidates == null || candidates.isEmpty()) {
             return List.of();
         }
 
         SortRule rule = ruleLoader.getRule(appKey);
-        if (rule == null || rule.getFactors() == null || rule.getFactors().isEmpty()) {
+        boolean hasRule = rule != null && rule.getFactors() != null && !rule.getFactors().isEmpty();
+        boolean semantic = query != null && semanticReranker.isEnabled();
+        boolean diversify = diversifier.isEnabled(appKey);
+
+        if (!hasRule && !semantic && !diversify) {
             log.debug("No rerank rule found for appKey: {}, returning original results", appKey);
             return candidates;
         }
@@ -52,14 +87,25 @@ public class RerankEngine {
         Map<String, Map<String, Object>> docs = fetchDocuments(appKey, candidates);
 
         // Calculate new scores and rerank
-        List<RecallResult> reranked = candidates.stream()
-                .map(result -> {
-                    Map<String, Object> doc = docs.get(result.getId());
-                    float newScore = calculateScore(result, doc, rule);
-                    return new RecallResult(result.getId(), newScore, "rerank");
-                })
-                .sorted((a, b) -> Float.compare(b.getScore(), a.getScore()))
-                .collect(Collectors.toList());
+        List<RecallResult> reranked = candidates;
+        if (hasRule) {
+            reranked = candidates.stream()
+                    .map(result -> {
+                        Map<String, Object> doc = docs.get(result.getId());
+                        float newScore = calculateScore(result, doc, rule);
+                        return new RecallResult(result.getId(), newScore, "rerank");
+                    })
+                    .sorted((a, b) -> Float.compare(b.getScore(), a.getScore()))
+                    .collect(Collectors.toList());
+        }
+
+        if (semantic) {
+            reranked = semanticReranker.rerank(query, reranked, docs);
+        }
+
+        if (diversify) {
+            reranked = diversifier.diversify(appKey, reranked, docs);
+        }
 
         log.info("Reranked {} candidates for appKey: {}", reranked.size(), appKey);
         return reranked;
@@ -0,0 +1,259 @@
+package com.search.query.rerank;
+
+import com.search.common.vector.VectorKernels;
+import com.search.query.recall.RecallResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result diversifier applied after rerank
+ *
+ * Greedily selects results by Maximal Marginal Relevance over document
+ * vectors while enforcing per-field caps (e.g., at most 3 per category).
+ * Each round scans the remaining candidates once, so selecting K of N
+ * results costs O(N·K) similarity updates on flat primitive arrays.
+ *
+ * Results that are capped or fall outside the window are demoted, not
+ * dropped: they follow the diversified head in their original order.
+ */
+@Component
+public class ResultDiversifier {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultDiversifier.class);
+
+    private final DiversityRuleLoader ruleLoader;
+
+    public ResultDiversifier(DiversityRuleLoader ruleLoader) {
+        this.ruleLoader = ruleLoader;
+    }
+
+    /**
+     * Check if diversification is configured for an app
+     *
+     * @param appKey the application key
+     * @return true if the app has an enabled diversity rule
+     */
+    public boolean isEnabled(String appKey) {
+        return ruleLoader.getRule(appKey) != null;
+    }
+
+    /**
+     * Diversify results using the configured rule for the app
+     *
+     * @param appKey the application key
+     * @param ranked results sorted by descending score
+     * @param docs document sources by ID
+     * @return diversified results
+     */
+    public List<RecallResult> diversify(String appKey, List<RecallResult> ranked,
+                                        Map<String, Map<String, Object>> docs) {
+        return diversify(ruleLoader.getRule(appKey), ranked, docs);
+    }
+
+    /**
+     * Diversify results with a specific rule
+     *
+     * @param rule the diversity rule (results are returned unchanged if null)
+     * @param ranked results sorted by descending score
+     * @param docs document sources by ID
+     * @return diversified results; scores are kept, only the order changes
+     */
+    public List<RecallResult> diversify(DiversityRule rule, List<RecallResult> ranked,
+                                        Map<String, Map<String, Object>> docs) {
+        if (rule == null || ranked == null || ranked.size() < 2) {
+            return ranked;
+        }
+
+        int n = ranked.size();
+        int limit = rule.getWindow() > 0 ? Math.min(rule.getWindow(), n) : n;
+        double lambda = Math.max(0, Math.min(1, rule.getLambda()));
+        Map<String, Map<String, Object>> sources = docs != null ? docs : Map.of();
+
+        float[] relevance = normalizeScores(ranked);
+
+        // Vectors are only needed when novelty carries weight
+        int dim = 0;
+        float[] vectors = null;
+        boolean[] hasVector = null;
+        if (rule.getVectorField() != null && lambda < 1) {
+            dim = detectDimension(ranked, sources, rule.getVectorField());
+            if (dim > 0) {
+                vectors = new float[n * dim];
+                hasVector = new boolean[n];
+                loadVectors(ranked, sources, rule.getVectorField(), dim, vectors, hasVector);
+            }
+        }
+
+        // Per-field caps with values coded as ints: valueIds[f][i] is -1 for missing values
+        List<String> capFields = new ArrayList<>();
+        List<Integer> capLimits = new ArrayList<>();
+        if (rule.getCaps() != null) {
+            rule.getCaps().forEach((field, cap) -> {
+                if (field != null && cap != null && cap > 0) {
+                    capFields.add(field);
+                    capLimits.add(cap);
+                }
+            });
+        }
+        int fieldCount = capFields.size();
+        int[] limits = new int[fieldCount];
+        int[][] valueIds = new int[fieldCount][];
+        int[][] counts = new int[fieldCount][];
+        for (int f = 0; f < fieldCount; f++) {
+            limits[f] = capLimits.get(f);
+            valueIds[f] = new int[n];
+            counts[f] = new int[encodeValues(ranked, sources, capFields.get(f), valueIds[f])];
+        }
+
+        if (vectors == null && fieldCount == 0) {
+            return ranked;
+        }
+
+        boolean[] selected = new boolean[n];
+        float[] maxSimilarity = new float[n];
+        List<RecallResult> diversified = new ArrayList<>(n);
+
+        for (int k = 0; k < limit; k++) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < n; i++) {
+                if (selected[i] || isCapped(i, valueIds, counts, limits)) {
+                    continue;
+                }
+                double mmr = lambda * relevance[i] - (1 - lambda) * maxSimilarity[i];
+                if (mmr > bestScore) {
+                    bestScore = mmr;
+                    best = i;
+                }
+            }
+
+            // Every remaining candidate hit a cap
+            if (best < 0) {
+                break;
+            }
+
+            selected[best] = true;
+            diversified.add(ranked.get(best));
+
+            for (int f = 0; f < fieldCount; f++) {
+                int id = valueIds[f][best];
+                if (id >= 0) {
+                    counts[f][id]++;
+                }
+            }
+
+            if (vectors != null && hasVector[best]) {
+                int bestOffset = best * dim;
+                for (int i = 0; i < n; i++) {
+                    if (selected[i] || !hasVector[i]) {
+                        continue;
+                    }
+                    float dot = VectorKernels.dot(vectors, i * dim, vectors, bestOffset, dim);
+                    if (dot > maxSimilarity[i]) {
+                        maxSimilarity[i] = dot;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (!selected[i]) {
+                diversified.add(ranked.get(i));
+            }
+        }
+
+        log.debug("Diversified {} results: selected={}, capFields={}, mmr={}",
+                n, limit, capFields, vectors != null);
+        return diversified;
+    }
+
+    /**
+     * Min-max normalize scores into [0, 1] so lambda is comparable to cosine similarity
+     */
+    private float[] normalizeScores(List<RecallResult> ranked) {
+        int n = ranked.size();
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (RecallResult result : ranked) {
+            min = Math.min(min, result.getScore());
+            max = Math.max(max, result.getScore());
+        }
+
+        float[] relevance = new float[n];
+        float range = max - min;
+        for (int i = 0; i < n; i++) {
+            relevance[i] = range > 0 ? (ranked.get(i).getScore() - min) / range : 1.0f;
+        }
+        return relevance;
+    }
+
+    /**
+     * Find the vector dimension from the first document that has one
+     */
+    private int detectDimension(List<RecallResult> ranked, Map<String, Map<String, Object>> docs, String field) {
+        for (RecallResult result : ranked) {
+            Map<String, Object> doc = docs.get(result.getId());
+            Object value = doc != null ? doc.get(field) : null;
+            if (value instanceof List<?> list && !list.isEmpty()) {
+                return list.size();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Copy L2-normalized vectors into a flat array; documents without a usable vector are left as zeros
+     */
+    private void loadVectors(List<RecallResult> ranked, Map<String, Map<String, Object>> docs, String field,
+                             int dim, float[] vectors, boolean[] hasVector) {
+        for (int i = 0; i < ranked.size(); i++) {
+            Map<String, Object> doc = docs.get(ranked.get(i).getId());
+            Object value = doc != null ? doc.get(field) : null;
+            if (!(value instanceof List<?> list) || list.size() != dim) {
+                continue;
+            }
+
+            int offset = i * dim;
+            for (int d = 0; d < dim; d++) {
+                Object element = list.get(d);
+                vectors[offset + d] = element instanceof Number number ? number.floatValue() : 0;
+            }
+            hasVector[i] = VectorKernels.normalize(vectors, offset, dim);
+        }
+    }
+
+    /**
+     * Code field values as dense ints
+     *
+     * @return number of distinct values
+     */
+    private int encodeValues(List<RecallResult> ranked, Map<String, Map<String, Object>> docs,
+                             String field, int[] ids) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            Map<String, Object> doc = docs.get(ranked.get(i).getId());
+            Object value = doc != null ? doc.get(field) : null;
+            ids[i] = value != null
+                    ? dictionary.computeIfAbsent(String.valueOf(value), key -> dictionary.size())
+                    : -1;
+        }
+        return dictionary.size();
+    }
+
+    private boolean isCapped(int i, int[][] valueIds, int[][] counts, int[] limits) {
+        for (int f = 0; f < limits.length; f++) {
+            int id = valueIds[f][i];
+            if (id >= 0 && counts[f][id] >= limits[f]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package com.search.query.rerank;
+
+import com.search.query.recall.RecallResult;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Semantic reranker backed by the vector-service cross-encoder
+ *
+ * Sends the top candidates and the query to /api/v1/rerank and blends the
+ * cross-encoder score into the ranking. The call is bounded by a fixed time
+ * budget; on timeout or failure the candidates are returned unchanged.
+ */
+@Component
+public class SemanticReranker {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticReranker.class);
+
+    @Value("${rerank.semantic.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rerank.semantic.url:http://localhost:8083}")
+    private String vectorServiceUrl;
+
+    @Value("${rerank.semantic.top-n:50}")
+    private int topN;
+
+    @Value("${rerank.semantic.timeout-ms:150}")
+    private int timeoutMs;
+
+    @Value("${rerank.semantic.weight:0.7}")
+    private double weight;
+
+    @Value("${rerank.semantic.fields:title,description}")
+    private List<String> textFields;
+
+    private RestTemplate restTemplate;
+
+    @PostConstruct
+    public void init() {
+        // The whole budget goes to the read timeout; connecting should be near-instant in-cluster
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Math.min(timeoutMs, 50));
+        factory.setReadTimeout(timeoutMs);
+        this.restTemplate = new RestTemplate(factory);
+    }
+
+    /**
+     * Check if semantic rerank is enabled
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rerank the head of the candidate list with the cross-encoder
+     *
+     * @param query the search query
+     * @param candidates candidates sorted by descending score
+     * @param docs document sources by ID, used to build passages
+     * @return candidates re-sorted by blended score
+     */
+    public List<RecallResult> rerank(String query, List<RecallResult> candidates,
+                                     Map<String, Map<String, Object>> docs) {
+        if (!enabled || query == null || query.isEmpty() || candidates.isEmpty()) {
+            return candidates;
+        }
+
+        int head = Math.min(topN, candidates.size());
+        List<String> passages = new ArrayList<>(head);
+        for (int i = 0; i < head; i++) {
+            passages.add(buildPassage(docs.get(candidates.get(i).getId())));
+        }
+
+        float[] semanticScores;
+        long startTime = System.currentTimeMillis();
+        try {
+            semanticScores = callRerank(query, passages);
+        } catch (Exception e) {
+            log.warn("Semantic rerank skipped after {}ms: {}", System.currentTimeMillis() - startTime, e.getMessage());
+            return candidates;
+        }
+
+        if (semanticScores == null || semanticScores.length != head) {
+            log.warn("Semantic rerank returned unexpected result, keeping original order");
+            return candidates;
+        }
+
+        float maxScore = 0;
+        for (RecallResult candidate : candidates) {
+            maxScore = Math.max(maxScore, candidate.getScore());
+        }
+        if (maxScore <= 0) {
+            maxScore = 1.0f;
+        }
+
+        // Head: blend cross-encoder and prior score; tail: prior only, as if its semantic score were zero
+        List<RecallResult> blended = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            RecallResult candidate = candidates.get(i);
+            double prior = candidate.getScore() / maxScore;
+            double semantic = i < head ? semanticScores[i] : 0;
+            float score = (float) (weight * semantic + (1 - weight) * prior);
+            blended.add(new RecallResult(candidate.getId(), score, "semantic"));
+        }
+        blended.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+
+        log.debug("Semantic rerank of {} candidates took {}ms", head, System.currentTimeMillis() - startTime);
+        return blended;
+    }
+
+    /**
+     * Call the vector-service rerank endpoint
+     *
+     * @return scores in passage order
+     */
+    @SuppressWarnings("unchecked")
+    private float[] callRerank(String query, List<String> passages) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("query", query);
+        request.put("passages", passages);
+
+        Map<String, Object> response = restTemplate.postForObject(
+                vectorServiceUrl + "/api/v1/rerank", request, Map.class);
+        if (response == null || !response.containsKey("results")) {
+            return null;
+        }
+
+        // Results come back sorted by score; put them back into passage order
+        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+        float[] scores = new float[passages.size()];
+        for (Map<String, Object> result : results) {
+            int index = ((Number) result.get("index")).intValue();
+            if (index >= 0 && index < scores.length) {
+                scores[index] = ((Number) result.get("score")).floatValue();
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Build the passage text for a document from the configured fields
+     */
+    private String buildPassage(Map<String, Object> doc) {
+        if (doc == null) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String field : textFields) {
+            Object value = doc.get(field);
+            if (value != null) {
+                if (sb.length() > 0) {
+                    sb.append(" ");
+                }
+                sb.append(value);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,15 +1,20 @@
 package com.search.query.service;
 
+import com.search.query.analysis.QueryAnalyzer;
+import com.search.query.model.SearchContext;
 import com.search.query.model.SearchRequest;
 import com.search.query.model.SearchResponse;
+import com.search.query.spell.SpellingCorrector;
+import com.search.query.suggest.SuggestService;
+import com.search.query.synonym.SynonymExpander;
 import org.opensearch.client.opensearch.OpenSearchClient;
-import org.opensearch.client.opensearch.core.SearchRequest as OSSearchRequest;
-import org.opensearch.client.opensearch.core.SearchResponse as OSSearchResponse;
 import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.util.ObjectBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,10 +29,19 @@ public class SearchService {
     private static final Logger log = LoggerFactory.getLogger(SearchService.class);
 
     private final OpenSearchClient client;
+    private final QueryAnalyzer queryAnalyzer;
+    private final SynonymExpander synonymExpander;
+    private final SpellingCorrector spellingCorrector;
+    private final SuggestService suggestService;
     private final String indexPrefix;
 
-    public SearchService(OpenSearchClient client) {
+    public SearchService(OpenSearchClient client, QueryAnalyzer queryAnalyzer, SynonymExpander synonymExpander,
+                         SpellingCorrector spellingCorrector, SuggestService suggestService) {
         this.client = client;
+        this.queryAnalyzer = queryAnalyzer;
+        this.synonymExpander = synonymExpander;
+        this.spellingCorrector = spellingCorrector;
+        this.suggestService = suggestService;
         this.indexPrefix = "search";
     }
 
@@ -38,38 +52,30 @@ public class SearchService {
      * @return search response with results
      */
     public SearchResponse search(SearchRequest request) {
-        long startTime = System.currentTimeMillis();
+        SearchContext context = new SearchContext(request, getIndexName(request.getAppKey()),
+                queryAnalyzer.analyze(request.getQuery()));
+        context.setKeywordQuery(synonymExpander.expand(request.getAppKey(), context.getAnalyzedQuery()));
+        long startTime = context.getStartTime();
 
         try {
-            String indexName = getIndexName(request.getAppKey());
-
-            // Build the OpenSearch query
-            OSSearchRequest.Builder searchBuilder = new OSSearchRequest.Builder()
-                    .index(indexName)
-                    .from((request.getPage() - 1) * request.getPageSize())
-                    .size(request.getPageSize());
-
-            // Build query based on request
-            searchBuilder.query(q -> buildQuery(request, q));
-
-            // Add sorting if specified
-            if (request.getSort() != null && request.getSort().getField() != null) {
-                String order = request.getSort().getOrder();
-                boolean desc = "desc".equalsIgnoreCase(order);
-                searchBuilder.sort(s -> s
-                        .field(f -> f
-                                .field(request.getSort().getField())
-                                .order(desc ? org.opensearch.client.opensearch._types.SortOrder.Desc :
-                                              org.opensearch.client.opensearch._types.SortOrder.Asc)
-                        )
-                );
+            org.opensearch.client.opensearch.core.SearchResponse<Map> response =
+                    executeSearch(context, context.getKeywordQuery());
+            long total = response.hits().total().value();
+
+            // Retry with a spelling-corrected query only when the original one found too little
+            if (context.getQueryText() != null && spellingCorrector.shouldCorrect(total)) {
+                String corrected = spellingCorrector.correct(request.getAppKey(), context.getAnalyzedQuery());
+                if (corrected != null) {
+                    context.setDidYouMean(corrected);
+                    org.opensearch.client.opensearch.core.SearchResponse<Map> retried = executeSearch(context,
+                            synonymExpander.expand(request.getAppKey(), queryAnalyzer.analyze(corrected)));
+                    if (retried.hits().total().value() > total) {
+                        response = retried;
+                        context.setCorrectedQuery(corrected);
+                    }
+                }
             }
 
-            OSSearchResponse<Map> response = client.search(
-                    searchBuilder.build(),
-                    Map.class
-            );
-
             // Build response
             SearchResponse result = new SearchResponse();
             result.setTotal(response.hits().total().value());
@@ -79,9 +85,18 @@ public class SearchService {
             result.setHits(response.hits().hits().stream()
                     .map(this::convertHit)
                     .collect(Collectors.toList()));
+            result.setDidYouMean(context.getDidYouMean());
+            result.setCorrectedQuery(context.getCorrectedQuery());
+
+            // Queries that found something become completion candidates
+            if (result.getTotal() > 0) {
+                suggestService.recordQuery(request.getAppKey(),
+                        context.getCorrectedQuery() != null ? context.getCorrectedQuery() : context.getNormalizedQuery());
+            }
 
-            log.info("Search completed: appKey={}, query={}, total={}, took={}ms",
-                    request.getAppKey(), request.getQuery(), result.getTotal(), result.getTook());
+            log.info("Search completed: appKey={}, query={}, routing={}, corrected={}, total={}, took={}ms",
+                    request.getAppKey(), context.getNormalizedQuery(), context.getAnalyzedQuery().getRouting(),
+                    context.getCorrectedQuery(), result.getTotal(), result.getTook());
 
             return result;
 
@@ -92,32 +107,64 @@ public class SearchService {
     }
 
     /**
-     * Build the query DSL from search request
+     * Run one query against the index of the context
+     */
+    private org.opensearch.client.opensearch.core.SearchResponse<Map> executeSearch(
+            SearchContext context, String queryText) throws IOException {
+        SearchRequest request = context.getRequest();
+
+        // Build the OpenSearch query
+        org.opensearch.client.opensearch.core.SearchRequest.Builder searchBuilder =
+                new org.opensearch.client.opensearch.core.SearchRequest.Builder()
+                .index(context.getIndex())
+                .from((request.getPage() - 1) * request.getPageSize())
+                .size(request.getPageSize());
+
+        // Build query based on request
+        searchBuilder.query(q -> buildQuery(queryText, q));
+
+        // Add sorting if specified
+        if (request.getSort() != null && request.getSort().getField() != null) {
+            String order = request.getSort().getOrder();
+            boolean desc = "desc".equalsIgnoreCase(order);
+            searchBuilder.sort(s -> s
+                    .field(f -> f
+                            .field(request.getSort().getField())
+                            .order(desc ? org.opensearch.client.opensearch._types.SortOrder.Desc :
+                                          org.opensearch.client.opensearch._types.SortOrder.Asc)
+                    )
+            );
+        }
+
+        return client.search(searchBuilder.build(), Map.class);
+    }
+
+    /**
+     * Build the query DSL for the keyword query
      */
-    private org.opensearch.client.opensearch._types.query_dsl.Query buildQuery(
-            SearchRequest request,
+    private ObjectBuilder<org.opensearch.client.opensearch._types.query_dsl.Query> buildQuery(
+            String queryText,
             org.opensearch.client.opensearch._types.query_dsl.Query.Builder queryBuilder) {
 
-        if (request.getQuery() == null || request.getQuery().isEmpty()) {
-            return queryBuilder.matchAll(m -> m).build();
+        if (queryText == null || queryText.isEmpty()) {
+            return queryBuilder.matchAll(m -> m);
         }
 
         // Build a simple string query for text search
-        return queryBuilder.simpleString(s -> s
+        return queryBuilder.simpleQueryString(s -> s
                 .fields("title^2", "description", "content")
-                .query(request.getQuery())
-        ).build();
+                .query(queryText)
+        );
     }
 
     /**
      * Convert OpenSearch hit to SearchResponse hit
      */
-    private SearchResponse.Hit convertHit(Map<String, Object> osHit) {
-        // Note: The actual Hit type from OpenSearch has more structure
-        // This is simplified for the basic implementation
+    private SearchResponse.Hit convertHit(Hit<Map> osHit) {
         SearchResponse.Hit hit = new SearchResponse.Hit();
-        // In real implementation, extract from proper Hit object
-        hit.setSource(osHit);
+        hit.setId(osHit.id());
+        hit.setScore(osHit.score() != null ? osHit.score().floatValue() : 0.0f);
+        hit.setSource(osHit.source());
         return hit;
     }
 
@@ -0,0 +1,274 @@
+package com.search.query.spell;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.search.query.analysis.AnalyzedQuery;
+import com.search.query.analysis.IndexTextScanner;
+import com.search.query.analysis.QueryAnalyzer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spelling corrector backed by per-app SymSpell indexes
+ *
+ * Vocabularies are built from term frequencies of the indexed text fields
+ * on a background thread: on the first request for an app, and then on a
+ * fixed schedule. Until an app's index is ready, no corrections are made.
+ * Only apps with a search index get a vocabulary, so refreshes only cover
+ * real apps however many app keys clients send.
+ * Only Latin-script words are corrected; CJK terms and tokens with digits
+ * (model numbers, sizes) are left alone.
+ */
+@Component
+public class SpellingCorrector {
+
+    private static final Logger log = LoggerFactory.getLogger(SpellingCorrector.class);
+
+    /**
+     * Builds waiting for the refresh thread; further requests are dropped
+     */
+    private static final int MAX_QUEUED_BUILDS = 64;
+
+    /**
+     * Apps whose failed or pending on-demand build is remembered
+     */
+    private static final long MAX_TRACKED_ATTEMPTS = 10_000;
+
+    @Value("${spell.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spell.min-hits:5}")
+    private int minHits;
+
+    @Value("${spell.max-edit-distance:2}")
+    private int maxEditDistance;
+
+    @Value("${spell.prefix-length:7}")
+    private int prefixLength;
+
+    @Value("${spell.min-term-frequency:2}")
+    private int minTermFrequency;
+
+    @Value("${spell.fields:title,description}")
+    private List<String> fields;
+
+    @Value("${spell.scan.max-docs:100000}")
+    private int scanMaxDocs;
+
+    @Value("${spell.scan.batch-size:1000}")
+    private int scanBatchSize;
+
+    @Value("${spell.retry-interval-ms:60000}")
+    private long retryIntervalMs;
+
+    private final IndexTextScanner scanner;
+    private final QueryAnalyzer queryAnalyzer;
+
+    private final Map<String, SymSpellIndex> indexes = new ConcurrentHashMap<>();
+    private final Set<String> building = ConcurrentHashMap.newKeySet();
+    private Cache<String, Boolean> recentAttempts;
+    private ExecutorService executor;
+
+    public SpellingCorrector(IndexTextScanner scanner, QueryAnalyzer queryAnalyzer) {
+        this.scanner = scanner;
+        this.queryAnalyzer = queryAnalyzer;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Unknown apps and missing indices are retried at most once per interval
+        recentAttempts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(retryIntervalMs))
+                .maximumSize(MAX_TRACKED_ATTEMPTS)
+                .build();
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_BUILDS), r -> {
+                    Thread thread = new Thread(r, "spell-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check if a result count is low enough to try a corrected query
+     *
+     * @param hits number of hits of the original query
+     * @return true if correction is enabled and hits are below the threshold
+     */
+    public boolean shouldCorrect(long hits) {
+        return enabled && hits < minHits;
+    }
+
+    /**
+     * Correct the terms of a query
+     *
+     * @param appKey the application key
+     * @param query the analyzed query
+     * @return the corrected query text, or null if nothing was corrected
+     */
+    public String correct(String appKey, AnalyzedQuery query) {
+        if (!enabled || appKey == null || query == null || query.isEmpty()) {
+            return null;
+        }
+
+        SymSpellIndex index = indexes.get(appKey);
+        if (index == null) {
+            if (recentAttempts.asMap().putIfAbsent(appKey, Boolean.TRUE) == null) {
+                scheduleBuild(appKey);
+            }
+            return null;
+        }
+
+        List<String> corrected = new ArrayList<>(query.getTerms().size());
+        boolean changed = false;
+        for (String term : query.getTerms()) {
+            if (!isCorrectable(term)) {
+                corrected.add(term);
+                continue;
+            }
+
+            // Short words tolerate a single edit only
+            int maxDistance = term.length() <= 4 ? 1 : maxEditDistance;
+            SymSpellIndex.Suggestion suggestion = index.lookup(term, maxDistance);
+            if (suggestion != null && suggestion.distance() > 0) {
+                corrected.add(suggestion.term());
+                changed = true;
+            } else {
+                corrected.add(term);
+            }
+        }
+
+        return changed ? String.join(" ", corrected) : null;
+    }
+
+    /**
+     * Install an index for an app
+     *
+     * @param appKey the application key
+     * @param index the index
+     */
+    public void install(String appKey, SymSpellIndex index) {
+        indexes.put(appKey, index);
+    }
+
+    /**
+     * Rebuild the vocabularies of all apps that have one
+     */
+    @Scheduled(fixedDelayString = "${spell.refresh-interval-ms:600000}",
+            initialDelayString = "${spell.refresh-interval-ms:600000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        for (String appKey : indexes.keySet()) {
+            scheduleBuild(appKey);
+        }
+    }
+
+    private void scheduleBuild(String appKey) {
+        if (!building.add(appKey)) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                try {
+                    build(appKey);
+                } catch (Exception e) {
+                    log.warn("Failed to build spelling index: appKey={}", appKey, e);
+                } finally {
+                    building.remove(appKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            building.remove(appKey);
+        }
+    }
+
+    private void build(String appKey) throws IOException {
+        long startTime = System.currentTimeMillis();
+        String index = "search_" + appKey.toLowerCase();
+        if (!scanner.exists(index)) {
+            if (indexes.remove(appKey) != null) {
+                log.info("Dropped spelling index of deleted index: appKey={}, index={}", appKey, index);
+            } else {
+                log.debug("No index for spelling vocabulary: appKey={}, index={}", appKey, index);
+            }
+            return;
+        }
+
+        Map<String, Long> frequencies = new HashMap<>();
+        if (collectTerms(index, frequencies) == 0) {
+            // A failed scan looks empty too; keep serving the current vocabulary
+            log.warn("No documents scanned for spelling vocabulary: appKey={}, index={}", appKey, index);
+            return;
+        }
+        SymSpellIndex spellIndex = SymSpellIndex.build(frequencies, maxEditDistance, prefixLength);
+        indexes.put(appKey, spellIndex);
+        log.info("Built spelling index: appKey={}, terms={}, deletes={}, took={}ms",
+                appKey, spellIndex.getTermCount(), spellIndex.getDeleteCount(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Count correctable terms of the indexed text fields
+     *
+     * @return number of documents scanned
+     */
+    private int collectTerms(String index, Map<String, Long> frequencies) {
+        int scanned = scanner.scan(index, fields, scanMaxDocs, scanBatchSize, source -> {
+            for (String field : fields) {
+                IndexTextScanner.forEachText(source, field, text -> {
+                    for (String term : queryAnalyzer.analyzeUncached(text).getTerms()) {
+                        if (isCorrectable(term)) {
+                            frequencies.merge(term, 1L, Long::sum);
+                        }
+                    }
+                });
+            }
+        });
+
+        // Rare terms are mostly typos in the data itself
+        frequencies.values().removeIf(frequency -> frequency < minTermFrequency);
+        return scanned;
+    }
+
+    /**
+     * Latin letters only, at least three of them
+     */
+    static boolean isCorrectable(String term) {
+        if (term.length() < 3) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (!Character.isLetter(c) || Character.UnicodeScript.of(c) != Character.UnicodeScript.LATIN) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,238 @@
+package com.search.query.spell;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable SymSpell-style deletion index
+ *
+ * Every dictionary term is indexed under all strings obtained by deleting
+ * up to maxEditDistance characters from its prefix. A lookup generates the
+ * same deletes for the input word, so candidates are found with hash
+ * lookups only; each candidate is then verified with a bounded
+ * Damerau-Levenshtein (optimal string alignment) distance.
+ *
+ * Deletes are stored as (hash, termId) pairs packed into a sorted long[],
+ * so the index holds no delete strings and no boxed values. Hash
+ * collisions only add candidates, which the distance check rejects.
+ */
+public final class SymSpellIndex {
+
+    /**
+     * Correction candidate
+     */
+    public record Suggestion(String term, int distance, long frequency) {
+    }
+
+    private final String[] terms;
+    private final long[] frequencies;
+    private final Map<String, Integer> termIds;
+    private final long[] deletes;
+    private final int maxEditDistance;
+    private final int prefixLength;
+
+    private SymSpellIndex(String[] terms, long[] frequencies, Map<String, Integer> termIds,
+                          long[] deletes, int maxEditDistance, int prefixLength) {
+        this.terms = terms;
+        this.frequencies = frequencies;
+        this.termIds = termIds;
+        this.deletes = deletes;
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Build an index from term frequencies
+     *
+     * @param termFrequencies term to frequency
+     * @param maxEditDistance maximum edit distance supported by lookups
+     * @param prefixLength number of leading characters used to generate deletes
+     * @return the index
+     */
+    public static SymSpellIndex build(Map<String, Long> termFrequencies, int maxEditDistance, int prefixLength) {
+        int size = termFrequencies.size();
+        String[] terms = new String[size];
+        long[] frequencies = new long[size];
+        Map<String, Integer> termIds = new HashMap<>(size * 2);
+
+        long[] pairs = new long[Math.max(16, size * 8)];
+        int pairCount = 0;
+        int id = 0;
+        Set<String> termDeletes = new HashSet<>();
+
+        for (Map.Entry<String, Long> entry : termFrequencies.entrySet()) {
+            String term = entry.getKey();
+            terms[id] = term;
+            frequencies[id] = entry.getValue();
+            termIds.put(term, id);
+
+            termDeletes.clear();
+            generateDeletes(prefix(term, prefixLength), maxEditDistance, termDeletes);
+            for (String delete : termDeletes) {
+                if (pairCount == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[pairCount++] = pack(delete.hashCode(), id);
+            }
+            id++;
+        }
+
+        long[] deletes = Arrays.copyOf(pairs, pairCount);
+        Arrays.sort(deletes);
+        return new SymSpellIndex(terms, frequencies, termIds, deletes, maxEditDistance, prefixLength);
+    }
+
+    /**
+     * Find the best correction for a word
+     *
+     * @param word the (normalized) word
+     * @param maxDistance maximum edit distance, capped at the index maximum
+     * @return the closest term (highest frequency on ties), a distance-0
+     *         suggestion if the word is known, or null if nothing is close enough
+     */
+    public Suggestion lookup(String word, int maxDistance) {
+        Integer exact = termIds.get(word);
+        if (exact != null) {
+            return new Suggestion(word, 0, frequencies[exact]);
+        }
+
+        int limit = Math.min(maxDistance, maxEditDistance);
+        if (limit <= 0 || word.isEmpty()) {
+            return null;
+        }
+
+        Set<String> candidates = new HashSet<>();
+        generateDeletes(prefix(word, prefixLength), limit, candidates);
+
+        Set<Integer> checked = new HashSet<>();
+        int bestId = -1;
+        int bestDistance = Integer.MAX_VALUE;
+
+        for (String candidate : candidates) {
+            int hash = candidate.hashCode();
+            for (int i = lowerBound(pack(hash, 0)); i < deletes.length && (int) (deletes[i] >> 32) == hash; i++) {
+                int termId = (int) deletes[i];
+                if (!checked.add(termId)) {
+                    continue;
+                }
+
+                String term = terms[termId];
+                if (Math.abs(term.length() - word.length()) > limit) {
+                    continue;
+                }
+
+                int distance = distance(word, term, Math.min(limit, bestDistance));
+                if (distance < 0) {
+                    continue;
+                }
+                if (distance < bestDistance
+                        || (distance == bestDistance && frequencies[termId] > frequencies[bestId])) {
+                    bestId = termId;
+                    bestDistance = distance;
+                }
+            }
+        }
+
+        return bestId >= 0 ? new Suggestion(terms[bestId], bestDistance, frequencies[bestId]) : null;
+    }
+
+    /**
+     * Check if a term is in the dictionary
+     *
+     * @param term the term
+     * @return true if known
+     */
+    public boolean contains(String term) {
+        return termIds.containsKey(term);
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    public int getDeleteCount() {
+        return deletes.length;
+    }
+
+    /**
+     * Optimal string alignment distance with early exit
+     *
+     * @return the distance, or -1 if it exceeds max
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return -1;
+        }
+
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return -1;
+            }
+
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+
+        return previous[m] <= max ? previous[m] : -1;
+    }
+
+    private static void generateDeletes(String word, int distance, Set<String> out) {
+        out.add(word);
+        if (distance == 0 || word.length() <= 1) {
+            return;
+        }
+        // Deletes are few (prefix length and distance are small), so no memoization across levels
+        for (int i = 0; i < word.length(); i++) {
+            generateDeletes(word.substring(0, i) + word.substring(i + 1), distance - 1, out);
+        }
+    }
+
+    private static String prefix(String word, int prefixLength) {
+        return word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+    }
+
+    private static long pack(int hash, int termId) {
+        return ((long) hash << 32) | (termId & 0xFFFFFFFFL);
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = deletes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (deletes[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
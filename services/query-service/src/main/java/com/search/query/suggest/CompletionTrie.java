@@ -0,0 +1,297 @@
+package com.search.query.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable frequency-weighted compressed trie for prefix completion
+ *
+ * Chains of single-child nodes are collapsed into one edge whose label is
+ * a slice of a shared char buffer. Every node stores the ids of its
+ * top-K completions, precomputed at build time, so a lookup is a walk
+ * down at most prefix-length edges followed by a copy of a stored list;
+ * no subtree is visited at query time. Nodes, edges and top-K lists live
+ * in flat primitive arrays.
+ */
+public final class CompletionTrie {
+
+    /**
+     * Completion with its weight
+     */
+    public record Completion(String text, long weight) {
+    }
+
+    private final String[] entries;
+    private final long[] weights;
+
+    private final char[] labelBuffer;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] children;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] topEntries;
+
+    private CompletionTrie(String[] entries, long[] weights, char[] labelBuffer, int[] labelStart,
+                           int[] labelLength, int[] childStart, int[] childCount, int[] children,
+                           int[] topStart, int[] topCount, int[] topEntries) {
+        this.entries = entries;
+        this.weights = weights;
+        this.labelBuffer = labelBuffer;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.childStart = childStart;
+        this.childCount = childCount;
+        this.children = children;
+        this.topStart = topStart;
+        this.topCount = topCount;
+        this.topEntries = topEntries;
+    }
+
+    /**
+     * Build a trie from weighted phrases
+     *
+     * @param phraseWeights normalized phrase to weight
+     * @param topK number of completions kept per node
+     * @return the trie
+     */
+    public static CompletionTrie build(Map<String, Long> phraseWeights, int topK) {
+        String[] entries = phraseWeights.keySet().stream()
+                .filter(phrase -> phrase != null && !phrase.isEmpty())
+                .sorted()
+                .toArray(String[]::new);
+        long[] weights = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            weights[i] = phraseWeights.get(entries[i]);
+        }
+
+        Builder builder = new Builder(entries, weights, Math.max(1, topK));
+        builder.buildNode(0, entries.length, 0);
+        return builder.freeze();
+    }
+
+    /**
+     * Complete a prefix
+     *
+     * @param prefix the normalized prefix
+     * @param limit maximum number of completions (capped at the build-time top-K)
+     * @return completions by descending weight
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        int node = findNode(prefix);
+        if (node < 0) {
+            return List.of();
+        }
+
+        int count = Math.min(limit, topCount[node]);
+        List<Completion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int entry = topEntries[topStart[node] + i];
+            result.add(new Completion(entries[entry], weights[entry]));
+        }
+        return result;
+    }
+
+    public int getEntryCount() {
+        return entries.length;
+    }
+
+    public int getNodeCount() {
+        return labelStart.length;
+    }
+
+    /**
+     * Walk down the edges matching the prefix
+     *
+     * @return the node whose subtree holds all completions of the prefix, or -1
+     */
+    private int findNode(String prefix) {
+        int node = 0;
+        int position = 0;
+        while (position < prefix.length()) {
+            int child = findChild(node, prefix.charAt(position));
+            if (child < 0) {
+                return -1;
+            }
+
+            int start = labelStart[child];
+            int length = labelLength[child];
+            int compare = Math.min(length, prefix.length() - position);
+            for (int i = 0; i < compare; i++) {
+                if (labelBuffer[start + i] != prefix.charAt(position + i)) {
+                    return -1;
+                }
+            }
+            position += compare;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Binary search the children of a node by the first char of their edge label
+     */
+    private int findChild(int node, char c) {
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int child = children[mid];
+            char first = labelBuffer[labelStart[child]];
+            if (first < c) {
+                low = mid + 1;
+            } else if (first > c) {
+                high = mid - 1;
+            } else {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "CompletionTrie{entries=" + entries.length + ", nodes=" + getNodeCount() + "}";
+    }
+
+    /**
+     * Recursive builder over the sorted phrases
+     *
+     * A node covers a range of phrases sharing a prefix; its edge label
+     * extends that prefix to the longest common prefix of the range.
+     */
+    private static final class Builder {
+
+        private final String[] entries;
+        private final long[] weights;
+        private final int topK;
+
+        private final StringBuilder labels = new StringBuilder();
+        private int[] labelStart = new int[16];
+        private int[] labelLength = new int[16];
+        private int[][] nodeChildren = new int[16][];
+        private int[][] nodeTop = new int[16][];
+        private int nodeCount;
+
+        Builder(String[] entries, long[] weights, int topK) {
+            this.entries = entries;
+            this.weights = weights;
+            this.topK = topK;
+        }
+
+        /**
+         * Build the node for entries[lo, hi), whose edge starts at depth
+         *
+         * @return node id
+         */
+        int buildNode(int lo, int hi, int depth) {
+            int node = allocate();
+
+            // The root has an empty label; other nodes extend to the range's common prefix
+            int end = depth;
+            if (lo < hi && node != 0) {
+                end = commonPrefixLength(entries[lo], entries[hi - 1]);
+            }
+            labelStart[node] = labels.length();
+            labelLength[node] = end - depth;
+            if (end > depth) {
+                labels.append(entries[lo], depth, end);
+            }
+
+            // Sorted order puts a phrase that ends at this node first
+            int first = lo;
+            List<Integer> candidates = new ArrayList<>();
+            if (first < hi && entries[first].length() == end) {
+                candidates.add(first);
+                first++;
+            }
+
+            List<Integer> childIds = new ArrayList<>();
+            int groupStart = first;
+            while (groupStart < hi) {
+                char c = entries[groupStart].charAt(end);
+                int groupEnd = groupStart + 1;
+                while (groupEnd < hi && entries[groupEnd].charAt(end) == c) {
+                    groupEnd++;
+                }
+                int child = buildNode(groupStart, groupEnd, end);
+                childIds.add(child);
+                for (int entry : nodeTop[child]) {
+                    candidates.add(entry);
+                }
+                groupStart = groupEnd;
+            }
+
+            nodeChildren[node] = childIds.stream().mapToInt(Integer::intValue).toArray();
+            nodeTop[node] = candidates.stream()
+                    .sorted((a, b) -> weights[a] != weights[b]
+                            ? Long.compare(weights[b], weights[a])
+                            : entries[a].compareTo(entries[b]))
+                    .limit(topK)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            return node;
+        }
+
+        CompletionTrie freeze() {
+            int[] childStart = new int[nodeCount];
+            int[] childCount = new int[nodeCount];
+            int[] topStart = new int[nodeCount];
+            int[] topCount = new int[nodeCount];
+
+            int totalChildren = 0;
+            int totalTop = 0;
+            for (int n = 0; n < nodeCount; n++) {
+                totalChildren += nodeChildren[n].length;
+                totalTop += nodeTop[n].length;
+            }
+
+            int[] children = new int[totalChildren];
+            int[] topEntries = new int[totalTop];
+            int c = 0;
+            int t = 0;
+            for (int n = 0; n < nodeCount; n++) {
+                childStart[n] = c;
+                childCount[n] = nodeChildren[n].length;
+                System.arraycopy(nodeChildren[n], 0, children, c, childCount[n]);
+                c += childCount[n];
+
+                topStart[n] = t;
+                topCount[n] = nodeTop[n].length;
+                System.arraycopy(nodeTop[n], 0, topEntries, t, topCount[n]);
+                t += topCount[n];
+            }
+
+            char[] labelBuffer = new char[labels.length()];
+            labels.getChars(0, labels.length(), labelBuffer, 0);
+
+            return new CompletionTrie(entries, weights, labelBuffer,
+                    Arrays.copyOf(labelStart, nodeCount), Arrays.copyOf(labelLength, nodeCount),
+                    childStart, childCount, children, topStart, topCount, topEntries);
+        }
+
+        private int allocate() {
+            if (nodeCount == labelStart.length) {
+                int capacity = nodeCount * 2;
+                labelStart = Arrays.copyOf(labelStart, capacity);
+                labelLength = Arrays.copyOf(labelLength, capacity);
+                nodeChildren = Arrays.copyOf(nodeChildren, capacity);
+                nodeTop = Arrays.copyOf(nodeTop, capacity);
+            }
+            return nodeCount++;
+        }
+
+        private static int commonPrefixLength(String a, String b) {
+            int max = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.search.query.suggest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.search.query.analysis.IndexTextScanner;
+import com.search.query.analysis.QueryAnalyzer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Suggest service for prefix autocomplete
+ *
+ * Serves completions from one CompletionTrie per app, built from indexed
+ * titles and from queries that returned results. Tries are rebuilt on a
+ * background thread and replaced as a whole, so lookups never see a
+ * partially built trie and never touch the cluster. Only apps with an
+ * index get a trie: a build for an app without one installs nothing, and
+ * drops the app's trie if its index was deleted, so refreshes only cover
+ * real apps however many app keys clients send.
+ */
+@Service
+public class SuggestService {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestService.class);
+
+    /**
+     * Builds waiting for the refresh thread; further requests are dropped
+     */
+    private static final int MAX_QUEUED_BUILDS = 64;
+
+    /**
+     * Apps whose failed or pending on-demand build is remembered
+     */
+    private static final long MAX_TRACKED_ATTEMPTS = 10_000;
+
+    @Value("${suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${suggest.top-k:10}")
+    private int topK;
+
+    @Value("${suggest.max-phrase-length:64}")
+    private int maxPhraseLength;
+
+    @Value("${suggest.title-field:title}")
+    private String titleField;
+
+    @Value("${suggest.popularity-field:sales}")
+    private String popularityField;
+
+    @Value("${suggest.title-weight:1}")
+    private long titleWeight;
+
+    @Value("${suggest.query-weight:5}")
+    private long queryWeight;
+
+    @Value("${suggest.min-query-count:2}")
+    private long minQueryCount;
+
+    @Value("${suggest.max-queries:50000}")
+    private long maxQueries;
+
+    @Value("${suggest.scan.max-docs:100000}")
+    private int scanMaxDocs;
+
+    @Value("${suggest.scan.batch-size:1000}")
+    private int scanBatchSize;
+
+    @Value("${suggest.retry-interval-ms:60000}")
+    private long retryIntervalMs;
+
+    private final IndexTextScanner scanner;
+    private final QueryAnalyzer queryAnalyzer;
+
+    private final Map<String, CompletionTrie> tries = new ConcurrentHashMap<>();
+    private final Map<String, Cache<String, LongAdder>> queryCounts = new ConcurrentHashMap<>();
+    private final Set<String> building = ConcurrentHashMap.newKeySet();
+    private Cache<String, Boolean> recentAttempts;
+    private ExecutorService executor;
+
+    public SuggestService(IndexTextScanner scanner, QueryAnalyzer queryAnalyzer) {
+        this.scanner = scanner;
+        this.queryAnalyzer = queryAnalyzer;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Unknown apps and missing indices are retried at most once per interval
+        recentAttempts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(retryIntervalMs))
+                .maximumSize(MAX_TRACKED_ATTEMPTS)
+                .build();
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_BUILDS), r -> {
+                    Thread thread = new Thread(r, "suggest-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Complete a prefix
+     *
+     * @param appKey the application key
+     * @param prefix the raw prefix as typed
+     * @param size maximum number of completions, at most {@link #getMaxSize()}
+     * @return completions by descending weight; empty until the app's trie is built
+     */
+    public List<CompletionTrie.Completion> suggest(String appKey, String prefix, int size) {
+        if (!enabled || appKey == null || prefix == null) {
+            return List.of();
+        }
+
+        CompletionTrie trie = tries.get(appKey);
+        if (trie == null) {
+            if (recentAttempts.asMap().putIfAbsent(appKey, Boolean.TRUE) == null) {
+                scheduleBuild(appKey);
+            }
+            return List.of();
+        }
+
+        String normalized = queryAnalyzer.normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return trie.complete(normalized, Math.min(size, topK));
+    }
+
+    /**
+     * Get the most completions a lookup can return
+     *
+     * @return completions precomputed per trie node
+     */
+    public int getMaxSize() {
+        return topK;
+    }
+
+    /**
+     * Record a query that returned results, as a completion candidate
+     *
+     * @param appKey the application key
+     * @param normalizedQuery the normalized query
+     */
+    public void recordQuery(String appKey, String normalizedQuery) {
+        if (!enabled || appKey == null || normalizedQuery == null
+                || normalizedQuery.isEmpty() || normalizedQuery.length() > maxPhraseLength) {
+            return;
+        }
+
+        // Bounded per app: rare queries are evicted first
+        queryCounts.computeIfAbsent(appKey, key -> Caffeine.newBuilder()
+                        .maximumSize(maxQueries)
+                        .build())
+                .get(normalizedQuery, query -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Install a trie for an app
+     *
+     * @param appKey the application key
+     * @param trie the trie
+     */
+    public void install(String appKey, CompletionTrie trie) {
+        tries.put(appKey, trie);
+    }
+
+    /**
+     * Rebuild the tries of all apps that have one
+     */
+    @Scheduled(fixedDelayString = "${suggest.refresh-interval-ms:300000}",
+            initialDelayString = "${suggest.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        for (String appKey : tries.keySet()) {
+            scheduleBuild(appKey);
+        }
+    }
+
+    private void scheduleBuild(String appKey) {
+        if (!building.add(appKey)) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                try {
+                    build(appKey);
+                } catch (Exception e) {
+                    log.warn("Failed to build completion trie: appKey={}", appKey, e);
+                } finally {
+                    building.remove(appKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            building.remove(appKey);
+        }
+    }
+
+    private void build(String appKey) throws IOException {
+        long startTime = System.currentTimeMillis();
+        String index = "search_" + appKey.toLowerCase();
+        if (!scanner.exists(index)) {
+            queryCounts.remove(appKey);
+            if (tries.remove(appKey) != null) {
+                log.info("Dropped completion trie of deleted index: appKey={}, index={}", appKey, index);
+            } else {
+                log.debug("No index for completion trie: appKey={}, index={}", appKey, index);
+            }
+            return;
+        }
+
+        Map<String, Long> phrases = new HashMap<>();
+        if (collectPhrases(appKey, index, phrases) == 0) {
+            // A failed scan looks empty too; keep serving the current trie
+            log.warn("No documents scanned for completion trie: appKey={}, index={}", appKey, index);
+            return;
+        }
+        CompletionTrie trie = CompletionTrie.build(phrases, topK);
+        tries.put(appKey, trie);
+        log.info("Built completion trie: appKey={}, {}, took={}ms",
+                appKey, trie, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Collect weighted phrases from indexed titles and recorded queries
+     *
+     * @return number of documents scanned
+     */
+    private int collectPhrases(String appKey, String index, Map<String, Long> phrases) {
+        int scanned = scanner.scan(index, List.of(titleField, popularityField), scanMaxDocs, scanBatchSize, source -> {
+            long weight = titleWeight;
+            if (source.get(popularityField) instanceof Number popularity) {
+                weight = Math.round(titleWeight * (1 + Math.log1p(Math.max(0, popularity.doubleValue()))));
+            }
+            long docWeight = weight;
+            IndexTextScanner.forEachText(source, titleField, title -> {
+                String phrase = queryAnalyzer.normalize(title);
+                if (!phrase.isEmpty() && phrase.length() <= maxPhraseLength) {
+                    phrases.merge(phrase, docWeight, Long::sum);
+                }
+            });
+        });
+
+        Cache<String, LongAdder> counts = queryCounts.get(appKey);
+        if (counts != null) {
+            counts.asMap().forEach((query, count) -> {
+                long value = count.sum();
+                if (value >= minQueryCount) {
+                    phrases.merge(query, value * queryWeight, Long::sum);
+                }
+            });
+        }
+        return scanned;
+    }
+}
@@ -0,0 +1,148 @@
+package com.search.query.synonym;
+
+import com.search.config.model.SynonymDictionary;
+import com.search.config.model.SynonymRule;
+import com.search.config.model.SynonymType;
+import com.search.query.analysis.QueryAnalyzer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loader for synonym dictionaries
+ *
+ * Polls the config-admin export with the last seen ETag, compiles the
+ * dictionaries whose version changed and swaps them into the expander.
+ * Terms are normalized with the query analyzer so dictionary keys line up
+ * with analyzed query terms.
+ */
+@Component
+public class SynonymDictionaryLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SynonymDictionaryLoader.class);
+
+    @Value("${synonym.enabled:true}")
+    private boolean enabled;
+
+    @Value("${synonym.config-admin-url:http://localhost:8080}")
+    private String configAdminUrl;
+
+    @Value("${synonym.timeout-ms:2000}")
+    private int timeoutMs;
+
+    private final SynonymExpander expander;
+    private final QueryAnalyzer queryAnalyzer;
+
+    private RestTemplate restTemplate;
+    private volatile String etag;
+
+    public SynonymDictionaryLoader(SynonymExpander expander, QueryAnalyzer queryAnalyzer) {
+        this.expander = expander;
+        this.queryAnalyzer = queryAnalyzer;
+    }
+
+    @PostConstruct
+    public void init() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(timeoutMs);
+        factory.setReadTimeout(timeoutMs);
+        this.restTemplate = new RestTemplate(factory);
+    }
+
+    /**
+     * Poll config-admin for changed dictionaries
+     */
+    @Scheduled(fixedDelayString = "${synonym.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            if (etag != null) {
+                headers.setIfNoneMatch(etag);
+            }
+
+            ResponseEntity<SynonymDictionary[]> response = restTemplate.exchange(
+                    configAdminUrl + "/api/v1/synonyms/export", HttpMethod.GET,
+                    new HttpEntity<>(headers), SynonymDictionary[].class);
+
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED || response.getBody() == null) {
+                return;
+            }
+
+            for (SynonymDictionary dictionary : response.getBody()) {
+                if (dictionary.getVersion() != expander.getVersion(dictionary.getAppKey())) {
+                    expander.swap(dictionary.getAppKey(), dictionary.getVersion(), build(dictionary));
+                }
+            }
+            etag = response.getHeaders().getETag();
+
+        } catch (Exception e) {
+            log.warn("Failed to refresh synonym dictionaries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compile a dictionary into a transducer
+     *
+     * @param dictionary the dictionary snapshot
+     * @return the compiled transducer
+     */
+    public SynonymFst build(SynonymDictionary dictionary) {
+        SynonymFst.Builder builder = SynonymFst.builder();
+        if (dictionary.getRules() == null) {
+            return builder.build();
+        }
+
+        for (SynonymRule rule : dictionary.getRules()) {
+            if (!rule.isEnabled()) {
+                continue;
+            }
+
+            List<String> inputs = normalize(rule.getTerms());
+            if (rule.getType() == SynonymType.ONE_WAY) {
+                List<String> targets = normalize(rule.getSynonyms());
+                for (String input : inputs) {
+                    builder.add(input, targets);
+                }
+            } else {
+                for (String input : inputs) {
+                    builder.add(input, inputs);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private List<String> normalize(List<String> phrases) {
+        List<String> normalized = new ArrayList<>();
+        if (phrases == null) {
+            return normalized;
+        }
+        for (String phrase : phrases) {
+            if (phrase == null) {
+                continue;
+            }
+            List<String> terms = queryAnalyzer.analyzeUncached(phrase).getTerms();
+            if (!terms.isEmpty()) {
+                normalized.add(String.join(String.valueOf(SynonymFst.TERM_SEPARATOR), terms));
+            }
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,118 @@
+package com.search.query.synonym;
+
+import com.search.query.analysis.AnalyzedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Query-time synonym expansion
+ *
+ * Holds one compiled SynonymFst per app. Dictionaries are replaced
+ * wholesale when a new version arrives, so a search always sees a complete
+ * dictionary. Expansion walks the analyzed terms left to right, taking the
+ * longest synonym key at each position, and renders matches as
+ * simple_query_string OR groups.
+ */
+@Component
+public class SynonymExpander {
+
+    private static final Logger log = LoggerFactory.getLogger(SynonymExpander.class);
+
+    private final Map<String, Dictionary> dictionaries = new ConcurrentHashMap<>();
+
+    /**
+     * Install a new dictionary for an app
+     *
+     * @param appKey the application key
+     * @param version the dictionary version
+     * @param fst the compiled dictionary
+     */
+    public void swap(String appKey, long version, SynonymFst fst) {
+        dictionaries.put(appKey, new Dictionary(version, fst));
+        log.info("Installed synonym dictionary: appKey={}, version={}, {}", appKey, version, fst);
+    }
+
+    /**
+     * Get the installed dictionary version of an app
+     *
+     * @param appKey the application key
+     * @return version, or -1 if the app has no dictionary
+     */
+    public long getVersion(String appKey) {
+        Dictionary dictionary = dictionaries.get(appKey);
+        return dictionary != null ? dictionary.version : -1;
+    }
+
+    /**
+     * Expand a query with the synonyms of the app
+     *
+     * @param appKey the application key
+     * @param query the analyzed query
+     * @return the keyword query, with OR groups for matched synonyms
+     */
+    public String expand(String appKey, AnalyzedQuery query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+
+        Dictionary dictionary = appKey != null ? dictionaries.get(appKey) : null;
+        List<String> terms = query.getTerms();
+        if (dictionary == null || terms.isEmpty()) {
+            return query.getText();
+        }
+
+        SynonymFst fst = dictionary.fst;
+        StringBuilder sb = new StringBuilder();
+        boolean expanded = false;
+        int i = 0;
+        while (i < terms.size()) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+
+            long match = fst.longestMatch(terms, i);
+            if (match < 0) {
+                sb.append(terms.get(i));
+                i++;
+                continue;
+            }
+
+            int end = (int) (match >>> 32);
+            int ordinal = (int) match;
+            sb.append('(');
+            appendPhrase(sb, String.join(" ", terms.subList(i, end)));
+            for (String expansion : fst.expansions(ordinal)) {
+                sb.append(" | ");
+                appendPhrase(sb, expansion);
+            }
+            sb.append(')');
+            expanded = true;
+            i = end;
+        }
+
+        return expanded ? sb.toString() : query.getText();
+    }
+
+    private void appendPhrase(StringBuilder sb, String phrase) {
+        if (phrase.indexOf(' ') >= 0) {
+            sb.append('"').append(phrase).append('"');
+        } else {
+            sb.append(phrase);
+        }
+    }
+
+    private static final class Dictionary {
+        private final long version;
+        private final SynonymFst fst;
+
+        private Dictionary(long version, SynonymFst fst) {
+            this.version = version;
+            this.fst = fst;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.search.query.synonym;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable finite-state transducer mapping synonym keys to their expansions
+ *
+ * Keys are normalized phrases whose terms are separated by a single space.
+ * The automaton is minimal and acyclic: shared prefixes and shared suffixes
+ * are stored once. Each transition carries an additive output, and the sum
+ * of outputs along the path of a key is the key's ordinal in sorted order,
+ * which indexes a flat table of expansion strings. All states and
+ * transitions live in primitive arrays, so a lookup allocates nothing.
+ */
+public final class SynonymFst {
+
+    /**
+     * Separator between terms of a multi-term key
+     */
+    public static final char TERM_SEPARATOR = ' ';
+
+    private final int root;
+    private final int[] firstTransition;
+    private final boolean[] finalState;
+    private final char[] labels;
+    private final int[] targets;
+    private final int[] outputs;
+
+    private final int[] expansionOffsets;
+    private final int[] expansionIds;
+    private final String[] vocabulary;
+
+    private SynonymFst(int root, int[] firstTransition, boolean[] finalState, char[] labels, int[] targets,
+                       int[] outputs, int[] expansionOffsets, int[] expansionIds, String[] vocabulary) {
+        this.root = root;
+        this.firstTransition = firstTransition;
+        this.finalState = finalState;
+        this.labels = labels;
+        this.targets = targets;
+        this.outputs = outputs;
+        this.expansionOffsets = expansionOffsets;
+        this.expansionIds = expansionIds;
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * Create a new builder
+     *
+     * @return builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Look up the ordinal of an exact key
+     *
+     * @param key the normalized key
+     * @return ordinal, or -1 if the key is not in the dictionary
+     */
+    public int ordinal(CharSequence key) {
+        int state = root;
+        int ordinal = 0;
+        for (int i = 0; i < key.length(); i++) {
+            int t = findTransition(state, key.charAt(i));
+            if (t < 0) {
+                return -1;
+            }
+            ordinal += outputs[t];
+            state = targets[t];
+        }
+        return finalState[state] ? ordinal : -1;
+    }
+
+    /**
+     * Find the longest key matching a run of terms starting at a position
+     *
+     * @param terms the query terms
+     * @param start index of the first term
+     * @return packed match (end index in the high 32 bits, ordinal in the low 32 bits),
+     *         or -1 if no key starts at this position
+     */
+    public long longestMatch(List<String> terms, int start) {
+        int state = root;
+        int ordinal = 0;
+        long best = -1;
+
+        for (int j = start; j < terms.size(); j++) {
+            if (j > start) {
+                int t = findTransition(state, TERM_SEPARATOR);
+                if (t < 0) {
+                    break;
+                }
+                ordinal += outputs[t];
+                state = targets[t];
+            }
+
+            String term = terms.get(j);
+            boolean matched = true;
+            for (int i = 0; i < term.length(); i++) {
+                int t = findTransition(state, term.charAt(i));
+                if (t < 0) {
+                    matched = false;
+                    break;
+                }
+                ordinal += outputs[t];
+                state = targets[t];
+            }
+
+            if (!matched) {
+                break;
+            }
+            if (finalState[state]) {
+                best = ((long) (j + 1) << 32) | ordinal;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the expansions of a key
+     *
+     * @param ordinal the key ordinal
+     * @return expansion phrases, excluding the key itself
+     */
+    public List<String> expansions(int ordinal) {
+        int from = expansionOffsets[ordinal];
+        int to = expansionOffsets[ordinal + 1];
+        List<String> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(vocabulary[expansionIds[i]]);
+        }
+        return result;
+    }
+
+    public int getKeyCount() {
+        return expansionOffsets.length - 1;
+    }
+
+    public int getStateCount() {
+        return finalState.length;
+    }
+
+    public int getTransitionCount() {
+        return labels.length;
+    }
+
+    /**
+     * Binary search the sorted transitions of a state
+     */
+    private int findTransition(int state, char label) {
+        int low = firstTransition[state];
+        int high = firstTransition[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = labels[mid];
+            if (c < label) {
+                low = mid + 1;
+            } else if (c > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "SynonymFst{keys=" + getKeyCount() + ", states=" + getStateCount()
+                + ", transitions=" + getTransitionCount() + "}";
+    }
+
+    /**
+     * Builder collecting key/expansion pairs
+     *
+     * Expansions added for the same key are merged. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final TreeMap<String, Set<String>> entries = new TreeMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add expansions for a key
+         *
+         * @param key the normalized key
+         * @param expansions the phrases the key expands to
+         * @return this builder
+         */
+        public Builder add(String key, Iterable<String> expansions) {
+            if (key == null || key.isEmpty()) {
+                return this;
+            }
+            Set<String> targets = entries.computeIfAbsent(key, k -> new LinkedHashSet<>());
+            for (String expansion : expansions) {
+                if (expansion != null && !expansion.isEmpty() && !expansion.equals(key)) {
+                    targets.add(expansion);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Compile the collected entries
+         *
+         * @return the transducer
+         */
+        public SynonymFst build() {
+            // Expansion table, indexed by key ordinal (= position in sorted order)
+            Map<String, Integer> vocabularyIds = new HashMap<>();
+            List<String> vocabulary = new ArrayList<>();
+            int[] expansionOffsets = new int[entries.size() + 1];
+            int total = 0;
+            for (Set<String> targets : entries.values()) {
+                total += targets.size();
+            }
+            int[] expansionIds = new int[total];
+
+            int ordinal = 0;
+            int position = 0;
+            TrieNode trieRoot = new TrieNode();
+            for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+                expansionOffsets[ordinal] = position;
+                for (String target : entry.getValue()) {
+                    expansionIds[position++] = vocabularyIds.computeIfAbsent(target, t -> {
+                        vocabulary.add(t);
+                        return vocabulary.size() - 1;
+                    });
+                }
+                trieRoot.insert(entry.getKey());
+                ordinal++;
+            }
+            expansionOffsets[ordinal] = position;
+
+            // Minimize by merging states with identical right languages
+            Minimizer minimizer = new Minimizer();
+            int root = minimizer.register(trieRoot);
+
+            return minimizer.freeze(root, expansionOffsets, expansionIds, vocabulary.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Mutable trie node used during construction
+     */
+    private static final class TrieNode {
+        private final TreeMap<Character, TrieNode> children = new TreeMap<>();
+        private boolean terminal;
+
+        void insert(String key) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+            }
+            node.terminal = true;
+        }
+    }
+
+    /**
+     * Bottom-up minimization: a state is identified by its final flag and its
+     * outgoing (label, canonical target) pairs
+     */
+    private static final class Minimizer {
+
+        private final Map<StateSignature, Integer> registry = new HashMap<>();
+        private final List<StateSignature> states = new ArrayList<>();
+
+        int register(TrieNode node) {
+            char[] stateLabels = new char[node.children.size()];
+            int[] stateTargets = new int[node.children.size()];
+            int i = 0;
+            for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+                stateLabels[i] = child.getKey();
+                stateTargets[i] = register(child.getValue());
+                i++;
+            }
+
+            StateSignature signature = new StateSignature(node.terminal, stateLabels, stateTargets);
+            Integer existing = registry.get(signature);
+            if (existing != null) {
+                return existing;
+            }
+            int id = states.size();
+            states.add(signature);
+            registry.put(signature, id);
+            return id;
+        }
+
+        SynonymFst freeze(int root, int[] expansionOffsets, int[] expansionIds, String[] vocabulary) {
+            int stateCount = states.size();
+            int[] firstTransition = new int[stateCount + 1];
+            boolean[] finalState = new boolean[stateCount];
+            for (int s = 0; s < stateCount; s++) {
+                firstTransition[s + 1] = firstTransition[s] + states.get(s).labels.length;
+                finalState[s] = states.get(s).terminal;
+            }
+
+            // Number of keys accepted from each state; children are registered before parents
+            int[] keyCounts = new int[stateCount];
+            for (int s = 0; s < stateCount; s++) {
+                StateSignature state = states.get(s);
+                int count = state.terminal ? 1 : 0;
+                for (int target : state.targets) {
+                    count += keyCounts[target];
+                }
+                keyCounts[s] = count;
+            }
+
+            int transitionCount = firstTransition[stateCount];
+            char[] labels = new char[transitionCount];
+            int[] targets = new int[transitionCount];
+            int[] outputs = new int[transitionCount];
+            for (int s = 0; s < stateCount; s++) {
+                StateSignature state = states.get(s);
+                // Keys ending here and keys under smaller labels sort before this transition
+                int skipped = state.terminal ? 1 : 0;
+                int t = firstTransition[s];
+                for (int i = 0; i < state.labels.length; i++, t++) {
+                    labels[t] = state.labels[i];
+                    targets[t] = state.targets[i];
+                    outputs[t] = skipped;
+                    skipped += keyCounts[state.targets[i]];
+                }
+            }
+
+            return new SynonymFst(root, firstTransition, finalState, labels, targets, outputs,
+                    expansionOffsets, expansionIds, vocabulary);
+        }
+    }
+
+    private static final class StateSignature {
+        private final boolean terminal;
+        private final char[] labels;
+        private final int[] targets;
+        private final int hash;
+
+        StateSignature(boolean terminal, char[] labels, int[] targets) {
+            this.terminal = terminal;
+            this.labels = labels;
+            this.targets = targets;
+            this.hash = 31 * (31 * Boolean.hashCode(terminal) + Arrays.hashCode(labels)) + Arrays.hashCode(targets);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StateSignature that)) return false;
+            return terminal == that.terminal
+                    && Arrays.equals(labels, that.labels)
+                    && Arrays.equals(targets, that.targets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.search.query.analysis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QueryAnalyzer
+ */
+class QueryAnalyzerTest {
+
+    private QueryAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        analyzer = new QueryAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(analyzer, "cacheExpireMinutes", 30L);
+        ReflectionTestUtils.setField(analyzer, "stopTermList", List.of("the", "of", "for", "的", "了"));
+        ReflectionTestUtils.setField(analyzer, "shortMaxTerms", 2);
+        ReflectionTestUtils.setField(analyzer, "shortMaxChars", 8);
+        ReflectionTestUtils.setField(analyzer, "longMinTerms", 6);
+        ReflectionTestUtils.setField(analyzer, "longMinChars", 24);
+        analyzer.init();
+    }
+
+    @Test
+    void testWidthAndCaseFolding() {
+        AnalyzedQuery query = analyzer.analyze("ＩＰｈｏｎｅ　１５");
+
+        assertEquals("iphone 15", query.getNormalized());
+        assertEquals(List.of("iphone", "15"), query.getTokens());
+    }
+
+    @Test
+    void testWhitespaceAndControlCharactersAreCollapsed() {
+        AnalyzedQuery query = analyzer.analyze("  red \t​ dress  ");
+
+        assertEquals("red dress", query.getNormalized());
+    }
+
+    @Test
+    void testMixedCjkAndLatinTokenization() {
+        AnalyzedQuery query = analyzer.analyze("Nike运动鞋 男");
+
+        assertEquals(List.of("nike", "运动鞋", "男"), query.getTokens());
+        assertTrue(query.containsCjk());
+        assertTrue(query.containsLatin());
+    }
+
+    @Test
+    void testStopTermsAreTrimmed() {
+        AnalyzedQuery query = analyzer.analyze("The Lord of the Rings");
+
+        assertEquals(List.of("the", "lord", "of", "the", "rings"), query.getTokens());
+        assertEquals(List.of("lord", "rings"), query.getTerms());
+        assertEquals("lord rings", query.getText());
+    }
+
+    @Test
+    void testCjkRunIsSplitAtStopTerms() {
+        AnalyzedQuery query = analyzer.analyze("红色的连衣裙");
+
+        assertEquals(List.of("红色", "的", "连衣裙"), query.getTokens());
+        assertEquals(List.of("红色", "连衣裙"), query.getTerms());
+    }
+
+    @Test
+    void testOnlyStopTermsFallsBackToNormalized() {
+        AnalyzedQuery query = analyzer.analyze("The");
+
+        assertTrue(query.getTerms().isEmpty());
+        assertEquals("the", query.getText());
+    }
+
+    @Test
+    void testJoinersKeepTokensTogether() {
+        AnalyzedQuery query = analyzer.analyze("3.5mm wi-fi adapter.");
+
+        assertEquals(List.of("3.5mm", "wi-fi", "adapter"), query.getTokens());
+    }
+
+    @Test
+    void testLengthRouting() {
+        assertEquals(AnalyzedQuery.Routing.SHORT, analyzer.analyze("laptop").getRouting());
+        assertEquals(AnalyzedQuery.Routing.MEDIUM, analyzer.analyze("gaming laptop 16gb").getRouting());
+        assertEquals(AnalyzedQuery.Routing.LONG,
+                analyzer.analyze("lightweight laptop with long battery life for travel and office work").getRouting());
+        assertEquals(AnalyzedQuery.Routing.LONG,
+                analyzer.analyze("适合夏天穿的轻薄透气宽松棉麻连衣裙女款中长款带口袋").getRouting());
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() {
+        AnalyzedQuery first = analyzer.analyze("Running Shoes");
+        AnalyzedQuery second = analyzer.analyze("Running Shoes");
+
+        assertSame(first, second);
+        assertEquals(1, analyzer.getCacheStats().hitCount());
+    }
+
+    @Test
+    void testNullAndEmptyQuery() {
+        assertTrue(analyzer.analyze(null).isEmpty());
+        assertTrue(analyzer.analyze("").isEmpty());
+        assertTrue(analyzer.analyze("   ").isEmpty());
+    }
+}
@@ -0,0 +1,194 @@
+package com.search.query.ann;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HnswIndex
+ */
+class HnswIndexTest {
+
+    private static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static float cosine(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return (float) (dot / Math.sqrt(normA * normB));
+    }
+
+    @Test
+    void testRecallAgainstBruteForce() {
+        Random random = new Random(42);
+        int dimension = 32;
+        List<float[]> vectors = new ArrayList<>();
+        HnswIndex index = new HnswIndex(dimension, 16, 100, 1);
+        for (int i = 0; i < 3000; i++) {
+            float[] vector = randomVector(random, dimension);
+            vectors.add(vector);
+            index.add("doc" + i, vector);
+        }
+
+        int k = 10;
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random, dimension);
+            Set<String> expected = IntStream.range(0, vectors.size()).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors.get(i))))
+                    .limit(k)
+                    .map(i -> "doc" + i)
+                    .collect(Collectors.toSet());
+            for (HnswIndex.Neighbor neighbor : index.search(query, k, 100)) {
+                if (expected.contains(neighbor.docId())) {
+                    found++;
+                }
+            }
+        }
+
+        double recall = (double) found / (queries * k);
+        assertTrue(recall >= 0.9, "recall@10 was " + recall);
+    }
+
+    @Test
+    void testScoresDescendingAndExactMatchFirst() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(8, 8, 50, 1);
+        float[] target = randomVector(random, 8);
+        index.add("target", target);
+        for (int i = 0; i < 200; i++) {
+            index.add("doc" + i, randomVector(random, 8));
+        }
+
+        List<HnswIndex.Neighbor> neighbors = index.search(target, 5, 50);
+
+        assertEquals(5, neighbors.size());
+        assertEquals("target", neighbors.get(0).docId());
+        assertEquals(1.0f, neighbors.get(0).score(), 1e-5);
+        for (int i = 1; i < neighbors.size(); i++) {
+            assertTrue(neighbors.get(i - 1).score() >= neighbors.get(i).score());
+        }
+    }
+
+    @Test
+    void testReplaceMovesDocument() {
+        HnswIndex index = new HnswIndex(2, 4, 20, 1);
+        index.add("a", new float[]{1, 0});
+        index.add("b", new float[]{0, 1});
+
+        index.add("a", new float[]{0, 1});
+
+        assertEquals(2, index.size());
+        assertEquals(3, index.getNodeCount());
+        assertEquals(1, index.getDeletedCount());
+        List<HnswIndex.Neighbor> neighbors = index.search(new float[]{1, 0}, 2, 10);
+        assertEquals(2, neighbors.size());
+        assertEquals(0.5f, neighbors.get(0).score(), 1e-5);
+    }
+
+    @Test
+    void testRemovedDocumentsAreNotReturned() {
+        Random random = new Random(3);
+        HnswIndex index = new HnswIndex(16, 8, 50, 1);
+        for (int i = 0; i < 500; i++) {
+            index.add("doc" + i, randomVector(random, 16));
+        }
+        Set<String> removed = new HashSet<>();
+        for (int i = 0; i < 500; i += 2) {
+            assertTrue(index.remove("doc" + i));
+            removed.add("doc" + i);
+        }
+
+        assertFalse(index.remove("doc0"));
+        assertFalse(index.contains("doc0"));
+        assertEquals(250, index.size());
+        List<HnswIndex.Neighbor> neighbors = index.search(randomVector(random, 16), 20, 50);
+        assertEquals(20, neighbors.size());
+        neighbors.forEach(neighbor -> assertFalse(removed.contains(neighbor.docId())));
+    }
+
+    @Test
+    void testGrowsAcrossPages() {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(4, 4, 16, 1);
+        for (int i = 0; i < 20000; i++) {
+            index.add("doc" + i, randomVector(random, 4));
+        }
+
+        assertEquals(20000, index.size());
+        float[] query = {1, 0, 0, 0};
+        index.add("probe", query);
+        assertEquals("probe", index.search(query, 1, 32).get(0).docId());
+    }
+
+    @Test
+    void testSearchExactAmongCandidates() {
+        Random random = new Random(13);
+        int dimension = 16;
+        List<float[]> vectors = new ArrayList<>();
+        HnswIndex index = new HnswIndex(dimension, 8, 50, 1);
+        for (int i = 0; i < 1000; i++) {
+            float[] vector = randomVector(random, dimension);
+            vectors.add(vector);
+            index.add("doc" + i, vector);
+        }
+        index.remove("doc10");
+
+        // Every tenth document, plus IDs that are unknown or removed
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 1000; i += 10) {
+            candidates.add("doc" + i);
+        }
+        candidates.add("missing");
+
+        float[] query = randomVector(random, dimension);
+        List<String> expected = IntStream.range(0, 100).map(i -> i * 10)
+                .filter(i -> i != 10)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors.get(i))))
+                .limit(5)
+                .map(i -> "doc" + i)
+                .collect(Collectors.toList());
+
+        List<HnswIndex.Neighbor> neighbors = index.searchExact(query, 5, candidates);
+        assertEquals(expected, neighbors.stream().map(HnswIndex.Neighbor::docId).collect(Collectors.toList()));
+        assertEquals((1 + cosine(query, vectors.get(Integer.parseInt(expected.get(0).substring(3))))) / 2,
+                neighbors.get(0).score(), 1e-4);
+        assertTrue(index.searchExact(query, 5, List.of("missing")).isEmpty());
+    }
+
+    @Test
+    void testDimensionMismatch() {
+        HnswIndex index = new HnswIndex(4, 4, 16, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> index.add("a", new float[3]));
+        assertTrue(index.search(new float[3], 5, 10).isEmpty());
+    }
+
+    @Test
+    void testEmptyIndex() {
+        HnswIndex index = new HnswIndex(4, 4, 16, 1);
+
+        assertTrue(index.search(new float[]{1, 0, 0, 0}, 5, 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+}
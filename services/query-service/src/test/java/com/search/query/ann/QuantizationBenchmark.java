@@ -0,0 +1,128 @@
+package com.search.query.ann;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Recall@k vs. memory benchmark for quantized vector storage
+ *
+ * Generates clustered synthetic embeddings (Gaussian blobs around random
+ * centers, normalized like real sentence embeddings), computes exact
+ * top-k with float32, and reports per configuration the bytes scanned
+ * per vector, recall@k with and without exact re-scoring, and mean query
+ * latency. Not a unit test; run the main method from the test classpath:
+ *
+ *   java -cp target/classes:target/test-classes com.search.query.ann.QuantizationBenchmark [docs] [dimension]
+ */
+public class QuantizationBenchmark {
+
+    private static final int K = 10;
+    private static final int QUERIES = 200;
+    private static final int CLUSTERS = 100;
+
+    public static void main(String[] args) {
+        int docs = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 768;
+        Random random = new Random(42);
+
+        List<float[]> centers = new ArrayList<>();
+        for (int c = 0; c < CLUSTERS; c++) {
+            centers.add(gaussian(random, dimension, 1.0f));
+        }
+        List<float[]> vectors = new ArrayList<>(docs);
+        List<String> docIds = new ArrayList<>(docs);
+        for (int i = 0; i < docs; i++) {
+            vectors.add(OffHeapVectors.normalize(jitter(random, centers.get(random.nextInt(CLUSTERS)), 0.6f)));
+            docIds.add(Integer.toString(i));
+        }
+        List<float[]> queries = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            queries.add(OffHeapVectors.normalize(jitter(random, centers.get(random.nextInt(CLUSTERS)), 0.6f)));
+        }
+
+        List<Set<String>> truth = new ArrayList<>();
+        for (float[] query : queries) {
+            truth.add(exactTopK(vectors, docIds, query));
+        }
+
+        List<float[]> sample = vectors.subList(0, Math.min(docs, 20000));
+        System.out.printf("docs=%d dimension=%d k=%d queries=%d%n", docs, dimension, K, QUERIES);
+        System.out.printf("%-22s %12s %10s %10s %12s%n", "config", "bytes/vec", "shortlist", "recall@k", "latency(ms)");
+        System.out.printf("%-22s %12d %10s %10.3f %12s%n", "float32 (exact)", dimension * Float.BYTES, "-", 1.0, "-");
+
+        long start = System.currentTimeMillis();
+        QuantizedVectorStore int8 = QuantizedVectorStore.build(ScalarQuantizer.train(sample), docIds, vectors);
+        System.out.printf("  int8 trained+encoded in %d ms%n", System.currentTimeMillis() - start);
+        report("int8", int8, queries, truth, K);
+        report("int8", int8, queries, truth, 4 * K);
+
+        for (int subspaces : new int[]{dimension / 8, dimension / 16, dimension / 32}) {
+            if (subspaces <= 0 || dimension % subspaces != 0) {
+                continue;
+            }
+            start = System.currentTimeMillis();
+            QuantizedVectorStore pq = QuantizedVectorStore.build(
+                    ProductQuantizer.train(sample, subspaces, 10, 1), docIds, vectors);
+            System.out.printf("  pq%d trained+encoded in %d ms%n", subspaces, System.currentTimeMillis() - start);
+            report("pq" + subspaces, pq, queries, truth, K);
+            report("pq" + subspaces, pq, queries, truth, 10 * K);
+        }
+    }
+
+    private static void report(String name, QuantizedVectorStore store, List<float[]> queries,
+                               List<Set<String>> truth, int shortlist) {
+        int found = 0;
+        long startNanos = System.nanoTime();
+        for (int q = 0; q < queries.size(); q++) {
+            for (HnswIndex.Neighbor neighbor : store.search(queries.get(q), K, shortlist)) {
+                if (truth.get(q).contains(neighbor.docId())) {
+                    found++;
+                }
+            }
+        }
+        double latencyMs = (System.nanoTime() - startNanos) / 1e6 / queries.size();
+        double bytesPerVector = (double) store.getCodeBytes() / store.size();
+        System.out.printf("%-22s %12.0f %10s %10.3f %12.3f%n", name + (shortlist > K ? " + rescore" : ""),
+                bytesPerVector, shortlist > K ? Integer.toString(shortlist) : "-",
+                (double) found / (queries.size() * K), latencyMs);
+    }
+
+    private static Set<String> exactTopK(List<float[]> vectors, List<String> docIds, float[] query) {
+        NodeQueue top = new NodeQueue(K + 1, false);
+        for (int i = 0; i < vectors.size(); i++) {
+            float[] vector = vectors.get(i);
+            float dot = 0;
+            for (int d = 0; d < vector.length; d++) {
+                dot += query[d] * vector[d];
+            }
+            top.push(i, dot);
+            if (top.size() > K) {
+                top.pop();
+            }
+        }
+        Set<String> ids = new HashSet<>();
+        while (!top.isEmpty()) {
+            ids.add(docIds.get(top.pop()));
+        }
+        return ids;
+    }
+
+    private static float[] gaussian(Random random, int dimension, float sigma) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian() * sigma;
+        }
+        return vector;
+    }
+
+    private static float[] jitter(Random random, float[] center, float sigma) {
+        float[] vector = gaussian(random, center.length, sigma);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] += center[i];
+        }
+        return vector;
+    }
+}
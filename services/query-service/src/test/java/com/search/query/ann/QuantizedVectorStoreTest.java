@@ -0,0 +1,138 @@
+package com.search.query.ann;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuantizedVectorStore, ScalarQuantizer and ProductQuantizer
+ */
+class QuantizedVectorStoreTest {
+
+    private static final int DIMENSION = 32;
+
+    private final Random random = new Random(5);
+    private final List<float[]> vectors = new ArrayList<>();
+    private final List<String> docIds = new ArrayList<>();
+
+    QuantizedVectorStoreTest() {
+        for (int i = 0; i < 2000; i++) {
+            vectors.add(randomVector());
+            docIds.add("doc" + i);
+        }
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private double recallAt10(QuantizedVectorStore store, int shortlist) {
+        List<float[]> normalized = QuantizedVectorStore.normalizeAll(vectors);
+        int found = 0;
+        int queries = 30;
+        for (int q = 0; q < queries; q++) {
+            float[] query = OffHeapVectors.normalize(randomVector());
+            Set<String> expected = IntStream.range(0, normalized.size()).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -dot(query, normalized.get(i))))
+                    .limit(10)
+                    .map(docIds::get)
+                    .collect(Collectors.toSet());
+            for (HnswIndex.Neighbor neighbor : store.search(query, 10, shortlist)) {
+                if (expected.contains(neighbor.docId())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (queries * 10);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Test
+    void testScalarQuantizerCodeSizeAndScore() {
+        ScalarQuantizer quantizer = ScalarQuantizer.train(QuantizedVectorStore.normalizeAll(vectors));
+        float[] vector = OffHeapVectors.normalize(vectors.get(0));
+        byte[] codes = new byte[quantizer.getCodeSize()];
+        quantizer.encode(vector, codes, 0);
+
+        assertEquals(DIMENSION, quantizer.getCodeSize());
+        assertEquals(1.0, quantizer.scorer(vector).score(codes, 0), 0.02);
+    }
+
+    @Test
+    void testScalarQuantizerRecall() {
+        ScalarQuantizer quantizer = ScalarQuantizer.train(QuantizedVectorStore.normalizeAll(vectors));
+        QuantizedVectorStore store = QuantizedVectorStore.build(quantizer, docIds, vectors);
+
+        assertTrue(recallAt10(store, 10) >= 0.85);
+        assertTrue(recallAt10(store, 40) >= 0.98);
+        assertEquals(2000L * DIMENSION, store.getCodeBytes());
+    }
+
+    @Test
+    void testProductQuantizerRecallWithRescore() {
+        ProductQuantizer quantizer = ProductQuantizer.train(QuantizedVectorStore.normalizeAll(vectors), 8, 10, 1);
+        QuantizedVectorStore store = QuantizedVectorStore.build(quantizer, docIds, vectors);
+
+        assertEquals(8, quantizer.getCodeSize());
+        assertEquals(2000L * 8, store.getCodeBytes());
+        assertTrue(recallAt10(store, 200) >= 0.9);
+        assertTrue(recallAt10(store, 200) > recallAt10(store, 10));
+    }
+
+    @Test
+    void testRescoredScoresAreExact() {
+        ProductQuantizer quantizer = ProductQuantizer.train(QuantizedVectorStore.normalizeAll(vectors), 4, 5, 1);
+        QuantizedVectorStore store = QuantizedVectorStore.build(quantizer, docIds, vectors);
+
+        HnswIndex.Neighbor top = store.search(vectors.get(42), 1, 100).get(0);
+
+        assertEquals("doc42", top.docId());
+        assertEquals(1.0f, top.score(), 1e-5);
+    }
+
+    @Test
+    void testAcceptFilter() {
+        ScalarQuantizer quantizer = ScalarQuantizer.train(QuantizedVectorStore.normalizeAll(vectors));
+        QuantizedVectorStore store = QuantizedVectorStore.build(quantizer, docIds, vectors);
+
+        List<HnswIndex.Neighbor> neighbors = store.search(vectors.get(0), 5, 20, ordinal -> ordinal % 2 == 1);
+
+        assertEquals(5, neighbors.size());
+        neighbors.forEach(neighbor -> assertEquals(1, Integer.parseInt(neighbor.docId().substring(3)) % 2));
+    }
+
+    @Test
+    void testInvalidSubspaces() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductQuantizer.train(vectors, 5, 5, 1));
+    }
+
+    @Test
+    void testDimensionMismatch() {
+        ScalarQuantizer quantizer = ScalarQuantizer.train(vectors);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> QuantizedVectorStore.build(quantizer, List.of("a"), List.of(new float[3])));
+        QuantizedVectorStore store = QuantizedVectorStore.build(quantizer, docIds, vectors);
+        assertTrue(store.search(new float[3], 5, 10).isEmpty());
+    }
+}
@@ -0,0 +1,177 @@
+package com.search.query.ann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VectorSegment and HnswIndex save/load
+ */
+class VectorSegmentTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static HnswIndex buildIndex(int count, int dimension, Random random) {
+        HnswIndex index = new HnswIndex(dimension, 8, 40, 1);
+        for (int i = 0; i < count; i++) {
+            index.add("doc" + i, randomVector(random, dimension));
+        }
+        return index;
+    }
+
+    @Test
+    void testRoundTripWithGraph() throws IOException {
+        Random random = new Random(42);
+        HnswIndex index = buildIndex(2000, 16, random);
+        index.remove("doc5");
+        index.add("doc7", randomVector(random, 16));
+        index.add("文档", randomVector(random, 16));
+
+        Path path = tempDir.resolve("products/title_vector.vseg");
+        index.save(path, true);
+        HnswIndex loaded = HnswIndex.load(path, 40, 1, true);
+
+        assertEquals(index.size(), loaded.size());
+        assertEquals(index.getNodeCount(), loaded.getNodeCount());
+        assertEquals(index.getDeletedCount(), loaded.getDeletedCount());
+        assertFalse(loaded.contains("doc5"));
+        assertTrue(loaded.contains("文档"));
+
+        // Same graph, same answers
+        for (int q = 0; q < 20; q++) {
+            float[] query = randomVector(random, 16);
+            assertEquals(index.search(query, 10, 50), loaded.search(query, 10, 50));
+        }
+    }
+
+    @Test
+    void testLoadedIndexAcceptsUpdates() throws IOException {
+        Random random = new Random(7);
+        HnswIndex index = buildIndex(500, 8, random);
+        Path path = tempDir.resolve("segment.vseg");
+        index.save(path, true);
+
+        HnswIndex loaded = HnswIndex.load(path, 40, 1, true);
+        float[] vector = randomVector(random, 8);
+        loaded.add("new", vector);
+        loaded.add("doc1", vector);
+        loaded.remove("doc2");
+
+        List<HnswIndex.Neighbor> results = loaded.search(vector, 2, 50);
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(n -> n.docId().equals("new") || n.docId().equals("doc1")));
+        assertFalse(loaded.contains("doc2"));
+
+        // Copy-on-write: the file still holds the saved state
+        HnswIndex reloaded = HnswIndex.load(path, 40, 1, true);
+        assertEquals(500, reloaded.size());
+        assertTrue(reloaded.contains("doc2"));
+    }
+
+    @Test
+    void testRoundTripAcrossPages() throws IOException {
+        Random random = new Random(3);
+        int count = OffHeapVectors.PAGE_SIZE + 100;
+        HnswIndex index = new HnswIndex(4, 4, 8, 1);
+        for (int i = 0; i < count; i++) {
+            index.add("doc" + i, randomVector(random, 4));
+        }
+        Path path = tempDir.resolve("large.vseg");
+        index.save(path, true);
+
+        HnswIndex loaded = HnswIndex.load(path, 8, 1, false);
+        assertEquals(count, loaded.size());
+        float[] query = randomVector(random, 4);
+        assertEquals(index.search(query, 5, 20), loaded.search(query, 5, 20));
+
+        // Appends land in the copied partial page
+        loaded.add("extra", query);
+        assertEquals("extra", loaded.search(query, 1, 20).get(0).docId());
+    }
+
+    @Test
+    void testRoundTripWithoutGraph() throws IOException {
+        Random random = new Random(11);
+        HnswIndex index = buildIndex(300, 8, random);
+        index.remove("doc0");
+        Path path = tempDir.resolve("vectors-only.vseg");
+        index.save(path, false);
+        assertTrue(Files.size(path) < 300 * 8 * Float.BYTES + 300 * 16L);
+
+        HnswIndex loaded = HnswIndex.load(path, 40, 1, true);
+        assertEquals(299, loaded.size());
+        assertEquals(0, loaded.getDeletedCount());
+        float[] query = randomVector(random, 8);
+        assertEquals(index.search(query, 1, 100).get(0).docId(), loaded.search(query, 1, 100).get(0).docId());
+    }
+
+    @Test
+    void testEmptyIndex() throws IOException {
+        Path path = tempDir.resolve("empty.vseg");
+        new HnswIndex(8, 8, 40, 1).save(path, true);
+
+        HnswIndex loaded = HnswIndex.load(path, 40, 1, true);
+        assertEquals(0, loaded.size());
+        assertTrue(loaded.search(new float[8], 5, 10).isEmpty());
+        loaded.add("doc", new float[]{1, 0, 0, 0, 0, 0, 0, 0});
+        assertEquals(1, loaded.search(new float[]{1, 0, 0, 0, 0, 0, 0, 0}, 5, 10).size());
+    }
+
+    @Test
+    void testRejectsCorruptFiles() throws IOException {
+        Path path = tempDir.resolve("corrupt.vseg");
+        buildIndex(100, 8, new Random(1)).save(path, true);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), VectorSegment.HEADER_BYTES + 10);
+        }
+        IOException error = assertThrows(IOException.class, () -> HnswIndex.load(path, 40, 1, true));
+        assertTrue(error.getMessage().contains("checksum"));
+
+        Files.write(path, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> HnswIndex.load(path, 40, 1, false));
+    }
+
+    @Test
+    void testSegmentRecordsWhenItWasSaved() throws IOException {
+        Path path = tempDir.resolve("saved.vseg");
+        long before = System.currentTimeMillis();
+        buildIndex(10, 8, new Random(1)).save(path, true);
+        long after = System.currentTimeMillis();
+
+        long savedAt = VectorSegment.readSavedAt(path);
+        assertTrue(savedAt >= before && savedAt <= after);
+        assertEquals(savedAt, VectorSegment.read(path, true).savedAt);
+    }
+
+    @Test
+    void testSaveReplacesAtomically() throws IOException {
+        Path path = tempDir.resolve("replace.vseg");
+        buildIndex(10, 8, new Random(1)).save(path, true);
+        buildIndex(20, 8, new Random(2)).save(path, true);
+
+        assertEquals(20, HnswIndex.load(path, 40, 1, true).size());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.search.query.ann;
+
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VectorUpdateConsumer
+ */
+class VectorUpdateConsumerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("vector-updates", 0);
+    private static final TopicPartition P1 = new TopicPartition("vector-updates", 1);
+
+    private LocalAnnIndexManager indexManager;
+    private VectorUpdateConsumer consumer;
+    private TimeIndexedConsumer kafka;
+
+    /**
+     * MockConsumer with a fixed answer to offsetsForTimes
+     */
+    private static class TimeIndexedConsumer extends MockConsumer<String, String> {
+
+        final Map<TopicPartition, Long> queried = new HashMap<>();
+        final Map<TopicPartition, OffsetAndTimestamp> answers = new HashMap<>();
+
+        TimeIndexedConsumer() {
+            super(OffsetResetStrategy.LATEST);
+        }
+
+        @Override
+        public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> query) {
+            queried.putAll(query);
+            Map<TopicPartition, OffsetAndTimestamp> result = new HashMap<>();
+            query.keySet().forEach(partition -> result.put(partition, answers.get(partition)));
+            return result;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        indexManager = mock(LocalAnnIndexManager.class);
+        consumer = new VectorUpdateConsumer(indexManager);
+        kafka = new TimeIndexedConsumer();
+        kafka.assign(List.of(P0, P1));
+        kafka.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+        kafka.updateEndOffsets(Map.of(P0, 8L, P1, 3L));
+        ReflectionTestUtils.setField(consumer, "consumer", kafka);
+        ReflectionTestUtils.setField(consumer, "replayMarginMs", 60_000L);
+    }
+
+    @Test
+    void testUpsertFromPipelineReachesTheSearchedIndex() throws Exception {
+        // As published by data-sync's VectorUpdatePublisher for table "products"
+        consumer.apply("""
+                {"op":"upsert","index":"search_products","id":"7","field":"content_vector","vector":[0.5,-1.0]}
+                """);
+
+        ArgumentCaptor<float[]> vector = ArgumentCaptor.forClass(float[].class);
+        // SearchService queries appKey "products" as index search_products
+        verify(indexManager).applyUpdate(eq("search_products"), eq("7"), eq("content_vector"), vector.capture());
+        assertArrayEquals(new float[]{0.5f, -1f}, vector.getValue());
+    }
+
+    @Test
+    void testDeleteFromPipelineReachesTheSearchedIndex() throws Exception {
+        consumer.apply("""
+                {"op":"delete","index":"search_products","id":"7"}
+                """);
+
+        verify(indexManager).applyDelete("search_products", "7");
+    }
+
+    @Test
+    void testUpsertWithoutVectorIsIgnored() throws Exception {
+        consumer.apply("""
+                {"op":"upsert","index":"search_products","id":"7","field":"content_vector","vector":[]}
+                """);
+
+        verify(indexManager, never()).applyUpdate(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void testMappedSegmentsAreServedAfterReplayingUpdatesSinceTheirSave() {
+        when(indexManager.getReplayFrom()).thenReturn(100_000L);
+        kafka.answers.put(P0, new OffsetAndTimestamp(5L, 45_000L));
+
+        consumer.seekToReplayStart(List.of(P0, P1));
+
+        assertEquals(Map.of(P0, 40_000L, P1, 40_000L), kafka.queried);
+        assertEquals(5L, kafka.position(P0));
+        // Nothing published since the save
+        assertEquals(3L, kafka.position(P1));
+        consumer.checkReplayed();
+        verify(indexManager, never()).replayed();
+
+        kafka.seek(P0, 8L);
+        consumer.checkReplayed();
+        verify(indexManager).replayed();
+        verify(indexManager, never()).replayFailed();
+    }
+
+    @Test
+    void testMappedSegmentsAreRebuiltWhenUpdatesSinceTheirSaveAreGone() {
+        when(indexManager.getReplayFrom()).thenReturn(100_000L);
+        kafka.updateBeginningOffsets(Map.of(P0, 5L, P1, 0L));
+        kafka.answers.put(P0, new OffsetAndTimestamp(5L, 45_000L));
+
+        consumer.seekToReplayStart(List.of(P0, P1));
+        consumer.checkReplayed();
+
+        verify(indexManager).replayFailed();
+        verify(indexManager, never()).replayed();
+    }
+
+    @Test
+    void testNoReplayWithoutMappedSegments() {
+        when(indexManager.getReplayFrom()).thenReturn(-1L);
+
+        consumer.seekToReplayStart(List.of(P0, P1));
+        consumer.checkReplayed();
+
+        assertTrue(kafka.queried.isEmpty());
+        verify(indexManager, never()).replayed();
+    }
+}
@@ -0,0 +1,68 @@
+package com.search.query.recall;
+
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecallFilters
+ */
+class RecallFiltersTest {
+
+    @Test
+    void testNoFilters() {
+        assertNull(RecallFilters.toQuery(null));
+        assertNull(RecallFilters.toQuery(Map.of()));
+
+        Map<String, Object> onlyNulls = new HashMap<>();
+        onlyNulls.put("category", null);
+        assertNull(RecallFilters.toQuery(onlyNulls));
+    }
+
+    @Test
+    void testTermFilters() {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("category", "phones");
+        filters.put("in_stock", true);
+
+        Query query = RecallFilters.toQuery(filters);
+
+        assertTrue(query.isBool());
+        List<Query> clauses = query.bool().filter();
+        assertEquals(2, clauses.size());
+        assertEquals("category", clauses.get(0).term().field());
+        assertEquals("phones", clauses.get(0).term().value().stringValue());
+        assertEquals("true", clauses.get(1).term().value().stringValue());
+        assertTrue(query.bool().must().isEmpty());
+    }
+
+    @Test
+    void testCollectionValueMatchesAny() {
+        Query query = RecallFilters.toQuery(Map.of("brand", List.of("acme", "globex")));
+
+        Query clause = query.bool().filter().get(0);
+        assertTrue(clause.isTerms());
+        assertEquals("brand", clause.terms().field());
+        assertEquals(2, clause.terms().terms().value().size());
+        assertEquals("globex", clause.terms().terms().value().get(1).stringValue());
+    }
+
+    @Test
+    void testCacheKeyIgnoresEntryOrder() {
+        Map<String, Object> a = new LinkedHashMap<>();
+        a.put("category", "phones");
+        a.put("brand", "acme");
+        Map<String, Object> b = new LinkedHashMap<>();
+        b.put("brand", "acme");
+        b.put("category", "phones");
+
+        assertEquals(RecallFilters.cacheKey("products", a), RecallFilters.cacheKey("products", b));
+        assertNotEquals(RecallFilters.cacheKey("products", a), RecallFilters.cacheKey("orders", a));
+    }
+}
@@ -0,0 +1,46 @@
+package com.search.query.recall;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecallFusion
+ */
+class RecallFusionTest {
+
+    private final RecallFusion fusion = new RecallFusion();
+
+    @Test
+    void testFuseWeightedAcrossFields() {
+        List<RecallResult> title = List.of(
+                new RecallResult("a", 0.9f, "vector"),
+                new RecallResult("b", 0.45f, "vector"));
+        List<RecallResult> image = List.of(
+                new RecallResult("c", 2.0f, "vector"),
+                new RecallResult("a", 1.0f, "vector"));
+
+        List<RecallResult> fused = fusion.fuseWeighted(List.of(title, image), List.of(1.0, 0.5), 10, "vector");
+
+        // a: 1.0 * 1.0 + 0.5 * 0.5, c: 0.5 * 1.0, b: 1.0 * 0.5
+        assertEquals(List.of("a", "b", "c"), fused.stream().map(RecallResult::getId).toList());
+        assertEquals(1.25f, fused.get(0).getScore(), 1e-6);
+        assertEquals(0.5f, fused.get(1).getScore(), 1e-6);
+        assertEquals("vector", fused.get(0).getSource());
+    }
+
+    @Test
+    void testFuseWeightedLimitsAndSkipsEmptyLists() {
+        List<RecallResult> results = List.of(
+                new RecallResult("a", 3f, "vector"),
+                new RecallResult("b", 2f, "vector"),
+                new RecallResult("c", 1f, "vector"));
+
+        List<RecallResult> fused = fusion.fuseWeighted(List.of(List.of(), results), List.of(1.0, 1.0), 2, "vector");
+
+        assertEquals(List.of("a", "b"), fused.stream().map(RecallResult::getId).toList());
+        assertTrue(fusion.fuseWeighted(List.of(List.of()), List.of(1.0), 5, "vector").isEmpty());
+    }
+}
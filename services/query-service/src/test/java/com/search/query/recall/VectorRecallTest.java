@@ -0,0 +1,105 @@
+package com.search.query.recall;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.mapping.Property;
+import org.opensearch.client.opensearch._types.mapping.TypeMapping;
+import org.opensearch.client.opensearch.core.SearchRequest;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.indices.GetMappingResponse;
+import org.opensearch.client.opensearch.indices.OpenSearchIndicesClient;
+import org.opensearch.client.opensearch.indices.get_mapping.IndexMappingRecord;
+import org.opensearch.client.util.ObjectBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VectorRecall
+ */
+class VectorRecallTest {
+
+    private static final String INDEX = "products";
+
+    @Mock
+    private OpenSearchClient client;
+
+    @Mock
+    private OpenSearchIndicesClient indices;
+
+    @Mock
+    private VectorEmbeddingService embeddingService;
+
+    @Mock
+    private RecallFusion fusion;
+
+    private VectorRecall vectorRecall;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        vectorRecall = new VectorRecall(client, embeddingService, null, fusion);
+
+        when(embeddingService.embed(anyString())).thenReturn(new float[768]);
+        when(client.indices()).thenReturn(indices);
+        when(indices.getMapping(any(Function.class))).thenReturn(GetMappingResponse.of(r -> r
+                .result(Map.of(INDEX, IndexMappingRecord.of(m -> m.mappings(TypeMapping.of(t -> t
+                        .properties("title_vector", knnVector(768))
+                        .properties("image_vector", knnVector(512))
+                        .properties("title", p -> p.text(x -> x)))))))));
+        when(client.search(any(Function.class), eq(Map.class))).thenReturn(SearchResponse.<Map>searchResponseOf(r -> r
+                .took(1)
+                .timedOut(false)
+                .shards(s -> s.total(1).successful(1).failed(0))
+                .hits(h -> h.hits(List.of()))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Mockito.framework().clearInlineMocks();
+    }
+
+    private static Property knnVector(int dimension) {
+        return Property.of(p -> p.knnVector(k -> k.dimension(dimension)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImageFieldWithAnotherDimensionIsSkipped() throws Exception {
+        List<RecallResult> results = vectorRecall.recall("app", INDEX, "running shoes", List.of(
+                new VectorRecall.FieldSpec("title_vector", 50, 1.0),
+                new VectorRecall.FieldSpec("image_vector", 50, 0.5)), null, 20);
+
+        assertTrue(results.isEmpty());
+        ArgumentCaptor<Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>>> captor =
+                ArgumentCaptor.forClass(Function.class);
+        verify(client).search(captor.capture(), eq(Map.class));
+        verify(client, never()).msearch(any(Function.class), any());
+        verifyNoInteractions(fusion);
+
+        SearchRequest request = captor.getValue().apply(new SearchRequest.Builder()).build();
+        assertEquals("title_vector", request.query().knn().field());
+        assertEquals(768, request.query().knn().vector().length);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNoSearchWhenNoFieldMatchesTheQueryDimension() throws Exception {
+        List<RecallResult> results = vectorRecall.recall("app", INDEX, "red dress", "image_vector", 20);
+
+        assertTrue(results.isEmpty());
+        verify(client, never()).search(any(Function.class), any());
+    }
+}
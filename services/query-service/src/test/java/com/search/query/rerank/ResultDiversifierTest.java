@@ -0,0 +1,148 @@
+package com.search.query.rerank;
+
+import com.search.query.recall.RecallResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ResultDiversifier
+ */
+class ResultDiversifierTest {
+
+    private final ResultDiversifier diversifier = new ResultDiversifier(new DiversityRuleLoader());
+
+    @Test
+    void testNullRuleKeepsOrder() {
+        List<RecallResult> ranked = results("a", "b", "c");
+
+        assertSame(ranked, diversifier.diversify((DiversityRule) null, ranked, Map.of()));
+    }
+
+    @Test
+    void testUnknownAppIsNotEnabled() {
+        assertFalse(diversifier.isEnabled("unknown"));
+        assertTrue(diversifier.isEnabled("ecommerce"));
+    }
+
+    @Test
+    void testCategoryCapDemotesExcessResults() {
+        List<RecallResult> ranked = results("a1", "a2", "a3", "b1", "b2");
+        Map<String, Map<String, Object>> docs = new HashMap<>();
+        docs.put("a1", Map.of("category", "shoes"));
+        docs.put("a2", Map.of("category", "shoes"));
+        docs.put("a3", Map.of("category", "shoes"));
+        docs.put("b1", Map.of("category", "bags"));
+        docs.put("b2", Map.of("category", "bags"));
+
+        DiversityRule rule = rule(1.0, null, Map.of("category", 2));
+
+        List<String> ids = ids(diversifier.diversify(rule, ranked, docs));
+
+        // The third shoe is demoted below everything else, not dropped
+        assertEquals(List.of("a1", "a2", "b1", "b2", "a3"), ids);
+    }
+
+    @Test
+    void testMmrPromotesDissimilarResult() {
+        List<RecallResult> ranked = List.of(
+                new RecallResult("x1", 1.0f, "rerank"),
+                new RecallResult("x2", 0.95f, "rerank"),
+                new RecallResult("y1", 0.9f, "rerank"));
+        Map<String, Map<String, Object>> docs = new HashMap<>();
+        docs.put("x1", Map.of("vec", List.of(1.0, 0.0)));
+        docs.put("x2", Map.of("vec", List.of(0.99, 0.01)));
+        docs.put("y1", Map.of("vec", List.of(0.0, 1.0)));
+
+        DiversityRule rule = rule(0.5, "vec", null);
+
+        List<String> ids = ids(diversifier.diversify(rule, ranked, docs));
+
+        // x2 is a near-duplicate of x1, so y1 moves ahead of it
+        assertEquals(List.of("x1", "y1", "x2"), ids);
+    }
+
+    @Test
+    void testLambdaOneKeepsRelevanceOrder() {
+        List<RecallResult> ranked = results("a", "b", "c");
+        Map<String, Map<String, Object>> docs = new HashMap<>();
+        docs.put("a", Map.of("vec", List.of(1.0, 0.0)));
+        docs.put("b", Map.of("vec", List.of(1.0, 0.0)));
+        docs.put("c", Map.of("vec", List.of(0.0, 1.0)));
+
+        List<String> ids = ids(diversifier.diversify(rule(1.0, "vec", null), ranked, docs));
+
+        assertEquals(List.of("a", "b", "c"), ids);
+    }
+
+    @Test
+    void testMissingDocumentsAreNotCapped() {
+        List<RecallResult> ranked = results("a", "b", "c");
+        Map<String, Map<String, Object>> docs = new HashMap<>();
+        docs.put("a", Map.of("brand", "acme"));
+
+        List<String> ids = ids(diversifier.diversify(rule(1.0, "vec", Map.of("brand", 1)), ranked, docs));
+
+        assertEquals(List.of("a", "b", "c"), ids);
+    }
+
+    @Test
+    void testWindowLimitsDiversifiedHead() {
+        List<RecallResult> ranked = results("a1", "a2", "b1", "a3");
+        Map<String, Map<String, Object>> docs = new HashMap<>();
+        docs.put("a1", Map.of("category", "shoes"));
+        docs.put("a2", Map.of("category", "shoes"));
+        docs.put("b1", Map.of("category", "bags"));
+        docs.put("a3", Map.of("category", "shoes"));
+
+        DiversityRule rule = rule(1.0, null, Map.of("category", 1));
+        rule.setWindow(2);
+
+        List<String> ids = ids(diversifier.diversify(rule, ranked, docs));
+
+        assertEquals(List.of("a1", "b1", "a2", "a3"), ids);
+    }
+
+    @Test
+    void testAllResultsArePreserved() {
+        List<RecallResult> ranked = new ArrayList<>();
+        Map<String, Map<String, Object>> docs = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            String id = "doc" + i;
+            ranked.add(new RecallResult(id, 100 - i, "rerank"));
+            docs.put(id, Map.of("category", "c" + (i % 3), "vec", List.of((double) i, 1.0, (double) (i % 7))));
+        }
+
+        List<RecallResult> diversified = diversifier.diversify(rule(0.7, "vec", Map.of("category", 5)), ranked, docs);
+
+        assertEquals(ranked.size(), diversified.size());
+        assertTrue(diversified.containsAll(ranked));
+    }
+
+    private DiversityRule rule(double lambda, String vectorField, Map<String, Integer> caps) {
+        DiversityRule rule = new DiversityRule();
+        rule.setAppKey("test");
+        rule.setLambda(lambda);
+        rule.setVectorField(vectorField);
+        rule.setCaps(caps);
+        return rule;
+    }
+
+    private List<RecallResult> results(String... ids) {
+        List<RecallResult> results = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            results.add(new RecallResult(ids[i], ids.length - i, "rerank"));
+        }
+        return results;
+    }
+
+    private List<String> ids(List<RecallResult> results) {
+        return results.stream().map(RecallResult::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,105 @@
+package com.search.query.spell;
+
+import com.search.query.analysis.AnalyzedQuery;
+import com.search.query.analysis.IndexTextScanner;
+import com.search.query.analysis.QueryAnalyzer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SpellingCorrector
+ */
+class SpellingCorrectorTest {
+
+    private IndexTextScanner scanner;
+    private SpellingCorrector corrector;
+    private AnalyzedQuery query;
+
+    @BeforeEach
+    void setUp() {
+        scanner = mock(IndexTextScanner.class);
+        corrector = new SpellingCorrector(scanner, mock(QueryAnalyzer.class));
+        ReflectionTestUtils.setField(corrector, "enabled", true);
+        ReflectionTestUtils.setField(corrector, "maxEditDistance", 2);
+        ReflectionTestUtils.setField(corrector, "fields", List.of("title"));
+        ReflectionTestUtils.setField(corrector, "retryIntervalMs", 60_000L);
+        corrector.init();
+
+        query = mock(AnalyzedQuery.class);
+        when(query.getTerms()).thenReturn(List.of("iphnoe"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        corrector.shutdown();
+    }
+
+    @Test
+    void testFailedBuildIsNotRetriedOnEveryRequest() throws Exception {
+        when(scanner.exists("search_unknown")).thenReturn(true);
+        when(scanner.scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class)))
+                .thenThrow(new IllegalStateException("index_not_found_exception"));
+
+        for (int i = 0; i < 20; i++) {
+            assertNull(corrector.correct("unknown", query));
+            Thread.sleep(5);
+        }
+
+        verify(scanner, timeout(2000).times(1))
+                .scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class));
+        Thread.sleep(100);
+        verify(scanner, times(1)).scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class));
+    }
+
+    @Test
+    void testAppWithoutIndexGetsNoVocabulary() throws Exception {
+        when(scanner.exists(anyString())).thenReturn(false);
+
+        assertNull(corrector.correct("no-such-app", query));
+
+        verify(scanner, timeout(2000)).exists("search_no-such-app");
+        Thread.sleep(100);
+        verify(scanner, never()).scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class));
+        assertTrue(indexes().isEmpty());
+    }
+
+    @Test
+    void testEmptyScanInstallsNoVocabulary() throws Exception {
+        when(scanner.exists("search_shop")).thenReturn(true);
+        when(scanner.scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class))).thenReturn(0);
+
+        corrector.correct("shop", query);
+
+        verify(scanner, timeout(2000)).scan(eq("search_shop"), anyList(), anyInt(), anyInt(), any(Consumer.class));
+        Thread.sleep(100);
+        assertTrue(indexes().isEmpty());
+    }
+
+    @Test
+    void testVocabularyOfDeletedIndexIsDroppedOnRefresh() throws Exception {
+        corrector.install("shop", SymSpellIndex.build(Map.of("iphone", 10L), 2, 7));
+        assertEquals("iphone", corrector.correct("shop", query));
+        when(scanner.exists("search_shop")).thenReturn(false);
+
+        corrector.refresh();
+
+        verify(scanner, timeout(2000)).exists("search_shop");
+        Thread.sleep(100);
+        assertTrue(indexes().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, SymSpellIndex> indexes() {
+        return (Map<String, SymSpellIndex>) ReflectionTestUtils.getField(corrector, "indexes");
+    }
+}
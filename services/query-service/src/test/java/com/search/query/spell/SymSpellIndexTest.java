@@ -0,0 +1,100 @@
+package com.search.query.spell;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SymSpellIndex
+ */
+class SymSpellIndexTest {
+
+    private SymSpellIndex build(Map<String, Long> frequencies) {
+        return SymSpellIndex.build(frequencies, 2, 7);
+    }
+
+    @Test
+    void testKnownWordHasDistanceZero() {
+        SymSpellIndex index = build(Map.of("laptop", 10L));
+
+        SymSpellIndex.Suggestion suggestion = index.lookup("laptop", 2);
+
+        assertEquals("laptop", suggestion.term());
+        assertEquals(0, suggestion.distance());
+    }
+
+    @Test
+    void testSingleEditCorrections() {
+        SymSpellIndex index = build(Map.of("keyboard", 10L, "monitor", 8L));
+
+        assertEquals("keyboard", index.lookup("keybord", 2).term());    // deletion
+        assertEquals("keyboard", index.lookup("keyboarrd", 2).term());  // insertion
+        assertEquals("monitor", index.lookup("monitar", 2).term());     // substitution
+        assertEquals("monitor", index.lookup("moniotr", 2).term());     // transposition
+        assertEquals(1, index.lookup("moniotr", 2).distance());
+    }
+
+    @Test
+    void testTwoEdits() {
+        SymSpellIndex index = build(Map.of("headphones", 5L));
+
+        SymSpellIndex.Suggestion suggestion = index.lookup("hedphons", 2);
+
+        assertEquals("headphones", suggestion.term());
+        assertEquals(2, suggestion.distance());
+    }
+
+    @Test
+    void testMaxDistanceIsRespected() {
+        SymSpellIndex index = build(Map.of("headphones", 5L));
+
+        assertNull(index.lookup("hedphons", 1));
+        assertNull(index.lookup("xyz", 2));
+    }
+
+    @Test
+    void testHigherFrequencyWinsOnTie() {
+        Map<String, Long> frequencies = new HashMap<>();
+        frequencies.put("shirt", 100L);
+        frequencies.put("short", 10L);
+        SymSpellIndex index = build(frequencies);
+
+        assertEquals("shirt", index.lookup("shurt", 2).term());
+    }
+
+    @Test
+    void testCloserTermWinsOverFrequentTerm() {
+        Map<String, Long> frequencies = new HashMap<>();
+        frequencies.put("camera", 1000L);
+        frequencies.put("cameras", 1L);
+        SymSpellIndex index = build(frequencies);
+
+        assertEquals("cameras", index.lookup("camerass", 2).term());
+    }
+
+    @Test
+    void testLongWordsBeyondPrefix() {
+        SymSpellIndex index = build(Map.of("refrigerator", 3L));
+
+        assertEquals("refrigerator", index.lookup("refrigerater", 2).term());
+    }
+
+    @Test
+    void testDistance() {
+        assertEquals(0, SymSpellIndex.distance("abc", "abc", 2));
+        assertEquals(1, SymSpellIndex.distance("abc", "acb", 2));
+        assertEquals(2, SymSpellIndex.distance("abc", "cab", 2));
+        assertEquals(-1, SymSpellIndex.distance("abc", "xyz", 2));
+    }
+
+    @Test
+    void testCorrectableTerms() {
+        assertTrue(SpellingCorrector.isCorrectable("laptop"));
+        assertFalse(SpellingCorrector.isCorrectable("ab"));
+        assertFalse(SpellingCorrector.isCorrectable("iphone15"));
+        assertFalse(SpellingCorrector.isCorrectable("手机壳"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.search.query.suggest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CompletionTrie
+ */
+class CompletionTrieTest {
+
+    private static List<String> texts(List<CompletionTrie.Completion> completions) {
+        return completions.stream().map(CompletionTrie.Completion::text).collect(Collectors.toList());
+    }
+
+    @Test
+    void testCompletionsOrderedByWeight() {
+        CompletionTrie trie = CompletionTrie.build(Map.of(
+                "iphone 15", 50L,
+                "iphone 15 pro", 80L,
+                "iphone case", 30L,
+                "ipad", 60L), 10);
+
+        assertEquals(List.of("iphone 15 pro", "iphone 15", "iphone case"), texts(trie.complete("iph", 10)));
+        assertEquals(List.of("iphone 15 pro", "ipad", "iphone 15", "iphone case"), texts(trie.complete("i", 10)));
+    }
+
+    @Test
+    void testPrefixEndingInsideEdgeLabel() {
+        CompletionTrie trie = CompletionTrie.build(Map.of("wireless mouse", 5L, "wireless keyboard", 3L), 10);
+
+        assertEquals(List.of("wireless mouse", "wireless keyboard"), texts(trie.complete("wirel", 10)));
+        assertEquals(List.of("wireless keyboard"), texts(trie.complete("wireless k", 10)));
+    }
+
+    @Test
+    void testExactPhraseIsItsOwnCompletion() {
+        CompletionTrie trie = CompletionTrie.build(Map.of("tv", 10L, "tv stand", 20L), 10);
+
+        assertEquals(List.of("tv stand", "tv"), texts(trie.complete("tv", 10)));
+        assertEquals(10L, trie.complete("tv", 10).get(1).weight());
+    }
+
+    @Test
+    void testUnknownPrefixReturnsEmpty() {
+        CompletionTrie trie = CompletionTrie.build(Map.of("laptop", 1L), 10);
+
+        assertTrue(trie.complete("lap top", 10).isEmpty());
+        assertTrue(trie.complete("x", 10).isEmpty());
+        assertTrue(trie.complete("laptops", 10).isEmpty());
+    }
+
+    @Test
+    void testLimitAndTopK() {
+        Map<String, Long> phrases = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            phrases.put("shoe " + i, (long) i);
+        }
+        CompletionTrie trie = CompletionTrie.build(phrases, 5);
+
+        assertEquals(List.of("shoe 19", "shoe 18", "shoe 17"), texts(trie.complete("shoe", 3)));
+        assertEquals(5, trie.complete("shoe", 100).size());
+    }
+
+    @Test
+    void testEmptyPrefixReturnsGlobalTop() {
+        CompletionTrie trie = CompletionTrie.build(Map.of("a", 1L, "b", 3L, "c", 2L), 10);
+
+        assertEquals(List.of("b", "c", "a"), texts(trie.complete("", 10)));
+    }
+
+    @Test
+    void testCjkPhrases() {
+        CompletionTrie trie = CompletionTrie.build(Map.of("手机壳", 5L, "手机", 9L, "手表", 7L), 10);
+
+        assertEquals(List.of("手机", "手表", "手机壳"), texts(trie.complete("手", 10)));
+        assertEquals(List.of("手机", "手机壳"), texts(trie.complete("手机", 10)));
+    }
+
+    @Test
+    void testEmptyTrie() {
+        CompletionTrie trie = CompletionTrie.build(Map.of(), 10);
+
+        assertEquals(0, trie.getEntryCount());
+        assertTrue(trie.complete("a", 10).isEmpty());
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(7);
+        Map<String, Long> phrases = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder phrase = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                phrase.append((char) ('a' + random.nextInt(4)));
+            }
+            phrases.put(phrase.toString(), (long) random.nextInt(1000));
+        }
+        CompletionTrie trie = CompletionTrie.build(phrases, 8);
+
+        for (String prefix : List.of("", "a", "ab", "abc", "dd", "cab", "bbbb")) {
+            List<String> expected = phrases.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(prefix))
+                    .sorted((a, b) -> !a.getValue().equals(b.getValue())
+                            ? Long.compare(b.getValue(), a.getValue())
+                            : a.getKey().compareTo(b.getKey()))
+                    .limit(8)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(expected, texts(trie.complete(prefix, 8)), "prefix=" + prefix);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.search.query.suggest;
+
+import com.search.query.analysis.IndexTextScanner;
+import com.search.query.analysis.QueryAnalyzer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SuggestService
+ */
+class SuggestServiceTest {
+
+    private IndexTextScanner scanner;
+    private SuggestService suggestService;
+
+    @BeforeEach
+    void setUp() {
+        scanner = mock(IndexTextScanner.class);
+        QueryAnalyzer queryAnalyzer = mock(QueryAnalyzer.class);
+        when(queryAnalyzer.normalize(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        suggestService = new SuggestService(scanner, queryAnalyzer);
+        ReflectionTestUtils.setField(suggestService, "enabled", true);
+        ReflectionTestUtils.setField(suggestService, "topK", 3);
+        ReflectionTestUtils.setField(suggestService, "titleField", "title");
+        ReflectionTestUtils.setField(suggestService, "popularityField", "sales");
+        ReflectionTestUtils.setField(suggestService, "retryIntervalMs", 60_000L);
+        suggestService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        suggestService.shutdown();
+    }
+
+    @Test
+    void testSizeIsCappedAtTopK() {
+        suggestService.install("shop", CompletionTrie.build(Map.of(
+                "phone", 5L, "phone case", 4L, "phone stand", 3L, "phone charger", 2L), 3));
+
+        assertEquals(3, suggestService.getMaxSize());
+        assertEquals(3, suggestService.suggest("shop", "pho", 20).size());
+        assertEquals(2, suggestService.suggest("shop", "pho", 2).size());
+    }
+
+    @Test
+    void testFailedBuildIsNotRetriedOnEveryRequest() throws Exception {
+        when(scanner.exists("search_unknown")).thenReturn(true);
+        when(scanner.scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class)))
+                .thenThrow(new IllegalStateException("index_not_found_exception"));
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(suggestService.suggest("unknown", "pho", 10).isEmpty());
+            Thread.sleep(5);
+        }
+
+        verify(scanner, timeout(2000).times(1))
+                .scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class));
+        Thread.sleep(100);
+        verify(scanner, times(1)).scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class));
+    }
+
+    @Test
+    void testAppWithoutIndexGetsNoTrie() throws Exception {
+        when(scanner.exists(anyString())).thenReturn(false);
+
+        assertTrue(suggestService.suggest("no-such-app", "pho", 10).isEmpty());
+
+        verify(scanner, timeout(2000)).exists("search_no-such-app");
+        Thread.sleep(100);
+        verify(scanner, never()).scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class));
+        assertTrue(tries().isEmpty());
+    }
+
+    @Test
+    void testEmptyScanInstallsNoTrie() throws Exception {
+        when(scanner.exists("search_shop")).thenReturn(true);
+        when(scanner.scan(anyString(), anyList(), anyInt(), anyInt(), any(Consumer.class))).thenReturn(0);
+
+        suggestService.suggest("shop", "pho", 10);
+
+        verify(scanner, timeout(2000)).scan(eq("search_shop"), anyList(), anyInt(), anyInt(), any(Consumer.class));
+        Thread.sleep(100);
+        assertTrue(tries().isEmpty());
+    }
+
+    @Test
+    void testTrieOfDeletedIndexIsDroppedOnRefresh() throws Exception {
+        suggestService.install("shop", CompletionTrie.build(Map.of("phone", 5L), 3));
+        when(scanner.exists("search_shop")).thenReturn(false);
+
+        suggestService.refresh();
+
+        verify(scanner, timeout(2000)).exists("search_shop");
+        Thread.sleep(100);
+        assertTrue(tries().isEmpty());
+        assertTrue(suggestService.suggest("shop", "pho", 10).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, CompletionTrie> tries() {
+        return (Map<String, CompletionTrie>) ReflectionTestUtils.getField(suggestService, "tries");
+    }
+}
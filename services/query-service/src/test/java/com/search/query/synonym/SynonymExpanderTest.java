@@ -0,0 +1,82 @@
+package com.search.query.synonym;
+
+import com.search.config.model.SynonymDictionary;
+import com.search.config.model.SynonymRule;
+import com.search.config.model.SynonymType;
+import com.search.query.analysis.QueryAnalyzer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SynonymExpander
+ */
+class SynonymExpanderTest {
+
+    private QueryAnalyzer analyzer;
+    private SynonymExpander expander;
+    private SynonymDictionaryLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        analyzer = new QueryAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(analyzer, "cacheExpireMinutes", 30L);
+        ReflectionTestUtils.setField(analyzer, "stopTermList", List.of("the", "of"));
+        ReflectionTestUtils.setField(analyzer, "shortMaxTerms", 2);
+        ReflectionTestUtils.setField(analyzer, "shortMaxChars", 8);
+        ReflectionTestUtils.setField(analyzer, "longMinTerms", 6);
+        ReflectionTestUtils.setField(analyzer, "longMinChars", 24);
+        analyzer.init();
+
+        expander = new SynonymExpander();
+        loader = new SynonymDictionaryLoader(expander, analyzer);
+
+        SynonymRule equivalent = new SynonymRule("r1", "shop", SynonymType.EQUIVALENT,
+                List.of("Cell Phone", "mobile phone", "smartphone"));
+        SynonymRule oneWay = new SynonymRule("r2", "shop", SynonymType.ONE_WAY, List.of("iPhone"));
+        oneWay.setSynonyms(List.of("smartphone"));
+
+        SynonymDictionary dictionary = new SynonymDictionary("shop", 3, List.of(equivalent, oneWay));
+        expander.swap("shop", dictionary.getVersion(), loader.build(dictionary));
+    }
+
+    @Test
+    void testMultiTermSynonymExpandsToOrGroup() {
+        String expanded = expander.expand("shop", analyzer.analyze("cell phone case"));
+
+        assertEquals("(\"cell phone\" | \"mobile phone\" | smartphone) case", expanded);
+    }
+
+    @Test
+    void testOneWayRuleDoesNotExpandBackwards() {
+        assertEquals("(iphone | smartphone)", expander.expand("shop", analyzer.analyze("IPHONE")));
+        assertFalse(expander.expand("shop", analyzer.analyze("smartphone")).contains("iphone"));
+    }
+
+    @Test
+    void testNoMatchReturnsQueryText() {
+        assertEquals("laptop bag", expander.expand("shop", analyzer.analyze("the laptop bag")));
+    }
+
+    @Test
+    void testUnknownAppReturnsQueryText() {
+        assertEquals("cell phone", expander.expand("other", analyzer.analyze("Cell Phone")));
+        assertEquals(-1, expander.getVersion("other"));
+        assertEquals(3, expander.getVersion("shop"));
+    }
+
+    @Test
+    void testDisabledRulesAreSkipped() {
+        SynonymRule rule = new SynonymRule("r3", "shop", SynonymType.EQUIVALENT, List.of("tv", "television"));
+        rule.setEnabled(false);
+
+        SynonymFst fst = loader.build(new SynonymDictionary("shop", 4, List.of(rule)));
+
+        assertEquals(0, fst.getKeyCount());
+    }
+}
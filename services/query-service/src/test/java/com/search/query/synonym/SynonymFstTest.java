@@ -0,0 +1,119 @@
+package com.search.query.synonym;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SynonymFst
+ */
+class SynonymFstTest {
+
+    @Test
+    void testOrdinalsFollowSortedKeyOrder() {
+        TreeSet<String> keys = new TreeSet<>();
+        Random random = new Random(42);
+        while (keys.size() < 2000) {
+            int length = 1 + random.nextInt(8);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                sb.append((char) ('a' + random.nextInt(6)));
+            }
+            keys.add(sb.toString());
+        }
+
+        SynonymFst.Builder builder = SynonymFst.builder();
+        for (String key : keys) {
+            builder.add(key, List.of("x" + key));
+        }
+        SynonymFst fst = builder.build();
+
+        int expected = 0;
+        for (String key : keys) {
+            assertEquals(expected, fst.ordinal(key), key);
+            assertEquals(List.of("x" + key), fst.expansions(expected));
+            expected++;
+        }
+        assertEquals(-1, fst.ordinal("zzz"));
+        assertEquals(keys.size(), fst.getKeyCount());
+    }
+
+    @Test
+    void testSharedSuffixesAreMerged() {
+        SynonymFst fst = SynonymFst.builder()
+                .add("running shoes", List.of("sneakers"))
+                .add("walking shoes", List.of("sneakers"))
+                .add("hiking shoes", List.of("boots"))
+                .build();
+
+        // A plain trie would need one state per character of every key
+        int trieStates = "running shoes".length() + "walking shoes".length() + "hiking shoes".length() + 1;
+        assertTrue(fst.getStateCount() < trieStates / 2,
+                "Expected suffix sharing, got " + fst.getStateCount() + " states");
+    }
+
+    @Test
+    void testPrefixKeyAndLongerKey() {
+        SynonymFst fst = SynonymFst.builder()
+                .add("cell", List.of("battery"))
+                .add("cell phone", List.of("mobile phone", "smartphone"))
+                .build();
+
+        assertEquals(List.of("battery"), fst.expansions(fst.ordinal("cell")));
+        assertEquals(List.of("mobile phone", "smartphone"), fst.expansions(fst.ordinal("cell phone")));
+        assertEquals(-1, fst.ordinal("cell p"));
+    }
+
+    @Test
+    void testLongestMatchPrefersLongerPhrase() {
+        SynonymFst fst = SynonymFst.builder()
+                .add("cell", List.of("battery"))
+                .add("cell phone", List.of("smartphone"))
+                .build();
+
+        long match = fst.longestMatch(List.of("cell", "phone", "case"), 0);
+        assertEquals(2, (int) (match >>> 32));
+        assertEquals(List.of("smartphone"), fst.expansions((int) match));
+
+        long shortMatch = fst.longestMatch(List.of("cell", "tower"), 0);
+        assertEquals(1, (int) (shortMatch >>> 32));
+
+        assertEquals(-1, fst.longestMatch(List.of("phone", "case"), 0));
+    }
+
+    @Test
+    void testExpansionsAreMergedAndExcludeKey() {
+        SynonymFst fst = SynonymFst.builder()
+                .add("tv", List.of("tv", "television"))
+                .add("tv", List.of("television", "telly"))
+                .build();
+
+        assertEquals(List.of("television", "telly"), fst.expansions(fst.ordinal("tv")));
+    }
+
+    @Test
+    void testCjkKeys() {
+        SynonymFst fst = SynonymFst.builder()
+                .add("手机", List.of("移动电话"))
+                .add("电脑", List.of("计算机"))
+                .build();
+
+        List<String> terms = new ArrayList<>(List.of("华为", "手机"));
+        long match = fst.longestMatch(terms, 1);
+        assertEquals(List.of("移动电话"), fst.expansions((int) match));
+    }
+
+    @Test
+    void testEmptyDictionary() {
+        SynonymFst fst = SynonymFst.builder().build();
+
+        assertEquals(0, fst.getKeyCount());
+        assertEquals(-1, fst.ordinal("anything"));
+        assertEquals(-1, fst.longestMatch(List.of("anything"), 0));
+    }
+}
@@ -0,0 +1,77 @@
+package com.search.vector.batch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency and throughput of executed batches, broken down by batch size
+ *
+ * Safe to record from several dispatcher threads at once.
+ */
+public class BatchSizeStats {
+
+    private final int maxBatchSize;
+    private final AtomicLongArray batches;
+    private final AtomicLongArray totalNanos;
+    private final AtomicLongArray maxNanos;
+
+    /**
+     * @param maxBatchSize largest batch size that will be recorded
+     */
+    public BatchSizeStats(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        this.batches = new AtomicLongArray(maxBatchSize + 1);
+        this.totalNanos = new AtomicLongArray(maxBatchSize + 1);
+        this.maxNanos = new AtomicLongArray(maxBatchSize + 1);
+    }
+
+    /**
+     * Record one executed batch
+     *
+     * @param batchSize number of items in the batch
+     * @param nanos time spent executing it
+     */
+    public void record(int batchSize, long nanos) {
+        int slot = Math.min(Math.max(batchSize, 0), maxBatchSize);
+        batches.incrementAndGet(slot);
+        totalNanos.addAndGet(slot, nanos);
+        maxNanos.accumulateAndGet(slot, nanos, Math::max);
+    }
+
+    /**
+     * Snapshot of every batch size seen so far
+     *
+     * Throughput is items per second of execution time, so it shows what
+     * each batch size achieves independent of how busy the service is.
+     *
+     * @return batch size to its statistics, in increasing batch size
+     */
+    public Map<Integer, Snapshot> snapshot() {
+        Map<Integer, Snapshot> result = new LinkedHashMap<>();
+        for (int size = 1; size <= maxBatchSize; size++) {
+            long count = batches.get(size);
+            if (count == 0) {
+                continue;
+            }
+            long nanos = totalNanos.get(size);
+            double avgMs = (double) nanos / count / TimeUnit.MILLISECONDS.toNanos(1);
+            double maxMs = (double) maxNanos.get(size) / TimeUnit.MILLISECONDS.toNanos(1);
+            double throughput = nanos == 0 ? 0 : (double) count * size * TimeUnit.SECONDS.toNanos(1) / nanos;
+            result.put(size, new Snapshot(count, avgMs, maxMs, throughput));
+        }
+        return result;
+    }
+
+    /**
+     * Statistics for one batch size
+     *
+     * @param batches number of batches executed
+     * @param avgLatencyMs average execution time per batch
+     * @param maxLatencyMs slowest batch
+     * @param throughputPerSec items per second of execution time
+     */
+    public record Snapshot(long batches, double avgLatencyMs, double maxLatencyMs, double throughputPerSec) {
+    }
+}
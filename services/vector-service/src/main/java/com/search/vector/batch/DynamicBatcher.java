@@ -0,0 +1,294 @@
+package com.search.vector.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Dynamic batcher for model inference
+ *
+ * Collects items submitted by concurrent callers and hands them to the
+ * batch handler as one call. A batch is dispatched as soon as it reaches
+ * the max batch size, or when the max wait has elapsed since its first item
+ * arrived, whichever comes first.
+ *
+ * @param <I> input item type
+ * @param <O> output item type
+ */
+public class DynamicBatcher<I, O> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DynamicBatcher.class);
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Function<List<I>, List<O>> handler;
+    private final Listener listener;
+    private final BlockingQueue<Pending<I, O>> queue;
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    /**
+     * Counters for tracking statistics
+     */
+    private final AtomicLong submittedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong batchCount = new AtomicLong(0);
+    private final AtomicLong batchedItemCount = new AtomicLong(0);
+
+    /**
+     * Create a new dynamic batcher
+     *
+     * @param name batcher name, used for the dispatcher thread and logging
+     * @param maxBatchSize maximum number of items per batch
+     * @param maxWaitMs maximum time the first item of a batch waits for more items
+     * @param queueCapacity maximum number of pending items
+     * @param handler batch handler; must return one output per input, in order
+     */
+    public DynamicBatcher(String name, int maxBatchSize, long maxWaitMs, int queueCapacity,
+                          Function<List<I>, List<O>> handler) {
+        this(name, maxBatchSize, maxWaitMs, queueCapacity, handler, null);
+    }
+
+    /**
+     * Create a new dynamic batcher that reports every dispatched batch
+     *
+     * @param name batcher name, used for the dispatcher thread and logging
+     * @param maxBatchSize maximum number of items per batch
+     * @param maxWaitMs maximum time the first item of a batch waits for more items
+     * @param queueCapacity maximum number of pending items
+     * @param handler batch handler; must return one output per input, in order
+     * @param listener notified on the dispatcher thread before each batch runs; may be null
+     */
+    public DynamicBatcher(String name, int maxBatchSize, long maxWaitMs, int queueCapacity,
+                          Function<List<I>, List<O>> handler, Listener listener) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.handler = handler;
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.dispatcher = new Thread(this::dispatchLoop, name + "-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+
+        log.info("Dynamic batcher started: name={}, maxBatchSize={}, maxWaitMs={}, queueCapacity={}",
+                name, maxBatchSize, maxWaitMs, queueCapacity);
+    }
+
+    /**
+     * Submit a single item
+     *
+     * @param item the input item
+     * @return future completed with the item's output once its batch has run
+     */
+    public CompletableFuture<O> submit(I item) {
+        Pending<I, O> pending = new Pending<>(item);
+
+        if (!running) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Batcher " + name + " is shut down"));
+            return pending.future;
+        }
+
+        if (queue.offer(pending)) {
+            submittedCount.incrementAndGet();
+        } else {
+            rejectedCount.incrementAndGet();
+            pending.future.completeExceptionally(new RejectedExecutionException("Batcher " + name + " queue is full"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * Submit several items; they may be spread over more than one batch
+     *
+     * @param items the input items
+     * @return futures in the same order as the items
+     */
+    public List<CompletableFuture<O>> submitAll(List<I> items) {
+        List<CompletableFuture<O>> futures = new ArrayList<>(items.size());
+        for (I item : items) {
+            futures.add(submit(item));
+        }
+        return futures;
+    }
+
+    /**
+     * Get current number of pending items
+     *
+     * @return queue size
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Get the maximum number of items per batch
+     *
+     * @return max batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Get the average number of items per dispatched batch
+     *
+     * @return average batch size, or 0 if nothing has been dispatched
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0 : (double) batchedItemCount.get() / batches;
+    }
+
+    /**
+     * Get statistics about the batcher
+     *
+     * @return statistics string
+     */
+    public String getStats() {
+        return String.format("DynamicBatcher[name=%s, queued=%d, submitted=%d, rejected=%d, batches=%d, avgBatchSize=%.2f]",
+                name, queue.size(), submittedCount.get(), rejectedCount.get(), batchCount.get(), getAverageBatchSize());
+    }
+
+    /**
+     * Stop accepting items; items already queued are still dispatched
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    private void dispatchLoop() {
+        List<Pending<I, O>> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<I, O> first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Interrupted by close(); drain whatever is left without waiting
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                execute(batch);
+                batch.clear();
+            }
+        }
+
+        log.info("Dynamic batcher stopped. Final stats: {}", getStats());
+    }
+
+    /**
+     * Top up the batch until it is full or the first item's wait budget is spent
+     */
+    private void fillBatch(List<Pending<I, O>> batch) throws InterruptedException {
+        long deadline = batch.get(0).enqueuedAt + maxWaitNanos;
+
+        while (batch.size() < maxBatchSize) {
+            // Take whatever is already waiting without blocking
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            if (batch.size() >= maxBatchSize) {
+                return;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+
+            Pending<I, O> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void execute(List<Pending<I, O>> batch) {
+        List<I> inputs = new ArrayList<>(batch.size());
+        long[] waitNanos = new long[batch.size()];
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            inputs.add(batch.get(i).item);
+            waitNanos[i] = now - batch.get(i).enqueuedAt;
+        }
+
+        batchCount.incrementAndGet();
+        batchedItemCount.addAndGet(batch.size());
+        if (listener != null) {
+            try {
+                listener.onDispatch(batch.size(), waitNanos);
+            } catch (RuntimeException e) {
+                log.warn("Batch listener failed: name={}", name, e);
+            }
+        }
+
+        try {
+            List<O> outputs = handler.apply(inputs);
+            if (outputs == null || outputs.size() != inputs.size()) {
+                throw new IllegalStateException("Batch handler returned " +
+                        (outputs == null ? "null" : outputs.size() + " outputs") + " for " + inputs.size() + " inputs");
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(outputs.get(i));
+            }
+
+        } catch (Throwable t) {
+            log.error("Batch execution failed: name={}, size={}", name, batch.size(), t);
+            for (Pending<I, O> pending : batch) {
+                pending.future.completeExceptionally(t);
+            }
+        }
+    }
+
+    /**
+     * Observer of dispatched batches, e.g. for metrics
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called when a batch is about to run
+         *
+         * @param batchSize number of items in the batch
+         * @param waitNanos time each item spent queued, in batch order
+         */
+        void onDispatch(int batchSize, long[] waitNanos);
+    }
+
+    /**
+     * Queued item with its completion handle
+     */
+    private static class Pending<I, O> {
+        final I item;
+        final long enqueuedAt;
+        final CompletableFuture<O> future = new CompletableFuture<>();
+
+        Pending(I item) {
+            this.item = item;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.search.vector.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Inference scheduler that only batches items of similar length together
+ *
+ * Every length bucket has its own {@link DynamicBatcher} queue, so a padded
+ * batch is never stretched to the length of one long outlier. An item goes
+ * to the first bucket whose bound is at least its length; items longer than
+ * the last bound go to the last bucket. A batch is dispatched when it is
+ * full or when its first item has waited the max wait.
+ *
+ * The number of items queued or running across all buckets is bounded;
+ * submissions beyond it fail fast with a {@link RejectedExecutionException}.
+ *
+ * Metrics, when a registry is given (tags: scheduler, bucket):
+ * - vector.inference.queue.depth: items waiting per bucket
+ * - vector.inference.queue.wait: time each item spent queued
+ * - vector.inference.batch.fill: batch size as a fraction of the max batch size
+ * - vector.inference.batch.duration: batch execution time, tagged by batch_size
+ * - vector.inference.inflight: items queued or running
+ * - vector.inference.rejected: submissions refused by the in-flight bound or a full queue
+ *
+ * @param <I> input item type
+ * @param <O> output item type
+ */
+public class InferenceScheduler<I, O> implements AutoCloseable {
+
+    private final String name;
+    private final int[] bounds;
+    private final ToIntFunction<I> length;
+    private final List<DynamicBatcher<I, O>> buckets;
+    private final BatchSizeStats batchSizeStats;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final MeterRegistry registry;
+    private final Counter rejected;
+
+    /**
+     * Create a new inference scheduler
+     *
+     * @param name scheduler name; buckets are named name-bound
+     * @param bounds upper length bound of each bucket
+     * @param length computes the length of an item
+     * @param maxBatchSize maximum number of items per batch
+     * @param maxWaitMs maximum time the first item of a batch waits for more items
+     * @param queueCapacity maximum number of pending items per bucket
+     * @param maxInFlight maximum number of items queued or running across all buckets
+     * @param handler batch handler; must return one output per input, in order
+     * @param registry registry for scheduler metrics; may be null
+     */
+    public InferenceScheduler(String name, int[] bounds, ToIntFunction<I> length,
+                              int maxBatchSize, long maxWaitMs, int queueCapacity, int maxInFlight,
+                              Function<List<I>, List<O>> handler, MeterRegistry registry) {
+        if (bounds == null || bounds.length == 0) {
+            throw new IllegalArgumentException("At least one bucket bound is required");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.name = name;
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.length = length;
+        this.batchSizeStats = new BatchSizeStats(maxBatchSize);
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.registry = registry;
+
+        Function<List<I>, List<O>> timed = items -> {
+            long start = System.nanoTime();
+            try {
+                return handler.apply(items);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                batchSizeStats.record(items.size(), nanos);
+                if (registry != null) {
+                    Timer.builder("vector.inference.batch.duration")
+                            .description("Inference batch execution time")
+                            .tags("scheduler", name, "batch_size", String.valueOf(items.size()))
+                            .register(registry)
+                            .record(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+
+        this.buckets = new ArrayList<>(this.bounds.length);
+        for (int bound : this.bounds) {
+            DynamicBatcher.Listener listener = registry != null ? bucketMetrics(bound, maxBatchSize) : null;
+            buckets.add(new DynamicBatcher<>(name + "-" + bound, maxBatchSize, maxWaitMs, queueCapacity, timed, listener));
+        }
+
+        if (registry != null) {
+            for (int i = 0; i < buckets.size(); i++) {
+                Gauge.builder("vector.inference.queue.depth", buckets.get(i), DynamicBatcher::getQueueSize)
+                        .description("Items waiting for a batch")
+                        .tags("scheduler", name, "bucket", String.valueOf(this.bounds[i]))
+                        .register(registry);
+            }
+            Gauge.builder("vector.inference.inflight", this, InferenceScheduler::getInFlight)
+                    .description("Items queued or running")
+                    .tags("scheduler", name)
+                    .register(registry);
+            this.rejected = Counter.builder("vector.inference.rejected")
+                    .description("Submissions refused because the scheduler was saturated")
+                    .tags("scheduler", name)
+                    .register(registry);
+        } else {
+            this.rejected = null;
+        }
+    }
+
+    /**
+     * Submit a single item to the bucket matching its length
+     *
+     * @param item the input item
+     * @return future completed with the item's output once its batch has run,
+     *         or failed with RejectedExecutionException if the scheduler is saturated
+     */
+    public CompletableFuture<O> submit(I item) {
+        if (!inFlight.tryAcquire()) {
+            if (rejected != null) {
+                rejected.increment();
+            }
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Scheduler " + name + " has " + maxInFlight + " items in flight"));
+        }
+
+        // Callers only see completion once the item no longer counts as in flight
+        return buckets.get(bucketOf(length.applyAsInt(item))).submit(item)
+                .whenComplete((result, error) -> {
+                    inFlight.release();
+                    if (error instanceof RejectedExecutionException && rejected != null) {
+                        rejected.increment();
+                    }
+                });
+    }
+
+    /**
+     * Submit several items; each goes to the bucket matching its length
+     *
+     * @param items the input items
+     * @return futures in the same order as the items
+     */
+    public List<CompletableFuture<O>> submitAll(List<I> items) {
+        List<CompletableFuture<O>> futures = new ArrayList<>(items.size());
+        for (I item : items) {
+            futures.add(submit(item));
+        }
+        return futures;
+    }
+
+    /**
+     * Index of the bucket an item of the given length goes to
+     */
+    int bucketOf(int itemLength) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (itemLength <= bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length - 1;
+    }
+
+    /**
+     * Get the number of items queued or running
+     *
+     * @return in-flight item count
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Get latency and throughput by batch size, across all buckets
+     *
+     * @return batch size statistics
+     */
+    public BatchSizeStats getBatchSizeStats() {
+        return batchSizeStats;
+    }
+
+    /**
+     * Get statistics about every bucket
+     *
+     * @return statistics string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        for (DynamicBatcher<I, O> bucket : buckets) {
+            if (stats.length() > 0) {
+                stats.append(", ");
+            }
+            stats.append(bucket.getStats());
+        }
+        return stats.toString();
+    }
+
+    /**
+     * Stop accepting items; items already queued are still dispatched
+     */
+    @Override
+    public void close() {
+        buckets.forEach(DynamicBatcher::close);
+    }
+
+    private DynamicBatcher.Listener bucketMetrics(int bound, int maxBatchSize) {
+        String bucket = String.valueOf(bound);
+        Timer wait = Timer.builder("vector.inference.queue.wait")
+                .description("Time an item waits for its batch")
+                .tags("scheduler", name, "bucket", bucket)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        DistributionSummary fill = DistributionSummary.builder("vector.inference.batch.fill")
+                .description("Batch size as a fraction of the max batch size")
+                .tags("scheduler", name, "bucket", bucket)
+                .register(registry);
+
+        return (batchSize, waitNanos) -> {
+            fill.record((double) batchSize / maxBatchSize);
+            for (long nanos : waitNanos) {
+                wait.record(nanos, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
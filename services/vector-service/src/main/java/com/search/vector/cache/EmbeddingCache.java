@@ -0,0 +1,207 @@
+package com.search.vector.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Content-addressed cache of embeddings
+ *
+ * Entries are keyed by a 128-bit hash of the model name and the normalized
+ * text, so the same text embedded by the same model is computed once no
+ * matter which document or field it came from, and a model change never
+ * serves old vectors. A bounded in-memory tier sits in front of an optional
+ * {@link MappedVectorStore} on local disk that survives restarts.
+ *
+ * Concurrent requests for the same text share one computation. Returned
+ * vectors are shared between callers and must not be modified.
+ */
+public class EmbeddingCache implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    private final String modelName;
+    private final AsyncCache<Key, float[]> memory;
+    private final MappedVectorStore disk;
+
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Counter diskHitCounter;
+    private final Counter missCounter;
+
+    /**
+     * @param modelName model the cached vectors come from
+     * @param maxEntries in-memory entries
+     * @param disk disk tier, or null for memory only
+     * @param registry registry for cache metrics, or null
+     */
+    public EmbeddingCache(String modelName, long maxEntries, MappedVectorStore disk, MeterRegistry registry) {
+        this.modelName = modelName;
+        this.disk = disk;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .buildAsync();
+
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, memory, "embedding", "model", modelName);
+            diskHitCounter = registry.counter("vector.embedding.cache.disk.hits", "model", modelName);
+            missCounter = registry.counter("vector.embedding.cache.misses", "model", modelName);
+        } else {
+            diskHitCounter = null;
+            missCounter = null;
+        }
+    }
+
+    /**
+     * Get the embedding of a text, computing it on a miss
+     *
+     * A failed computation is not cached.
+     *
+     * @param text the input text
+     * @param loader computes the embedding of the text
+     * @return future completed with the embedding
+     */
+    public CompletableFuture<float[]> get(String text, Function<String, CompletableFuture<float[]>> loader) {
+        return memory.get(key(text), (key, executor) -> {
+            if (disk != null) {
+                float[] stored = disk.get(key.hi, key.lo);
+                if (stored != null) {
+                    diskHits.incrementAndGet();
+                    if (diskHitCounter != null) {
+                        diskHitCounter.increment();
+                    }
+                    return CompletableFuture.completedFuture(stored);
+                }
+            }
+
+            misses.incrementAndGet();
+            if (missCounter != null) {
+                missCounter.increment();
+            }
+            CompletableFuture<float[]> computed = loader.apply(text);
+            if (disk != null) {
+                computed = computed.thenApply(vector -> {
+                    store(key, vector);
+                    return vector;
+                });
+            }
+            return computed;
+        });
+    }
+
+    /**
+     * Snapshot of hit counts and sizes
+     *
+     * @return cache statistics
+     */
+    public Stats getStats() {
+        return new Stats(
+                memory.synchronous().stats().hitCount(),
+                diskHits.get(),
+                misses.get(),
+                memory.synchronous().estimatedSize(),
+                disk != null ? disk.size() : 0,
+                disk != null ? disk.getCapacity() : 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    /**
+     * Cache key of a text under this cache's model
+     */
+    Key key(String text) {
+        MessageDigest digest = sha256();
+        digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(normalize(text).getBytes(StandardCharsets.UTF_8));
+
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        long hi = hash.getLong();
+        long lo = hash.getLong();
+        // (0, 0) marks an empty disk slot
+        return new Key(hi, hi == 0 && lo == 0 ? 1 : lo);
+    }
+
+    /**
+     * Normalize a text for keying
+     *
+     * Only trims and collapses whitespace runs: the tokenizer splits on
+     * whitespace, so such texts produce the same token ids and thus the same
+     * embedding. Case and Unicode forms are left alone because not every
+     * model folds them.
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    private void store(Key key, float[] vector) {
+        try {
+            disk.put(key.hi, key.lo, vector);
+        } catch (RuntimeException e) {
+            // The vector is still served; it is recomputed after a restart
+            log.warn("Failed to write embedding to the disk cache: {}", e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 128-bit content hash
+     */
+    record Key(long hi, long lo) {
+    }
+
+    /**
+     * Cache statistics
+     *
+     * @param memoryHits requests served from memory
+     * @param diskHits requests served from the disk tier
+     * @param misses requests that ran the model
+     * @param memoryEntries entries held in memory
+     * @param diskEntries entries held on disk
+     * @param diskCapacity disk tier slots; 0 without a disk tier
+     */
+    public record Stats(long memoryHits, long diskHits, long misses,
+                        long memoryEntries, long diskEntries, long diskCapacity) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.search.vector.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-capacity vector store in a memory-mapped file
+ *
+ * The file is an open-addressed hash table of fixed-size slots, each holding
+ * a 128-bit key, a CRC32C of the vector and the float32 values. A key is
+ * looked for in a short run of slots after its home slot; when the run is
+ * full, the home slot is overwritten, so the store never grows beyond its
+ * capacity. Slots whose checksum does not match (e.g. torn by a crash) read
+ * as misses.
+ *
+ * The page cache holds the hot part of the file, so the store can be much
+ * larger than the heap and survives restarts. A file created with another
+ * dimension or capacity is reset on open.
+ */
+public class MappedVectorStore implements Closeable {
+
+    private static final int MAGIC = 0x45564331; // "EVC1"
+    private static final int HEADER_BYTES = 64;
+    private static final int SIZE_OFFSET = 16;
+    private static final int MAX_PROBES = 8;
+
+    private final int dimension;
+    private final long capacity;
+    private final int slotBytes;
+    private final int slotsPerSegment;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Slot writes are a few KB, so a single lock costs little next to the
+     * model run that precedes every put
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param path file backing the store; created if missing
+     * @param dimension vector dimension
+     * @param capacity number of slots
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public MappedVectorStore(Path path, int dimension, long capacity) throws IOException {
+        if (dimension <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("dimension and capacity must be positive");
+        }
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.slotBytes = 16 + 4 + dimension * Float.BYTES;
+        this.slotsPerSegment = Integer.MAX_VALUE / slotBytes;
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        boolean compatible = header.getInt(0) == MAGIC
+                && header.getInt(4) == dimension
+                && header.getLong(8) == capacity;
+        if (!compatible) {
+            // Drop slots written with another layout; the new mapping reads as zeros
+            channel.truncate(HEADER_BYTES);
+        }
+
+        int segmentCount = (int) ((capacity + slotsPerSegment - 1) / slotsPerSegment);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long slots = Math.min(slotsPerSegment, capacity - (long) i * slotsPerSegment);
+            long offset = HEADER_BYTES + (long) i * slotsPerSegment * slotBytes;
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, slots * slotBytes);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (!compatible) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, dimension);
+            header.putLong(8, capacity);
+            header.putLong(SIZE_OFFSET, 0);
+        }
+    }
+
+    /**
+     * Look up a vector
+     *
+     * @param hi high 64 bits of the key
+     * @param lo low 64 bits of the key; the key (0, 0) is reserved
+     * @return a copy of the vector, or null if absent
+     */
+    public float[] get(long hi, long lo) {
+        lock.readLock().lock();
+        try {
+            long slot = findSlot(hi, lo);
+            if (slot < 0) {
+                return null;
+            }
+            ByteBuffer buffer = segment(slot);
+            int offset = offset(slot);
+            float[] vector = new float[dimension];
+            buffer.slice(offset + 20, dimension * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer()
+                    .get(vector);
+            return checksum(buffer, offset) == buffer.getInt(offset + 16) ? vector : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Store a vector, replacing any previous value for the key
+     *
+     * @param hi high 64 bits of the key
+     * @param lo low 64 bits of the key; the key (0, 0) is reserved
+     * @param vector vector of the store's dimension
+     */
+    public void put(long hi, long lo, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + vector.length);
+        }
+
+        lock.writeLock().lock();
+        try {
+            long slot = findSlot(hi, lo);
+            if (slot < 0) {
+                slot = freeSlot(hi, lo);
+            }
+            ByteBuffer buffer = segment(slot);
+            int offset = offset(slot);
+            if (buffer.getLong(offset) == 0 && buffer.getLong(offset + 8) == 0) {
+                header.putLong(SIZE_OFFSET, header.getLong(SIZE_OFFSET) + 1);
+            }
+
+            buffer.putLong(offset, hi);
+            buffer.putLong(offset + 8, lo);
+            buffer.slice(offset + 20, dimension * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer()
+                    .put(vector);
+            buffer.putInt(offset + 16, checksum(buffer, offset));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of occupied slots
+     *
+     * @return stored vector count
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return header.getLong(SIZE_OFFSET);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of slots
+     *
+     * @return capacity
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Flush written slots to disk and close the file
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            header.force();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long findSlot(long hi, long lo) {
+        long home = home(hi, lo);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            long slot = (home + i) % capacity;
+            ByteBuffer buffer = segment(slot);
+            int offset = offset(slot);
+            long slotHi = buffer.getLong(offset);
+            long slotLo = buffer.getLong(offset + 8);
+            if (slotHi == hi && slotLo == lo) {
+                return slot;
+            }
+            if (slotHi == 0 && slotLo == 0) {
+                return -1; // Keys are never removed, so the run ends here
+            }
+        }
+        return -1;
+    }
+
+    private long freeSlot(long hi, long lo) {
+        long home = home(hi, lo);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            long slot = (home + i) % capacity;
+            ByteBuffer buffer = segment(slot);
+            int offset = offset(slot);
+            if (buffer.getLong(offset) == 0 && buffer.getLong(offset + 8) == 0) {
+                return slot;
+            }
+        }
+        return home;
+    }
+
+    private long home(long hi, long lo) {
+        return Math.floorMod(hi ^ lo, capacity);
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot / slotsPerSegment)];
+    }
+
+    private int offset(long slot) {
+        return (int) (slot % slotsPerSegment) * slotBytes;
+    }
+
+    private int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, 16));
+        crc.update(buffer.slice(offset + 20, dimension * Float.BYTES));
+        return (int) crc.getValue();
+    }
+}
@@ -1,17 +1,31 @@
 package com.search.vector.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.search.common.vector.VectorCodec;
+import com.search.vector.cache.EmbeddingCache;
 import com.search.vector.service.EmbeddingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller for text embedding operations
+ *
+ * Vectors are returned as JSON float arrays by default. Clients can ask for
+ * a compact {@link VectorCodec} frame instead: with Accept:
+ * application/octet-stream the frame is the response body, and with an
+ * encoding parameter (float32 or float16) on a JSON request it is returned
+ * base64 encoded in the data field.
  */
 @RestController
 @RequestMapping("/api/v1/embedding")
@@ -30,37 +44,71 @@ public class EmbeddingController {
      *
      * POST /api/v1/embedding
      *
+     * The servlet thread is released while the text waits for its batch.
+     *
      * @param request embedding request
+     * @param encoding optional float32 or float16; returns the vector as a base64 frame
      * @return embedding response with vector
      */
     @PostMapping
-    public ResponseEntity<EmbeddingResponse> embed(@RequestBody EmbeddingRequest request) {
-        try {
-            if (!embeddingService.isReady()) {
-                return ResponseEntity.serviceUnavailable().build();
-            }
+    public CompletableFuture<ResponseEntity<EmbeddingResponse>> embed(@RequestBody EmbeddingRequest request,
+                                                                      @RequestParam(required = false) String encoding) {
+        if (!embeddingService.isReady()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        VectorCodec.Encoding frameEncoding = parseEncoding(encoding);
+        if (encoding != null && frameEncoding == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
 
-            long startTime = System.currentTimeMillis();
-            float[] vector = embeddingService.embed(request.getText());
-            long took = System.currentTimeMillis() - startTime;
+        long startTime = System.currentTimeMillis();
+        return embeddingService.embedAsync(request.getText())
+                .thenApply(vector -> {
+                    long took = System.currentTimeMillis() - startTime;
 
-            EmbeddingResponse response = new EmbeddingResponse(
-                    vector,
-                    embeddingService.getDimension(),
-                    embeddingService.getModelName(),
-                    took
-            );
+                    EmbeddingResponse response = frameEncoding == null
+                            ? new EmbeddingResponse(vector, embeddingService.getDimension(),
+                                    embeddingService.getModelName(), took)
+                            : new EmbeddingResponse(VectorCodec.encode(vector, frameEncoding), frameEncoding,
+                                    embeddingService.getDimension(), embeddingService.getModelName(), took);
 
-            log.info("Generated embedding: text_length={}, dimension={}, took={}ms",
-                    request.getText() != null ? request.getText().length() : 0,
-                    vector.length, took);
+                    log.info("Generated embedding: text_length={}, dimension={}, took={}ms",
+                            request.getText() != null ? request.getText().length() : 0,
+                            vector.length, took);
 
-            return ResponseEntity.ok(response);
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> errorResponse("Failed to generate embedding", e));
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to generate embedding", e);
-            return ResponseEntity.internalServerError().build();
+    /**
+     * Generate embedding for a single text as a binary frame
+     *
+     * POST /api/v1/embedding with Accept: application/octet-stream
+     *
+     * @param request embedding request
+     * @param encoding float32 (default) or float16
+     * @return VectorCodec frame holding one vector
+     */
+    @PostMapping(produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public CompletableFuture<ResponseEntity<byte[]>> embedBinary(@RequestBody EmbeddingRequest request,
+                                                                 @RequestParam(defaultValue = "float32") String encoding) {
+        if (!embeddingService.isReady()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        VectorCodec.Encoding frameEncoding = parseEncoding(encoding);
+        if (frameEncoding == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
+
+        long startTime = System.currentTimeMillis();
+        return embeddingService.embedAsync(request.getText())
+                .thenApply(vector -> {
+                    log.debug("Generated binary embedding: dimension={}, encoding={}, took={}ms",
+                            vector.length, frameEncoding, System.currentTimeMillis() - startTime);
+                    return binaryResponse(VectorCodec.encode(vector, frameEncoding));
+                })
+                .exceptionally(e -> errorResponse("Failed to generate embedding", e));
     }
 
     /**
@@ -69,35 +117,103 @@ public class EmbeddingController {
      * POST /api/v1/embedding/batch
      *
      * @param request batch embedding request
+     * @param encoding optional float32 or float16; returns the vectors as one base64 frame
      * @return batch embedding response
      */
     @PostMapping("/batch")
-    public ResponseEntity<BatchEmbeddingResponse> embedBatch(@RequestBody BatchEmbeddingRequest request) {
-        try {
-            if (!embeddingService.isReady()) {
-                return ResponseEntity.serviceUnavailable().build();
-            }
+    public CompletableFuture<ResponseEntity<BatchEmbeddingResponse>> embedBatch(@RequestBody BatchEmbeddingRequest request,
+                                                                                @RequestParam(required = false) String encoding) {
+        if (!embeddingService.isReady()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        VectorCodec.Encoding frameEncoding = parseEncoding(encoding);
+        if (encoding != null && frameEncoding == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+
+        long startTime = System.currentTimeMillis();
+        return embeddingService.embedBatchAsync(request.getTexts())
+                .thenApply(vectors -> {
+                    long took = System.currentTimeMillis() - startTime;
+
+                    BatchEmbeddingResponse response = frameEncoding == null
+                            ? new BatchEmbeddingResponse(vectors, embeddingService.getDimension(),
+                                    embeddingService.getModelName(), took)
+                            : new BatchEmbeddingResponse(
+                                    VectorCodec.encode(vectors, embeddingService.getDimension(), frameEncoding),
+                                    frameEncoding, embeddingService.getDimension(), embeddingService.getModelName(), took);
+
+                    log.info("Generated batch embeddings: count={}, dimension={}, took={}ms",
+                            vectors.size(), embeddingService.getDimension(), took);
 
-            long startTime = System.currentTimeMillis();
-            List<float[]> vectors = embeddingService.embedBatch(request.getTexts());
-            long took = System.currentTimeMillis() - startTime;
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> errorResponse("Failed to generate batch embeddings", e));
+    }
+
+    /**
+     * Generate embeddings for multiple texts as one binary frame
+     *
+     * POST /api/v1/embedding/batch with Accept: application/octet-stream
+     *
+     * @param request batch embedding request
+     * @param encoding float32 (default) or float16
+     * @return VectorCodec frame holding the vectors in request order
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public CompletableFuture<ResponseEntity<byte[]>> embedBatchBinary(@RequestBody BatchEmbeddingRequest request,
+                                                                      @RequestParam(defaultValue = "float32") String encoding) {
+        if (!embeddingService.isReady()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        VectorCodec.Encoding frameEncoding = parseEncoding(encoding);
+        if (frameEncoding == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
 
-            BatchEmbeddingResponse response = new BatchEmbeddingResponse(
-                    vectors,
-                    embeddingService.getDimension(),
-                    embeddingService.getModelName(),
-                    took
-            );
+        long startTime = System.currentTimeMillis();
+        return embeddingService.embedBatchAsync(request.getTexts())
+                .thenApply(vectors -> {
+                    log.info("Generated binary batch embeddings: count={}, encoding={}, took={}ms",
+                            vectors.size(), frameEncoding, System.currentTimeMillis() - startTime);
+                    return binaryResponse(VectorCodec.encode(vectors, embeddingService.getDimension(), frameEncoding));
+                })
+                .exceptionally(e -> errorResponse("Failed to generate batch embeddings", e));
+    }
 
-            log.info("Generated batch embeddings: count={}, dimension={}, took={}ms",
-                    vectors.size(), embeddingService.getDimension(), took);
+    /**
+     * Parse the encoding parameter; null if it is absent or unknown
+     */
+    private VectorCodec.Encoding parseEncoding(String encoding) {
+        if (encoding == null) {
+            return null;
+        }
+        try {
+            return VectorCodec.Encoding.fromName(encoding);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-            return ResponseEntity.ok(response);
+    private ResponseEntity<byte[]> binaryResponse(byte[] frame) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header("X-Embedding-Model", embeddingService.getModelName())
+                .body(frame);
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to generate batch embeddings", e);
-            return ResponseEntity.internalServerError().build();
+    /**
+     * Map a failed embedding future to a response: 503 when the inference
+     * scheduler is saturated, 500 otherwise
+     */
+    private <T> ResponseEntity<T> errorResponse(String message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            log.warn("{}: {}", message, cause.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
+        log.error(message, cause);
+        return ResponseEntity.internalServerError().build();
     }
 
     /**
@@ -117,6 +233,25 @@ public class EmbeddingController {
         return ResponseEntity.ok(info);
     }
 
+    /**
+     * Get inference statistics by batch size
+     *
+     * GET /api/v1/embedding/stats
+     *
+     * @return latency and throughput per batch size, and cache hit counts
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("model", embeddingService.getModelName());
+        stats.put("batchSizes", embeddingService.getBatchStats());
+        EmbeddingCache.Stats cacheStats = embeddingService.getCacheStats();
+        if (cacheStats != null) {
+            stats.put("cache", cacheStats);
+        }
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * Health check
      *
@@ -149,8 +284,11 @@ public class EmbeddingController {
         public void setTexts(List<String> texts) { this.texts = texts; }
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class EmbeddingResponse {
         private float[] vector;
+        private byte[] data;
+        private String encoding;
         private int dimension;
         private String model;
         private long took;
@@ -162,14 +300,27 @@ public class EmbeddingController {
             this.took = took;
         }
 
+        public EmbeddingResponse(byte[] data, VectorCodec.Encoding encoding, int dimension, String model, long took) {
+            this.data = data;
+            this.encoding = encoding.name().toLowerCase();
+            this.dimension = dimension;
+            this.model = model;
+            this.took = took;
+        }
+
         public float[] getVector() { return vector; }
+        public byte[] getData() { return data; }
+        public String getEncoding() { return encoding; }
         public int getDimension() { return dimension; }
         public String getModel() { return model; }
         public long getTook() { return took; }
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class BatchEmbeddingResponse {
         private List<float[]> vectors;
+        private byte[] data;
+        private String encoding;
         private int dimension;
         private String model;
         private long took;
@@ -181,7 +332,17 @@ public class EmbeddingController {
             this.took = took;
         }
 
+        public BatchEmbeddingResponse(byte[] data, VectorCodec.Encoding encoding, int dimension, String model, long took) {
+            this.data = data;
+            this.encoding = encoding.name().toLowerCase();
+            this.dimension = dimension;
+            this.model = model;
+            this.took = took;
+        }
+
         public List<float[]> getVectors() { return vectors; }
+        public byte[] getData() { return data; }
+        public String getEncoding() { return encoding; }
         public int getDimension() { return dimension; }
         public String getModel() { return model; }
         public long getTook() { return took; }
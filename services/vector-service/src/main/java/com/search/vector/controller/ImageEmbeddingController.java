@@ -3,12 +3,18 @@ package com.search.vector.controller;
 import com.search.vector.service.ImageEmbeddingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller for image embedding operations
@@ -37,7 +43,7 @@ public class ImageEmbeddingController {
     public ResponseEntity<ImageEmbeddingResponse> embedImage(@RequestParam("file") MultipartFile file) {
         try {
             if (!imageEmbeddingService.isReady()) {
-                return ResponseEntity.serviceUnavailable().build();
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
             }
 
             // Validate file type
@@ -63,6 +69,12 @@ public class ImageEmbeddingController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("Rejected image upload {}: {}", file.getOriginalFilename(), e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            log.warn("Failed to generate image embedding: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             log.error("Failed to generate image embedding", e);
             return ResponseEntity.internalServerError().build();
@@ -74,41 +86,110 @@ public class ImageEmbeddingController {
      *
      * POST /api/v1/embedding/image/url
      *
+     * The servlet thread is released while the image downloads and waits for its batch.
+     *
      * @param request URL request
      * @return embedding response
      */
     @PostMapping("/url")
-    public ResponseEntity<ImageEmbeddingResponse> embedImageUrl(@RequestBody ImageUrlRequest request) {
-        try {
-            if (!imageEmbeddingService.isReady()) {
-                return ResponseEntity.serviceUnavailable().build();
-            }
+    public CompletableFuture<ResponseEntity<ImageEmbeddingResponse>> embedImageUrl(@RequestBody ImageUrlRequest request) {
+        if (!imageEmbeddingService.isReady()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        if (request.getUrl() == null || request.getUrl().isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
 
-            if (request.getUrl() == null || request.getUrl().isEmpty()) {
-                return ResponseEntity.badRequest().build();
-            }
+        long startTime = System.currentTimeMillis();
+        return imageEmbeddingService.embedFromUrlAsync(request.getUrl())
+                .thenApply(vector -> {
+                    long took = System.currentTimeMillis() - startTime;
 
-            long startTime = System.currentTimeMillis();
-            float[] vector = imageEmbeddingService.embedFromUrl(request.getUrl());
-            long took = System.currentTimeMillis() - startTime;
+                    ImageEmbeddingResponse response = new ImageEmbeddingResponse(
+                            request.getUrl(),
+                            vector,
+                            imageEmbeddingService.getDimension(),
+                            imageEmbeddingService.getModelName(),
+                            took
+                    );
 
-            ImageEmbeddingResponse response = new ImageEmbeddingResponse(
-                    request.getUrl(),
-                    vector,
-                    imageEmbeddingService.getDimension(),
-                    imageEmbeddingService.getModelName(),
-                    took
-            );
+                    log.info("Generated image embedding from URL: url={}, dimension={}, took={}ms",
+                            request.getUrl(), vector.length, took);
 
-            log.info("Generated image embedding from URL: url={}, dimension={}, took={}ms",
-                    request.getUrl(), vector.length, took);
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> errorResponse("Failed to generate image embedding from URL", e));
+    }
 
-            return ResponseEntity.ok(response);
+    /**
+     * Generate embeddings for several image URLs
+     *
+     * POST /api/v1/embedding/image/url/batch
+     *
+     * @param request batch URL request
+     * @return embeddings in request order
+     */
+    @PostMapping("/url/batch")
+    public CompletableFuture<ResponseEntity<BatchImageEmbeddingResponse>> embedImageUrls(
+            @RequestBody ImageUrlBatchRequest request) {
+        if (!imageEmbeddingService.isReady()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        if (request.getUrls() == null || request.getUrls().isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
 
-        } catch (Exception e) {
-            log.error("Failed to generate image embedding from URL", e);
-            return ResponseEntity.internalServerError().build();
+        long startTime = System.currentTimeMillis();
+        return imageEmbeddingService.embedFromUrlsAsync(request.getUrls())
+                .thenApply(vectors -> {
+                    long took = System.currentTimeMillis() - startTime;
+                    log.info("Generated image embeddings from URLs: count={}, took={}ms", vectors.size(), took);
+                    return ResponseEntity.ok(new BatchImageEmbeddingResponse(
+                            vectors,
+                            vectors.size(),
+                            imageEmbeddingService.getDimension(),
+                            imageEmbeddingService.getModelName(),
+                            took
+                    ));
+                })
+                .exceptionally(e -> errorResponse("Failed to generate image embeddings from URLs", e));
+    }
+
+    /**
+     * Map a failed image future to a response: 503 when the pipeline is
+     * saturated, 400 for a bad URL or image, 502 when the download failed
+     */
+    private <T> ResponseEntity<T> errorResponse(String message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            log.warn("{}: {}", message, cause.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (cause instanceof IllegalArgumentException) {
+            log.warn("{}: {}", message, cause.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        if (cause instanceof IOException) {
+            log.warn("{}: {}", message, cause.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
         }
+        log.error(message, cause);
+        return ResponseEntity.internalServerError().build();
+    }
+
+    /**
+     * Get image pipeline timings by stage
+     *
+     * GET /api/v1/embedding/image/stats
+     *
+     * @return count, mean and max latency of fetch, decode, preprocess and inference
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("model", imageEmbeddingService.getModelName());
+        stats.put("stages", imageEmbeddingService.getStageStats());
+        return ResponseEntity.ok(stats);
     }
 
     /**
@@ -137,6 +218,13 @@ public class ImageEmbeddingController {
         public void setUrl(String url) { this.url = url; }
     }
 
+    public static class ImageUrlBatchRequest {
+        private List<String> urls;
+
+        public List<String> getUrls() { return urls; }
+        public void setUrls(List<String> urls) { this.urls = urls; }
+    }
+
     public static class ImageEmbeddingResponse {
         private String source;
         private float[] vector;
@@ -158,4 +246,26 @@ public class ImageEmbeddingController {
         public String getModel() { return model; }
         public long getTook() { return took; }
     }
+
+    public static class BatchImageEmbeddingResponse {
+        private List<float[]> vectors;
+        private int count;
+        private int dimension;
+        private String model;
+        private long took;
+
+        public BatchImageEmbeddingResponse(List<float[]> vectors, int count, int dimension, String model, long took) {
+            this.vectors = vectors;
+            this.count = count;
+            this.dimension = dimension;
+            this.model = model;
+            this.took = took;
+        }
+
+        public List<float[]> getVectors() { return vectors; }
+        public int getCount() { return count; }
+        public int getDimension() { return dimension; }
+        public String getModel() { return model; }
+        public long getTook() { return took; }
+    }
 }
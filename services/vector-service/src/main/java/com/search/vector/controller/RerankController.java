@@ -0,0 +1,114 @@
+package com.search.vector.controller;
+
+import com.search.vector.service.RerankService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller for cross-encoder rerank operations
+ */
+@RestController
+@RequestMapping("/api/v1/rerank")
+public class RerankController {
+
+    private static final Logger log = LoggerFactory.getLogger(RerankController.class);
+
+    private final RerankService rerankService;
+
+    public RerankController(RerankService rerankService) {
+        this.rerankService = rerankService;
+    }
+
+    /**
+     * Score passages against a query
+     *
+     * POST /api/v1/rerank
+     *
+     * @param request rerank request
+     * @return passages ordered by descending relevance
+     */
+    @PostMapping
+    public ResponseEntity<RerankResponse> rerank(@RequestBody RerankRequest request) {
+        try {
+            if (!rerankService.isReady()) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+
+            if (request.getQuery() == null || request.getQuery().isEmpty() || request.getPassages() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            long startTime = System.currentTimeMillis();
+            float[] scores = rerankService.score(request.getQuery(), request.getPassages());
+            long took = System.currentTimeMillis() - startTime;
+
+            List<ScoredPassage> results = new ArrayList<>(scores.length);
+            for (int i = 0; i < scores.length; i++) {
+                results.add(new ScoredPassage(i, scores[i]));
+            }
+            results.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+
+            if (request.getTopN() > 0 && request.getTopN() < results.size()) {
+                results = new ArrayList<>(results.subList(0, request.getTopN()));
+            }
+
+            log.info("Reranked passages: count={}, took={}ms", scores.length, took);
+
+            return ResponseEntity.ok(new RerankResponse(results, rerankService.getModelName(), took));
+
+        } catch (Exception e) {
+            log.error("Failed to rerank passages", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Request/Response models
+
+    public static class RerankRequest {
+        private String query;
+        private List<String> passages;
+        private int topN;
+
+        public String getQuery() { return query; }
+        public void setQuery(String query) { this.query = query; }
+        public List<String> getPassages() { return passages; }
+        public void setPassages(List<String> passages) { this.passages = passages; }
+        public int getTopN() { return topN; }
+        public void setTopN(int topN) { this.topN = topN; }
+    }
+
+    public static class ScoredPassage {
+        private int index;
+        private float score;
+
+        public ScoredPassage(int index, float score) {
+            this.index = index;
+            this.score = score;
+        }
+
+        public int getIndex() { return index; }
+        public float getScore() { return score; }
+    }
+
+    public static class RerankResponse {
+        private List<ScoredPassage> results;
+        private String model;
+        private long took;
+
+        public RerankResponse(List<ScoredPassage> results, String model, long took) {
+            this.results = results;
+            this.model = model;
+            this.took = took;
+        }
+
+        public List<ScoredPassage> getResults() { return results; }
+        public String getModel() { return model; }
+        public long getTook() { return took; }
+    }
+}
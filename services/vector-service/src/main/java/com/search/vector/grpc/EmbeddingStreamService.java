@@ -0,0 +1,155 @@
+package com.search.vector.grpc;
+
+import com.search.vector.service.EmbeddingService;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * gRPC streaming front end for {@link EmbeddingService#embedBatchAsync}
+ *
+ * Flow control is explicit in both directions: each stream only asks the
+ * client for a new batch when one of its in-flight batches has been
+ * answered, so at most maxInFlightBatches are queued per stream, and no
+ * new batch is requested while the response side is not ready (the
+ * client is not reading).
+ */
+public class EmbeddingStreamService extends EmbeddingStreamGrpc.EmbeddingStreamImplBase {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingStreamService.class);
+
+    private final EmbeddingService embeddingService;
+    private final int maxInFlightBatches;
+
+    /**
+     * @param embeddingService service the batches are embedded with
+     * @param maxInFlightBatches batches accepted per stream before earlier ones are answered
+     */
+    public EmbeddingStreamService(EmbeddingService embeddingService, int maxInFlightBatches) {
+        if (maxInFlightBatches <= 0) {
+            throw new IllegalArgumentException("maxInFlightBatches must be positive");
+        }
+        this.embeddingService = embeddingService;
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    @Override
+    public StreamObserver<EmbedRequest> embed(StreamObserver<EmbedResponse> responseObserver) {
+        ServerCallStreamObserver<EmbedResponse> call = (ServerCallStreamObserver<EmbedResponse>) responseObserver;
+        BatchStream stream = new BatchStream(call);
+        call.disableAutoRequest();
+        call.setOnReadyHandler(stream::onReady);
+        call.setOnCancelHandler(stream::onCancel);
+        call.request(maxInFlightBatches);
+        return stream;
+    }
+
+    /**
+     * One client stream; responses are sent from whichever thread completes a batch
+     */
+    private class BatchStream implements StreamObserver<EmbedRequest> {
+
+        private final ServerCallStreamObserver<EmbedResponse> call;
+
+        // Guarded by this
+        private int inFlight;
+        private int deferredRequests;
+        private boolean halfClosed;
+        private boolean closed;
+
+        BatchStream(ServerCallStreamObserver<EmbedResponse> call) {
+            this.call = call;
+        }
+
+        @Override
+        public void onNext(EmbedRequest request) {
+            synchronized (this) {
+                inFlight++;
+            }
+            long batchId = request.getBatchId();
+            embeddingService.embedBatchAsync(request.getTextsList())
+                    .whenComplete((vectors, error) -> respond(batchId, vectors, error));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.debug("Embedding stream failed on the client side: {}", t.getMessage());
+            onCancel();
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            halfClosed = true;
+            completeIfDone();
+        }
+
+        synchronized void onReady() {
+            while (deferredRequests > 0 && call.isReady() && !closed) {
+                deferredRequests--;
+                call.request(1);
+            }
+        }
+
+        synchronized void onCancel() {
+            closed = true;
+        }
+
+        private void respond(long batchId, List<float[]> vectors, Throwable error) {
+            EmbedResponse response = error == null ? toResponse(batchId, vectors) : toError(batchId, error);
+
+            synchronized (this) {
+                inFlight--;
+                if (closed) {
+                    return;
+                }
+                call.onNext(response);
+
+                // Ask for the next batch only once the client is reading our responses
+                if (call.isReady()) {
+                    call.request(1);
+                } else {
+                    deferredRequests++;
+                }
+                completeIfDone();
+            }
+        }
+
+        private void completeIfDone() {
+            if (halfClosed && inFlight == 0 && !closed) {
+                closed = true;
+                call.onCompleted();
+            }
+        }
+
+        private EmbedResponse toResponse(long batchId, List<float[]> vectors) {
+            int dimension = vectors.isEmpty() ? embeddingService.getDimension() : vectors.get(0).length;
+            EmbedResponse.Builder builder = EmbedResponse.newBuilder()
+                    .setBatchId(batchId)
+                    .setDimension(dimension);
+            for (float[] vector : vectors) {
+                for (float value : vector) {
+                    builder.addValues(value);
+                }
+            }
+            return builder.build();
+        }
+
+        private EmbedResponse toError(long batchId, Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            boolean retryable = cause instanceof RejectedExecutionException;
+            if (!retryable) {
+                log.error("Streamed embedding batch {} failed", batchId, cause);
+            }
+            return EmbedResponse.newBuilder()
+                    .setBatchId(batchId)
+                    .setError(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName())
+                    .setRetryable(retryable)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.search.vector.grpc;
+
+import com.search.vector.service.EmbeddingService;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gRPC server hosting the streaming embedding API next to the REST controllers
+ */
+@Component
+public class GrpcServer {
+
+    private static final Logger log = LoggerFactory.getLogger(GrpcServer.class);
+
+    @Value("${grpc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${grpc.port:9083}")
+    private int port;
+
+    @Value("${grpc.max-inbound-message-mb:16}")
+    private int maxInboundMessageMb;
+
+    @Value("${grpc.stream.max-in-flight-batches:8}")
+    private int maxInFlightBatches;
+
+    private final EmbeddingService embeddingService;
+
+    private Server server;
+
+    public GrpcServer(EmbeddingService embeddingService) {
+        this.embeddingService = embeddingService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("gRPC server disabled");
+            return;
+        }
+
+        server = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+                .addService(new EmbeddingStreamService(embeddingService, maxInFlightBatches))
+                .maxInboundMessageSize(maxInboundMessageMb * 1024 * 1024)
+                .build()
+                .start();
+        log.info("gRPC server started: port={}, maxInFlightBatches={}", port, maxInFlightBatches);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (server == null) {
+            return;
+        }
+        server.shutdown();
+        if (!server.awaitTermination(10, TimeUnit.SECONDS)) {
+            server.shutdownNow();
+        }
+        log.info("gRPC server stopped");
+    }
+}
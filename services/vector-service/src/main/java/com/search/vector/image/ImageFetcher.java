@@ -0,0 +1,270 @@
+package com.search.vector.image;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches images over HTTP with bounded concurrency
+ *
+ * At most maxConcurrent downloads run at once, each on its own worker
+ * thread, and at most queueCapacity more wait for a slot; beyond that
+ * fetches fail fast with RejectedExecutionException. The response body is
+ * handed to the caller's reader as a stream while it downloads, capped at
+ * maxBytes, so it can be decoded without being buffered first. Each
+ * download, body included, must finish within the timeout; a stalled
+ * server has its stream closed so it cannot hold a worker.
+ */
+public class ImageFetcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageFetcher.class);
+
+    private final HttpClient client;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService deadlines;
+    private final Duration timeout;
+    private final long maxBytes;
+
+    /**
+     * @param maxConcurrent downloads running at once
+     * @param queueCapacity downloads waiting for a slot
+     * @param timeoutMs deadline per download, from connecting to reading the last byte
+     * @param maxBytes largest accepted response body
+     */
+    public ImageFetcher(int maxConcurrent, int queueCapacity, long timeoutMs, long maxBytes) {
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxBytes = maxBytes;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-fetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.deadlines = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-fetch-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        log.info("Image fetcher started: maxConcurrent={}, queueCapacity={}, timeoutMs={}, maxBytes={}",
+                maxConcurrent, queueCapacity, timeoutMs, maxBytes);
+    }
+
+    /**
+     * Download an image and read it on a fetch worker
+     *
+     * @param url http or https URL
+     * @param reader reads the response body while it downloads
+     * @param <T> result type
+     * @return future completed with the reader's result; fails with
+     * RejectedExecutionException when too many fetches are pending,
+     * IllegalArgumentException for an invalid URL, or IOException when
+     * the download fails
+     */
+    public <T> CompletableFuture<T> fetch(String url, BodyReader<T> reader) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid image URL: " + url, e));
+        }
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unsupported image URL: " + url));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return download(uri, reader);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many pending image fetches"));
+        }
+    }
+
+    /**
+     * Get the number of downloads running
+     *
+     * @return active download count
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Get the number of downloads waiting for a slot
+     *
+     * @return queued download count
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        deadlines.shutdownNow();
+    }
+
+    private <T> T download(URI uri, BodyReader<T> reader) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept", "image/*")
+                .GET()
+                .build();
+
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        Deadline expiry = new Deadline(response.body(), Thread.currentThread());
+        ScheduledFuture<?> scheduled = deadlines.schedule(expiry::expire,
+                Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        try (InputStream body = new LimitedInputStream(response.body(), maxBytes)) {
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("HTTP " + response.statusCode() + " fetching " + uri);
+            }
+            return reader.read(body);
+        } catch (IOException e) {
+            if (expiry.isExpired()) {
+                throw new HttpTimeoutException("Image download exceeded " + timeout.toMillis() + " ms: " + uri);
+            }
+            throw e;
+        } finally {
+            scheduled.cancel(false);
+            if (expiry.finish()) {
+                // The deadline fired while the body was being read; do not leak its interrupt to the next task
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Aborts a download whose deadline passed
+     *
+     * Closing the stream ends the download; the interrupt wakes a reader
+     * blocked waiting for the next chunk.
+     */
+    private static class Deadline {
+
+        private final InputStream body;
+        private final Thread worker;
+        private boolean expired;
+        private boolean finished;
+
+        Deadline(InputStream body, Thread worker) {
+            this.body = body;
+            this.worker = worker;
+        }
+
+        synchronized void expire() {
+            if (finished) {
+                return;
+            }
+            expired = true;
+            try {
+                body.close();
+            } catch (IOException e) {
+                // Closing is best effort, the interrupt still wakes the reader
+            }
+            worker.interrupt();
+        }
+
+        synchronized boolean isExpired() {
+            return expired;
+        }
+
+        /**
+         * @return true if the deadline fired before the download finished
+         */
+        synchronized boolean finish() {
+            finished = true;
+            return expired;
+        }
+    }
+
+    /**
+     * Reads a downloaded body
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+
+        /**
+         * @param body response body, streamed while it downloads; closed by the fetcher
+         * @return the result
+         * @throws IOException if reading fails
+         */
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Fails once more than the allowed number of bytes has been read
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long read;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            read += n;
+            if (read > maxBytes) {
+                throw new IOException("Image exceeds " + maxBytes + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.search.vector.image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Turns encoded images into CLIP input tensors
+ *
+ * Decoding reads straight from the source stream and subsamples while
+ * decoding, so a 4000x3000 photo is never held at full resolution: the
+ * reader skips rows and columns down to about twice the model input size.
+ * The decoded image is then resized so its shorter side matches the input
+ * size, center-cropped, and normalized with the CLIP mean and std into a
+ * channel-first buffer borrowed from a {@link PixelBufferPool}.
+ *
+ * Thread-safe; every call works on its own reader and buffers.
+ */
+public class ImagePreprocessor {
+
+    private static final float[] MEAN = {0.48145466f, 0.4578275f, 0.40821073f};
+    private static final float[] STD = {0.26862954f, 0.26130258f, 0.27577711f};
+
+    private final int inputSize;
+    private final PixelBufferPool pool;
+
+    /**
+     * @param inputSize width and height of the model input
+     * @param maxIdleBuffers pixel buffers kept for reuse
+     */
+    public ImagePreprocessor(int inputSize, int maxIdleBuffers) {
+        if (inputSize <= 0) {
+            throw new IllegalArgumentException("inputSize must be positive");
+        }
+        this.inputSize = inputSize;
+        this.pool = new PixelBufferPool(3 * inputSize * inputSize, maxIdleBuffers);
+    }
+
+    /**
+     * Decode an image from a stream, subsampled towards the input size
+     *
+     * @param in encoded image; not closed
+     * @return the decoded image, at least twice the input size on its shorter side when the source is
+     * @throws IllegalArgumentException if the format is not supported
+     * @throws IOException if the stream fails or the image is corrupt
+     */
+    public BufferedImage decode(InputStream in) throws IOException {
+        ImageInputStream stream = new MemoryCacheImageInputStream(in);
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int factor = subsampling(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Resize, center-crop and normalize an image into a pooled buffer
+     *
+     * @param image decoded image
+     * @return channel-first RGB tensor of 3 x inputSize x inputSize; give it back with {@link #release}
+     */
+    public float[] preprocess(BufferedImage image) {
+        int[] rgb = resizeAndCrop(image);
+        int area = inputSize * inputSize;
+
+        float[] pixels = pool.borrow();
+        for (int i = 0; i < area; i++) {
+            int p = rgb[i];
+            pixels[i] = (((p >> 16) & 0xFF) / 255f - MEAN[0]) / STD[0];
+            pixels[area + i] = (((p >> 8) & 0xFF) / 255f - MEAN[1]) / STD[1];
+            pixels[2 * area + i] = ((p & 0xFF) / 255f - MEAN[2]) / STD[2];
+        }
+        return pixels;
+    }
+
+    /**
+     * Return a buffer obtained from {@link #preprocess}
+     *
+     * @param pixels the buffer
+     */
+    public void release(float[] pixels) {
+        pool.release(pixels);
+    }
+
+    /**
+     * Get the model input size
+     *
+     * @return width and height of the input tensor
+     */
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    /**
+     * Get the buffer pool
+     *
+     * @return the pool preprocessed tensors come from
+     */
+    public PixelBufferPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Decode-time subsampling factor that keeps the shorter side at least
+     * twice the input size, so the final resize still averages over pixels
+     */
+    int subsampling(int width, int height) {
+        return Math.max(1, Math.min(width, height) / (inputSize * 2));
+    }
+
+    /**
+     * Scale the shorter side to the input size and take the center square
+     *
+     * @return packed RGB pixels, row by row; transparent areas become white
+     */
+    private int[] resizeAndCrop(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+
+        BufferedImage target = new BufferedImage(inputSize, inputSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, inputSize, inputSize);
+            g.drawImage(image, 0, 0, inputSize, inputSize, x, y, x + side, y + side, null);
+        } finally {
+            g.dispose();
+        }
+        return ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+    }
+}
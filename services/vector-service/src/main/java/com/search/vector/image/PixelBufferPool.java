@@ -0,0 +1,78 @@
+package com.search.vector.image;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed-size float buffers for preprocessed images
+ *
+ * A 224x224 RGB tensor is 600 KB, so allocating one per image churns the
+ * young generation at high request rates. Buffers are borrowed when an
+ * image is preprocessed and returned once its batch has run; at most
+ * maxIdle buffers are kept between bursts.
+ */
+public class PixelBufferPool {
+
+    private final int bufferSize;
+    private final int maxIdle;
+    private final Queue<float[]> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * @param bufferSize floats per buffer
+     * @param maxIdle buffers kept for reuse
+     */
+    public PixelBufferPool(int bufferSize, int maxIdle) {
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Borrow a buffer; its previous contents are not cleared
+     *
+     * @return a buffer of bufferSize floats
+     */
+    public float[] borrow() {
+        float[] buffer = idle.poll();
+        if (buffer == null) {
+            return new float[bufferSize];
+        }
+        idleCount.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Return a borrowed buffer
+     *
+     * @param buffer the buffer; ignored if null or of another size
+     */
+    public void release(float[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(buffer);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the number of idle buffers
+     *
+     * @return idle buffer count
+     */
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * Get the size of each buffer
+     *
+     * @return floats per buffer
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,303 @@
+package com.search.vector.service;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.inference.Predictor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.util.PairList;
+import com.search.vector.batch.DynamicBatcher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cross-encoder rerank service
+ *
+ * Scores (query, passage) pairs on CPU. Pairs from concurrent requests are
+ * grouped by a {@link DynamicBatcher} so the model runs on full batches
+ * instead of one pair at a time.
+ *
+ * When embedding.use-model is false, or the model cannot be loaded, a
+ * hash-based lexical overlap score is used for development.
+ */
+@Service
+public class CrossEncoderRerankService implements RerankService {
+
+    private static final Logger log = LoggerFactory.getLogger(CrossEncoderRerankService.class);
+
+    /**
+     * Number of buckets for hashed character bigrams in the fallback scorer
+     */
+    private static final int HASH_BUCKETS = 4096;
+
+    @Value("${rerank.model:bge-reranker-base}")
+    private String modelName;
+
+    @Value("${rerank.model-path:}")
+    private String modelPath;
+
+    @Value("${rerank.engine:PyTorch}")
+    private String engine;
+
+    @Value("${rerank.max-length:512}")
+    private int maxLength;
+
+    @Value("${rerank.batch.max-size:32}")
+    private int maxBatchSize;
+
+    @Value("${rerank.batch.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${rerank.batch.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${embedding.use-model:false}")
+    private boolean useModel;
+
+    private DynamicBatcher<RerankPair, Float> batcher;
+
+    private ZooModel<NDList, NDList> model;
+    private Predictor<NDList, NDList> predictor;
+    private HuggingFaceTokenizer tokenizer;
+
+    @PostConstruct
+    public void init() {
+        if (useModel) {
+            loadModel();
+        }
+        batcher = new DynamicBatcher<>("rerank", maxBatchSize, maxWaitMs, queueCapacity, this::scoreBatch);
+        log.info("Initialized CrossEncoderRerankService with model: {}, modelLoaded: {}", modelName, model != null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        if (predictor != null) {
+            predictor.close();
+        }
+        if (model != null) {
+            model.close();
+        }
+        if (tokenizer != null) {
+            tokenizer.close();
+        }
+    }
+
+    @Override
+    public float[] score(String query, List<String> passages) {
+        float[] scores = new float[passages == null ? 0 : passages.size()];
+        if (query == null || query.isEmpty() || scores.length == 0) {
+            return scores;
+        }
+
+        List<RerankPair> pairs = new ArrayList<>(passages.size());
+        for (String passage : passages) {
+            pairs.add(new RerankPair(query, passage != null ? passage : ""));
+        }
+
+        List<CompletableFuture<Float>> futures = batcher.submitAll(pairs);
+        for (int i = 0; i < futures.size(); i++) {
+            scores[i] = futures.get(i).join();
+        }
+        return scores;
+    }
+
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+
+    @Override
+    public boolean isReady() {
+        return batcher != null;
+    }
+
+    /**
+     * Get batcher statistics
+     *
+     * @return statistics string
+     */
+    public String getStats() {
+        return batcher != null ? batcher.getStats() : "DynamicBatcher[not started]";
+    }
+
+    /**
+     * Score one dynamic batch; runs on the batcher thread only
+     */
+    private List<Float> scoreBatch(List<RerankPair> pairs) {
+        float[] scores = model != null ? scoreWithModel(pairs) : scoreWithHash(pairs);
+
+        List<Float> result = new ArrayList<>(scores.length);
+        for (float score : scores) {
+            result.add(score);
+        }
+        return result;
+    }
+
+    /**
+     * Run the cross-encoder on a padded batch of pairs
+     */
+    private float[] scoreWithModel(List<RerankPair> pairs) {
+        PairList<String, String> input = new PairList<>(pairs.size());
+        for (RerankPair pair : pairs) {
+            input.add(pair.query, pair.passage);
+        }
+
+        // Tokenizer pads every encoding to the longest pair in the batch
+        Encoding[] encodings = tokenizer.batchEncode(input);
+        int batchSize = encodings.length;
+        int seqLength = encodings[0].getIds().length;
+
+        long[] ids = new long[batchSize * seqLength];
+        long[] mask = new long[batchSize * seqLength];
+        long[] types = new long[batchSize * seqLength];
+        for (int i = 0; i < batchSize; i++) {
+            System.arraycopy(encodings[i].getIds(), 0, ids, i * seqLength, seqLength);
+            System.arraycopy(encodings[i].getAttentionMask(), 0, mask, i * seqLength, seqLength);
+            System.arraycopy(encodings[i].getTypeIds(), 0, types, i * seqLength, seqLength);
+        }
+
+        try (NDManager manager = model.getNDManager().newSubManager()) {
+            Shape shape = new Shape(batchSize, seqLength);
+            NDList inputs = new NDList(
+                    manager.create(ids, shape),
+                    manager.create(mask, shape),
+                    manager.create(types, shape)
+            );
+
+            NDArray logits = predictor.predict(inputs).get(0);
+            return toRelevance(logits.toFloatArray(), batchSize);
+
+        } catch (Exception e) {
+            log.error("Cross-encoder inference failed for batch of {}, using hash-based scores", batchSize, e);
+            return scoreWithHash(pairs);
+        }
+    }
+
+    /**
+     * Convert raw logits to relevance scores in [0, 1]
+     *
+     * Single-logit heads use a sigmoid; two-class heads use the softmax
+     * probability of the positive class.
+     */
+    private float[] toRelevance(float[] logits, int batchSize) {
+        float[] scores = new float[batchSize];
+
+        if (logits.length == batchSize * 2) {
+            for (int i = 0; i < batchSize; i++) {
+                float neg = logits[i * 2];
+                float pos = logits[i * 2 + 1];
+                scores[i] = (float) (1.0 / (1.0 + Math.exp(neg - pos)));
+            }
+        } else {
+            for (int i = 0; i < batchSize; i++) {
+                scores[i] = (float) (1.0 / (1.0 + Math.exp(-logits[i])));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Generate hash-based scores for development
+     *
+     * Note: This is NOT a semantic score. It measures the share of the
+     * query's character bigrams that also appear in the passage.
+     */
+    private float[] scoreWithHash(List<RerankPair> pairs) {
+        float[] scores = new float[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            scores[i] = scoreWithHash(pairs.get(i).query, pairs.get(i).passage);
+        }
+        return scores;
+    }
+
+    private float scoreWithHash(String query, String passage) {
+        if (passage.isEmpty()) {
+            return 0f;
+        }
+
+        String q = query.toLowerCase();
+        String p = passage.toLowerCase();
+
+        BitSet passageGrams = new BitSet(HASH_BUCKETS);
+        for (int i = 0; i < p.length(); i++) {
+            passageGrams.set(gramBucket(p, i));
+        }
+
+        int hits = 0;
+        for (int i = 0; i < q.length(); i++) {
+            if (passageGrams.get(gramBucket(q, i))) {
+                hits++;
+            }
+        }
+        return (float) hits / q.length();
+    }
+
+    private int gramBucket(String text, int i) {
+        int gram = i + 1 < text.length() ? (text.charAt(i) << 16) | text.charAt(i + 1) : text.charAt(i);
+        return Math.floorMod(gram * 0x9E3779B1, HASH_BUCKETS);
+    }
+
+    /**
+     * Load the cross-encoder and its tokenizer from the local model directory
+     */
+    private void loadModel() {
+        if (modelPath == null || modelPath.isEmpty()) {
+            log.warn("rerank.model-path is not set, using hash-based rerank scores");
+            return;
+        }
+
+        try {
+            Criteria<NDList, NDList> criteria = Criteria.builder()
+                    .setTypes(NDList.class, NDList.class)
+                    .optModelPath(Paths.get(modelPath))
+                    .optEngine(engine)
+                    .build();
+
+            model = criteria.loadModel();
+            predictor = model.newPredictor();
+            tokenizer = HuggingFaceTokenizer.builder()
+                    .optTokenizerPath(Paths.get(modelPath))
+                    .optMaxLength(maxLength)
+                    .optTruncation(true)
+                    .optPadding(true)
+                    .build();
+
+            log.info("Loaded cross-encoder model: name={}, path={}, engine={}", modelName, modelPath, engine);
+
+        } catch (Exception e) {
+            log.error("Failed to load cross-encoder model from {}, using hash-based rerank scores", modelPath, e);
+            model = null;
+            predictor = null;
+        }
+    }
+
+    /**
+     * Query/passage pair submitted to the batcher
+     */
+    private static class RerankPair {
+        final String query;
+        final String passage;
+
+        RerankPair(String query, String passage) {
+            this.query = query;
+            this.passage = passage;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.search.vector.service;
 
+import com.search.vector.batch.BatchSizeStats;
+import com.search.vector.cache.EmbeddingCache;
+
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for generating text embeddings
@@ -25,6 +30,34 @@ public interface EmbeddingService {
      */
     List<float[]> embedBatch(List<String> texts);
 
+    /**
+     * Generate embedding for a single text without blocking the caller
+     *
+     * @param text the input text
+     * @return future completed with the embedding vector
+     */
+    default CompletableFuture<float[]> embedAsync(String text) {
+        try {
+            return CompletableFuture.completedFuture(embed(text));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Generate embeddings for multiple texts without blocking the caller
+     *
+     * @param texts list of input texts
+     * @return future completed with the embedding vectors, in input order
+     */
+    default CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+        try {
+            return CompletableFuture.completedFuture(embedBatch(texts));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Get the dimension of the embedding vectors
      *
@@ -45,4 +78,22 @@ public interface EmbeddingService {
      * @return true if ready
      */
     boolean isReady();
+
+    /**
+     * Get inference latency and throughput by batch size
+     *
+     * @return batch size to its statistics; empty if nothing runs batched
+     */
+    default Map<Integer, BatchSizeStats.Snapshot> getBatchStats() {
+        return Map.of();
+    }
+
+    /**
+     * Get embedding cache hit counts and sizes
+     *
+     * @return cache statistics, or null if nothing is cached
+     */
+    default EmbeddingCache.Stats getCacheStats() {
+        return null;
+    }
 }
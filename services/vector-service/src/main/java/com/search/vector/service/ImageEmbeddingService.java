@@ -1,13 +1,45 @@
 package com.search.vector.service;
 
+import ai.djl.inference.Predictor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ZooModel;
+import com.search.common.vector.VectorKernels;
+import com.search.vector.batch.DynamicBatcher;
+import com.search.vector.image.ImageFetcher;
+import com.search.vector.image.ImagePreprocessor;
+import com.search.vector.warmup.ModelWarmup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for generating image embeddings
@@ -15,12 +47,28 @@ import java.nio.charset.StandardCharsets;
  * Supports CLIP and other vision-language models for:
  * - Image-to-image search (similar images)
  * - Text-to-image search (image retrieval by text)
+ *
+ * Images go through a staged pipeline: URLs are downloaded by an
+ * {@link ImageFetcher} with bounded concurrency, bodies and uploads are
+ * decoded straight from their streams and preprocessed by an
+ * {@link ImagePreprocessor} into pooled buffers, and the tensors of
+ * concurrent requests share forward passes of the CLIP vision encoder
+ * through a {@link DynamicBatcher}. Every stage is timed under
+ * vector.image.stage.
+ *
+ * The model is loaded and warmed up with full batches of synthetic images
+ * on a background thread; the service is not ready until that is done.
+ *
+ * When embedding.use-model is false, or the model cannot be loaded, a
+ * hash of the preprocessed pixels is used for development.
  */
 @Service
 public class ImageEmbeddingService {
 
     private static final Logger log = LoggerFactory.getLogger(ImageEmbeddingService.class);
 
+    private static final String[] STAGES = {"fetch", "decode", "preprocess", "inference"};
+
     @Value("${embedding.image.model:clip-vit-base-patch32}")
     private String modelName;
 
@@ -30,26 +78,169 @@ public class ImageEmbeddingService {
     @Value("${embedding.use-model:false}")
     private boolean useModel;
 
+    @Value("${embedding.image.model-path:}")
+    private String modelPath;
+
+    @Value("${embedding.image.engine:OnnxRuntime}")
+    private String engine;
+
+    @Value("${embedding.image.input-size:224}")
+    private int inputSize;
+
+    @Value("${embedding.image.batch-size:16}")
+    private int maxBatchSize;
+
+    @Value("${embedding.image.batch.max-wait-ms:10}")
+    private long maxWaitMs;
+
+    @Value("${embedding.image.batch.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${embedding.image.fetch.max-concurrent:16}")
+    private int fetchMaxConcurrent;
+
+    @Value("${embedding.image.fetch.queue-capacity:256}")
+    private int fetchQueueCapacity;
+
+    @Value("${embedding.image.fetch.timeout-ms:5000}")
+    private long fetchTimeoutMs;
+
+    @Value("${embedding.image.fetch.max-bytes:20971520}")
+    private long fetchMaxBytes;
+
+    @Value("${embedding.warmup.enabled:true}")
+    private boolean warmupEnabled;
+
+    @Value("${embedding.warmup.min-rounds:3}")
+    private int warmupMinRounds;
+
+    @Value("${embedding.warmup.max-rounds:50}")
+    private int warmupMaxRounds;
+
+    @Value("${embedding.warmup.tolerance:0.2}")
+    private double warmupTolerance;
+
+    @Value("${embedding.warmup.timeout-ms:120000}")
+    private long warmupTimeoutMs;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> stageTimers = new LinkedHashMap<>();
+
+    private ZooModel<NDList, NDList> model;
+    private Predictor<NDList, NDList> predictor;
+    private ImagePreprocessor preprocessor;
+    private ImageFetcher fetcher;
+    private DynamicBatcher<float[], float[]> batcher;
+    private volatile boolean ready;
+
+    public ImageEmbeddingService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String stage : STAGES) {
+            stageTimers.put(stage, Timer.builder("vector.image.stage")
+                    .description("Time spent per image pipeline stage; inference is per batch")
+                    .tag("stage", stage)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+
+        preprocessor = new ImagePreprocessor(inputSize, maxBatchSize * 4);
+        fetcher = new ImageFetcher(fetchMaxConcurrent, fetchQueueCapacity, fetchTimeoutMs, fetchMaxBytes);
+        batcher = new DynamicBatcher<>("image-embedding", maxBatchSize, maxWaitMs, queueCapacity, this::embedBatch);
+
+        if (!useModel) {
+            ready = true;
+            log.info("Initialized ImageEmbeddingService with model: {}, dimension: {}, inputSize: {}, modelLoaded: false",
+                    modelName, dimension, inputSize);
+            return;
+        }
+
+        Thread loader = new Thread(this::loadAndWarmUp, "image-embedding-warmup");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Load the model, warm it up and then report ready
+     */
+    private void loadAndWarmUp() {
+        try {
+            loadModel();
+            if (model != null && warmupEnabled) {
+                warmUp();
+            }
+        } catch (Exception e) {
+            log.error("Image embedding model warmup failed, serving without it", e);
+        } finally {
+            ready = true;
+            log.info("Initialized ImageEmbeddingService with model: {}, dimension: {}, inputSize: {}, modelLoaded: {}",
+                    modelName, dimension, inputSize, model != null);
+        }
+    }
+
+    /**
+     * Run full batches of a synthetic mid-grey image through the batcher
+     */
+    private void warmUp() {
+        ModelWarmup warmup = new ModelWarmup("image-embedding", warmupMinRounds, warmupMaxRounds, warmupTolerance,
+                warmupTimeoutMs, meterRegistry);
+        BufferedImage image = new BufferedImage(inputSize, inputSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.GRAY);
+        graphics.fillRect(0, 0, inputSize, inputSize);
+        graphics.dispose();
+
+        warmup.warm("batch-" + maxBatchSize, () -> {
+            List<CompletableFuture<float[]>> futures = new ArrayList<>(maxBatchSize);
+            for (int i = 0; i < maxBatchSize; i++) {
+                float[] pixels = preprocessor.preprocess(image);
+                futures.add(batcher.submit(pixels).whenComplete((vector, error) -> preprocessor.release(pixels)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        });
+        warmup.finish();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        if (fetcher != null) {
+            fetcher.close();
+        }
+        if (predictor != null) {
+            predictor.close();
+        }
+        if (model != null) {
+            model.close();
+        }
+    }
+
     /**
      * Generate embedding from uploaded image file
      *
+     * The upload is decoded from its stream rather than read into memory first.
+     *
      * @param file the image file
      * @return embedding vector
+     * @throws IllegalArgumentException if the file is not a supported image
+     * @throws IOException if the image cannot be read
      */
-    public float[] embed(MultipartFile file) {
+    public float[] embed(MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) {
             log.warn("Empty file provided for image embedding");
             return new float[dimension];
         }
 
-        try {
-            byte[] imageData = file.getBytes();
-            return embed(imageData);
-
-        } catch (IOException e) {
-            log.error("Failed to read image file", e);
-            return new float[dimension];
+        float[] pixels;
+        try (InputStream in = file.getInputStream()) {
+            pixels = decodeAndPreprocess(in);
         }
+        return join(embedPixels(pixels));
     }
 
     /**
@@ -57,18 +248,15 @@ public class ImageEmbeddingService {
      *
      * @param imageData the image data
      * @return embedding vector
+     * @throws IllegalArgumentException if the data is not a supported image
+     * @throws IOException if the image is corrupt
      */
-    public float[] embed(byte[] imageData) {
+    public float[] embed(byte[] imageData) throws IOException {
         if (imageData == null || imageData.length == 0) {
             return new float[dimension];
         }
 
-        if (useModel) {
-            return embedWithModel(imageData);
-        }
-
-        // Simple hash-based embedding for development
-        return embedWithHash(imageData);
+        return join(embedPixels(decodeAndPreprocess(new ByteArrayInputStream(imageData))));
     }
 
     /**
@@ -78,13 +266,55 @@ public class ImageEmbeddingService {
      * @return embedding vector
      */
     public float[] embedFromUrl(String imageUrl) {
+        return embedFromUrlAsync(imageUrl).join();
+    }
+
+    /**
+     * Generate embedding from image URL without blocking the caller
+     *
+     * @param imageUrl the image URL
+     * @return future completed with the embedding vector; fails with
+     * RejectedExecutionException when the pipeline is saturated,
+     * IllegalArgumentException for an invalid URL or unsupported image, and
+     * IOException when the download fails
+     */
+    public CompletableFuture<float[]> embedFromUrlAsync(String imageUrl) {
         if (imageUrl == null || imageUrl.isEmpty()) {
-            return new float[dimension];
+            return CompletableFuture.completedFuture(new float[dimension]);
         }
 
-        // For URL-based embedding, would need to download the image first
-        // For now, use hash of URL as embedding
-        return embedWithHash(imageUrl.getBytes(StandardCharsets.UTF_8));
+        long submitted = System.nanoTime();
+        return fetcher.fetch(imageUrl, body -> {
+                    // Time to response headers, including the wait for a fetch slot
+                    stageTimers.get("fetch").record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                    return decodeAndPreprocess(body);
+                })
+                .thenCompose(this::embedPixels);
+    }
+
+    /**
+     * Generate embeddings for several image URLs
+     *
+     * Downloads run concurrently up to the fetch limit and the decoded
+     * images share inference batches.
+     *
+     * @param imageUrls the image URLs
+     * @return future completed with the embedding vectors, in input order
+     */
+    public CompletableFuture<List<float[]>> embedFromUrlsAsync(List<String> imageUrls) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(imageUrls.size());
+        for (String imageUrl : imageUrls) {
+            futures.add(embedFromUrlAsync(imageUrl));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    List<float[]> embeddings = new ArrayList<>(futures.size());
+                    for (CompletableFuture<float[]> future : futures) {
+                        embeddings.add(future.join());
+                    }
+                    return embeddings;
+                });
     }
 
     /**
@@ -111,55 +341,191 @@ public class ImageEmbeddingService {
      * @return true if ready
      */
     public boolean isReady() {
-        return true;
+        return ready && batcher != null;
     }
 
     /**
-     * Generate hash-based embedding for development
+     * Get timings of each pipeline stage
      *
-     * Note: This is NOT a real image embedding.
-     * For production, use CLIP or other vision models.
+     * @return stage to count, mean and max in milliseconds, in pipeline order
+     */
+    public Map<String, Map<String, Object>> getStageStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, Timer> entry : stageTimers.entrySet()) {
+            Timer timer = entry.getValue();
+            Map<String, Object> stage = new LinkedHashMap<>();
+            stage.put("count", timer.count());
+            stage.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+            stage.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+            stats.put(entry.getKey(), stage);
+        }
+        return stats;
+    }
+
+    /**
+     * Decode an encoded image and turn it into a pooled input tensor
      */
-    private float[] embedWithHash(byte[] data) {
-        float[] embedding = new float[dimension];
+    private float[] decodeAndPreprocess(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        BufferedImage image = preprocessor.decode(in);
+        if (image == null) {
+            throw new IllegalArgumentException("Image has no decodable frame");
+        }
+        long decoded = System.nanoTime();
+        stageTimers.get("decode").record(decoded - start, TimeUnit.NANOSECONDS);
+
+        float[] pixels = preprocessor.preprocess(image);
+        stageTimers.get("preprocess").record(System.nanoTime() - decoded, TimeUnit.NANOSECONDS);
+        return pixels;
+    }
 
-        // Generate pseudo-random but deterministic values from image data
-        int sampleSize = Math.min(data.length, 1000);
-        int step = Math.max(1, data.length / dimension);
+    /**
+     * Queue a tensor for batched inference; its buffer returns to the pool once the batch has run
+     */
+    private CompletableFuture<float[]> embedPixels(float[] pixels) {
+        if (!ready) {
+            preprocessor.release(pixels);
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Image embedding model is warming up"));
+        }
+        return batcher.submit(pixels).whenComplete((vector, error) -> preprocessor.release(pixels));
+    }
 
-        for (int i = 0; i < dimension; i++) {
-            int idx = (i * step) % data.length;
-            int hash = data[idx] & 0xFF; // unsigned byte
-            // Normalize to [-1, 1]
-            embedding[i] = ((hash / 255.0f) * 2) - 1;
+    /**
+     * Embed one dynamic batch; runs on the batcher thread only
+     */
+    private List<float[]> embedBatch(List<float[]> batch) {
+        long start = System.nanoTime();
+        try {
+            return model != null ? embedWithModel(batch) : embedWithHash(batch);
+        } finally {
+            stageTimers.get("inference").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+    }
+
+    /**
+     * Run the CLIP vision encoder on one batch of tensors
+     */
+    private List<float[]> embedWithModel(List<float[]> batch) {
+        int batchSize = batch.size();
+        int tensorSize = preprocessor.getPool().getBufferSize();
 
-        // L2 normalize
-        float norm = 0;
-        for (float v : embedding) {
-            norm += v * v;
+        FloatBuffer input = FloatBuffer.allocate(batchSize * tensorSize);
+        for (float[] pixels : batch) {
+            input.put(pixels);
         }
-        norm = (float) Math.sqrt(norm);
+        input.flip();
 
-        if (norm > 0) {
-            for (int i = 0; i < dimension; i++) {
-                embedding[i] /= norm;
+        try (NDManager manager = model.getNDManager().newSubManager()) {
+            NDArray pixelValues = manager.create(input, new Shape(batchSize, 3, inputSize, inputSize));
+            pixelValues.setName("pixel_values");
+
+            NDArray output = imageEmbeds(predictor.predict(new NDList(pixelValues)));
+            float[] values = output.toFloatArray();
+
+            List<float[]> embeddings = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                float[] embedding = new float[dimension];
+                System.arraycopy(values, i * dimension, embedding, 0, dimension);
+                embeddings.add(VectorKernels.normalize(embedding));
             }
+            return embeddings;
+
+        } catch (Exception e) {
+            throw new IllegalStateException("Image embedding inference failed for batch of " + batchSize, e);
         }
+    }
 
-        return embedding;
+    /**
+     * Pick the projected image embeddings from the encoder outputs
+     *
+     * Vision encoders with a projection head also return their last hidden
+     * state; the embeddings are the 2-d output of the configured dimension.
+     */
+    private NDArray imageEmbeds(NDList outputs) {
+        for (NDArray output : outputs) {
+            Shape shape = output.getShape();
+            if (shape.dimension() == 2 && shape.get(1) == dimension) {
+                return output;
+            }
+        }
+        throw new IllegalStateException("Model has no " + dimension + "-d image embedding output");
+    }
+
+    /**
+     * Generate hash-based embeddings for development
+     *
+     * Note: This is NOT a real image embedding, but it does depend on the
+     * decoded pixels rather than on the file bytes or URL.
+     * For production, use CLIP or other vision models.
+     */
+    private List<float[]> embedWithHash(List<float[]> batch) {
+        List<float[]> embeddings = new ArrayList<>(batch.size());
+        for (float[] pixels : batch) {
+            float[] embedding = new float[dimension];
+            int step = Math.max(1, pixels.length / dimension);
+            for (int i = 0; i < dimension; i++) {
+                embedding[i] = pixels[(i * step) % pixels.length];
+            }
+            embeddings.add(VectorKernels.normalize(embedding));
+        }
+        return embeddings;
     }
 
     /**
-     * Generate embedding using actual model
+     * Load the CLIP vision encoder
      *
-     * This would use CLIP or other vision models via DJL.
-     * For now, it falls back to hash-based embedding.
-     */
-    private float[] embedWithModel(byte[] imageData) {
-        // TODO: Implement actual CLIP model loading and inference
-        // This would use DJL to load CLIP models from HuggingFace
-        log.warn("Image model inference not yet implemented, using hash-based embedding");
-        return embedWithHash(imageData);
+     * embedding.image.model-path is either a model file (e.g.
+     * clip-vit-base-patch32/vision_model.onnx) or its directory. The model
+     * takes pixel_values of shape (batch, 3, input-size, input-size).
+     */
+    private void loadModel() {
+        if (modelPath == null || modelPath.isEmpty()) {
+            log.warn("embedding.image.model-path is not set, using hash-based image embeddings");
+            return;
+        }
+
+        try {
+            Path path = Paths.get(modelPath);
+            Path modelDir = Files.isDirectory(path) ? path : path.getParent();
+
+            Criteria.Builder<NDList, NDList> criteria = Criteria.builder()
+                    .setTypes(NDList.class, NDList.class)
+                    .optModelPath(modelDir)
+                    .optEngine(engine);
+            if (!Files.isDirectory(path)) {
+                String fileName = path.getFileName().toString();
+                int dot = fileName.lastIndexOf('.');
+                criteria.optModelName(dot > 0 ? fileName.substring(0, dot) : fileName);
+            }
+
+            model = criteria.build().loadModel();
+            predictor = model.newPredictor();
+            log.info("Loaded image embedding model: name={}, path={}, engine={}", modelName, modelPath, engine);
+
+        } catch (Exception e) {
+            log.error("Failed to load image embedding model from {}, using hash-based image embeddings", modelPath, e);
+            if (model != null) {
+                model.close();
+            }
+            model = null;
+        }
+    }
+
+    /**
+     * Wait for an embedding, rethrowing the pipeline's own exception
+     */
+    private static float[] join(CompletableFuture<float[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
     }
 }
@@ -1,23 +1,61 @@
 package com.search.vector.service;
 
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.inference.Predictor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ZooModel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.search.common.vector.VectorKernels;
+import com.search.vector.batch.BatchSizeStats;
+import com.search.vector.batch.InferenceScheduler;
+import com.search.vector.cache.EmbeddingCache;
+import com.search.vector.cache.MappedVectorStore;
+import com.search.vector.warmup.ModelWarmup;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * Local embedding service using hash-based embeddings for development
+ * Local embedding service running BGE/GTE-style encoders on CPU
  *
- * This is a lightweight implementation for development/testing.
- * In production, replace with actual embedding models:
- * - BGE (BAAI General Embedding)
- * - GTE (General Text Embeddings)
- * - OpenAI embeddings
- * - DJL with PyTorch models
+ * The model is loaded from embedding.model-path with DJL, using the ONNX
+ * Runtime engine by default. Texts are tokenized on the caller's thread
+ * (through a tokenization cache) and then handed to an {@link InferenceScheduler}
+ * that groups them by token length: texts from concurrent requests that fall
+ * into the same length bucket share one padded forward pass. Texts seen
+ * before are answered from an {@link EmbeddingCache} without tokenizing.
+ *
+ * The model is loaded and warmed up on a background thread: full batches of
+ * synthetic tokens run through every length bucket until latency settles,
+ * and the service reports not ready (and rejects requests) until then.
+ *
+ * When embedding.use-model is false, or the model cannot be loaded, a
+ * hash-based embedding is used for development.
  */
 @Service
 public class LocalEmbeddingService implements EmbeddingService {
@@ -33,34 +71,241 @@ public class LocalEmbeddingService implements EmbeddingService {
     @Value("${embedding.use-model:false}")
     private boolean useModel;
 
-    public LocalEmbeddingService() {
-        log.info("Initializing LocalEmbeddingService with model: {}, dimension: {}", modelName, dimension);
+    @Value("${embedding.model-path:}")
+    private String modelPath;
+
+    @Value("${embedding.engine:OnnxRuntime}")
+    private String engine;
+
+    @Value("${embedding.max-length:512}")
+    private int maxLength;
+
+    @Value("${embedding.pooling:cls}")
+    private String pooling;
+
+    @Value("${embedding.token-type-ids:true}")
+    private boolean useTokenTypeIds;
+
+    @Value("${embedding.tokenizer-cache-size:100000}")
+    private long tokenizerCacheSize;
+
+    @Value("${embedding.batch-size:32}")
+    private int maxBatchSize;
+
+    @Value("${embedding.batch.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${embedding.batch.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${embedding.batch.length-buckets:32,64,128,256,512}")
+    private int[] lengthBuckets;
+
+    @Value("${embedding.batch.max-in-flight:8192}")
+    private int maxInFlight;
+
+    @Value("${embedding.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${embedding.cache.max-entries:100000}")
+    private long cacheMaxEntries;
+
+    @Value("${embedding.cache.disk.path:}")
+    private String cacheDiskPath;
+
+    @Value("${embedding.cache.disk.max-entries:1000000}")
+    private long cacheDiskMaxEntries;
+
+    @Value("${embedding.warmup.enabled:true}")
+    private boolean warmupEnabled;
+
+    @Value("${embedding.warmup.min-rounds:3}")
+    private int warmupMinRounds;
+
+    @Value("${embedding.warmup.max-rounds:50}")
+    private int warmupMaxRounds;
+
+    @Value("${embedding.warmup.tolerance:0.2}")
+    private double warmupTolerance;
+
+    @Value("${embedding.warmup.timeout-ms:120000}")
+    private long warmupTimeoutMs;
+
+    private final MeterRegistry meterRegistry;
+
+    private ZooModel<NDList, NDList> model;
+    private HuggingFaceTokenizer tokenizer;
+    private Cache<String, Tokens> tokenCache;
+    private InferenceScheduler<Tokens, float[]> scheduler;
+    private EmbeddingCache embeddingCache;
+
+    /**
+     * Set once the model is loaded and warmed up; everything above is
+     * assigned before it
+     */
+    private volatile boolean ready;
+
+    /**
+     * Predictors are not thread-safe and every length bucket dispatches on
+     * its own thread, so each batch borrows one from this pool
+     */
+    private final Queue<Predictor<NDList, NDList>> idlePredictors = new ConcurrentLinkedQueue<>();
+    private final Queue<Predictor<NDList, NDList>> allPredictors = new ConcurrentLinkedQueue<>();
+
+    public LocalEmbeddingService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!useModel) {
+            ready = true;
+            log.info("Initialized LocalEmbeddingService with model: {}, dimension: {}, modelLoaded: false",
+                    modelName, dimension);
+            return;
+        }
+
+        Thread loader = new Thread(this::loadAndWarmUp, "embedding-warmup");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Load the model, warm it up and then report ready
+     */
+    private void loadAndWarmUp() {
+        try {
+            loadModel();
+            if (model != null) {
+                tokenCache = Caffeine.newBuilder()
+                        .maximumSize(tokenizerCacheSize)
+                        .build();
+                scheduler = new InferenceScheduler<>("embedding", lengthBuckets, tokens -> tokens.ids.length,
+                        maxBatchSize, maxWaitMs, queueCapacity, maxInFlight, this::embedBatchWithModel, meterRegistry);
+                if (cacheEnabled) {
+                    embeddingCache = new EmbeddingCache(modelName, cacheMaxEntries, openDiskCache(), meterRegistry);
+                }
+                if (warmupEnabled) {
+                    warmUp();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Embedding model warmup failed, serving without it", e);
+        } finally {
+            ready = true;
+            log.info("Initialized LocalEmbeddingService with model: {}, dimension: {}, modelLoaded: {}",
+                    modelName, dimension, model != null);
+        }
+    }
+
+    /**
+     * Run full batches of synthetic tokens through every length bucket
+     *
+     * Goes through the scheduler so each bucket's dispatcher thread and
+     * predictor are warmed, not just the kernels.
+     */
+    private void warmUp() {
+        ModelWarmup warmup = new ModelWarmup("embedding", warmupMinRounds, warmupMaxRounds, warmupTolerance,
+                warmupTimeoutMs, meterRegistry);
+        Encoding sample = tokenizer.encode("warmup");
+
+        int[] bounds = lengthBuckets.clone();
+        Arrays.sort(bounds);
+        for (int bound : bounds) {
+            if (warmup.isTimedOut()) {
+                break;
+            }
+            List<Tokens> batch = Collections.nCopies(maxBatchSize,
+                    syntheticTokens(sample, Math.min(bound, maxLength)));
+            warmup.warm("length-" + bound, () -> CompletableFuture
+                    .allOf(scheduler.submitAll(batch).toArray(new CompletableFuture[0]))
+                    .join());
+        }
+        warmup.finish();
+    }
+
+    /**
+     * Tokens of the given length built from a real encoding: its first and
+     * last special tokens around repeats of its first word piece
+     */
+    private Tokens syntheticTokens(Encoding sample, int length) {
+        long[] sampleIds = sample.getIds();
+        long[] ids = new long[Math.max(2, length)];
+        Arrays.fill(ids, sampleIds.length > 2 ? sampleIds[1] : sampleIds[0]);
+        ids[0] = sampleIds[0];
+        ids[ids.length - 1] = sampleIds[sampleIds.length - 1];
+        return new Tokens(ids, new long[ids.length]);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.close();
+            log.info("Embedding batch stats by size: {}", scheduler.getBatchSizeStats().snapshot());
+        }
+        if (embeddingCache != null) {
+            try {
+                embeddingCache.close();
+            } catch (IOException e) {
+                log.warn("Failed to close embedding disk cache", e);
+            }
+        }
+        allPredictors.forEach(Predictor::close);
+        if (model != null) {
+            model.close();
+        }
+        if (tokenizer != null) {
+            tokenizer.close();
+        }
     }
 
     @Override
     public float[] embed(String text) {
+        return embedAsync(text).join();
+    }
+
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        return embedBatchAsync(texts).join();
+    }
+
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text) {
         if (text == null || text.isEmpty()) {
-            return new float[dimension];
+            return CompletableFuture.completedFuture(new float[dimension]);
+        }
+        if (!ready) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Embedding model is warming up"));
         }
 
-        if (useModel) {
-            return embedWithModel(text);
+        if (embeddingCache != null) {
+            return embeddingCache.get(text, t -> scheduler.submit(tokenize(t)));
+        }
+        if (scheduler != null) {
+            return scheduler.submit(tokenize(text));
         }
 
         // Simple hash-based embedding for development
-        return embedWithHash(text);
+        return CompletableFuture.completedFuture(embedWithHash(text));
     }
 
     @Override
-    public List<float[]> embedBatch(List<String> texts) {
-        List<float[]> embeddings = new ArrayList<>(texts.size());
-
+    public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+        // Submit everything first so the texts fill batches instead of running one by one
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
         for (String text : texts) {
-            embeddings.add(embed(text));
+            futures.add(embedAsync(text));
         }
 
-        log.info("Generated {} embeddings using model: {}", embeddings.size(), modelName);
-        return embeddings;
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    List<float[]> embeddings = new ArrayList<>(futures.size());
+                    for (CompletableFuture<float[]> future : futures) {
+                        embeddings.add(future.join());
+                    }
+                    log.debug("Generated {} embeddings using model: {}", embeddings.size(), modelName);
+                    return embeddings;
+                });
     }
 
     @Override
@@ -75,7 +320,145 @@ public class LocalEmbeddingService implements EmbeddingService {
 
     @Override
     public boolean isReady() {
-        return true; // Always ready for local hash-based embedding
+        return ready; // Falls back to hash-based embedding when no model is loaded
+    }
+
+    @Override
+    public Map<Integer, BatchSizeStats.Snapshot> getBatchStats() {
+        return scheduler != null ? scheduler.getBatchSizeStats().snapshot() : Map.of();
+    }
+
+    @Override
+    public EmbeddingCache.Stats getCacheStats() {
+        return embeddingCache != null ? embeddingCache.getStats() : null;
+    }
+
+    /**
+     * Open the disk tier of the embedding cache, if configured
+     */
+    private MappedVectorStore openDiskCache() {
+        if (cacheDiskPath == null || cacheDiskPath.isEmpty()) {
+            return null;
+        }
+        try {
+            MappedVectorStore store = new MappedVectorStore(Paths.get(cacheDiskPath), dimension, cacheDiskMaxEntries);
+            log.info("Opened embedding disk cache: path={}, entries={}, capacity={}",
+                    cacheDiskPath, store.size(), store.getCapacity());
+            return store;
+        } catch (IOException e) {
+            log.error("Failed to open embedding disk cache at {}, caching in memory only", cacheDiskPath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Tokenize a text, reusing the result for texts seen recently
+     */
+    private Tokens tokenize(String text) {
+        return tokenCache.get(text, t -> {
+            Encoding encoding = tokenizer.encode(t);
+            return new Tokens(encoding.getIds(), encoding.getTypeIds());
+        });
+    }
+
+    /**
+     * Run the encoder on one padded batch; called by the scheduler's bucket threads
+     */
+    private List<float[]> embedBatchWithModel(List<Tokens> batch) {
+        int batchSize = batch.size();
+        int seqLength = 0;
+        for (Tokens tokens : batch) {
+            seqLength = Math.max(seqLength, tokens.ids.length);
+        }
+
+        // Pad to the longest text in the batch; padded positions are masked out
+        long[] ids = new long[batchSize * seqLength];
+        long[] mask = new long[batchSize * seqLength];
+        long[] types = new long[batchSize * seqLength];
+        for (int i = 0; i < batchSize; i++) {
+            Tokens tokens = batch.get(i);
+            System.arraycopy(tokens.ids, 0, ids, i * seqLength, tokens.ids.length);
+            System.arraycopy(tokens.typeIds, 0, types, i * seqLength, tokens.typeIds.length);
+            for (int j = 0; j < tokens.ids.length; j++) {
+                mask[i * seqLength + j] = 1;
+            }
+        }
+
+        Predictor<NDList, NDList> predictor = borrowPredictor();
+        try (NDManager manager = model.getNDManager().newSubManager()) {
+            Shape shape = new Shape(batchSize, seqLength);
+            NDArray idsArray = manager.create(ids, shape);
+            idsArray.setName("input_ids");
+            NDArray maskArray = manager.create(mask, shape);
+            maskArray.setName("attention_mask");
+            NDList inputs = new NDList(idsArray, maskArray);
+            if (useTokenTypeIds) {
+                NDArray typesArray = manager.create(types, shape);
+                typesArray.setName("token_type_ids");
+                inputs.add(typesArray);
+            }
+
+            NDArray output = predictor.predict(inputs).get(0);
+            return pool(output.toFloatArray(), output.getShape(), mask, batchSize, seqLength);
+
+        } catch (Exception e) {
+            throw new IllegalStateException("Embedding inference failed for batch of " + batchSize, e);
+        } finally {
+            idlePredictors.offer(predictor);
+        }
+    }
+
+    /**
+     * Reduce the encoder output to one normalized vector per text
+     *
+     * A 2-d output is already pooled; a 3-d output holds one hidden state per
+     * token and is pooled by embedding.pooling (cls or mean).
+     */
+    private List<float[]> pool(float[] output, Shape shape, long[] mask, int batchSize, int seqLength) {
+        int hidden = (int) shape.get(shape.dimension() - 1);
+        if (hidden != dimension) {
+            throw new IllegalStateException("Model produces " + hidden
+                    + "-d embeddings but embedding.dimension is " + dimension);
+        }
+
+        List<float[]> embeddings = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            float[] embedding = new float[hidden];
+
+            if (shape.dimension() == 2) {
+                System.arraycopy(output, i * hidden, embedding, 0, hidden);
+            } else if ("mean".equalsIgnoreCase(pooling)) {
+                int tokens = 0;
+                for (int t = 0; t < seqLength; t++) {
+                    if (mask[i * seqLength + t] == 0) {
+                        continue;
+                    }
+                    int offset = (i * seqLength + t) * hidden;
+                    for (int h = 0; h < hidden; h++) {
+                        embedding[h] += output[offset + h];
+                    }
+                    tokens++;
+                }
+                for (int h = 0; h < hidden; h++) {
+                    embedding[h] /= Math.max(tokens, 1);
+                }
+            } else {
+                // [CLS] is the first token of every sequence
+                System.arraycopy(output, i * seqLength * hidden, embedding, 0, hidden);
+            }
+
+            embeddings.add(VectorKernels.normalize(embedding));
+        }
+        return embeddings;
+    }
+
+    private Predictor<NDList, NDList> borrowPredictor() {
+        Predictor<NDList, NDList> predictor = idlePredictors.poll();
+        if (predictor == null) {
+            predictor = model.newPredictor();
+            allPredictors.add(predictor);
+        }
+        return predictor;
     }
 
     /**
@@ -95,32 +478,58 @@ public class LocalEmbeddingService implements EmbeddingService {
             embedding[i] = (hash % 100) / 100.0f;
         }
 
-        // L2 normalize
-        float norm = 0;
-        for (float v : embedding) {
-            norm += v * v;
+        return VectorKernels.normalize(embedding);
+    }
+
+    /**
+     * Load the encoder and its tokenizer
+     *
+     * embedding.model-path is either a model file (e.g. bge-base-zh/model.onnx)
+     * or its directory; tokenizer.json is read from the same directory.
+     */
+    private void loadModel() {
+        if (modelPath == null || modelPath.isEmpty()) {
+            log.warn("embedding.model-path is not set, using hash-based embeddings");
+            return;
         }
-        norm = (float) Math.sqrt(norm);
 
-        if (norm > 0) {
-            for (int i = 0; i < dimension; i++) {
-                embedding[i] /= norm;
+        try {
+            Path path = Paths.get(modelPath);
+            Path modelDir = Files.isDirectory(path) ? path : path.getParent();
+
+            Criteria.Builder<NDList, NDList> criteria = Criteria.builder()
+                    .setTypes(NDList.class, NDList.class)
+                    .optModelPath(modelDir)
+                    .optEngine(engine);
+            if (!Files.isDirectory(path)) {
+                String fileName = path.getFileName().toString();
+                int dot = fileName.lastIndexOf('.');
+                criteria.optModelName(dot > 0 ? fileName.substring(0, dot) : fileName);
             }
-        }
 
-        return embedding;
+            model = criteria.build().loadModel();
+            tokenizer = HuggingFaceTokenizer.builder()
+                    .optTokenizerPath(modelDir)
+                    .optMaxLength(maxLength)
+                    .optTruncation(true)
+                    .optPadding(false)
+                    .build();
+
+            log.info("Loaded embedding model: name={}, path={}, engine={}, pooling={}",
+                    modelName, modelPath, engine, pooling);
+
+        } catch (Exception e) {
+            log.error("Failed to load embedding model from {}, using hash-based embeddings", modelPath, e);
+            if (model != null) {
+                model.close();
+            }
+            model = null;
+        }
     }
 
     /**
-     * Generate embedding using actual model
-     *
-     * This would load and run BGE/GTE models via DJL.
-     * For now, it falls back to hash-based embedding.
+     * Unpadded token ids of one text, as cached and submitted to the scheduler
      */
-    private float[] embedWithModel(String text) {
-        // TODO: Implement actual model loading and inference
-        // This would use DJL to load BGE/GTE models from HuggingFace
-        log.warn("Model inference not yet implemented, using hash-based embedding");
-        return embedWithHash(text);
+    private record Tokens(long[] ids, long[] typeIds) {
     }
 }
@@ -0,0 +1,35 @@
+package com.search.vector.service;
+
+import java.util.List;
+
+/**
+ * Service for scoring (query, passage) pairs
+ *
+ * Implementations are typically cross-encoders such as bge-reranker,
+ * which read the query and the passage together and output a relevance score.
+ */
+public interface RerankService {
+
+    /**
+     * Score each passage against the query
+     *
+     * @param query the query text
+     * @param passages the candidate passages
+     * @return relevance scores in [0, 1], in the same order as the passages
+     */
+    float[] score(String query, List<String> passages);
+
+    /**
+     * Get the model name/identifier
+     *
+     * @return model name
+     */
+    String getModelName();
+
+    /**
+     * Check if the service is ready to score pairs
+     *
+     * @return true if ready
+     */
+    boolean isReady();
+}
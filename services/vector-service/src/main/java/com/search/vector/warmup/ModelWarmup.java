@@ -0,0 +1,166 @@
+package com.search.vector.warmup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs synthetic inference until latency settles
+ *
+ * The first batches after a model loads pay for JIT compilation, lazy
+ * kernel selection and allocator growth, and can be several times slower
+ * than steady state. Each workload (e.g. one length bucket) is run in
+ * rounds until the last few round latencies lie within a tolerance of each
+ * other, or a round limit is hit. A warmup never runs past its overall
+ * timeout; the service is then served cold rather than never.
+ *
+ * Exports vector.warmup.duration per service and the settled round latency
+ * as vector.warmup.latency per workload.
+ */
+public class ModelWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelWarmup.class);
+
+    private final String service;
+    private final int minRounds;
+    private final int maxRounds;
+    private final double tolerance;
+    private final long deadlineNanos;
+    private final long startNanos;
+    private final MeterRegistry registry;
+
+    private final Map<String, Double> latencies = new LinkedHashMap<>();
+    private volatile double durationSeconds = Double.NaN;
+
+    /**
+     * @param service service being warmed up, used as a metric tag
+     * @param minRounds rounds run per workload before latency can count as settled
+     * @param maxRounds rounds after which a workload stops even if not settled
+     * @param tolerance allowed spread of the last minRounds latencies, relative to the fastest
+     * @param timeoutMs overall time limit
+     * @param registry registry for warmup metrics, or null
+     */
+    public ModelWarmup(String service, int minRounds, int maxRounds, double tolerance, long timeoutMs,
+                       MeterRegistry registry) {
+        this.service = service;
+        this.minRounds = Math.max(1, minRounds);
+        this.maxRounds = Math.max(this.minRounds, maxRounds);
+        this.tolerance = tolerance;
+        this.registry = registry;
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        if (registry != null) {
+            Gauge.builder("vector.warmup.duration", this, w -> w.durationSeconds)
+                    .description("Time from warmup start until the service became ready")
+                    .baseUnit("seconds")
+                    .tag("service", service)
+                    .strongReference(true)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Run rounds of one workload until its latency settles
+     *
+     * @param workload workload name, used as a metric tag
+     * @param round one round of synthetic inference; exceptions propagate
+     * @return settled round latency in milliseconds, the last one if it never settled
+     */
+    public double warm(String workload, Runnable round) {
+        Deque<Long> recent = new ArrayDeque<>(minRounds);
+        long last = 0;
+        int rounds = 0;
+        boolean settled = false;
+
+        while (rounds < maxRounds && !isTimedOut()) {
+            long start = System.nanoTime();
+            round.run();
+            last = System.nanoTime() - start;
+            rounds++;
+
+            if (recent.size() == minRounds) {
+                recent.removeFirst();
+            }
+            recent.addLast(last);
+            if (recent.size() == minRounds && spread(recent) <= tolerance) {
+                settled = true;
+                break;
+            }
+        }
+
+        double latencyMs = (double) last / TimeUnit.MILLISECONDS.toNanos(1);
+        synchronized (latencies) {
+            latencies.put(workload, latencyMs);
+        }
+        if (registry != null) {
+            Gauge.builder("vector.warmup.latency", () -> latencyMs / 1000)
+                    .description("Round latency at the end of warmup")
+                    .baseUnit("seconds")
+                    .tags("service", service, "workload", workload)
+                    .strongReference(true)
+                    .register(registry);
+        }
+
+        if (settled) {
+            log.info("Warmed up {}/{} in {} rounds, latency {} ms", service, workload, rounds,
+                    String.format("%.1f", latencyMs));
+        } else {
+            log.warn("Latency of {}/{} did not settle in {} rounds, last {} ms", service, workload, rounds,
+                    String.format("%.1f", latencyMs));
+        }
+        return latencyMs;
+    }
+
+    /**
+     * Mark the warmup done and record its duration
+     *
+     * @return warmup duration in milliseconds
+     */
+    public long finish() {
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        durationSeconds = durationMs / 1000.0;
+        log.info("Warmup of {} finished in {} ms{}", service, durationMs, isTimedOut() ? " (timed out)" : "");
+        return durationMs;
+    }
+
+    /**
+     * Check if the overall time limit has passed
+     *
+     * @return true if timed out
+     */
+    public boolean isTimedOut() {
+        return System.nanoTime() - deadlineNanos > 0;
+    }
+
+    /**
+     * Settled latencies so far
+     *
+     * @return workload to latency in milliseconds, in warmup order
+     */
+    public Map<String, Double> getLatencies() {
+        synchronized (latencies) {
+            return new LinkedHashMap<>(latencies);
+        }
+    }
+
+    /**
+     * Relative spread of a window of latencies: (max - min) / min
+     */
+    private static double spread(Deque<Long> window) {
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (long value : window) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return min > 0 ? (double) (max - min) / min : 0;
+    }
+}
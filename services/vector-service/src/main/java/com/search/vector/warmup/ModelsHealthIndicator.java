@@ -0,0 +1,37 @@
+package com.search.vector.warmup;
+
+import com.search.vector.service.EmbeddingService;
+import com.search.vector.service.ImageEmbeddingService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports OUT_OF_SERVICE until the embedding models are loaded and warmed up
+ *
+ * Part of the readiness group, so traffic is only routed to an instance
+ * once its first requests will not pay the warmup cost.
+ */
+@Component
+public class ModelsHealthIndicator implements HealthIndicator {
+
+    private final EmbeddingService embeddingService;
+    private final ImageEmbeddingService imageEmbeddingService;
+
+    public ModelsHealthIndicator(EmbeddingService embeddingService, ImageEmbeddingService imageEmbeddingService) {
+        this.embeddingService = embeddingService;
+        this.imageEmbeddingService = imageEmbeddingService;
+    }
+
+    @Override
+    public Health health() {
+        boolean embeddingReady = embeddingService.isReady();
+        boolean imageReady = imageEmbeddingService.isReady();
+
+        Health.Builder builder = embeddingReady && imageReady ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("embedding", embeddingReady ? "ready" : "warming up")
+                .withDetail("image", imageReady ? "ready" : "warming up")
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.search.vector.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DynamicBatcher
+ */
+class DynamicBatcherTest {
+
+    private DynamicBatcher<Integer, Integer> batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void testSingleItemIsDispatchedAfterMaxWait() {
+        batcher = new DynamicBatcher<>("test", 8, 20, 100,
+                items -> items.stream().map(i -> i * 2).collect(Collectors.toList()));
+
+        long start = System.nanoTime();
+        int result = batcher.submit(21).join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(42, result);
+        assertTrue(elapsedMs < 1000, "Single item should not wait much longer than maxWait");
+    }
+
+    @Test
+    void testOutputsMatchInputOrder() {
+        batcher = new DynamicBatcher<>("test", 4, 5, 100,
+                items -> items.stream().map(i -> i + 100).collect(Collectors.toList()));
+
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            inputs.add(i);
+        }
+
+        List<CompletableFuture<Integer>> futures = batcher.submitAll(inputs);
+
+        for (int i = 0; i < inputs.size(); i++) {
+            assertEquals(i + 100, futures.get(i).join());
+        }
+    }
+
+    @Test
+    void testBatchSizeNeverExceedsMax() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        batcher = new DynamicBatcher<>("test", 3, 50, 100, items -> {
+            batchSizes.add(items.size());
+            return items;
+        });
+
+        List<CompletableFuture<Integer>> futures = batcher.submitAll(List.of(1, 2, 3, 4, 5, 6, 7));
+        futures.forEach(CompletableFuture::join);
+
+        assertEquals(7, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 3));
+    }
+
+    @Test
+    void testConcurrentCallersShareBatches() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        batcher = new DynamicBatcher<>("test", 16, 50, 100, items -> {
+            batchSizes.add(items.size());
+            return items;
+        });
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Integer>> futures = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+            int value = i;
+            pool.submit(() -> {
+                start.await();
+                futures.add(batcher.submit(value));
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        futures.forEach(CompletableFuture::join);
+
+        // All callers arrived within the wait window, so fewer batches than callers
+        assertTrue(batchSizes.size() < callers);
+    }
+
+    @Test
+    void testHandlerFailureCompletesAllFuturesExceptionally() {
+        batcher = new DynamicBatcher<>("test", 4, 5, 100, items -> {
+            throw new IllegalStateException("model error");
+        });
+
+        CompletableFuture<Integer> future = batcher.submit(1);
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void testHandlerReturningWrongSizeFails() {
+        batcher = new DynamicBatcher<>("test", 4, 5, 100, items -> List.of());
+
+        assertThrows(CompletionException.class, () -> batcher.submit(1).join());
+    }
+
+    @Test
+    void testSubmitAfterCloseIsRejected() {
+        batcher = new DynamicBatcher<>("test", 4, 5, 100, items -> items);
+        batcher.close();
+
+        CompletionException e = assertThrows(CompletionException.class, () -> batcher.submit(1).join());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    @Test
+    void testStatsTrackBatches() {
+        batcher = new DynamicBatcher<>("stats", 4, 5, 100, items -> items);
+
+        batcher.submitAll(List.of(1, 2, 3, 4)).forEach(CompletableFuture::join);
+
+        assertTrue(batcher.getAverageBatchSize() > 0);
+        assertTrue(batcher.getStats().contains("name=stats"));
+        assertTrue(batcher.getStats().contains("submitted=4"));
+    }
+
+    @Test
+    void testListenerSeesEveryBatch() {
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        List<Long> waits = new CopyOnWriteArrayList<>();
+        batcher = new DynamicBatcher<>("test", 4, 5, 100, items -> items, (size, waitNanos) -> {
+            sizes.add(size);
+            for (long nanos : waitNanos) {
+                waits.add(nanos);
+            }
+        });
+
+        batcher.submitAll(List.of(1, 2, 3, 4, 5)).forEach(CompletableFuture::join);
+
+        assertEquals(5, sizes.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(5, waits.size());
+        assertTrue(waits.stream().allMatch(nanos -> nanos >= 0));
+    }
+}
@@ -0,0 +1,143 @@
+package com.search.vector.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InferenceScheduler and BatchSizeStats
+ */
+class InferenceSchedulerTest {
+
+    private InferenceScheduler<String, Integer> scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void testBucketOf() {
+        scheduler = new InferenceScheduler<>("test", new int[]{64, 16, 32}, String::length, 4, 5, 100, 1000,
+                items -> items.stream().map(String::length).toList(), null);
+
+        assertEquals(0, scheduler.bucketOf(1));
+        assertEquals(0, scheduler.bucketOf(16));
+        assertEquals(1, scheduler.bucketOf(17));
+        assertEquals(2, scheduler.bucketOf(64));
+        assertEquals(2, scheduler.bucketOf(1000));
+    }
+
+    @Test
+    void testBatchesNeverMixBuckets() {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        scheduler = new InferenceScheduler<>("test", new int[]{4, 16}, String::length, 8, 50, 100, 1000, items -> {
+            batches.add(items);
+            return items.stream().map(String::length).toList();
+        }, null);
+
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            inputs.add("ab");
+            inputs.add("abcdefghij");
+        }
+        List<CompletableFuture<Integer>> futures = scheduler.submitAll(inputs);
+
+        for (int i = 0; i < inputs.size(); i++) {
+            assertEquals(inputs.get(i).length(), futures.get(i).join());
+        }
+        for (List<String> batch : batches) {
+            assertTrue(batch.stream().allMatch(s -> s.length() <= 4)
+                    || batch.stream().allMatch(s -> s.length() > 4));
+        }
+        // Each bucket's items arrived together, so they share batches
+        assertTrue(batches.size() < inputs.size());
+    }
+
+    @Test
+    void testBatchSizeStatsAreRecorded() {
+        scheduler = new InferenceScheduler<>("test", new int[]{8}, String::length, 4, 50, 100, 1000,
+                items -> items.stream().map(String::length).toList(), null);
+
+        scheduler.submitAll(List.of("a", "b", "c", "d")).forEach(CompletableFuture::join);
+
+        Map<Integer, BatchSizeStats.Snapshot> stats = scheduler.getBatchSizeStats().snapshot();
+        long items = stats.entrySet().stream().mapToLong(e -> e.getKey() * e.getValue().batches()).sum();
+        assertEquals(4, items);
+        assertTrue(scheduler.getStats().contains("name=test-8"));
+    }
+
+    @Test
+    void testInFlightIsBounded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler = new InferenceScheduler<>("test", new int[]{8}, String::length, 1, 0, 100, 2, items -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return items.stream().map(String::length).toList();
+        }, null);
+
+        CompletableFuture<Integer> first = scheduler.submit("a");
+        CompletableFuture<Integer> second = scheduler.submit("bb");
+        CompletableFuture<Integer> third = scheduler.submit("ccc");
+
+        CompletionException e = assertThrows(CompletionException.class, third::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(2, scheduler.getInFlight());
+
+        release.countDown();
+        assertEquals(1, first.join());
+        assertEquals(2, second.join());
+        assertEquals(0, scheduler.getInFlight());
+        assertEquals(1, scheduler.submit("d").join());
+    }
+
+    @Test
+    void testMetricsAreExported() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        scheduler = new InferenceScheduler<>("embedding", new int[]{4, 16}, String::length, 4, 50, 100, 1000,
+                items -> items.stream().map(String::length).toList(), registry);
+
+        scheduler.submitAll(List.of("a", "b", "c", "d")).forEach(CompletableFuture::join);
+
+        assertEquals(0, registry.get("vector.inference.queue.depth").tags("bucket", "16").gauge().value());
+        assertEquals(4, registry.get("vector.inference.queue.wait").tags("bucket", "4").timer().count());
+        double fillSum = registry.get("vector.inference.batch.fill").tags("bucket", "4").summary().totalAmount();
+        assertEquals(1.0, fillSum, 1e-9);
+        assertEquals(0, registry.get("vector.inference.inflight").gauge().value());
+        assertNotNull(registry.find("vector.inference.batch.duration").timer());
+    }
+
+    @Test
+    void testBatchSizeStatsSnapshot() {
+        BatchSizeStats stats = new BatchSizeStats(8);
+        stats.record(4, 2_000_000);
+        stats.record(4, 6_000_000);
+        stats.record(20, 1_000_000);
+
+        Map<Integer, BatchSizeStats.Snapshot> snapshot = stats.snapshot();
+        assertEquals(List.of(4, 8), new ArrayList<>(snapshot.keySet()));
+
+        BatchSizeStats.Snapshot four = snapshot.get(4);
+        assertEquals(2, four.batches());
+        assertEquals(4.0, four.avgLatencyMs(), 1e-9);
+        assertEquals(6.0, four.maxLatencyMs(), 1e-9);
+        assertEquals(1000.0, four.throughputPerSec(), 1e-6);
+    }
+}
@@ -0,0 +1,151 @@
+package com.search.vector.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmbeddingCache and MappedVectorStore
+ */
+class EmbeddingCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger computed = new AtomicInteger();
+
+    private final Function<String, CompletableFuture<float[]>> loader = text -> {
+        computed.incrementAndGet();
+        return CompletableFuture.completedFuture(new float[]{text.length(), 1, 2});
+    };
+
+    @Test
+    void testNormalize() {
+        assertEquals("red shoes", EmbeddingCache.normalize("  red \t\n shoes  "));
+        assertEquals("Red Shoes", EmbeddingCache.normalize("Red Shoes"));
+        assertEquals("", EmbeddingCache.normalize(" \n "));
+    }
+
+    @Test
+    void testKeyDependsOnModelAndNormalizedText() {
+        EmbeddingCache bge = new EmbeddingCache("bge", 10, null, null);
+        EmbeddingCache gte = new EmbeddingCache("gte", 10, null, null);
+
+        assertEquals(bge.key("red shoes"), bge.key(" red  shoes\n"));
+        assertNotEquals(bge.key("red shoes"), bge.key("red shoe"));
+        assertNotEquals(bge.key("red shoes"), gte.key("red shoes"));
+    }
+
+    @Test
+    void testRepeatTextIsComputedOnce() {
+        EmbeddingCache cache = new EmbeddingCache("bge", 10, null, new SimpleMeterRegistry());
+
+        float[] first = cache.get("red shoes", loader).join();
+        float[] second = cache.get("red  shoes", loader).join();
+
+        assertSame(first, second);
+        assertEquals(1, computed.get());
+        assertEquals(1, cache.getStats().memoryHits());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneComputation() {
+        EmbeddingCache cache = new EmbeddingCache("bge", 10, null, null);
+        CompletableFuture<float[]> pending = new CompletableFuture<>();
+
+        CompletableFuture<float[]> first = cache.get("a", text -> {
+            computed.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<float[]> second = cache.get("a", loader);
+        pending.complete(new float[]{1, 2, 3});
+
+        assertArrayEquals(first.join(), second.join());
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        EmbeddingCache cache = new EmbeddingCache("bge", 10, null, null);
+
+        CompletableFuture<float[]> failed = cache.get("a",
+                text -> CompletableFuture.failedFuture(new IllegalStateException("model error")));
+        assertThrows(CompletionException.class, failed::join);
+
+        assertArrayEquals(new float[]{1, 1, 2}, cache.get("a", loader).join());
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    void testDiskTierSurvivesRestart() throws Exception {
+        Path file = tempDir.resolve("embeddings.bin");
+
+        EmbeddingCache cache = new EmbeddingCache("bge", 10, new MappedVectorStore(file, 3, 100), null);
+        cache.get("red shoes", loader).join();
+        cache.close();
+
+        EmbeddingCache reopened = new EmbeddingCache("bge", 10, new MappedVectorStore(file, 3, 100), null);
+        assertArrayEquals(new float[]{9, 1, 2}, reopened.get("red shoes", loader).join());
+        assertEquals(1, computed.get());
+        assertEquals(1, reopened.getStats().diskHits());
+        assertEquals(1, reopened.getStats().diskEntries());
+        reopened.close();
+    }
+
+    @Test
+    void testStoreStaysWithinCapacity() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(tempDir.resolve("small.bin"), 2, 4)) {
+            for (int i = 1; i <= 20; i++) {
+                store.put(i, i * 31L, new float[]{i, -i});
+            }
+
+            assertTrue(store.size() <= 4);
+            assertArrayEquals(new float[]{20, -20}, store.get(20, 20 * 31L));
+            assertNull(store.get(99, 99));
+        }
+    }
+
+    @Test
+    void testStoreResetsOnDimensionChange() throws Exception {
+        Path file = tempDir.resolve("embeddings.bin");
+        try (MappedVectorStore store = new MappedVectorStore(file, 2, 16)) {
+            store.put(1, 2, new float[]{1, 2});
+        }
+
+        try (MappedVectorStore store = new MappedVectorStore(file, 3, 16)) {
+            assertEquals(0, store.size());
+            assertNull(store.get(1, 2));
+        }
+    }
+
+    @Test
+    void testCorruptSlotReadsAsMiss() throws Exception {
+        Path file = tempDir.resolve("embeddings.bin");
+        try (MappedVectorStore store = new MappedVectorStore(file, 2, 1)) {
+            store.put(1, 2, new float[]{1, 2});
+        }
+
+        // Flip the first vector value of the only slot (64-byte header, 16-byte key, 4-byte checksum)
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putFloat(0, 7f);
+            channel.write(value, 64 + 20);
+        }
+
+        try (MappedVectorStore store = new MappedVectorStore(file, 2, 1)) {
+            assertNull(store.get(1, 2));
+        }
+    }
+}
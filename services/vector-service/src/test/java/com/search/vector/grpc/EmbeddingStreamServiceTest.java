@@ -0,0 +1,197 @@
+package com.search.vector.grpc;
+
+import com.search.vector.service.EmbeddingService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmbeddingStreamService
+ */
+class EmbeddingStreamServiceTest {
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() {
+        if (channel != null) {
+            channel.shutdownNow();
+        }
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+
+    private EmbeddingStreamGrpc.EmbeddingStreamStub start(EmbeddingService embeddingService, int maxInFlight)
+            throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(new EmbeddingStreamService(embeddingService, maxInFlight))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return EmbeddingStreamGrpc.newStub(channel);
+    }
+
+    private static EmbedRequest batch(long id, String... texts) {
+        return EmbedRequest.newBuilder().setBatchId(id).addAllTexts(List.of(texts)).build();
+    }
+
+    @Test
+    void testBatchesRoundTrip() throws Exception {
+        EmbeddingStreamGrpc.EmbeddingStreamStub stub = start(new FakeEmbeddingService(), 4);
+        Collector collector = new Collector();
+
+        StreamObserver<EmbedRequest> requests = stub.embed(collector);
+        requests.onNext(batch(1, "a", "bbb"));
+        requests.onNext(batch(2, "cc"));
+        requests.onCompleted();
+
+        assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+        assertNull(collector.error);
+
+        EmbedResponse first = collector.responses.get(1L);
+        assertEquals(2, first.getDimension());
+        assertEquals(List.of(1f, 0f, 3f, 1f), first.getValuesList());
+        assertEquals(List.of(2f, 0f), collector.responses.get(2L).getValuesList());
+    }
+
+    @Test
+    void testInFlightBatchesAreBoundedPerStream() throws Exception {
+        FakeEmbeddingService embeddingService = new FakeEmbeddingService();
+        embeddingService.hold = true;
+        EmbeddingStreamGrpc.EmbeddingStreamStub stub = start(embeddingService, 2);
+        Collector collector = new Collector();
+
+        StreamObserver<EmbedRequest> requests = stub.embed(collector);
+        for (int i = 0; i < 5; i++) {
+            requests.onNext(batch(i, "text" + i));
+        }
+
+        // Only two batches are pulled from the stream until one is answered
+        assertEquals(2, embeddingService.held.size());
+        embeddingService.held.take().run();
+        assertEquals(2, embeddingService.held.size());
+        assertEquals(1, collector.responses.size());
+
+        requests.onCompleted();
+        while (collector.responses.size() < 5) {
+            Runnable next = embeddingService.held.poll(5, TimeUnit.SECONDS);
+            assertNotNull(next);
+            next.run();
+        }
+        assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testRejectedBatchIsRetryable() throws Exception {
+        FakeEmbeddingService embeddingService = new FakeEmbeddingService();
+        embeddingService.reject = true;
+        EmbeddingStreamGrpc.EmbeddingStreamStub stub = start(embeddingService, 4);
+        Collector collector = new Collector();
+
+        StreamObserver<EmbedRequest> requests = stub.embed(collector);
+        requests.onNext(batch(7, "a"));
+        requests.onCompleted();
+
+        assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+        EmbedResponse response = collector.responses.get(7L);
+        assertTrue(response.getRetryable());
+        assertFalse(response.getError().isEmpty());
+        assertEquals(0, response.getValuesCount());
+    }
+
+    private static class Collector implements StreamObserver<EmbedResponse> {
+        final Map<Long, EmbedResponse> responses = new ConcurrentHashMap<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable error;
+
+        @Override
+        public void onNext(EmbedResponse response) {
+            responses.put(response.getBatchId(), response);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Embeds each text as [length, position in batch]
+     */
+    private static class FakeEmbeddingService implements EmbeddingService {
+        volatile boolean hold;
+        volatile boolean reject;
+        final BlockingQueue<Runnable> held = new LinkedBlockingQueue<>();
+
+        @Override
+        public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+            if (reject) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("saturated"));
+            }
+            CompletableFuture<List<float[]>> future = new CompletableFuture<>();
+            Runnable complete = () -> future.complete(embedBatch(texts));
+            if (hold) {
+                held.add(complete);
+            } else {
+                complete.run();
+            }
+            return future;
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return new float[]{text.length(), 0};
+        }
+
+        @Override
+        public List<float[]> embedBatch(List<String> texts) {
+            List<float[]> vectors = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                vectors.add(new float[]{texts.get(i).length(), i});
+            }
+            return vectors;
+        }
+
+        @Override
+        public int getDimension() {
+            return 2;
+        }
+
+        @Override
+        public String getModelName() {
+            return "fake";
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+    }
+}
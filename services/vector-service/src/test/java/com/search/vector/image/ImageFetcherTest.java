@@ -0,0 +1,174 @@
+package com.search.vector.image;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImageFetcher against a local stub server
+ */
+class ImageFetcherTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private ImageFetcher fetcher;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        byte[] image = ImagePreprocessorTest.png(64, 48, Color.BLUE);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/image.png", exchange -> {
+            exchange.sendResponseHeaders(200, image.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(image);
+            }
+        });
+        server.createContext("/missing.png", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow.png", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+            exchange.sendResponseHeaders(200, image.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(image);
+            }
+        });
+        server.createContext("/stalled.png", exchange -> {
+            // Headers and the first bytes arrive promptly, then the body stalls
+            exchange.sendResponseHeaders(200, image.length);
+            OutputStream body = exchange.getResponseBody();
+            body.write(image, 0, 16);
+            body.flush();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (fetcher != null) {
+            fetcher.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void testFetchDecodesWhileStreaming() throws Exception {
+        fetcher = new ImageFetcher(2, 10, 5000, 1 << 20);
+        ImagePreprocessor preprocessor = new ImagePreprocessor(16, 4);
+
+        BufferedImage image = fetcher.fetch(baseUrl + "/image.png", preprocessor::decode).get(5, TimeUnit.SECONDS);
+
+        assertEquals(64, image.getWidth());
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(10, 10));
+    }
+
+    @Test
+    void testHttpErrorFailsWithIOException() {
+        fetcher = new ImageFetcher(2, 10, 5000, 1 << 20);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> fetcher.fetch(baseUrl + "/missing.png", body -> body.readAllBytes()).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void testOversizedBodyIsRejected() {
+        fetcher = new ImageFetcher(2, 10, 5000, 16);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> fetcher.fetch(baseUrl + "/image.png", body -> body.readAllBytes()).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void testUnsupportedSchemeIsRejected() {
+        fetcher = new ImageFetcher(2, 10, 5000, 1 << 20);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> fetcher.fetch("file:///etc/passwd", body -> body.readAllBytes()).get());
+        assertInstanceOf(IllegalArgumentException.class, thrown.getCause());
+    }
+
+    @Test
+    void testConcurrencyIsBoundedAndExcessRejected() throws Exception {
+        fetcher = new ImageFetcher(2, 2, 5000, 1 << 20);
+
+        List<CompletableFuture<byte[]>> accepted = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            accepted.add(fetcher.fetch(baseUrl + "/slow.png", body -> body.readAllBytes()));
+        }
+
+        // Two downloads run, two wait for a slot, the fifth does not fit
+        CompletableFuture<byte[]> rejected = fetcher.fetch(baseUrl + "/slow.png", body -> body.readAllBytes());
+        ExecutionException thrown = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (concurrent.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(2, maxConcurrent.get());
+
+        release.countDown();
+        for (CompletableFuture<byte[]> future : accepted) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).length > 0);
+        }
+        assertEquals(2, maxConcurrent.get());
+    }
+
+    @Test
+    void testStalledBodyTimesOutAndFreesTheWorker() throws Exception {
+        fetcher = new ImageFetcher(1, 10, 300, 1 << 20);
+
+        long start = System.nanoTime();
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> fetcher.fetch(baseUrl + "/stalled.png", body -> body.readAllBytes()).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(HttpTimeoutException.class, thrown.getCause());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+
+        // The only worker is free again
+        assertTrue(fetcher.fetch(baseUrl + "/image.png", body -> body.readAllBytes())
+                .get(5, TimeUnit.SECONDS).length > 0);
+    }
+}
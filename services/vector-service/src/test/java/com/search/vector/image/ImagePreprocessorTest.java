@@ -0,0 +1,81 @@
+package com.search.vector.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImagePreprocessor and PixelBufferPool
+ */
+class ImagePreprocessorTest {
+
+    static byte[] png(int width, int height, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void testDecodeSubsamplesLargeImages() throws Exception {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(32, 4);
+
+        BufferedImage small = preprocessor.decode(new ByteArrayInputStream(png(50, 40, Color.RED)));
+        assertEquals(50, small.getWidth());
+
+        // 400 / (2 * 32) = 6, so every 6th row and column is decoded
+        BufferedImage large = preprocessor.decode(new ByteArrayInputStream(png(600, 400, Color.RED)));
+        assertEquals(100, large.getWidth());
+        assertEquals(67, large.getHeight());
+    }
+
+    @Test
+    void testDecodeRejectsNonImages() {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(32, 4);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> preprocessor.decode(new ByteArrayInputStream("not an image".getBytes())));
+    }
+
+    @Test
+    void testPreprocessNormalizesChannelFirst() throws Exception {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(8, 4);
+        BufferedImage image = preprocessor.decode(new ByteArrayInputStream(png(40, 20, Color.RED)));
+
+        float[] pixels = preprocessor.preprocess(image);
+
+        assertEquals(3 * 8 * 8, pixels.length);
+        assertEquals((1f - 0.48145466f) / 0.26862954f, pixels[0], 1e-4);
+        assertEquals((0f - 0.4578275f) / 0.26130258f, pixels[64], 1e-4);
+        assertEquals((0f - 0.40821073f) / 0.27577711f, pixels[128 + 63], 1e-4);
+    }
+
+    @Test
+    void testBuffersAreReused() {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(8, 1);
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+
+        float[] first = preprocessor.preprocess(image);
+        float[] second = preprocessor.preprocess(image);
+        preprocessor.release(first);
+        preprocessor.release(second);
+
+        // Only one idle buffer is kept
+        assertEquals(1, preprocessor.getPool().getIdleCount());
+        assertSame(first, preprocessor.preprocess(image));
+        assertEquals(0, preprocessor.getPool().getIdleCount());
+    }
+}
@@ -0,0 +1,79 @@
+package com.search.vector.warmup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ModelWarmup
+ */
+class ModelWarmupTest {
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testStopsOnceLatencySettles() {
+        ModelWarmup warmup = new ModelWarmup("test", 3, 50, 1.0, 10_000, null);
+        AtomicInteger rounds = new AtomicInteger();
+
+        // Two slow cold rounds, then steady
+        warmup.warm("length-32", () -> sleep(rounds.incrementAndGet() <= 2 ? 80 : 10));
+
+        assertTrue(rounds.get() >= 5, "cold rounds must not count as settled");
+        assertTrue(rounds.get() < 50);
+        assertTrue(warmup.getLatencies().get("length-32") < 80);
+    }
+
+    @Test
+    void testStopsAtMaxRoundsWhenLatencyNeverSettles() {
+        ModelWarmup warmup = new ModelWarmup("test", 2, 6, 0.1, 10_000, null);
+        AtomicInteger rounds = new AtomicInteger();
+
+        // Every round takes twice as long as the one before
+        warmup.warm("length-64", () -> sleep(1L << rounds.incrementAndGet()));
+
+        assertEquals(6, rounds.get());
+    }
+
+    @Test
+    void testTimeoutStopsWarmup() {
+        ModelWarmup warmup = new ModelWarmup("test", 3, 1000, 0.0, 50, null);
+        AtomicInteger rounds = new AtomicInteger();
+
+        warmup.warm("length-128", () -> {
+            rounds.incrementAndGet();
+            sleep(20);
+        });
+
+        assertTrue(warmup.isTimedOut());
+        assertTrue(rounds.get() < 10);
+    }
+
+    @Test
+    void testExportsDurationAndLatency() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ModelWarmup warmup = new ModelWarmup("embedding", 1, 1, 0.0, 10_000, registry);
+
+        Gauge duration = registry.get("vector.warmup.duration").tag("service", "embedding").gauge();
+        assertTrue(Double.isNaN(duration.value()), "no duration before the warmup finishes");
+
+        double latencyMs = warmup.warm("length-32", () -> sleep(20));
+        long durationMs = warmup.finish();
+
+        Gauge latency = registry.get("vector.warmup.latency")
+                .tags("service", "embedding", "workload", "length-32").gauge();
+        assertEquals(latencyMs / 1000, latency.value(), 1e-9);
+        assertEquals(durationMs / 1000.0, duration.value(), 1e-9);
+        assertTrue(latency.value() >= 0.02);
+    }
+}